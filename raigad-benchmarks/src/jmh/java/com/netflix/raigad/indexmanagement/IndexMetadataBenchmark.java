@@ -0,0 +1,81 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.indexmanagement;
+
+import com.netflix.raigad.indexmanagement.exception.UnsupportedAutoIndexException;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures matching of index names against index metadata and parsing of their dates,
+ * as done on every index manager run
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IndexMetadataBenchmark {
+    @Param({"40"})
+    public int metadataCount;
+
+    @Param({"1000", "20000"})
+    public int indexCount;
+
+    private List<IndexMetadata> indexMetadataList;
+    private List<String> indexNames;
+
+    @Setup
+    public void setUp() throws UnsupportedAutoIndexException {
+        indexMetadataList = new ArrayList<>(metadataCount);
+        for (int i = 0; i < metadataCount; i++) {
+            String retentionType = i % 2 == 0 ? "DAILY" : "HOURLY";
+            indexMetadataList.add(new IndexMetadata("index_" + i + "_", null, retentionType, "7", true));
+        }
+
+        DateTimeFormatter dailyFormatter = DateTimeFormat.forPattern("YYYYMMdd").withZoneUTC();
+        DateTimeFormatter hourlyFormatter = DateTimeFormat.forPattern("YYYYMMddHH").withZoneUTC();
+        DateTime start = new DateTime(2017, 1, 1, 0, 0, DateTimeZone.UTC);
+
+        indexNames = new ArrayList<>(indexCount);
+        for (int i = 0; i < indexCount; i++) {
+            int metadata = i % metadataCount;
+            DateTimeFormatter formatter = metadata % 2 == 0 ? dailyFormatter : hourlyFormatter;
+            DateTime date = metadata % 2 == 0 ? start.plusDays(i / metadataCount) : start.plusHours(i / metadataCount);
+
+            // Every tenth index is not managed by any metadata
+            String prefix = i % 10 == 0 ? "unmanaged_" : "index_" + metadata + "_";
+            indexNames.add(prefix + formatter.print(date));
+        }
+    }
+
+    @Benchmark
+    public void filterAndParseDates(Blackhole blackhole) {
+        for (IndexMetadata indexMetadata : indexMetadataList) {
+            for (String indexName : indexNames) {
+                if (indexMetadata.getIndexNameFilter().filter(indexName)) {
+                    blackhole.consume(indexMetadata.getDateForIndexName(indexName));
+                }
+            }
+        }
+    }
+}
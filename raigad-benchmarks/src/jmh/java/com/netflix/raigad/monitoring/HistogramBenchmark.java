@@ -0,0 +1,78 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.monitoring;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HistogramBenchmark {
+    private static final int SAMPLE_COUNT = 1024;
+    private static final double[] PERCENTILES = {0.50, 0.95, 0.99, 0.999};
+
+    private final long[] samples = new long[SAMPLE_COUNT];
+    private int sampleIndex;
+
+    private EstimatedHistogram estimatedHistogram;
+    private DecayingEstimatedHistogram decayingEstimatedHistogram;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+
+        // Latencies in microseconds, mostly in the 1-100 ms range
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            samples[i] = 1000 + (long) (Math.abs(random.nextGaussian()) * 20000);
+        }
+
+        estimatedHistogram = new EstimatedHistogram();
+        decayingEstimatedHistogram = new DecayingEstimatedHistogram(5 * 60 * 1000);
+
+        for (long sample : samples) {
+            estimatedHistogram.add(sample);
+            decayingEstimatedHistogram.add(sample);
+        }
+    }
+
+    private long nextSample() {
+        sampleIndex = (sampleIndex + 1) & (SAMPLE_COUNT - 1);
+        return samples[sampleIndex];
+    }
+
+    @Benchmark
+    public void estimatedHistogramAdd() {
+        estimatedHistogram.add(nextSample());
+    }
+
+    @Benchmark
+    public long estimatedHistogramPercentile95And99() {
+        return estimatedHistogram.percentile(0.95) + estimatedHistogram.percentile(0.99);
+    }
+
+    @Benchmark
+    public void decayingHistogramAdd() {
+        decayingEstimatedHistogram.add(nextSample());
+    }
+
+    @Benchmark
+    public long[] decayingHistogramPercentiles() {
+        return decayingEstimatedHistogram.percentiles(PERCENTILES);
+    }
+}
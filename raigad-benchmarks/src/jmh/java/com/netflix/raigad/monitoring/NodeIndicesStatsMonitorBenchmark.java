@@ -0,0 +1,66 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.monitoring;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full NodeIndicesStatsMonitor collection (bean update, deltas and histograms) over canned node stats
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NodeIndicesStatsMonitorBenchmark {
+    private static final int SNAPSHOT_COUNT = 64;
+
+    private NodeIndicesStatsMonitor nodeIndicesStatsMonitor;
+    private NodeStatsSnapshot[] snapshots;
+
+    @Setup
+    public void setUp() {
+        // Snapshots are served directly, so neither configuration nor clients are needed
+        NodeStatsSnapshotService nodeStatsSnapshotService = new NodeStatsSnapshotService(null, null, null, null) {
+            private int snapshotIndex;
+
+            @Override
+            public NodeStatsSnapshot getSnapshot(NodeStatsMetricGroup metricGroup) {
+                snapshotIndex = (snapshotIndex + 1) % SNAPSHOT_COUNT;
+                return snapshots[snapshotIndex];
+            }
+        };
+
+        // There is no Elasticsearch process to check either
+        nodeIndicesStatsMonitor = new NodeIndicesStatsMonitor(null, nodeStatsSnapshotService, () -> true);
+
+        // Built once the monitor has registered the fields it reads
+        snapshots = NodeStatsFixtures.nodeIndicesSnapshots(SNAPSHOT_COUNT);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+                new ObjectName("com.netflix.raigad.scheduler:type=" + NodeIndicesStatsMonitor.class.getName()));
+    }
+
+    @Benchmark
+    public void execute() throws Exception {
+        nodeIndicesStatsMonitor.execute();
+    }
+}
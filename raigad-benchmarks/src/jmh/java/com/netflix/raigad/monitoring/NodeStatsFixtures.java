@@ -0,0 +1,71 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.monitoring;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+
+/**
+ * Canned node stats so that monitors can be benchmarked without a running cluster
+ */
+final class NodeStatsFixtures {
+    private static final NodeStatsJsonReader nodeStatsJsonReader = new NodeStatsJsonReader();
+
+    private NodeStatsFixtures() {
+    }
+
+    /**
+     * Fields are read only if they are registered, i.e. the classes of the monitors reading them must be initialized
+     *
+     * @param count number of snapshots, counters grow from one snapshot to the next
+     */
+    static NodeStatsSnapshot[] nodeIndicesSnapshots(int count) {
+        NodeStatsSnapshot[] snapshots = new NodeStatsSnapshot[count];
+
+        for (int i = 0; i < count; i++) {
+            long operations = 1000L * (i + 1);
+            snapshots[i] = new NodeStatsSnapshot(
+                    nodeStatsValues(operations), EnumSet.of(NodeStatsMetricGroup.INDICES), System.currentTimeMillis());
+        }
+
+        return snapshots;
+    }
+
+    static NodeStatsValues nodeStatsValues(long operations) {
+        String json = "{\"name\": \"benchmark\", \"transport_address\": \"127.0.0.1:7102\", " +
+                "\"indices\": {" +
+                "\"indexing\": {\"index_total\": " + operations + ", \"index_time_in_millis\": " + operations * 2 +
+                ", \"index_current\": 1, \"index_failed\": 0, \"delete_total\": " + operations / 10 +
+                ", \"delete_time_in_millis\": " + operations / 5 + ", \"delete_current\": 0, \"noop_update_total\": 0, " +
+                "\"is_throttled\": false, \"throttle_time_in_millis\": 0}, " +
+                "\"get\": {\"total\": " + (operations + operations / 10) + ", \"time_in_millis\": " + (operations + operations / 10) +
+                ", \"exists_total\": " + operations + ", \"exists_time_in_millis\": " + operations +
+                ", \"missing_total\": " + operations / 10 + ", \"missing_time_in_millis\": " + operations / 10 +
+                ", \"current\": 0}, " +
+                "\"search\": {\"open_contexts\": 2, \"query_total\": " + operations + ", \"query_time_in_millis\": " + operations * 5 +
+                ", \"query_current\": 2, \"fetch_total\": " + operations + ", \"fetch_time_in_millis\": " + operations +
+                ", \"fetch_current\": 1, \"scroll_total\": 0, \"scroll_time_in_millis\": 0, \"scroll_current\": 0}}}";
+
+        try {
+            return nodeStatsJsonReader.readNode(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.utils;
+
+import com.netflix.raigad.identity.RaigadInstance;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building and parsing of the get_nodes payload served to the discovery plugin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ElasticsearchUtilsBenchmark {
+    @Param({"10", "100", "1000"})
+    public int nodeCount;
+
+    private List<RaigadInstance> instances;
+    private JSONObject instancesJson;
+    private String instancesJsonString;
+
+    @Setup
+    public void setUp() {
+        instances = new ArrayList<>(nodeCount);
+
+        for (int i = 0; i < nodeCount; i++) {
+            RaigadInstance instance = new RaigadInstance();
+            instance.setApp("es_benchmark");
+            instance.setAvailabilityZone("us-east-1" + (char) ('a' + i % 3));
+            instance.setDC("us-east-1");
+            instance.setHostIP("10.0." + (i / 256) + "." + (i % 256));
+            instance.setHostName("ip-10-0-" + (i / 256) + "-" + (i % 256) + ".ec2.internal");
+            instance.setId("es_benchmark_" + i);
+            instance.setInstanceId("i-" + Integer.toHexString(0x10000000 + i));
+            instance.setUpdatetime(System.currentTimeMillis());
+            instances.add(instance);
+        }
+
+        instancesJson = ElasticsearchUtils.transformRaigadInstanceToJson(instances);
+        instancesJsonString = instancesJson.toJSONString();
+    }
+
+    @Benchmark
+    public JSONObject transformRaigadInstanceToJson() {
+        return ElasticsearchUtils.transformRaigadInstanceToJson(instances);
+    }
+
+    @Benchmark
+    public String transformRaigadInstanceToJsonString() {
+        return ElasticsearchUtils.transformRaigadInstanceToJson(instances).toJSONString();
+    }
+
+    @Benchmark
+    public List<RaigadInstance> getRaigadInstancesFromJson() {
+        return ElasticsearchUtils.getRaigadInstancesFromJson(instancesJson);
+    }
+
+    @Benchmark
+    public List<RaigadInstance> getRaigadInstancesFromJsonString() {
+        return ElasticsearchUtils.getRaigadInstancesFromJson((JSONObject) JSONValue.parse(instancesJsonString));
+    }
+}
@@ -19,19 +19,39 @@ package com.netflix.raigad.discovery;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.network.NetworkService;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.discovery.zen.UnicastHostsProvider;
 import org.elasticsearch.plugins.DiscoveryPlugin;
 import org.elasticsearch.plugins.Plugin;
 import org.elasticsearch.transport.TransportService;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
 
 public class RaigadDiscoveryPlugin extends Plugin implements DiscoveryPlugin {
     private static final Logger logger = Loggers.getLogger(RaigadDiscoveryPlugin.class);
 
+    /**
+     * Creation date of the index a warm phase shrunk index was created from, so retention keeps the original schedule
+     */
+    static final Setting<Long> ORIGIN_CREATION_DATE_SETTING =
+            Setting.longSetting("index.raigad.origin_creation_date", -1, -1, Setting.Property.IndexScope);
+
+    /**
+     * State of an index reopened on demand: when it may be closed again, the TTL it was reopened with
+     * and its query total at the last check
+     */
+    static final Setting<Long> REOPENED_UNTIL_SETTING =
+            Setting.longSetting("index.raigad.reopened_until", -1, -1, Setting.Property.IndexScope, Setting.Property.Dynamic);
+    static final Setting<Long> REOPEN_TTL_SETTING =
+            Setting.longSetting("index.raigad.reopen_ttl_millis", 0, 0, Setting.Property.IndexScope, Setting.Property.Dynamic);
+    static final Setting<Long> REOPEN_QUERY_TOTAL_SETTING =
+            Setting.longSetting("index.raigad.reopen_query_total", 0, 0, Setting.Property.IndexScope, Setting.Property.Dynamic);
+
     private final Settings settings;
 
     public RaigadDiscoveryPlugin(Settings settings) {
@@ -39,6 +59,16 @@ public class RaigadDiscoveryPlugin extends Plugin implements DiscoveryPlugin {
         logger.info("Starting Raigad discovery");
     }
 
+    /**
+     * Index settings written by Raigad index management, Elasticsearch rejects settings no plugin registered.
+     * Without this plugin, index management shrinks indices without their origin creation date and keeps the state
+     * of reopened indices in memory.
+     */
+    @Override
+    public List<Setting<?>> getSettings() {
+        return Arrays.asList(ORIGIN_CREATION_DATE_SETTING, REOPENED_UNTIL_SETTING, REOPEN_TTL_SETTING, REOPEN_QUERY_TOTAL_SETTING);
+    }
+
     @Override
     public Map<String, Supplier<UnicastHostsProvider>> getZenHostsProviders(
             TransportService transportService, NetworkService networkService) {
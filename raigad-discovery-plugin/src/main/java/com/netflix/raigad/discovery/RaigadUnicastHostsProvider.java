@@ -27,15 +27,34 @@ import org.elasticsearch.discovery.zen.UnicastHostsProvider;
 import org.elasticsearch.transport.TransportService;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class RaigadUnicastHostsProvider extends AbstractComponent implements UnicastHostsProvider {
     private static final String GET_NODES_ISLAND_URL = "http://127.0.0.1:8080/Raigad/REST/v1/esconfig/get_nodes";
     private static final String GET_NODES_TRIBE_URL_PREFIX = "http://127.0.0.1:8080/Raigad/REST/v1/esconfig/get_tribe_nodes/";
+    private static final String GET_NODES_DELTA_ISLAND_URL = "http://127.0.0.1:8080/Raigad/REST/v1/esconfig/get_nodes_delta";
+    private static final String GET_NODES_DELTA_TRIBE_URL_PREFIX = "http://127.0.0.1:8080/Raigad/REST/v1/esconfig/get_tribe_nodes_delta/";
+
+    // How long the delta endpoint is skipped after it failed, Raigad might get upgraded in the meantime
+    private static final long DELTA_RETRY_MILLIS = TimeUnit.MINUTES.toMillis(10);
 
     private final String nodeName;
     private final TransportService transportService;
 
+    // Last successful response, reused when Raigad reports the node list as not modified
+    private volatile String lastETag;
+    private volatile List<DiscoveryNode> lastDiscoveryNodes = Collections.emptyList();
+
+    // Node list maintained from membership deltas, keyed by Raigad instance ID
+    private final Map<String, DiscoveryNode> deltaDiscoveryNodes = new LinkedHashMap<>();
+    private long deltaVersion = 0;
+    private long deltaUnsupportedUntil = 0;
+    private boolean deltaUnsupportedLogged = false;
+
     RaigadUnicastHostsProvider(Settings settings, TransportService transportService) {
         super(settings);
         this.transportService = transportService;
@@ -45,38 +64,54 @@ public class RaigadUnicastHostsProvider extends AbstractComponent implements Uni
     }
 
     @Override
-    public List<DiscoveryNode> buildDynamicNodes() {
+    public synchronized List<DiscoveryNode> buildDynamicNodes() {
+        if (System.currentTimeMillis() >= deltaUnsupportedUntil) {
+            try {
+                return buildDynamicNodesFromDelta();
+            } catch (Exception e) {
+                // Older Raigad versions have no delta endpoint, fall back to fetching the whole list for a while
+                if (!deltaUnsupportedLogged) {
+                    logger.info("[raigad-discovery] Membership delta not available ({}), fetching all nodes for the next {} minutes",
+                            e.getMessage(), TimeUnit.MILLISECONDS.toMinutes(DELTA_RETRY_MILLIS));
+                    deltaUnsupportedLogged = true;
+                } else {
+                    logger.debug("[raigad-discovery] Membership delta still not available ({})", e.getMessage());
+                }
+
+                deltaUnsupportedUntil = System.currentTimeMillis() + DELTA_RETRY_MILLIS;
+                deltaVersion = 0;
+                deltaDiscoveryNodes.clear();
+            }
+        }
 
         final List<DiscoveryNode> discoveryNodes = new ArrayList<>();
 
         try {
             //Extract tribe ID from name field of settings and query accordingly
-            String discoveryNodesJsonString;
+            DataFetcher.Result result;
 
             if (isTribeNode()) {
-                String tribeId = nodeName.substring(nodeName.indexOf("/") + 1);
-                logger.debug("[raigad-discovery] Tribe ID detected [{}]", tribeId);
-                discoveryNodesJsonString = DataFetcher.fetchData(GET_NODES_TRIBE_URL_PREFIX + tribeId, logger);
+                result = DataFetcher.fetchData(GET_NODES_TRIBE_URL_PREFIX + getTribeId(), lastETag, logger);
             } else {
-                discoveryNodesJsonString = DataFetcher.fetchData(GET_NODES_ISLAND_URL, logger);
+                result = DataFetcher.fetchData(GET_NODES_ISLAND_URL, lastETag, logger);
             }
 
-            List<RaigadInstance> instances = ElasticsearchUtil.getRaigadInstancesFromJsonString(discoveryNodesJsonString, logger);
-
-            for (RaigadInstance instance : instances) {
-                try {
-                    TransportAddress[] addresses = transportService.addressesFromString(instance.getHostIP(), 1);
+            if (result.isNotModified()) {
+                logger.debug("[raigad-discovery] Discovery nodes not modified, reusing {}", lastDiscoveryNodes);
+                return new ArrayList<>(lastDiscoveryNodes);
+            }
 
-                    if (addresses != null && addresses.length > 0) {
-                        logger.info("[raigad-discovery] Adding instance [{}], address [{}], transport address [{}]",
-                                instance.getId(), instance.getHostIP(), addresses[0]);
+            List<RaigadInstance> instances = ElasticsearchUtil.getRaigadInstancesFromJsonString(result.getData(), logger);
 
-                        discoveryNodes.add(new DiscoveryNode(instance.getId(), addresses[0], Version.CURRENT.minimumCompatibilityVersion()));
-                    }
-                } catch (Exception e) {
-                    logger.warn("[raigad-discovery] Failed to add instance [{}], address [{}]", e, instance.getId(), instance.getHostIP());
+            for (RaigadInstance instance : instances) {
+                DiscoveryNode discoveryNode = toDiscoveryNode(instance);
+                if (discoveryNode != null) {
+                    discoveryNodes.add(discoveryNode);
                 }
             }
+
+            lastDiscoveryNodes = Collections.unmodifiableList(new ArrayList<>(discoveryNodes));
+            lastETag = result.getETag();
         } catch (Exception e) {
             logger.error("[raigad-discovery] Exception while trying to build dynamic discovery nodes", e);
             throw new RuntimeException(e);
@@ -87,6 +122,61 @@ public class RaigadUnicastHostsProvider extends AbstractComponent implements Uni
         return discoveryNodes;
     }
 
+    /**
+     * Asks Raigad only for the instances that changed since the last version seen and applies them.
+     */
+    private List<DiscoveryNode> buildDynamicNodesFromDelta() throws Exception {
+        String url = isTribeNode() ? GET_NODES_DELTA_TRIBE_URL_PREFIX + getTribeId() : GET_NODES_DELTA_ISLAND_URL;
+        String deltaJson = DataFetcher.fetchData(url + "?since=" + deltaVersion, logger);
+        ElasticsearchUtil.MembershipDelta delta = ElasticsearchUtil.getMembershipDeltaFromJsonString(deltaJson, logger);
+
+        if (delta.isFull()) {
+            deltaDiscoveryNodes.clear();
+        }
+
+        for (String removedId : delta.getRemovedIds()) {
+            logger.info("[raigad-discovery] Removing instance [{}]", removedId);
+            deltaDiscoveryNodes.remove(removedId);
+        }
+
+        for (RaigadInstance instance : delta.getInstances()) {
+            DiscoveryNode discoveryNode = toDiscoveryNode(instance);
+            if (discoveryNode != null) {
+                deltaDiscoveryNodes.put(instance.getId(), discoveryNode);
+            }
+        }
+
+        deltaVersion = delta.getVersion();
+
+        List<DiscoveryNode> discoveryNodes = new ArrayList<>(deltaDiscoveryNodes.values());
+        logger.debug("[raigad-discovery] Using dynamic discovery nodes {} (version {})", discoveryNodes, deltaVersion);
+
+        return discoveryNodes;
+    }
+
+    private DiscoveryNode toDiscoveryNode(RaigadInstance instance) {
+        try {
+            TransportAddress[] addresses = transportService.addressesFromString(instance.getHostIP(), 1);
+
+            if (addresses != null && addresses.length > 0) {
+                logger.info("[raigad-discovery] Adding instance [{}], address [{}], transport address [{}]",
+                        instance.getId(), instance.getHostIP(), addresses[0]);
+
+                return new DiscoveryNode(instance.getId(), addresses[0], Version.CURRENT.minimumCompatibilityVersion());
+            }
+        } catch (Exception e) {
+            logger.warn("[raigad-discovery] Failed to add instance [{}], address [{}]", e, instance.getId(), instance.getHostIP());
+        }
+
+        return null;
+    }
+
+    private String getTribeId() {
+        String tribeId = nodeName.substring(nodeName.indexOf("/") + 1);
+        logger.debug("[raigad-discovery] Tribe ID detected [{}]", tribeId);
+        return tribeId;
+    }
+
     private boolean isTribeNode() {
         if (nodeName == null || nodeName.isEmpty()) {
             return false;
@@ -27,6 +27,15 @@ import java.nio.charset.StandardCharsets;
 
 public class DataFetcher {
     public static String fetchData(String url, Logger logger) {
+        return fetchData(url, null, logger).getData();
+    }
+
+    /**
+     * Fetches data, sending {@code If-None-Match} when an ETag from a previous response is known.
+     *
+     * @return the response, {@link Result#isNotModified()} is true if Raigad answered 304
+     */
+    public static Result fetchData(String url, String eTag, Logger logger) {
         HttpURLConnection httpConnection = null;
         DataInputStream responseStream = null;
 
@@ -36,7 +45,18 @@ public class DataFetcher {
             httpConnection.setReadTimeout(10000);
             httpConnection.setRequestMethod("GET");
 
-            if (httpConnection.getResponseCode() != 200) {
+            if (eTag != null) {
+                httpConnection.setRequestProperty("If-None-Match", eTag);
+            }
+
+            int responseCode = httpConnection.getResponseCode();
+
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                logger.debug("Raigad ({}) returned not modified for ETag {}", url, eTag);
+                return new Result(null, eTag, true);
+            }
+
+            if (responseCode != 200) {
                 logger.error("Unable to get data from URL [" + url + "]");
                 throw new RuntimeException("Unable to fetch data from Raigad API");
             }
@@ -53,7 +73,7 @@ public class DataFetcher {
             String result = new String(byteArrayOutputStream.toByteArray(), StandardCharsets.UTF_8);
             logger.info("Raigad ({}) returned {}", url, result);
 
-            return result;
+            return new Result(result, httpConnection.getHeaderField("ETag"), false);
 
         } catch (Exception ex) {
             throw new RuntimeException(ex);
@@ -70,4 +90,28 @@ public class DataFetcher {
                 httpConnection.disconnect();
         }
     }
+
+    public static final class Result {
+        private final String data;
+        private final String eTag;
+        private final boolean notModified;
+
+        Result(String data, String eTag, boolean notModified) {
+            this.data = data;
+            this.eTag = eTag;
+            this.notModified = notModified;
+        }
+
+        public String getData() {
+            return data;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public boolean isNotModified() {
+            return notModified;
+        }
+    }
 }
@@ -39,33 +39,64 @@ public class ElasticsearchUtil {
     private static final String DC = "dc";
     private static final String UPDATE_TIME = "update_time";
 
-    @SuppressWarnings("unchecked")
-    public static List<RaigadInstance> getRaigadInstancesFromJsonString(String jsonInstances, Logger logger) {
-        List<RaigadInstance> raigadInstances = new ArrayList<RaigadInstance>();
+    private static final String VERSION = "version";
+    private static final String FULL = "full";
+    private static final String REMOVED = "removed";
 
+    public static List<RaigadInstance> getRaigadInstancesFromJsonString(String jsonInstances, Logger logger) {
         try {
-            Map<String, Object> topLevelInstanceMap = (Map<String, Object>) jsonToMap(jsonInstances).get(TOP_LEVEL_ELEMENT);
-
-            for (String instanceKey : topLevelInstanceMap.keySet()) {
-                Map<String, Object> instParamMap = (Map<String, Object>) topLevelInstanceMap.get(instanceKey);
-                RaigadInstance raigadInstance = new RaigadInstance();
-                raigadInstance.setApp((String) instParamMap.get(APP_NAME));
-                raigadInstance.setAvailabilityZone((String) instParamMap.get(AVAILABILITY_ZONE));
-                raigadInstance.setDC((String) instParamMap.get(DC));
-                raigadInstance.setHostIP((String) instParamMap.get(PUBLIC_IP));
-                raigadInstance.setHostName((String) instParamMap.get(HOST_NAME));
-                raigadInstance.setId((String) instParamMap.get(ID));
-                raigadInstance.setInstanceId((String) instParamMap.get(INSTANCE_ID));
-                raigadInstance.setUpdatetime((Long) instParamMap.get(UPDATE_TIME));
-                logger.info("Raigad instance: {}", raigadInstance.toString());
-
-                //Add to the list
-                raigadInstances.add(raigadInstance);
-            }
+            return getRaigadInstancesFromMap(jsonToMap(jsonInstances), logger);
         } catch (IOException e) {
             logger.error("Error caught while parsing JSON", e);
         }
 
+        return new ArrayList<RaigadInstance>();
+    }
+
+    /**
+     * Parses the response of the get_nodes_delta / get_tribe_nodes_delta endpoints.
+     */
+    @SuppressWarnings("unchecked")
+    public static MembershipDelta getMembershipDeltaFromJsonString(String jsonDelta, Logger logger) throws IOException {
+        Map<String, Object> deltaMap = jsonToMap(jsonDelta);
+
+        List<String> removedIds = new ArrayList<>();
+        List<Object> removed = (List<Object>) deltaMap.get(REMOVED);
+        if (removed != null) {
+            for (Object id : removed) {
+                removedIds.add((String) id);
+            }
+        }
+
+        return new MembershipDelta(
+                ((Number) deltaMap.get(VERSION)).longValue(),
+                Boolean.TRUE.equals(deltaMap.get(FULL)),
+                getRaigadInstancesFromMap(deltaMap, logger),
+                removedIds);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<RaigadInstance> getRaigadInstancesFromMap(Map<String, Object> jsonMap, Logger logger) {
+        List<RaigadInstance> raigadInstances = new ArrayList<RaigadInstance>();
+        Map<String, Object> topLevelInstanceMap = (Map<String, Object>) jsonMap.get(TOP_LEVEL_ELEMENT);
+
+        for (String instanceKey : topLevelInstanceMap.keySet()) {
+            Map<String, Object> instParamMap = (Map<String, Object>) topLevelInstanceMap.get(instanceKey);
+            RaigadInstance raigadInstance = new RaigadInstance();
+            raigadInstance.setApp((String) instParamMap.get(APP_NAME));
+            raigadInstance.setAvailabilityZone((String) instParamMap.get(AVAILABILITY_ZONE));
+            raigadInstance.setDC((String) instParamMap.get(DC));
+            raigadInstance.setHostIP((String) instParamMap.get(PUBLIC_IP));
+            raigadInstance.setHostName((String) instParamMap.get(HOST_NAME));
+            raigadInstance.setId((String) instParamMap.get(ID));
+            raigadInstance.setInstanceId((String) instParamMap.get(INSTANCE_ID));
+            raigadInstance.setUpdatetime((Long) instParamMap.get(UPDATE_TIME));
+            logger.info("Raigad instance: {}", raigadInstance.toString());
+
+            //Add to the list
+            raigadInstances.add(raigadInstance);
+        }
+
         return raigadInstances;
     }
 
@@ -74,4 +105,37 @@ public class ElasticsearchUtil {
             return parser.mapOrdered();
         }
     }
+
+    public static final class MembershipDelta {
+        private final long version;
+        private final boolean full;
+        private final List<RaigadInstance> instances;
+        private final List<String> removedIds;
+
+        MembershipDelta(long version, boolean full, List<RaigadInstance> instances, List<String> removedIds) {
+            this.version = version;
+            this.full = full;
+            this.instances = instances;
+            this.removedIds = removedIds;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return true if {@link #getInstances()} is the complete membership rather than the changed instances
+         */
+        public boolean isFull() {
+            return full;
+        }
+
+        public List<RaigadInstance> getInstances() {
+            return instances;
+        }
+
+        public List<String> getRemovedIds() {
+            return removedIds;
+        }
+    }
 }
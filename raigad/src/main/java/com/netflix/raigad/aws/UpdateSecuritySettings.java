@@ -20,8 +20,8 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.netflix.raigad.configuration.IConfiguration;
 import com.netflix.raigad.identity.IMembership;
-import com.netflix.raigad.identity.IRaigadInstanceFactory;
 import com.netflix.raigad.identity.InstanceManager;
+import com.netflix.raigad.identity.MembershipCache;
 import com.netflix.raigad.identity.RaigadInstance;
 import com.netflix.raigad.scheduler.SimpleTimer;
 import com.netflix.raigad.scheduler.Task;
@@ -57,14 +57,14 @@ public class UpdateSecuritySettings extends Task {
     private static final Random RANDOM = new Random();
 
     private final IMembership membership;
-    private final IRaigadInstanceFactory factory;
+    private final MembershipCache membershipCache;
 
 
     @Inject
-    public UpdateSecuritySettings(IConfiguration config, IMembership membership, IRaigadInstanceFactory factory) {
+    public UpdateSecuritySettings(IConfiguration config, IMembership membership, MembershipCache membershipCache) {
         super(config);
         this.membership = membership;
-        this.factory = factory;
+        this.membershipCache = membershipCache;
     }
 
     /**
@@ -121,7 +121,7 @@ public class UpdateSecuritySettings extends Task {
         List<String> tribeClusters = new ArrayList<String>(Arrays.asList(StringUtils.split(config.getCommaSeparatedTribeClusterNames(), ",")));
         assert (tribeClusters.size() != 0) : "Need at least one tribe cluster";
 
-        tribeClusters.forEach(tribeClusterName -> instances.addAll(factory.getAllIds(tribeClusterName)));
+        tribeClusters.forEach(tribeClusterName -> instances.addAll(membershipCache.getInstances(tribeClusterName)));
 
         if (config.isDebugEnabled()) {
             instances.forEach(instance -> logger.debug(instance.toString()));
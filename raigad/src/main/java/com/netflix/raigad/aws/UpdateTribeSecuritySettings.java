@@ -20,8 +20,8 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.netflix.raigad.configuration.IConfiguration;
 import com.netflix.raigad.identity.IMembership;
-import com.netflix.raigad.identity.IRaigadInstanceFactory;
 import com.netflix.raigad.identity.InstanceManager;
+import com.netflix.raigad.identity.MembershipCache;
 import com.netflix.raigad.identity.RaigadInstance;
 import com.netflix.raigad.scheduler.SimpleTimer;
 import com.netflix.raigad.scheduler.Task;
@@ -56,7 +56,7 @@ public class UpdateTribeSecuritySettings extends Task {
 
     private static final Random ran = new Random();
     private final IMembership membership;
-    private final IRaigadInstanceFactory factory;
+    private final MembershipCache membershipCache;
 
     /**
      * clusterPortMap
@@ -67,10 +67,10 @@ public class UpdateTribeSecuritySettings extends Task {
     private final Map<String, Integer> clusterPortMap = new HashMap<String, Integer>();
 
     @Inject
-    public UpdateTribeSecuritySettings(IConfiguration config, IMembership membership, IRaigadInstanceFactory factory) {
+    public UpdateTribeSecuritySettings(IConfiguration config, IMembership membership, MembershipCache membershipCache) {
         super(config);
         this.membership = membership;
-        this.factory = factory;
+        this.membershipCache = membershipCache;
     }
 
     /**
@@ -192,7 +192,7 @@ public class UpdateTribeSecuritySettings extends Task {
         List<RaigadInstance> instances = new ArrayList<>();
 
         for (String clusterName : clusterPortMap.keySet()) {
-            instances.addAll(factory.getAllIds(clusterName));
+            instances.addAll(membershipCache.getInstances(clusterName));
         }
 
         if (config.isDebugEnabled()) {
@@ -0,0 +1,356 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.monitoring.NodeStatsField;
+import com.netflix.raigad.monitoring.NodeStatsMetricGroup;
+import com.netflix.raigad.monitoring.NodeStatsSnapshotService;
+import com.netflix.raigad.monitoring.NodeStatsValues;
+import com.netflix.raigad.scheduler.SimpleTimer;
+import com.netflix.raigad.scheduler.Task;
+import com.netflix.raigad.scheduler.TaskTimer;
+import com.netflix.raigad.utils.ElasticsearchTransportClient;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.Monitors;
+import org.elasticsearch.action.admin.cluster.repositories.put.PutRepositoryResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.RepositoryMetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adjusts max_snapshot_bytes_per_sec and max_restore_bytes_per_sec of the repositories in use by a running
+ * snapshot or restore to the load of the cluster.
+ * <p>
+ * Every {@link IConfiguration#getRepositoryThrottleIntervalSeconds()} the thread pool, fs and indices node stats of all
+ * nodes are checked, i.e. the values {@link com.netflix.raigad.monitoring.ThreadPoolStatsMonitor},
+ * {@link com.netflix.raigad.monitoring.FsStatsMonitor} and {@link com.netflix.raigad.monitoring.NodeIndicesStatsMonitor}
+ * publish for the local node. If any node has long search/index/bulk queues, high query or indexing latency, or a busy
+ * disk, the rate is halved down to {@link IConfiguration#getRepositoryThrottleMinMBPerSec()}. Otherwise it grows by a
+ * tenth of the current maximum, which is {@link IConfiguration#getRepositoryThrottleOffPeakMaxMBPerSec()} during
+ * off-peak hours and {@link IConfiguration#getRepositoryThrottleMaxMBPerSec()} during the rest of the day.
+ * <p>
+ * Repositories are created with the current rate and brought up to date before every snapshot or restore starts.
+ * Depending on the Elasticsearch version, updating a repository while it is in use may be refused; such failures are
+ * counted and the new rate applies from the next snapshot on.
+ */
+@Singleton
+public class RepositoryThrottleController extends Task {
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryThrottleController.class);
+    public static final String JOB_NAME = "RepositoryThrottleController";
+
+    static final String MAX_SNAPSHOT_BYTES_PER_SEC = "max_snapshot_bytes_per_sec";
+    static final String MAX_RESTORE_BYTES_PER_SEC = "max_restore_bytes_per_sec";
+
+    private static final Set<NodeStatsMetricGroup> METRIC_GROUPS =
+            EnumSet.of(NodeStatsMetricGroup.THREAD_POOL, NodeStatsMetricGroup.FS, NodeStatsMetricGroup.INDICES);
+    private static final String[] THREAD_POOLS = {"search", "index", "bulk"};
+    private static final NodeStatsField[] QUEUES = {
+            NodeStatsField.of("thread_pool.search.queue"),
+            NodeStatsField.of("thread_pool.index.queue"),
+            NodeStatsField.of("thread_pool.bulk.queue")
+    };
+    private static final NodeStatsField QUERY_TOTAL = NodeStatsField.of("indices.search.query_total");
+    private static final NodeStatsField QUERY_TIME = NodeStatsField.of("indices.search.query_time_in_millis");
+    private static final NodeStatsField INDEX_TOTAL = NodeStatsField.of("indices.indexing.index_total");
+    private static final NodeStatsField INDEX_TIME = NodeStatsField.of("indices.indexing.index_time_in_millis");
+    private static final NodeStatsField DISK_READ_KILOBYTES = NodeStatsField.of("fs.io_stats.total.read_kilobytes");
+    private static final NodeStatsField DISK_WRITE_KILOBYTES = NodeStatsField.of("fs.io_stats.total.write_kilobytes");
+
+    private final SnapshotStatusTracker snapshotStatusTracker;
+    private final NodeStatsSnapshotService nodeStatsSnapshotService;
+
+    private final Set<String> restoringRepositories = ConcurrentHashMap.newKeySet();
+    private final Map<String, Integer> appliedRates = new ConcurrentHashMap<>();
+    private final AtomicLong throttleUpdates = new AtomicLong();
+    private final AtomicLong throttleUpdateFailures = new AtomicLong();
+
+    private Map<String, NodeStatsValues> previousNodeStats = Collections.emptyMap();
+    private long previousNodeStatsTime;
+    private volatile int rateMBPerSec = -1;
+    private volatile String pressure;
+
+    @Inject
+    public RepositoryThrottleController(IConfiguration config, SnapshotStatusTracker snapshotStatusTracker,
+                                        NodeStatsSnapshotService nodeStatsSnapshotService) {
+        super(config);
+        this.snapshotStatusTracker = snapshotStatusTracker;
+        this.nodeStatsSnapshotService = nodeStatsSnapshotService;
+
+        Monitors.registerObject(new Elasticsearch_RepositoryThrottleReporter());
+    }
+
+    @Override
+    public void execute() throws Exception {
+        Set<String> repositoryNames = getActiveRepositoryNames();
+
+        if (!config.isRepositoryThrottleAdaptive() || repositoryNames.isEmpty()) {
+            // Latencies are computed over one interval, stats from before an idle period are useless
+            synchronized (this) {
+                previousNodeStats = Collections.emptyMap();
+                pressure = null;
+            }
+            return;
+        }
+
+        Map<String, NodeStatsValues> nodeStats;
+        try {
+            nodeStats = nodeStatsSnapshotService.fetchClusterNodeStats(METRIC_GROUPS);
+        } catch (Exception e) {
+            logger.warn("Failed to fetch node stats: {}", e.getMessage());
+            nodeStats = null;
+        }
+
+        int rate = updateRate(nodeStats, System.currentTimeMillis());
+
+        for (String repositoryName : repositoryNames) {
+            applyRate(repositoryName, rate);
+        }
+    }
+
+    /**
+     * @return repository settings to create a repository with, empty if throttling is not adaptive
+     */
+    public Settings getRepositorySettings(String repositoryName) {
+        if (!config.isRepositoryThrottleAdaptive()) {
+            return Settings.EMPTY;
+        }
+
+        int rate = getRateMBPerSec(System.currentTimeMillis());
+        appliedRates.put(repositoryName, rate);
+        return getThrottleSettings(rate);
+    }
+
+    /**
+     * Brings the rate of an existing repository up to date before a snapshot or restore starts using it
+     */
+    public void beforeStart(String repositoryName) {
+        if (config.isRepositoryThrottleAdaptive()) {
+            applyRate(repositoryName, getRateMBPerSec(System.currentTimeMillis()));
+        }
+    }
+
+    public void restoreStarted(String repositoryName) {
+        restoringRepositories.add(repositoryName);
+    }
+
+    public void restoreFinished(String repositoryName) {
+        restoringRepositories.remove(repositoryName);
+    }
+
+    /**
+     * @return current rate, never above the maximum of the given time of day
+     */
+    public synchronized int getRateMBPerSec(long now) {
+        int maxRate = getMaxRateMBPerSec(now);
+        return rateMBPerSec < 0 ? maxRate : Math.min(rateMBPerSec, maxRate);
+    }
+
+    synchronized int updateRate(Map<String, NodeStatsValues> nodeStats, long now) {
+        int maxRate = getMaxRateMBPerSec(now);
+        int minRate = Math.max(1, Math.min(config.getRepositoryThrottleMinMBPerSec(), maxRate));
+        int rate = getRateMBPerSec(now);
+
+        String newPressure = nodeStats == null ? "node stats not available" : getPressure(nodeStats, now);
+        int newRate = newPressure != null ? Math.max(minRate, rate / 2) : Math.min(maxRate, rate + Math.max(1, maxRate / 10));
+
+        if (newRate != rate) {
+            logger.info("Changing repository rate from {} MB/s to {} MB/s ({})", rate, newRate,
+                    newPressure != null ? newPressure : "no pressure");
+        }
+
+        rateMBPerSec = newRate;
+        pressure = newPressure;
+        previousNodeStats = nodeStats == null ? Collections.emptyMap() : nodeStats;
+        previousNodeStatsTime = now;
+
+        return newRate;
+    }
+
+    /**
+     * @return description of the first pressure found on any node, or null if there is none
+     */
+    private String getPressure(Map<String, NodeStatsValues> nodeStats, long now) {
+        long elapsedMillis = now - previousNodeStatsTime;
+
+        for (Map.Entry<String, NodeStatsValues> entry : nodeStats.entrySet()) {
+            String nodeId = entry.getKey();
+            NodeStatsValues values = entry.getValue();
+
+            for (int i = 0; i < QUEUES.length; i++) {
+                long queue = values.getLong(QUEUES[i]);
+                if (queue >= config.getRepositoryThrottleMaxQueueSize()) {
+                    return THREAD_POOLS[i] + " queue " + queue + " on " + nodeId;
+                }
+            }
+
+            NodeStatsValues previous = previousNodeStats.get(nodeId);
+            if (previous == null || elapsedMillis <= 0) {
+                continue;
+            }
+
+            long queryLatency = getLatencyMillis(values, previous, QUERY_TIME, QUERY_TOTAL);
+            if (queryLatency >= config.getRepositoryThrottleMaxQueryLatencyMillis()) {
+                return "query latency " + queryLatency + " ms on " + nodeId;
+            }
+
+            long indexingLatency = getLatencyMillis(values, previous, INDEX_TIME, INDEX_TOTAL);
+            if (indexingLatency >= config.getRepositoryThrottleMaxIndexingLatencyMillis()) {
+                return "indexing latency " + indexingLatency + " ms on " + nodeId;
+            }
+
+            int maxDiskKBytesPerSec = config.getRepositoryThrottleMaxDiskKBytesPerSec();
+            if (maxDiskKBytesPerSec > 0 && values.has(DISK_READ_KILOBYTES) && previous.has(DISK_READ_KILOBYTES)) {
+                long kilobytes = values.getLong(DISK_READ_KILOBYTES) - previous.getLong(DISK_READ_KILOBYTES) +
+                        values.getLong(DISK_WRITE_KILOBYTES) - previous.getLong(DISK_WRITE_KILOBYTES);
+                long kilobytesPerSec = kilobytes * 1000 / elapsedMillis;
+                if (kilobytesPerSec >= maxDiskKBytesPerSec) {
+                    return "disk throughput " + kilobytesPerSec + " KB/s on " + nodeId;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return average time per operation since the previous stats, or -1 if no operation completed in between
+     */
+    private static long getLatencyMillis(NodeStatsValues values, NodeStatsValues previous, NodeStatsField time, NodeStatsField total) {
+        long operations = values.getLong(total) - previous.getLong(total);
+        return operations > 0 ? (values.getLong(time) - previous.getLong(time)) / operations : -1;
+    }
+
+    private int getMaxRateMBPerSec(long now) {
+        int hour = new DateTime(now, DateTimeZone.UTC).getHourOfDay();
+        boolean offPeak = isOffPeak(hour, config.getRepositoryThrottleOffPeakStartHour(), config.getRepositoryThrottleOffPeakEndHour());
+        return Math.max(1, offPeak ? config.getRepositoryThrottleOffPeakMaxMBPerSec() : config.getRepositoryThrottleMaxMBPerSec());
+    }
+
+    static boolean isOffPeak(int hour, int startHour, int endHour) {
+        if (startHour == endHour) {
+            return false;
+        } else if (startHour < endHour) {
+            return hour >= startHour && hour < endHour;
+        } else {
+            // Off-peak hours span midnight
+            return hour >= startHour || hour < endHour;
+        }
+    }
+
+    private Set<String> getActiveRepositoryNames() {
+        Set<String> repositoryNames = new HashSet<>(restoringRepositories);
+        SnapshotJob runningJob = snapshotStatusTracker.getRunningJob();
+        if (runningJob != null) {
+            repositoryNames.add(runningJob.getRepositoryName());
+        }
+        return repositoryNames;
+    }
+
+    private void applyRate(String repositoryName, int rate) {
+        Integer appliedRate = appliedRates.get(repositoryName);
+        if (appliedRate != null && appliedRate == rate) {
+            return;
+        }
+
+        try {
+            updateRepositorySettings(repositoryName, getThrottleSettings(rate));
+            appliedRates.put(repositoryName, rate);
+            throttleUpdates.incrementAndGet();
+            logger.info("Repository <{}> throttled to {} MB/s", repositoryName, rate);
+        } catch (Exception e) {
+            throttleUpdateFailures.incrementAndGet();
+            logger.warn("Failed to throttle repository <{}> to {} MB/s: {}", repositoryName, rate, e.getMessage());
+        }
+    }
+
+    private static Settings getThrottleSettings(int rate) {
+        return Settings.builder()
+                .put(MAX_SNAPSHOT_BYTES_PER_SEC, rate + "mb")
+                .put(MAX_RESTORE_BYTES_PER_SEC, rate + "mb")
+                .build();
+    }
+
+    /**
+     * Following method is isolated so that it helps in unit testing for mocking
+     */
+    void updateRepositorySettings(String repositoryName, Settings throttleSettings) throws Exception {
+        Client esTransportClient = ElasticsearchTransportClient.instance(config).getTransportClient();
+
+        List<RepositoryMetaData> repositories = esTransportClient.admin().cluster().prepareGetRepositories(repositoryName).get().repositories();
+        if (repositories.isEmpty()) {
+            throw new IllegalStateException("Repository <" + repositoryName + "> does not exist");
+        }
+
+        RepositoryMetaData repository = repositories.get(0);
+        PutRepositoryResponse putRepositoryResponse = esTransportClient.admin().cluster().preparePutRepository(repositoryName)
+                .setType(repository.type())
+                .setSettings(Settings.builder().put(repository.settings()).put(throttleSettings))
+                .setVerify(false)
+                .get();
+
+        if (!putRepositoryResponse.isAcknowledged()) {
+            throw new IllegalStateException("Update of repository <" + repositoryName + "> was not acknowledged");
+        }
+    }
+
+    public static TaskTimer getTimer(IConfiguration config) {
+        return new SimpleTimer(JOB_NAME, config.getRepositoryThrottleIntervalSeconds() * 1000L);
+    }
+
+    @Override
+    public String getName() {
+        return JOB_NAME;
+    }
+
+    public class Elasticsearch_RepositoryThrottleReporter {
+        @Monitor(name = "repository_throttle_mb_per_sec", type = DataSourceType.GAUGE)
+        public int getRate() {
+            return getRateMBPerSec(System.currentTimeMillis());
+        }
+
+        @Monitor(name = "repository_throttle_under_pressure", type = DataSourceType.GAUGE)
+        public int getUnderPressure() {
+            return pressure == null ? 0 : 1;
+        }
+
+        @Monitor(name = "repository_throttle_updates", type = DataSourceType.COUNTER)
+        public long getThrottleUpdates() {
+            return throttleUpdates.get();
+        }
+
+        @Monitor(name = "repository_throttle_update_failures", type = DataSourceType.COUNTER)
+        public long getThrottleUpdateFailures() {
+            return throttleUpdateFailures.get();
+        }
+    }
+}
@@ -26,7 +26,7 @@ import com.netflix.raigad.scheduler.TaskTimer;
 import com.netflix.raigad.utils.ElasticsearchProcessMonitor;
 import com.netflix.raigad.utils.ElasticsearchTransportClient;
 import com.netflix.raigad.utils.ElasticsearchUtils;
-import com.netflix.raigad.utils.HttpModule;
+import com.netflix.raigad.utils.MasterStatusTracker;
 import org.apache.commons.lang.StringUtils;
 import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotRequestBuilder;
 import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotResponse;
@@ -44,7 +44,8 @@ public class RestoreBackupManager extends Task {
     private static final Logger logger = LoggerFactory.getLogger(RestoreBackupManager.class);
     public static String JOBNAME = "RestoreBackupManager";
     private final AbstractRepository repository;
-    private final HttpModule httpModule;
+    private final MasterStatusTracker masterStatusTracker;
+    private final RepositoryThrottleController repositoryThrottleController;
     private static final AtomicBoolean isRestoreRunning = new AtomicBoolean(false);
     private static final String ALL_INDICES_TAG = "_all";
     private static final String SUFFIX_SEPARATOR_TAG = "-";
@@ -52,17 +53,19 @@ public class RestoreBackupManager extends Task {
 
 
     @Inject
-    public RestoreBackupManager(IConfiguration config, @Named("s3") AbstractRepository repository, HttpModule httpModule) {
+    public RestoreBackupManager(IConfiguration config, @Named("s3") AbstractRepository repository,
+                                MasterStatusTracker masterStatusTracker, RepositoryThrottleController repositoryThrottleController) {
         super(config);
         this.repository = repository;
-        this.httpModule = httpModule;
+        this.masterStatusTracker = masterStatusTracker;
+        this.repositoryThrottleController = repositoryThrottleController;
     }
 
     @Override
     public void execute() {
         try {
             //Confirm if Current Node is a Master Node
-            if (ElasticsearchUtils.amIMasterNode(config, httpModule)) {
+            if (masterStatusTracker.isMaster()) {
                 // If Elasticsearch is started then only start Snapshot Backup
                 if (!ElasticsearchProcessMonitor.isElasticsearchRunning()) {
                     String exceptionMsg = "Elasticsearch is not yet started, hence not Starting Restore Operation";
@@ -104,6 +107,8 @@ public class RestoreBackupManager extends Task {
         if (!repository.doesRepositoryExists(restoreRepositoryName, AbstractRepository.RepositoryType.valueOf(repoType.toLowerCase()))) {
             //If repository does not exist, create new one
             repository.createRestoreRepository(restoreRepositoryName, sourceRepoName);
+        } else {
+            repositoryThrottleController.beforeStart(restoreRepositoryName);
         }
 
         // Get Snapshot Name
@@ -129,8 +134,14 @@ public class RestoreBackupManager extends Task {
         }
         logger.info("Indices param : <" + commaSeparatedIndices + ">");
 
-        RestoreSnapshotResponse restoreSnapshotResponse = getRestoreSnapshotResponse(esTransportClient,
-                commaSeparatedIndices, restoreRepositoryName, snapshotN, renamePattern, renameReplacement);
+        RestoreSnapshotResponse restoreSnapshotResponse;
+        repositoryThrottleController.restoreStarted(restoreRepositoryName);
+        try {
+            restoreSnapshotResponse = getRestoreSnapshotResponse(esTransportClient,
+                    commaSeparatedIndices, restoreRepositoryName, snapshotN, renamePattern, renameReplacement);
+        } finally {
+            repositoryThrottleController.restoreFinished(restoreRepositoryName);
+        }
 
         logger.info("Restore Status = " + restoreSnapshotResponse.status().toString());
 
@@ -52,12 +52,15 @@ public class S3Repository extends AbstractRepository {
     private static final DateTimeZone currentZone = DateTimeZone.UTC;
     private RepositoryType type;
     private AbstractRepositorySettingsParams repositorySettingsParams;
+    private final RepositoryThrottleController repositoryThrottleController;
 
     @Inject
-    private S3Repository(IConfiguration config, AbstractRepositorySettingsParams repositorySettingsParams) {
+    private S3Repository(IConfiguration config, AbstractRepositorySettingsParams repositorySettingsParams,
+                         RepositoryThrottleController repositoryThrottleController) {
         super(config, repositorySettingsParams);
         this.type = RepositoryType.s3;
         this.repositorySettingsParams = repositorySettingsParams;
+        this.repositoryThrottleController = repositoryThrottleController;
     }
 
     /**
@@ -83,6 +86,8 @@ public class S3Repository extends AbstractRepository {
             //Check if Repository Exists
             if (!doesRepositoryExists(s3RepoName, getRepositoryType())) {
                 createNewRepository(s3RepoName);
+            } else {
+                repositoryThrottleController.beforeStart(s3RepoName);
             }
         } catch (Exception e) {
             throw new CreateRepositoryException("Failed creating snapshot repository!", e);
@@ -143,6 +148,7 @@ public class S3Repository extends AbstractRepository {
                         .put("base_path", repositorySettingsParams.getBase_path())
                         .put("region", repositorySettingsParams.getRegion())
                         .put("bucket", repositorySettingsParams.getBucket())
+                        .put(repositoryThrottleController.getRepositorySettings(s3RepoName))
                 ).get();
     }
 }
@@ -28,15 +28,12 @@ import com.netflix.servo.monitor.*;
 import org.apache.commons.lang.StringUtils;
 import org.elasticsearch.action.admin.cluster.snapshots.create.CreateSnapshotResponse;
 import org.elasticsearch.client.Client;
-import org.elasticsearch.rest.RestStatus;
-import org.elasticsearch.snapshots.SnapshotShardFailure;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @Singleton
@@ -44,10 +41,11 @@ public class SnapshotBackupManager extends Task {
     private static final Logger logger = LoggerFactory.getLogger(SnapshotBackupManager.class);
     public static String JOBNAME = "SnapshotBackupManager";
     private final AbstractRepository repository;
-    private final HttpModule httpModule;
+    private final MasterStatusTracker masterStatusTracker;
+    private final SnapshotStatusTracker snapshotStatusTracker;
+    private final SnapshotCoordinator snapshotCoordinator;
     private final AtomicInteger snapshotSuccess = new AtomicInteger(0);
     private final AtomicInteger snapshotFailure = new AtomicInteger(0);
-    private static final AtomicBoolean isSnapshotRunning = new AtomicBoolean(false);
     private static final DateTimeZone currentZone = DateTimeZone.UTC;
     private static final String S3_REPO_FOLDER_DATE_FORMAT = "yyyyMMddHHmm";
     private static final String COMMA_SEPARATOR = ",";
@@ -58,17 +56,21 @@ public class SnapshotBackupManager extends Task {
     }
 
     @Inject
-    public SnapshotBackupManager(IConfiguration config, @Named("s3") AbstractRepository repository, HttpModule httpModule) {
+    public SnapshotBackupManager(IConfiguration config, @Named("s3") AbstractRepository repository,
+                                 MasterStatusTracker masterStatusTracker, SnapshotStatusTracker snapshotStatusTracker,
+                                 SnapshotCoordinator snapshotCoordinator) {
         super(config);
         this.repository = repository;
-        this.httpModule = httpModule;
+        this.masterStatusTracker = masterStatusTracker;
+        this.snapshotStatusTracker = snapshotStatusTracker;
+        this.snapshotCoordinator = snapshotCoordinator;
     }
 
     @Override
     public void execute() {
         try {
             //Confirm if Current Node is a Master Node
-            if (ElasticsearchUtils.amIMasterNode(config, httpModule)) {
+            if (masterStatusTracker.isMaster()) {
                 // If Elasticsearch is started then only start Snapshot Backup
                 if (!ElasticsearchProcessMonitor.isElasticsearchRunning()) {
                     String exceptionMsg = "Elasticsearch is not yet started, hence not Starting Snapshot Operation";
@@ -84,7 +86,11 @@ public class SnapshotBackupManager extends Task {
                 }
 
                 //Run Snapshot Backup
-                runSnapshotBackup();
+                if (snapshotCoordinator.isEnabled()) {
+                    runNextSnapshotGroup();
+                } else {
+                    runSnapshotBackup();
+                }
             } else {
                 if (config.isDebugEnabled())
                     logger.debug("Current node is not a Master Node yet, hence not running a Snapshot");
@@ -95,66 +101,106 @@ public class SnapshotBackupManager extends Task {
         }
     }
 
-    public void runSnapshotBackup() throws Exception {
+    /**
+     * Starts a snapshot without waiting for it to finish. Success and failure counters and the snapshot duration
+     * timer are updated by {@link SnapshotStatusTracker} once Elasticsearch reports a final state.
+     *
+     * @return the started job, or the job still running from a previous call, since Elasticsearch only runs
+     * one snapshot at a time
+     */
+    public synchronized SnapshotJob runSnapshotBackup() throws Exception {
+        SnapshotJob runningJob = snapshotStatusTracker.getRunningJob();
+        if (runningJob != null) {
+            logger.info("Snapshot {} is still running, not starting another one", runningJob.getId());
+            return runningJob;
+        }
+
+        String snapshotName = getSnapshotName(config.getCommaSeparatedIndicesToBackup(), config.includeIndexNameInSnapshot());
+        return startSnapshot(snapshotName, config.getCommaSeparatedIndicesToBackup(),
+                (client, repositoryName) -> getCreateSnapshotResponse(client, repositoryName, snapshotName));
+    }
+
+    /**
+     * Starts a snapshot of the given group, unless a snapshot is still running
+     *
+     * @return the started job, or the job still running from a previous call
+     */
+    public synchronized SnapshotJob runSnapshotBackup(SnapshotGroup group) throws Exception {
+        SnapshotJob runningJob = snapshotStatusTracker.getRunningJob();
+        if (runningJob != null) {
+            logger.info("Snapshot {} is still running, not starting another one", runningJob.getId());
+            return runningJob;
+        }
+
+        String snapshotName = group.getName() + "_" + getSnapshotName(group.getIndices(), false);
+        SnapshotJob job;
+        try {
+            job = startSnapshot(snapshotName, group.getIndices(),
+                    (client, repositoryName) -> getCreateSnapshotResponse(client, repositoryName, snapshotName, group.getIndices()));
+        } catch (Exception e) {
+            snapshotCoordinator.recordStartFailed(group, System.currentTimeMillis());
+            throw e;
+        }
+
+        snapshotCoordinator.recordStarted(group, job);
+        return job;
+    }
+
+    /**
+     * Starts a snapshot of the next due group, once the running snapshot, if any, finished
+     */
+    private synchronized void runNextSnapshotGroup() throws Exception {
+        SnapshotJob runningJob = snapshotStatusTracker.getRunningJob();
+        if (runningJob != null) {
+            logger.info("Snapshot {} is still running, due snapshot groups wait for it", runningJob.getId());
+            return;
+        }
+
+        SnapshotGroup group = snapshotCoordinator.nextGroup(System.currentTimeMillis());
+        if (group != null) {
+            runSnapshotBackup(group);
+        }
+    }
+
+    private SnapshotJob startSnapshot(String snapshotName, String indices, SnapshotRequest snapshotRequest) throws Exception {
         // Create or Get Repository
         String repositoryName = repository.createOrGetSnapshotRepository();
 
         // StartBackup
-        String snapshotName = getSnapshotName(config.getCommaSeparatedIndicesToBackup(), config.includeIndexNameInSnapshot());
-        logger.info("Repository Name : <" + repositoryName + "> Snapshot Name : <" + snapshotName + "> Indices : <" + config.getCommaSeparatedIndicesToBackup() + "> \nRunning Snapshot now ... ");
+        logger.info("Repository Name : <" + repositoryName + "> Snapshot Name : <" + snapshotName + "> Indices : <" + indices + "> \nRunning Snapshot now ... ");
 
         Client esTransportClient = ElasticsearchTransportClient.instance(config).getTransportClient();
 
         Stopwatch snapshotTimer = snapshotDuration.start();
-        //This is a blocking call. It'll wait until Snapshot is finished.
-        CreateSnapshotResponse createSnapshotResponse = getCreateSnapshotResponse(esTransportClient, repositoryName, snapshotName);
-
+        // Returns as soon as Elasticsearch accepted the snapshot
+        CreateSnapshotResponse createSnapshotResponse = snapshotRequest.create(esTransportClient, repositoryName);
         logger.info("Snapshot Status = " + createSnapshotResponse.status().toString());
-        if (createSnapshotResponse.status() == RestStatus.OK) {
-            //TODO Add Servo Monitoring so that it can be verified from dashboard
-            printSnapshotDetails(createSnapshotResponse);
-            snapshotSuccess.incrementAndGet();
-        } else if (createSnapshotResponse.status() == RestStatus.INTERNAL_SERVER_ERROR) {
-            //TODO Add Servo Monitoring so that it can be verified from dashboard
-            logger.info("Snapshot Completely Failed");
-            snapshotFailure.incrementAndGet();
-        }
-        //Stop the timer
-        snapshotTimer.stop();
-    }
 
-    //TODO: Map to Java Class and Create JSON
-    public void printSnapshotDetails(CreateSnapshotResponse createSnapshotResponse) {
-        StringBuilder builder = new StringBuilder();
-        builder.append("Snapshot Details:");
-        builder.append("\n\t Name = " + createSnapshotResponse.getSnapshotInfo().snapshotId().getName());
-        builder.append("\n\t Indices : ");
-        for (String index : createSnapshotResponse.getSnapshotInfo().indices()) {
-            builder.append("\n\t\t Index = " + index);
-        }
-        builder.append("\n\t Start Time = " + createSnapshotResponse.getSnapshotInfo().startTime());
-        builder.append("\n\t End Time = " + createSnapshotResponse.getSnapshotInfo().endTime());
-        long minuteDuration = (createSnapshotResponse.getSnapshotInfo().endTime() - createSnapshotResponse.getSnapshotInfo().startTime()) / (1000 * 60);
-        builder.append("\n\t Total Time Taken = " + minuteDuration + " Minutes");
-        builder.append("\n\t Total Shards = " + createSnapshotResponse.getSnapshotInfo().totalShards());
-        builder.append("\n\t Successful Shards = " + createSnapshotResponse.getSnapshotInfo().successfulShards());
-        builder.append("\n\t Total Failed Shards = " + createSnapshotResponse.getSnapshotInfo().failedShards());
-
-        if (createSnapshotResponse.getSnapshotInfo().failedShards() > 0) {
-            for (SnapshotShardFailure failedShard : createSnapshotResponse.getSnapshotInfo().shardFailures()) {
-                builder.append("\n\t Failed Shards : ");
-                builder.append("\n\t\t Index = " + failedShard.index());
-                builder.append("\n\t\t Shard Id = " + failedShard.shardId());
-                builder.append("\n\t\t Node Id = " + failedShard.nodeId());
-                builder.append("\n\t\t Reason = " + failedShard.reason());
+        SnapshotJob job = snapshotStatusTracker.track(repositoryName, snapshotName);
+        job.getCompletion().thenAccept(finishedJob -> {
+            snapshotTimer.stop();
+
+            if (finishedJob.isSuccessful()) {
+                snapshotSuccess.incrementAndGet();
+            } else {
+                logger.info("Snapshot {} failed in state {} with {} failed shards", finishedJob.getId(),
+                        finishedJob.getProgress().getState(), finishedJob.getProgress().getShardsFailed());
+                snapshotFailure.incrementAndGet();
             }
-        }
+        });
 
-        logger.info(builder.toString());
+        return job;
+    }
+
+    private interface SnapshotRequest {
+        CreateSnapshotResponse create(Client esTransportClient, String repositoryName);
     }
 
     public static TaskTimer getTimer(IConfiguration config) {
-        if (config.isHourlySnapshotEnabled()) {
+        if (StringUtils.isNotBlank(config.getSnapshotGroups())) {
+            // Groups have their own intervals, the coordinator only needs to look for due groups
+            return new SimpleTimer(JOBNAME, config.getSnapshotCoordinatorIntervalSeconds() * 1000L);
+        } else if (config.isHourlySnapshotEnabled()) {
             return new SimpleTimer(JOBNAME, config.getBackupCronTimerInSeconds() * 1000);
         } else {
             int hour = config.getBackupHour();
@@ -194,31 +240,15 @@ public class SnapshotBackupManager extends Task {
     }
 
     public CreateSnapshotResponse getCreateSnapshotResponse(Client esTransportClient, String repositoryName, String snapshotName) {
+        return getCreateSnapshotResponse(esTransportClient, repositoryName, snapshotName, config.getCommaSeparatedIndicesToBackup());
+    }
+
+    public CreateSnapshotResponse getCreateSnapshotResponse(Client esTransportClient, String repositoryName, String snapshotName,
+                                                            String commaSeparatedIndices) {
         return esTransportClient.admin().cluster().prepareCreateSnapshot(repositoryName, snapshotName)
-                .setWaitForCompletion(config.waitForCompletionOfBackup())
-                .setIndices(config.getCommaSeparatedIndicesToBackup().split(COMMA_SEPARATOR))
+                .setWaitForCompletion(false)
+                .setIndices(commaSeparatedIndices.split(COMMA_SEPARATOR))
                 .setIncludeGlobalState(config.includeGlobalStateDuringBackup())
                 .setPartial(config.partiallyBackupIndices()).get();
     }
-    //                (esTransportClient.admin().cluster().prepareGetSnapshots("test-repo").setSnapshots("test-snap").get().getSnapshots().get(0).state());//, equalTo(SnapshotState.SUCCESS));
-
-    /*
-                    NON-Blocking SnapshotRequest
-                    ----------------------------
-                    CreateSnapshotRequest createSnapshotRequest = new CreateSnapshotRequest(repositoryName,snapshotName);
-                    esTransportClient.admin().cluster().createSnapshot(createSnapshotRequest
-                            .indices(config.getCommaSeparatedIndicesToBackup())
-                            .includeGlobalState(config.includeGlobalStateDuringBackup())
-                            .waitForCompletion(config.waitForCompletionOfBackup()), new ActionListener<CreateSnapshotResponse>() {
-                        @Override
-                        public void onResponse(CreateSnapshotResponse createSnapshotResponse) {
-                            logger.info("Time take for Snapshot = ["+(createSnapshotResponse.getSnapshotInfo().endTime()-createSnapshotResponse.getSnapshotInfo().startTime())+"] Seconds");
-                        }
-
-                        @Override
-                        public void onFailure(Throwable e) {
-                            logger.info("Snapshot Completely Failed");
-                        }
-                    });
-     */
 }
@@ -0,0 +1,286 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.utils.ElasticsearchHttpClient;
+import com.netflix.raigad.utils.HttpModule;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.Monitors;
+import org.apache.commons.lang.StringUtils;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides which {@link SnapshotGroup} {@link SnapshotBackupManager} snapshots next.
+ * <p>
+ * Elasticsearch runs one snapshot at a time per cluster, so due groups are queued and started one per run,
+ * lowest priority value first, and among equal priorities the group that waited longest first.
+ * A due group is skipped until its next interval if the document counts and indexing/deletion totals of its
+ * primaries are the same as when its last successful snapshot started. Those totals reset when a shard is
+ * reopened, which can only cause an unneeded snapshot, never a missed one.
+ * <p>
+ * A group whose snapshot could not be started or did not succeed is due again after
+ * {@link #RETRY_DELAY_MILLIS}, or its interval if that is shorter, instead of waiting for its next interval.
+ * <p>
+ * Schedule and change state live in memory on the master, so all groups are due once after a restart or
+ * master change.
+ */
+@Singleton
+public class SnapshotCoordinator {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotCoordinator.class);
+
+    static final long RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    private final IConfiguration config;
+    private final HttpModule httpModule;
+    private final ElasticsearchHttpClient httpClient;
+
+    private final Map<String, GroupState> groupStates = new HashMap<>();
+    private final AtomicLong skippedGroups = new AtomicLong();
+    private volatile int queuedGroups;
+
+    private String serializedGroups;
+    private List<SnapshotGroup> groups = Collections.emptyList();
+
+    @Inject
+    public SnapshotCoordinator(IConfiguration config, HttpModule httpModule, ElasticsearchHttpClient httpClient) {
+        this.config = config;
+        this.httpModule = httpModule;
+        this.httpClient = httpClient;
+
+        Monitors.registerObject(new Elasticsearch_SnapshotCoordinatorReporter());
+    }
+
+    /**
+     * @return true if snapshot groups are configured
+     */
+    public boolean isEnabled() {
+        return StringUtils.isNotBlank(config.getSnapshotGroups());
+    }
+
+    /**
+     * @return configured groups, parsed again whenever the dynamic property changes
+     */
+    public synchronized List<SnapshotGroup> getGroups() throws IOException {
+        String current = config.getSnapshotGroups();
+
+        if (!StringUtils.equals(current, serializedGroups)) {
+            groups = StringUtils.isBlank(current) ? Collections.emptyList() : SnapshotGroup.parseSnapshotGroups(current);
+            serializedGroups = current;
+            logger.info("Snapshot groups: {}", groups);
+        }
+
+        return groups;
+    }
+
+    /**
+     * @return the configured group with the given name, or null
+     */
+    public synchronized SnapshotGroup getGroup(String name) throws IOException {
+        for (SnapshotGroup group : getGroups()) {
+            if (group.getName().equals(name)) {
+                return group;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Walks due groups in queue order and returns the first one whose indices changed since its last
+     * successful snapshot. Unchanged groups are not checked again before their next interval.
+     *
+     * @return the group to snapshot now, or null if no group needs a snapshot
+     */
+    public synchronized SnapshotGroup nextGroup(long now) throws IOException {
+        List<SnapshotGroup> dueGroups = new ArrayList<>();
+        for (SnapshotGroup group : getGroups()) {
+            if (getState(group).isDue(group, now)) {
+                dueGroups.add(group);
+            }
+        }
+
+        dueGroups.sort(Comparator.comparingInt(SnapshotGroup::getPriority)
+                .thenComparingLong(group -> getState(group).lastCheckTime));
+
+        for (int i = 0; i < dueGroups.size(); i++) {
+            SnapshotGroup group = dueGroups.get(i);
+            GroupState state = getState(group);
+            state.lastCheckTime = now;
+            state.retryTime = 0;
+
+            String fingerprint;
+            try {
+                fingerprint = fingerprint(group);
+            } catch (Exception e) {
+                // Snapshotting an unchanged group is cheap, missing a changed one is not
+                logger.warn("Failed to check whether indices of snapshot group {} changed: {}", group.getName(), e.getMessage());
+                fingerprint = null;
+            }
+
+            if (fingerprint != null && fingerprint.equals(state.lastSnapshotFingerprint)) {
+                logger.info("Indices of snapshot group {} did not change since its last snapshot, skipping it", group.getName());
+                skippedGroups.incrementAndGet();
+                continue;
+            }
+
+            state.pendingFingerprint = fingerprint;
+            queuedGroups = dueGroups.size() - i - 1;
+            return group;
+        }
+
+        queuedGroups = 0;
+        return null;
+    }
+
+    /**
+     * Records a started snapshot of the group. Once it succeeds, the group is compared against the indices
+     * as they were when it was selected.
+     */
+    public synchronized void recordStarted(SnapshotGroup group, SnapshotJob job) {
+        GroupState state = getState(group);
+        String fingerprint = state.pendingFingerprint;
+        state.pendingFingerprint = null;
+        state.lastCheckTime = job.getSubmitTime();
+
+        job.getCompletion().thenAccept(finishedJob -> {
+            synchronized (SnapshotCoordinator.this) {
+                if (finishedJob.isSuccessful()) {
+                    state.lastSnapshotFingerprint = fingerprint;
+                    state.lastSuccessTime = finishedJob.getSubmitTime();
+                } else {
+                    state.scheduleRetry(group, finishedJob.getFinishTime());
+                }
+            }
+        });
+    }
+
+    /**
+     * Records that a snapshot of the group could not be started, so it is retried before its next interval
+     */
+    public synchronized void recordStartFailed(SnapshotGroup group, long now) {
+        GroupState state = getState(group);
+        state.pendingFingerprint = null;
+        state.scheduleRetry(group, now);
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized JSONArray toJson() throws IOException {
+        JSONArray json = new JSONArray();
+
+        for (SnapshotGroup group : getGroups()) {
+            GroupState state = getState(group);
+
+            JSONObject groupJson = new JSONObject();
+            groupJson.put("name", group.getName());
+            groupJson.put("indices", group.getIndices());
+            groupJson.put("priority", group.getPriority());
+            groupJson.put("interval_millis", group.getIntervalMillis());
+            groupJson.put("last_check_time", state.lastCheckTime);
+            groupJson.put("last_success_time", state.lastSuccessTime);
+            groupJson.put("retry_time", state.retryTime);
+            json.add(groupJson);
+        }
+
+        return json;
+    }
+
+    /**
+     * @return per-index primary document counts and indexing/deletion totals of the group, in index name order
+     */
+    @SuppressWarnings("unchecked")
+    String fingerprint(SnapshotGroup group) throws Exception {
+        String response = httpClient.get(httpModule.indicesChangeStatsURL(group.getIndices()));
+        JSONObject indices = (JSONObject) ((JSONObject) new JSONParser().parse(response)).get("indices");
+
+        SortedMap<String, String> sortedIndices = new TreeMap<>();
+        if (indices != null) {
+            for (Object entry : indices.entrySet()) {
+                Map.Entry<String, JSONObject> index = (Map.Entry<String, JSONObject>) entry;
+                JSONObject primaries = getObject(index.getValue(), "primaries");
+                JSONObject docs = getObject(primaries, "docs");
+                JSONObject indexing = getObject(primaries, "indexing");
+
+                sortedIndices.put(index.getKey(), docs.get("count") + ":" + docs.get("deleted") + ":" +
+                        indexing.get("index_total") + ":" + indexing.get("delete_total"));
+            }
+        }
+
+        StringBuilder fingerprint = new StringBuilder();
+        for (Map.Entry<String, String> index : sortedIndices.entrySet()) {
+            fingerprint.append(index.getKey()).append('=').append(index.getValue()).append(';');
+        }
+
+        return fingerprint.toString();
+    }
+
+    private GroupState getState(SnapshotGroup group) {
+        return groupStates.computeIfAbsent(group.getName(), name -> new GroupState());
+    }
+
+    private static JSONObject getObject(JSONObject json, String key) {
+        Object value = json.get(key);
+        return value instanceof JSONObject ? (JSONObject) value : new JSONObject();
+    }
+
+    private static final class GroupState {
+        private long lastCheckTime;
+        private long lastSuccessTime;
+        private String lastSnapshotFingerprint;
+        private String pendingFingerprint;
+        private long retryTime;
+
+        private boolean isDue(SnapshotGroup group, long now) {
+            return lastCheckTime == 0 || now - lastCheckTime >= group.getIntervalMillis() ||
+                    (retryTime > 0 && now >= retryTime);
+        }
+
+        private void scheduleRetry(SnapshotGroup group, long now) {
+            retryTime = now + Math.min(RETRY_DELAY_MILLIS, group.getIntervalMillis());
+        }
+    }
+
+    public class Elasticsearch_SnapshotCoordinatorReporter {
+        @Monitor(name = "snapshot_groups_skipped", type = DataSourceType.COUNTER)
+        public long getSkippedGroups() {
+            return skippedGroups.get();
+        }
+
+        @Monitor(name = "snapshot_groups_queued", type = DataSourceType.GAUGE)
+        public int getQueuedGroups() {
+            return queuedGroups;
+        }
+    }
+}
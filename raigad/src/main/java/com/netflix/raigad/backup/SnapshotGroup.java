@@ -0,0 +1,106 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import com.netflix.raigad.objectmapper.DefaultIndexMapper;
+import org.apache.commons.lang.StringUtils;
+import org.codehaus.jackson.annotate.JsonCreator;
+import org.codehaus.jackson.annotate.JsonProperty;
+import org.codehaus.jackson.type.TypeReference;
+import org.joda.time.Period;
+import org.joda.time.format.ISOPeriodFormat;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A set of indices snapshotted together, on its own interval, as configured in
+ * {@link com.netflix.raigad.configuration.IConfiguration#getSnapshotGroups()}, e.g.
+ * <pre>
+ * [{"name": "critical", "indices": "accounts,billing*", "interval": "PT1H", "priority": 1},
+ *  {"name": "logs", "indices": "nf_errors_log*", "interval": "P1D"}]
+ * </pre>
+ * Intervals are ISO-8601 periods of weeks, days, hours or minutes. When several groups are due,
+ * groups with a lower priority value are snapshotted first.
+ */
+public class SnapshotGroup {
+    static final int DEFAULT_PRIORITY = 100;
+
+    private final String name;
+    private final String indices;
+    private final Period interval;
+    private final long intervalMillis;
+    private final int priority;
+
+    @JsonCreator
+    public SnapshotGroup(
+            @JsonProperty("name") String name,
+            @JsonProperty("indices") String indices,
+            @JsonProperty("interval") String interval,
+            @JsonProperty("priority") Integer priority) {
+
+        if (StringUtils.isBlank(name) || StringUtils.isBlank(indices) || StringUtils.isBlank(interval)) {
+            throw new IllegalArgumentException("Snapshot groups require a name, indices and an interval");
+        }
+
+        // Snapshot names have to be lowercase, and the group name is their prefix
+        this.name = name.toLowerCase();
+        this.indices = indices;
+        this.interval = ISOPeriodFormat.standard().parsePeriod(interval);
+
+        // Months and years vary in length, so they have no fixed number of milliseconds
+        if (this.interval.getYears() != 0 || this.interval.getMonths() != 0) {
+            throw new IllegalArgumentException("Interval " + interval + " of snapshot group " + name +
+                    " must not contain months or years, use weeks or days instead");
+        }
+
+        this.intervalMillis = this.interval.toStandardDuration().getMillis();
+        if (this.intervalMillis <= 0) {
+            throw new IllegalArgumentException("Interval " + interval + " of snapshot group " + name + " must be positive");
+        }
+
+        this.priority = priority == null ? DEFAULT_PRIORITY : priority;
+    }
+
+    public static List<SnapshotGroup> parseSnapshotGroups(String serializedSnapshotGroups) throws IOException {
+        TypeReference<List<SnapshotGroup>> typeRef = new TypeReference<List<SnapshotGroup>>() {};
+        return new DefaultIndexMapper().readValue(serializedSnapshotGroups, typeRef);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return comma separated index names or wildcard patterns
+     */
+    public String getIndices() {
+        return indices;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    @Override
+    public String toString() {
+        return "SnapshotGroup{name=" + name + ", indices=" + indices + ", interval=" + interval + ", priority=" + priority + "}";
+    }
+}
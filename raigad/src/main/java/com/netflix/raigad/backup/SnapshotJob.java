@@ -0,0 +1,241 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import org.json.simple.JSONObject;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * A snapshot started without waiting for completion, along with the progress last reported by
+ * _snapshot/{repository}/{snapshot}/_status.
+ * <p>
+ * {@link #getCompletion()} completes once Elasticsearch reports a final state, or once the status could not be
+ * polled for {@link com.netflix.raigad.configuration.IConfiguration#getSnapshotStatusMaxPollFailures()} times in a row.
+ */
+public class SnapshotJob {
+    static final String STATE_SUBMITTED = "SUBMITTED";
+    static final String STATE_SUCCESS = "SUCCESS";
+    static final String STATE_UNKNOWN = "UNKNOWN";
+
+    private final String repositoryName;
+    private final String snapshotName;
+    private final long submitTime;
+    private final CompletableFuture<SnapshotJob> completion = new CompletableFuture<>();
+
+    private volatile Progress progress = new Progress(STATE_SUBMITTED, 0, 0, 0, 0, 0, 0);
+    private volatile long finishTime;
+    private int consecutivePollFailures;
+    private Future<?> poller;
+
+    SnapshotJob(String repositoryName, String snapshotName, long submitTime) {
+        this.repositoryName = repositoryName;
+        this.snapshotName = snapshotName;
+        this.submitTime = submitTime;
+    }
+
+    /**
+     * Snapshot names are unique within a repository, so the pair identifies the job
+     */
+    public String getId() {
+        return repositoryName + "/" + snapshotName;
+    }
+
+    public String getRepositoryName() {
+        return repositoryName;
+    }
+
+    public String getSnapshotName() {
+        return snapshotName;
+    }
+
+    public long getSubmitTime() {
+        return submitTime;
+    }
+
+    /**
+     * @return when the job finished, or 0 while it runs
+     */
+    public long getFinishTime() {
+        return finishTime;
+    }
+
+    public Progress getProgress() {
+        return progress;
+    }
+
+    public boolean isFinished() {
+        return completion.isDone();
+    }
+
+    /**
+     * @return true if the snapshot finished in the SUCCESS state without any failed shard
+     */
+    public boolean isSuccessful() {
+        Progress last = progress;
+        return isFinished() && STATE_SUCCESS.equals(last.state) && last.shardsFailed == 0;
+    }
+
+    public CompletableFuture<SnapshotJob> getCompletion() {
+        return completion;
+    }
+
+    @SuppressWarnings("unchecked")
+    public JSONObject toJson() {
+        Progress last = progress;
+
+        JSONObject json = new JSONObject();
+        json.put("job_id", getId());
+        json.put("repository", repositoryName);
+        json.put("snapshot", snapshotName);
+        json.put("state", last.state);
+        json.put("finished", isFinished());
+        json.put("successful", isSuccessful());
+        json.put("submit_time", submitTime);
+        json.put("finish_time", finishTime);
+        json.put("shards_total", last.shardsTotal);
+        json.put("shards_done", last.shardsDone);
+        json.put("shards_failed", last.shardsFailed);
+        json.put("processed_bytes", last.processedBytes);
+        json.put("total_bytes", last.totalBytes);
+        json.put("bytes_per_second", last.getBytesPerSecond());
+        json.put("eta_seconds", last.getEtaSeconds());
+        return json;
+    }
+
+    void update(Progress progress) {
+        this.progress = progress;
+        consecutivePollFailures = 0;
+    }
+
+    int recordPollFailure() {
+        return ++consecutivePollFailures;
+    }
+
+    synchronized void setPoller(Future<?> poller) {
+        this.poller = poller;
+
+        // The first poll may already have seen the final state
+        if (isFinished()) {
+            poller.cancel(false);
+        }
+    }
+
+    synchronized void finish(long finishTime) {
+        this.finishTime = finishTime;
+
+        if (poller != null) {
+            poller.cancel(false);
+        }
+
+        completion.complete(this);
+    }
+
+    @Override
+    public String toString() {
+        return "SnapshotJob{" + getId() + ", " + progress.state + "}";
+    }
+
+    /**
+     * Immutable view of one status response
+     */
+    public static final class Progress {
+        private final String state;
+        private final int shardsTotal;
+        private final int shardsDone;
+        private final int shardsFailed;
+        private final long processedBytes;
+        private final long totalBytes;
+        private final long elapsedMillis;
+
+        Progress(String state, int shardsTotal, int shardsDone, int shardsFailed, long processedBytes, long totalBytes, long elapsedMillis) {
+            this.state = state;
+            this.shardsTotal = shardsTotal;
+            this.shardsDone = shardsDone;
+            this.shardsFailed = shardsFailed;
+            this.processedBytes = processedBytes;
+            this.totalBytes = totalBytes;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public String getState() {
+            return state;
+        }
+
+        public int getShardsTotal() {
+            return shardsTotal;
+        }
+
+        public int getShardsDone() {
+            return shardsDone;
+        }
+
+        public int getShardsFailed() {
+            return shardsFailed;
+        }
+
+        public long getProcessedBytes() {
+            return processedBytes;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * @return average upload rate since the snapshot started, or 0 if nothing was measured yet
+         */
+        public long getBytesPerSecond() {
+            return elapsedMillis > 0 ? processedBytes * 1000 / elapsedMillis : 0;
+        }
+
+        /**
+         * @return seconds left at the average upload rate, 0 once everything is processed, or -1 if no rate is known yet
+         */
+        public long getEtaSeconds() {
+            long remainingBytes = totalBytes - processedBytes;
+            if (remainingBytes <= 0) {
+                return 0;
+            }
+
+            long bytesPerSecond = getBytesPerSecond();
+            return bytesPerSecond > 0 ? remainingBytes / bytesPerSecond : -1;
+        }
+
+        /**
+         * Final snapshot states of Elasticsearch 5.x; PARTIAL is only reported by the snapshots API
+         * but is accepted here as well
+         */
+        boolean isFinal() {
+            switch (state) {
+                case STATE_SUCCESS:
+                case "PARTIAL":
+                case "FAILED":
+                case "ABORTED":
+                case "MISSING":
+                case STATE_UNKNOWN:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.backup;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.utils.ElasticsearchHttpClient;
+import com.netflix.raigad.utils.HttpModule;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.Monitors;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows snapshots started without waiting for completion by polling _snapshot/{repository}/{snapshot}/_status
+ * every {@link IConfiguration#getSnapshotStatusPollIntervalSeconds()}, so no scheduler or REST thread is held
+ * for the hours a large snapshot can take.
+ * <p>
+ * Shard progress, upload rate and ETA of the most recent snapshot are published as Servo gauges,
+ * and the last {@link #MAX_JOBS} jobs stay available for the status REST call.
+ */
+@Singleton
+public class SnapshotStatusTracker {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotStatusTracker.class);
+    public static final String METRIC_NAME = "Elasticsearch_SnapshotStatusTracker";
+
+    static final int MAX_JOBS = 20;
+
+    private final IConfiguration config;
+    private final HttpModule httpModule;
+    private final ElasticsearchHttpClient httpClient;
+
+    private final Map<String, SnapshotJob> jobs = new LinkedHashMap<String, SnapshotJob>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SnapshotJob> eldest) {
+            return size() > MAX_JOBS;
+        }
+    };
+
+    private volatile SnapshotJob latestJob;
+    private ScheduledExecutorService executor;
+
+    @Inject
+    public SnapshotStatusTracker(IConfiguration config, HttpModule httpModule, ElasticsearchHttpClient httpClient) {
+        this.config = config;
+        this.httpModule = httpModule;
+        this.httpClient = httpClient;
+
+        Monitors.registerObject(new Elasticsearch_SnapshotStatusReporter());
+    }
+
+    /**
+     * Starts polling the status of a snapshot that Elasticsearch accepted
+     *
+     * @return the job, whose completion fires once the snapshot reached a final state
+     */
+    public synchronized SnapshotJob track(String repositoryName, String snapshotName) {
+        SnapshotJob job = new SnapshotJob(repositoryName, snapshotName, System.currentTimeMillis());
+        jobs.put(job.getId(), job);
+        latestJob = job;
+
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("SnapshotStatusTracker-%d").build());
+        }
+
+        int intervalSeconds = config.getSnapshotStatusPollIntervalSeconds();
+        job.setPoller(executor.scheduleWithFixedDelay(() -> poll(job), intervalSeconds, intervalSeconds, TimeUnit.SECONDS));
+
+        logger.info("Tracking snapshot {} every {} seconds", job.getId(), intervalSeconds);
+        return job;
+    }
+
+    /**
+     * @return the job with the given id, or null if it is unknown or was evicted
+     */
+    public synchronized SnapshotJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * @return the most recently started job, or null if no snapshot was started since startup
+     */
+    public SnapshotJob getLatestJob() {
+        return latestJob;
+    }
+
+    /**
+     * @return the most recently started job if it has not finished yet, otherwise null
+     */
+    public SnapshotJob getRunningJob() {
+        SnapshotJob job = latestJob;
+        return job == null || job.isFinished() ? null : job;
+    }
+
+    void poll(SnapshotJob job) {
+        if (job.isFinished()) {
+            return;
+        }
+
+        SnapshotJob.Progress progress;
+
+        try {
+            String response = httpClient.get(httpModule.snapshotStatusURL(job.getRepositoryName(), job.getSnapshotName()));
+            progress = parseProgress(response, job.getSnapshotName());
+        } catch (Exception e) {
+            int failures = job.recordPollFailure();
+            logger.warn("Failed to poll status of snapshot {} ({} in a row): {}", job.getId(), failures, e.getMessage());
+
+            if (failures >= config.getSnapshotStatusMaxPollFailures()) {
+                logger.error("Giving up on snapshot {} after {} failed status polls", job.getId(), failures);
+                SnapshotJob.Progress last = job.getProgress();
+                job.update(new SnapshotJob.Progress(SnapshotJob.STATE_UNKNOWN, last.getShardsTotal(), last.getShardsDone(),
+                        last.getShardsFailed(), last.getProcessedBytes(), last.getTotalBytes(), last.getElapsedMillis()));
+                job.finish(System.currentTimeMillis());
+            }
+            return;
+        }
+
+        job.update(progress);
+
+        if (progress.isFinal()) {
+            job.finish(System.currentTimeMillis());
+            logger.info("Snapshot {} finished: {}", job.getId(), job.toJson().toJSONString());
+        } else if (config.isDebugEnabled()) {
+            logger.debug("Snapshot {} progress: {}", job.getId(), job.toJson().toJSONString());
+        }
+    }
+
+    static SnapshotJob.Progress parseProgress(String response, String snapshotName) throws Exception {
+        JSONObject root = (JSONObject) new JSONParser().parse(response);
+        JSONArray snapshots = (JSONArray) root.get("snapshots");
+
+        if (snapshots != null) {
+            for (Object entry : snapshots) {
+                JSONObject snapshot = (JSONObject) entry;
+                if (!snapshotName.equals(snapshot.get("snapshot"))) {
+                    continue;
+                }
+
+                JSONObject shardsStats = getObject(snapshot, "shards_stats");
+                JSONObject stats = getObject(snapshot, "stats");
+                String state = (String) snapshot.get("state");
+
+                return new SnapshotJob.Progress(
+                        state == null ? SnapshotJob.STATE_SUBMITTED : state,
+                        (int) getLong(shardsStats, "total"),
+                        (int) getLong(shardsStats, "done"),
+                        (int) getLong(shardsStats, "failed"),
+                        getLong(stats, "processed_size_in_bytes"),
+                        getLong(stats, "total_size_in_bytes"),
+                        getLong(stats, "time_in_millis"));
+            }
+        }
+
+        throw new IllegalStateException("Snapshot " + snapshotName + " is missing from the status response");
+    }
+
+    private static JSONObject getObject(JSONObject json, String key) {
+        Object value = json.get(key);
+        return value instanceof JSONObject ? (JSONObject) value : new JSONObject();
+    }
+
+    private static long getLong(JSONObject json, String key) {
+        Object value = json.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    public class Elasticsearch_SnapshotStatusReporter {
+        @Monitor(name = "snapshot_running", type = DataSourceType.GAUGE)
+        public int getSnapshotRunning() {
+            return getRunningJob() == null ? 0 : 1;
+        }
+
+        @Monitor(name = "snapshot_shards_total", type = DataSourceType.GAUGE)
+        public int getShardsTotal() {
+            SnapshotJob job = latestJob;
+            return job == null ? 0 : job.getProgress().getShardsTotal();
+        }
+
+        @Monitor(name = "snapshot_shards_done", type = DataSourceType.GAUGE)
+        public int getShardsDone() {
+            SnapshotJob job = latestJob;
+            return job == null ? 0 : job.getProgress().getShardsDone();
+        }
+
+        @Monitor(name = "snapshot_shards_failed", type = DataSourceType.GAUGE)
+        public int getShardsFailed() {
+            SnapshotJob job = latestJob;
+            return job == null ? 0 : job.getProgress().getShardsFailed();
+        }
+
+        @Monitor(name = "snapshot_bytes_per_second", type = DataSourceType.GAUGE)
+        public long getBytesPerSecond() {
+            SnapshotJob job = latestJob;
+            return job == null ? 0 : job.getProgress().getBytesPerSecond();
+        }
+
+        @Monitor(name = "snapshot_eta_seconds", type = DataSourceType.GAUGE)
+        public long getEtaSeconds() {
+            SnapshotJob job = latestJob;
+            return job == null ? 0 : job.getProgress().getEtaSeconds();
+        }
+    }
+}
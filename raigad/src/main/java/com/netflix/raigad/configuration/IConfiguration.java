@@ -214,6 +214,11 @@ public interface IConfiguration {
 
     boolean includeGlobalStateDuringBackup();
 
+    /**
+     * @return wait_for_completion flag of {@link com.netflix.raigad.utils.HttpModule#runSnapshotBackupURL(String, String)}.
+     * Snapshots started by {@link com.netflix.raigad.backup.SnapshotBackupManager} never wait and are tracked
+     * by {@link com.netflix.raigad.backup.SnapshotStatusTracker} instead.
+     */
     boolean waitForCompletionOfBackup();
 
     boolean includeIndexNameInSnapshot();
@@ -288,6 +293,10 @@ public interface IConfiguration {
      */
     boolean amISourceClusterForTribeNodeInMultiDC();
 
+    /**
+     * @return true if only the elected master publishes cluster-level metrics, false (default) if every node
+     * publishes them. Every node still reads cluster health locally to adapt its collection interval.
+     */
     boolean reportMetricsFromMasterOnly();
 
     /**
@@ -332,4 +341,221 @@ public interface IConfiguration {
      * Get the MAC id for an instance
      */
     String getMacIdForInstance();
-}
\ No newline at end of file
+
+    /**
+     * @return seconds a cached cluster membership view is served before it is refreshed in the background (0 disables caching)
+     */
+    int getMembershipCacheTtlSeconds();
+
+    /**
+     * @return maximum age in seconds of a cached membership view before callers block on a synchronous reload
+     */
+    int getMembershipCacheMaxStaleSeconds();
+
+    /**
+     * @return connect timeout of the pooled HTTP client used for local Elasticsearch REST calls
+     */
+    int getHttpClientConnectTimeoutMillis();
+
+    /**
+     * @return default read timeout of the pooled HTTP client, used when a call does not specify its own
+     */
+    int getHttpClientSocketTimeoutMillis();
+
+    /**
+     * @return maximum number of pooled keep-alive connections of the HTTP client
+     */
+    int getHttpClientMaxConnections();
+
+    /**
+     * @return number of threads executing asynchronous HTTP client calls
+     */
+    int getHttpClientAsyncThreads();
+
+    /**
+     * @return how often the elected master of the cluster is looked up in the background
+     */
+    int getMasterStatusRefreshIntervalMillis();
+
+    /**
+     * @return number of expired indices deleted by a single delete index request
+     */
+    int getIndexRetentionDeleteBatchSize();
+
+    /**
+     * @return maximum number of retention delete requests in flight at the same time
+     */
+    int getIndexRetentionDeleteConcurrency();
+
+    /**
+     * @return UTC hour at which the off-peak window for warm phase work (force-merge, shrink) starts
+     */
+    int getIndexWarmPhaseStartHour();
+
+    /**
+     * @return UTC hour at which the off-peak window for warm phase work ends (exclusive)
+     */
+    int getIndexWarmPhaseEndHour();
+
+    /**
+     * @return how long an issued force-merge counts as running on the nodes holding its index before others may start there
+     */
+    int getIndexWarmPhaseForceMergeTimeoutMinutes();
+
+    /**
+     * @return how long a cold index reopened on demand stays open without being searched before it is closed again
+     */
+    int getIndexReopenTtlMinutes();
+
+    /**
+     * @return maximum number of cold indices a single reopen request may open
+     */
+    int getIndexReopenMaxIndices();
+
+    /**
+     * @return number of worker threads shared by all scheduled tasks
+     */
+    int getSchedulerThreadCount();
+
+    /**
+     * @return upper bound of the per-instance offset added to the fire times of scheduled tasks that do not repeat at a fixed rate
+     */
+    int getSchedulerMaxStartJitterMillis();
+
+    /**
+     * @return true if node stats monitors back off under node pressure and collect more often while the cluster is not green
+     */
+    boolean isMonitorIntervalAdaptive();
+
+    /**
+     * @return node stats collection interval used while the cluster is yellow or red
+     */
+    int getMonitorMinIntervalSeconds();
+
+    /**
+     * @return longest node stats collection interval the monitors back off to under node pressure
+     */
+    int getMonitorMaxIntervalSeconds();
+
+    /**
+     * @return heap usage at or above which the node is considered under pressure
+     */
+    int getMonitorStressHeapUsedPercent();
+
+    /**
+     * @return search thread pool queue size at or above which the node is considered under pressure
+     */
+    int getMonitorStressSearchQueueSize();
+
+    /**
+     * @return circuit breaker usage, relative to its limit, at or above which the node is considered under pressure
+     */
+    int getMonitorStressBreakerUsedPercent();
+
+    /**
+     * @return PID file written by the Elasticsearch startup script (-p), empty to locate the process by name
+     */
+    String getElasticsearchPidFile();
+
+    /**
+     * @return how often the liveness of the Elasticsearch process is checked
+     */
+    int getElasticsearchProcessCheckIntervalMillis();
+
+    /**
+     * @return how long callers wait for a healthy transport client before failing
+     */
+    int getTransportClientMaxWaitMillis();
+
+    /**
+     * @return number of consecutive failed requests after which the transport client is rebuilt
+     */
+    int getTransportClientMaxConsecutiveFailures();
+
+    /**
+     * @return upper bound of the backoff between transport client rebuilds that did not connect
+     */
+    int getTransportClientRebuildMaxBackoffSeconds();
+
+    /**
+     * @return how node stats are collected: "http" (default, streamed from the local REST endpoint) or "transport"
+     * (transport client, builds the whole node stats object graph and allocates considerably more per collection)
+     */
+    String getNodeStatsBackend();
+
+    /**
+     * @return interval at which the status of a running snapshot is polled
+     */
+    int getSnapshotStatusPollIntervalSeconds();
+
+    /**
+     * @return number of consecutive failed status polls after which a snapshot is given up on and counted as failed
+     */
+    int getSnapshotStatusMaxPollFailures();
+
+    /**
+     * @return JSON list of {@link com.netflix.raigad.backup.SnapshotGroup}s snapshotted separately, or null to snapshot {@link #getCommaSeparatedIndicesToBackup()} as a whole
+     */
+    String getSnapshotGroups();
+
+    /**
+     * @return interval at which due snapshot groups are checked when snapshot groups are configured
+     */
+    int getSnapshotCoordinatorIntervalSeconds();
+
+    /**
+     * @return true if max_snapshot_bytes_per_sec and max_restore_bytes_per_sec of repositories follow cluster load, false to leave them to Elasticsearch defaults
+     */
+    boolean isRepositoryThrottleAdaptive();
+
+    /**
+     * @return interval at which the repository rate is adjusted while a snapshot or restore is running
+     */
+    int getRepositoryThrottleIntervalSeconds();
+
+    /**
+     * @return lowest snapshot and restore rate, per node, the repository rate backs off to
+     */
+    int getRepositoryThrottleMinMBPerSec();
+
+    /**
+     * @return highest snapshot and restore rate, per node, outside of off-peak hours
+     */
+    int getRepositoryThrottleMaxMBPerSec();
+
+    /**
+     * @return highest snapshot and restore rate, per node, during off-peak hours, by default the same as outside of them
+     */
+    int getRepositoryThrottleOffPeakMaxMBPerSec();
+
+    /**
+     * @return UTC hour (0 - 23) off-peak hours start at
+     */
+    int getRepositoryThrottleOffPeakStartHour();
+
+    /**
+     * @return UTC hour (0 - 23) off-peak hours end at, off-peak hours are disabled if it equals the start hour
+     */
+    int getRepositoryThrottleOffPeakEndHour();
+
+    /**
+     * @return search, index or bulk thread pool queue size on any node at or above which the repository rate backs off
+     */
+    int getRepositoryThrottleMaxQueueSize();
+
+    /**
+     * @return average query phase latency on any node at or above which the repository rate backs off
+     */
+    int getRepositoryThrottleMaxQueryLatencyMillis();
+
+    /**
+     * @return average per-document indexing latency on any node at or above which the repository rate backs off
+     */
+    int getRepositoryThrottleMaxIndexingLatencyMillis();
+
+    /**
+     * @return disk read and write throughput on any node at or above which the repository rate backs off, 0 to ignore disk throughput.
+     * Reads of the running snapshot count as well, so it has to be well above the highest repository rate.
+     */
+    int getRepositoryThrottleMaxDiskKBytesPerSec();
+}
@@ -117,6 +117,49 @@ public class RaigadConfiguration implements IConfiguration {
     private static final String CONFIG_REPORT_METRICS_FROM_MASTER_ONLY = MY_WEBAPP_NAME + ".report.metrics.from.master.only";
     private static final String CONFIG_TRIBE_PREFERRED_CLUSTER_ID_ON_CONFLICT = MY_WEBAPP_NAME + ".tribe.preferred.cluster.id.on.conflict";
 
+    private static final String CONFIG_MEMBERSHIP_CACHE_TTL_SECONDS = MY_WEBAPP_NAME + ".membership.cache.ttl.seconds";
+    private static final String CONFIG_MEMBERSHIP_CACHE_MAX_STALE_SECONDS = MY_WEBAPP_NAME + ".membership.cache.max.stale.seconds";
+    private static final String CONFIG_HTTP_CLIENT_CONNECT_TIMEOUT_MILLIS = MY_WEBAPP_NAME + ".http.client.connect.timeout.millis";
+    private static final String CONFIG_HTTP_CLIENT_SOCKET_TIMEOUT_MILLIS = MY_WEBAPP_NAME + ".http.client.socket.timeout.millis";
+    private static final String CONFIG_HTTP_CLIENT_MAX_CONNECTIONS = MY_WEBAPP_NAME + ".http.client.max.connections";
+    private static final String CONFIG_HTTP_CLIENT_ASYNC_THREADS = MY_WEBAPP_NAME + ".http.client.async.threads";
+    private static final String CONFIG_MASTER_STATUS_REFRESH_INTERVAL_MILLIS = MY_WEBAPP_NAME + ".master.status.refresh.interval.millis";
+    private static final String CONFIG_INDEX_RETENTION_DELETE_BATCH_SIZE = MY_WEBAPP_NAME + ".index.retention.delete.batch.size";
+    private static final String CONFIG_INDEX_RETENTION_DELETE_CONCURRENCY = MY_WEBAPP_NAME + ".index.retention.delete.concurrency";
+    private static final String CONFIG_INDEX_WARM_PHASE_START_HOUR = MY_WEBAPP_NAME + ".index.warm.phase.start.hour";
+    private static final String CONFIG_INDEX_WARM_PHASE_END_HOUR = MY_WEBAPP_NAME + ".index.warm.phase.end.hour";
+    private static final String CONFIG_INDEX_WARM_PHASE_FORCE_MERGE_TIMEOUT_MINUTES = MY_WEBAPP_NAME + ".index.warm.phase.force.merge.timeout.minutes";
+    private static final String CONFIG_INDEX_REOPEN_TTL_MINUTES = MY_WEBAPP_NAME + ".index.reopen.ttl.minutes";
+    private static final String CONFIG_INDEX_REOPEN_MAX_INDICES = MY_WEBAPP_NAME + ".index.reopen.max.indices";
+    private static final String CONFIG_SCHEDULER_THREAD_COUNT = MY_WEBAPP_NAME + ".scheduler.thread.count";
+    private static final String CONFIG_SCHEDULER_MAX_START_JITTER_MILLIS = MY_WEBAPP_NAME + ".scheduler.max.start.jitter.millis";
+    private static final String CONFIG_MONITOR_INTERVAL_ADAPTIVE = MY_WEBAPP_NAME + ".monitor.interval.adaptive";
+    private static final String CONFIG_MONITOR_MIN_INTERVAL_SECONDS = MY_WEBAPP_NAME + ".monitor.min.interval.seconds";
+    private static final String CONFIG_MONITOR_MAX_INTERVAL_SECONDS = MY_WEBAPP_NAME + ".monitor.max.interval.seconds";
+    private static final String CONFIG_MONITOR_STRESS_HEAP_USED_PERCENT = MY_WEBAPP_NAME + ".monitor.stress.heap.used.percent";
+    private static final String CONFIG_MONITOR_STRESS_SEARCH_QUEUE_SIZE = MY_WEBAPP_NAME + ".monitor.stress.search.queue.size";
+    private static final String CONFIG_MONITOR_STRESS_BREAKER_USED_PERCENT = MY_WEBAPP_NAME + ".monitor.stress.breaker.used.percent";
+    private static final String CONFIG_ES_PID_FILE = MY_WEBAPP_NAME + ".elasticsearch.pid.file";
+    private static final String CONFIG_ES_PROCESS_CHECK_INTERVAL_MILLIS = MY_WEBAPP_NAME + ".elasticsearch.process.check.interval.millis";
+    private static final String CONFIG_TRANSPORT_CLIENT_MAX_WAIT_MILLIS = MY_WEBAPP_NAME + ".transport.client.max.wait.millis";
+    private static final String CONFIG_TRANSPORT_CLIENT_MAX_CONSECUTIVE_FAILURES = MY_WEBAPP_NAME + ".transport.client.max.consecutive.failures";
+    private static final String CONFIG_TRANSPORT_CLIENT_REBUILD_MAX_BACKOFF_SECONDS = MY_WEBAPP_NAME + ".transport.client.rebuild.max.backoff.seconds";
+    private static final String CONFIG_NODE_STATS_BACKEND = MY_WEBAPP_NAME + ".node.stats.backend";
+    private static final String CONFIG_SNAPSHOT_STATUS_POLL_INTERVAL_SECONDS = MY_WEBAPP_NAME + ".snapshot.status.poll.interval.seconds";
+    private static final String CONFIG_SNAPSHOT_STATUS_MAX_POLL_FAILURES = MY_WEBAPP_NAME + ".snapshot.status.max.poll.failures";
+    private static final String CONFIG_SNAPSHOT_GROUPS = MY_WEBAPP_NAME + ".snapshot.groups";
+    private static final String CONFIG_SNAPSHOT_COORDINATOR_INTERVAL_SECONDS = MY_WEBAPP_NAME + ".snapshot.coordinator.interval.seconds";
+    private static final String CONFIG_REPOSITORY_THROTTLE_ADAPTIVE = MY_WEBAPP_NAME + ".repository.throttle.adaptive";
+    private static final String CONFIG_REPOSITORY_THROTTLE_INTERVAL_SECONDS = MY_WEBAPP_NAME + ".repository.throttle.interval.seconds";
+    private static final String CONFIG_REPOSITORY_THROTTLE_MIN_MB_PER_SEC = MY_WEBAPP_NAME + ".repository.throttle.min.mb.per.sec";
+    private static final String CONFIG_REPOSITORY_THROTTLE_MAX_MB_PER_SEC = MY_WEBAPP_NAME + ".repository.throttle.max.mb.per.sec";
+    private static final String CONFIG_REPOSITORY_THROTTLE_OFF_PEAK_MAX_MB_PER_SEC = MY_WEBAPP_NAME + ".repository.throttle.off.peak.max.mb.per.sec";
+    private static final String CONFIG_REPOSITORY_THROTTLE_OFF_PEAK_START_HOUR = MY_WEBAPP_NAME + ".repository.throttle.off.peak.start.hour";
+    private static final String CONFIG_REPOSITORY_THROTTLE_OFF_PEAK_END_HOUR = MY_WEBAPP_NAME + ".repository.throttle.off.peak.end.hour";
+    private static final String CONFIG_REPOSITORY_THROTTLE_MAX_QUEUE_SIZE = MY_WEBAPP_NAME + ".repository.throttle.max.queue.size";
+    private static final String CONFIG_REPOSITORY_THROTTLE_MAX_QUERY_LATENCY_MILLIS = MY_WEBAPP_NAME + ".repository.throttle.max.query.latency.millis";
+    private static final String CONFIG_REPOSITORY_THROTTLE_MAX_INDEXING_LATENCY_MILLIS = MY_WEBAPP_NAME + ".repository.throttle.max.indexing.latency.millis";
+    private static final String CONFIG_REPOSITORY_THROTTLE_MAX_DISK_KBYTES_PER_SEC = MY_WEBAPP_NAME + ".repository.throttle.max.disk.kbytes.per.sec";
     // Amazon specific
     private static final String CONFIG_ASG_NAME = MY_WEBAPP_NAME + ".az.asgname";
     private static final String CONFIG_STACK_NAME = MY_WEBAPP_NAME + ".az.stack";
@@ -249,6 +292,49 @@ public class RaigadConfiguration implements IConfiguration {
     private static final boolean DEFAULT_REPORT_METRICS_FROM_MASTER_ONLY = false;
     private static final String DEFAULT_TRIBE_PREFERRED_CLUSTER_ID_ON_CONFLICT = "t0";
     private static final String DEFAULT_ACL_GROUP_NAME_FOR_VPC = "es_samplecluster";
+    private static final int DEFAULT_MEMBERSHIP_CACHE_TTL_SECONDS = 10;
+    private static final int DEFAULT_MEMBERSHIP_CACHE_MAX_STALE_SECONDS = 300;
+    private static final int DEFAULT_HTTP_CLIENT_CONNECT_TIMEOUT_MILLIS = 1000;
+    private static final int DEFAULT_HTTP_CLIENT_SOCKET_TIMEOUT_MILLIS = 1000;
+    private static final int DEFAULT_HTTP_CLIENT_MAX_CONNECTIONS = 20;
+    private static final int DEFAULT_HTTP_CLIENT_ASYNC_THREADS = 4;
+    private static final int DEFAULT_MASTER_STATUS_REFRESH_INTERVAL_MILLIS = 5000;
+    private static final int DEFAULT_INDEX_RETENTION_DELETE_BATCH_SIZE = 20;
+    private static final int DEFAULT_INDEX_RETENTION_DELETE_CONCURRENCY = 2;
+    private static final int DEFAULT_INDEX_WARM_PHASE_START_HOUR = 1;
+    private static final int DEFAULT_INDEX_WARM_PHASE_END_HOUR = 6;
+    private static final int DEFAULT_INDEX_WARM_PHASE_FORCE_MERGE_TIMEOUT_MINUTES = 60;
+    private static final int DEFAULT_INDEX_REOPEN_TTL_MINUTES = 60;
+    private static final int DEFAULT_INDEX_REOPEN_MAX_INDICES = 30;
+    private static final int DEFAULT_SCHEDULER_THREAD_COUNT = 8;
+    private static final int DEFAULT_SCHEDULER_MAX_START_JITTER_MILLIS = 5000;
+    private static final boolean DEFAULT_MONITOR_INTERVAL_ADAPTIVE = true;
+    private static final int DEFAULT_MONITOR_MIN_INTERVAL_SECONDS = 10;
+    private static final int DEFAULT_MONITOR_MAX_INTERVAL_SECONDS = 300;
+    private static final int DEFAULT_MONITOR_STRESS_HEAP_USED_PERCENT = 85;
+    private static final int DEFAULT_MONITOR_STRESS_SEARCH_QUEUE_SIZE = 500;
+    private static final int DEFAULT_MONITOR_STRESS_BREAKER_USED_PERCENT = 90;
+    private static final String DEFAULT_ES_PID_FILE = "";
+    private static final int DEFAULT_ES_PROCESS_CHECK_INTERVAL_MILLIS = 2000;
+    private static final int DEFAULT_TRANSPORT_CLIENT_MAX_WAIT_MILLIS = 2000;
+    private static final int DEFAULT_TRANSPORT_CLIENT_MAX_CONSECUTIVE_FAILURES = 3;
+    private static final int DEFAULT_TRANSPORT_CLIENT_REBUILD_MAX_BACKOFF_SECONDS = 60;
+    private static final String DEFAULT_NODE_STATS_BACKEND = "http";
+    private static final int DEFAULT_SNAPSHOT_STATUS_POLL_INTERVAL_SECONDS = 30;
+    private static final int DEFAULT_SNAPSHOT_STATUS_MAX_POLL_FAILURES = 10;
+    private static final String DEFAULT_SNAPSHOT_GROUPS = null;
+    private static final int DEFAULT_SNAPSHOT_COORDINATOR_INTERVAL_SECONDS = 60;
+    private static final boolean DEFAULT_REPOSITORY_THROTTLE_ADAPTIVE = false;
+    private static final int DEFAULT_REPOSITORY_THROTTLE_INTERVAL_SECONDS = 30;
+    private static final int DEFAULT_REPOSITORY_THROTTLE_MIN_MB_PER_SEC = 5;
+    private static final int DEFAULT_REPOSITORY_THROTTLE_MAX_MB_PER_SEC = 40;
+    private static final int DEFAULT_REPOSITORY_THROTTLE_OFF_PEAK_MAX_MB_PER_SEC = 40;
+    private static final int DEFAULT_REPOSITORY_THROTTLE_OFF_PEAK_START_HOUR = 2;
+    private static final int DEFAULT_REPOSITORY_THROTTLE_OFF_PEAK_END_HOUR = 8;
+    private static final int DEFAULT_REPOSITORY_THROTTLE_MAX_QUEUE_SIZE = 50;
+    private static final int DEFAULT_REPOSITORY_THROTTLE_MAX_QUERY_LATENCY_MILLIS = 100;
+    private static final int DEFAULT_REPOSITORY_THROTTLE_MAX_INDEXING_LATENCY_MILLIS = 10;
+    private static final int DEFAULT_REPOSITORY_THROTTLE_MAX_DISK_KBYTES_PER_SEC = 153600;
 
     private final IConfigSource config;
     private final ICredential provider;
@@ -328,6 +414,49 @@ public class RaigadConfiguration implements IConfiguration {
     private final DynamicBooleanProperty REPORT_METRICS_FROM_MASTER_ONLY = DynamicPropertyFactory.getInstance().getBooleanProperty(CONFIG_REPORT_METRICS_FROM_MASTER_ONLY, DEFAULT_REPORT_METRICS_FROM_MASTER_ONLY);
     private final DynamicStringProperty TRIBE_PREFERRED_CLUSTER_ID_ON_CONFLICT = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_TRIBE_PREFERRED_CLUSTER_ID_ON_CONFLICT, DEFAULT_TRIBE_PREFERRED_CLUSTER_ID_ON_CONFLICT);
     private final DynamicStringProperty ACL_GROUP_NAME_FOR_VPC = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_ACL_GROUP_NAME_FOR_VPC, DEFAULT_ACL_GROUP_NAME_FOR_VPC);
+    private final DynamicIntProperty MEMBERSHIP_CACHE_TTL_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_MEMBERSHIP_CACHE_TTL_SECONDS, DEFAULT_MEMBERSHIP_CACHE_TTL_SECONDS);
+    private final DynamicIntProperty MEMBERSHIP_CACHE_MAX_STALE_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_MEMBERSHIP_CACHE_MAX_STALE_SECONDS, DEFAULT_MEMBERSHIP_CACHE_MAX_STALE_SECONDS);
+    private final DynamicIntProperty HTTP_CLIENT_CONNECT_TIMEOUT_MILLIS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_HTTP_CLIENT_CONNECT_TIMEOUT_MILLIS, DEFAULT_HTTP_CLIENT_CONNECT_TIMEOUT_MILLIS);
+    private final DynamicIntProperty HTTP_CLIENT_SOCKET_TIMEOUT_MILLIS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_HTTP_CLIENT_SOCKET_TIMEOUT_MILLIS, DEFAULT_HTTP_CLIENT_SOCKET_TIMEOUT_MILLIS);
+    private final DynamicIntProperty HTTP_CLIENT_MAX_CONNECTIONS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_HTTP_CLIENT_MAX_CONNECTIONS, DEFAULT_HTTP_CLIENT_MAX_CONNECTIONS);
+    private final DynamicIntProperty HTTP_CLIENT_ASYNC_THREADS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_HTTP_CLIENT_ASYNC_THREADS, DEFAULT_HTTP_CLIENT_ASYNC_THREADS);
+    private final DynamicIntProperty MASTER_STATUS_REFRESH_INTERVAL_MILLIS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_MASTER_STATUS_REFRESH_INTERVAL_MILLIS, DEFAULT_MASTER_STATUS_REFRESH_INTERVAL_MILLIS);
+    private final DynamicIntProperty INDEX_RETENTION_DELETE_BATCH_SIZE = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_INDEX_RETENTION_DELETE_BATCH_SIZE, DEFAULT_INDEX_RETENTION_DELETE_BATCH_SIZE);
+    private final DynamicIntProperty INDEX_RETENTION_DELETE_CONCURRENCY = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_INDEX_RETENTION_DELETE_CONCURRENCY, DEFAULT_INDEX_RETENTION_DELETE_CONCURRENCY);
+    private final DynamicIntProperty INDEX_WARM_PHASE_START_HOUR = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_INDEX_WARM_PHASE_START_HOUR, DEFAULT_INDEX_WARM_PHASE_START_HOUR);
+    private final DynamicIntProperty INDEX_WARM_PHASE_END_HOUR = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_INDEX_WARM_PHASE_END_HOUR, DEFAULT_INDEX_WARM_PHASE_END_HOUR);
+    private final DynamicIntProperty INDEX_WARM_PHASE_FORCE_MERGE_TIMEOUT_MINUTES = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_INDEX_WARM_PHASE_FORCE_MERGE_TIMEOUT_MINUTES, DEFAULT_INDEX_WARM_PHASE_FORCE_MERGE_TIMEOUT_MINUTES);
+    private final DynamicIntProperty INDEX_REOPEN_TTL_MINUTES = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_INDEX_REOPEN_TTL_MINUTES, DEFAULT_INDEX_REOPEN_TTL_MINUTES);
+    private final DynamicIntProperty INDEX_REOPEN_MAX_INDICES = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_INDEX_REOPEN_MAX_INDICES, DEFAULT_INDEX_REOPEN_MAX_INDICES);
+    private final DynamicIntProperty SCHEDULER_THREAD_COUNT = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_SCHEDULER_THREAD_COUNT, DEFAULT_SCHEDULER_THREAD_COUNT);
+    private final DynamicIntProperty SCHEDULER_MAX_START_JITTER_MILLIS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_SCHEDULER_MAX_START_JITTER_MILLIS, DEFAULT_SCHEDULER_MAX_START_JITTER_MILLIS);
+    private final DynamicBooleanProperty MONITOR_INTERVAL_ADAPTIVE = DynamicPropertyFactory.getInstance().getBooleanProperty(CONFIG_MONITOR_INTERVAL_ADAPTIVE, DEFAULT_MONITOR_INTERVAL_ADAPTIVE);
+    private final DynamicIntProperty MONITOR_MIN_INTERVAL_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_MONITOR_MIN_INTERVAL_SECONDS, DEFAULT_MONITOR_MIN_INTERVAL_SECONDS);
+    private final DynamicIntProperty MONITOR_MAX_INTERVAL_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_MONITOR_MAX_INTERVAL_SECONDS, DEFAULT_MONITOR_MAX_INTERVAL_SECONDS);
+    private final DynamicIntProperty MONITOR_STRESS_HEAP_USED_PERCENT = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_MONITOR_STRESS_HEAP_USED_PERCENT, DEFAULT_MONITOR_STRESS_HEAP_USED_PERCENT);
+    private final DynamicIntProperty MONITOR_STRESS_SEARCH_QUEUE_SIZE = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_MONITOR_STRESS_SEARCH_QUEUE_SIZE, DEFAULT_MONITOR_STRESS_SEARCH_QUEUE_SIZE);
+    private final DynamicIntProperty MONITOR_STRESS_BREAKER_USED_PERCENT = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_MONITOR_STRESS_BREAKER_USED_PERCENT, DEFAULT_MONITOR_STRESS_BREAKER_USED_PERCENT);
+    private final DynamicStringProperty ES_PID_FILE = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_ES_PID_FILE, DEFAULT_ES_PID_FILE);
+    private final DynamicIntProperty ES_PROCESS_CHECK_INTERVAL_MILLIS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_ES_PROCESS_CHECK_INTERVAL_MILLIS, DEFAULT_ES_PROCESS_CHECK_INTERVAL_MILLIS);
+    private final DynamicIntProperty TRANSPORT_CLIENT_MAX_WAIT_MILLIS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_TRANSPORT_CLIENT_MAX_WAIT_MILLIS, DEFAULT_TRANSPORT_CLIENT_MAX_WAIT_MILLIS);
+    private final DynamicIntProperty TRANSPORT_CLIENT_MAX_CONSECUTIVE_FAILURES = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_TRANSPORT_CLIENT_MAX_CONSECUTIVE_FAILURES, DEFAULT_TRANSPORT_CLIENT_MAX_CONSECUTIVE_FAILURES);
+    private final DynamicIntProperty TRANSPORT_CLIENT_REBUILD_MAX_BACKOFF_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_TRANSPORT_CLIENT_REBUILD_MAX_BACKOFF_SECONDS, DEFAULT_TRANSPORT_CLIENT_REBUILD_MAX_BACKOFF_SECONDS);
+    private final DynamicStringProperty NODE_STATS_BACKEND = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_NODE_STATS_BACKEND, DEFAULT_NODE_STATS_BACKEND);
+    private final DynamicIntProperty SNAPSHOT_STATUS_POLL_INTERVAL_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_SNAPSHOT_STATUS_POLL_INTERVAL_SECONDS, DEFAULT_SNAPSHOT_STATUS_POLL_INTERVAL_SECONDS);
+    private final DynamicIntProperty SNAPSHOT_STATUS_MAX_POLL_FAILURES = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_SNAPSHOT_STATUS_MAX_POLL_FAILURES, DEFAULT_SNAPSHOT_STATUS_MAX_POLL_FAILURES);
+    private final DynamicStringProperty SNAPSHOT_GROUPS = DynamicPropertyFactory.getInstance().getStringProperty(CONFIG_SNAPSHOT_GROUPS, DEFAULT_SNAPSHOT_GROUPS);
+    private final DynamicIntProperty SNAPSHOT_COORDINATOR_INTERVAL_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_SNAPSHOT_COORDINATOR_INTERVAL_SECONDS, DEFAULT_SNAPSHOT_COORDINATOR_INTERVAL_SECONDS);
+    private final DynamicBooleanProperty REPOSITORY_THROTTLE_ADAPTIVE = DynamicPropertyFactory.getInstance().getBooleanProperty(CONFIG_REPOSITORY_THROTTLE_ADAPTIVE, DEFAULT_REPOSITORY_THROTTLE_ADAPTIVE);
+    private final DynamicIntProperty REPOSITORY_THROTTLE_INTERVAL_SECONDS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_REPOSITORY_THROTTLE_INTERVAL_SECONDS, DEFAULT_REPOSITORY_THROTTLE_INTERVAL_SECONDS);
+    private final DynamicIntProperty REPOSITORY_THROTTLE_MIN_MB_PER_SEC = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_REPOSITORY_THROTTLE_MIN_MB_PER_SEC, DEFAULT_REPOSITORY_THROTTLE_MIN_MB_PER_SEC);
+    private final DynamicIntProperty REPOSITORY_THROTTLE_MAX_MB_PER_SEC = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_REPOSITORY_THROTTLE_MAX_MB_PER_SEC, DEFAULT_REPOSITORY_THROTTLE_MAX_MB_PER_SEC);
+    private final DynamicIntProperty REPOSITORY_THROTTLE_OFF_PEAK_MAX_MB_PER_SEC = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_REPOSITORY_THROTTLE_OFF_PEAK_MAX_MB_PER_SEC, DEFAULT_REPOSITORY_THROTTLE_OFF_PEAK_MAX_MB_PER_SEC);
+    private final DynamicIntProperty REPOSITORY_THROTTLE_OFF_PEAK_START_HOUR = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_REPOSITORY_THROTTLE_OFF_PEAK_START_HOUR, DEFAULT_REPOSITORY_THROTTLE_OFF_PEAK_START_HOUR);
+    private final DynamicIntProperty REPOSITORY_THROTTLE_OFF_PEAK_END_HOUR = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_REPOSITORY_THROTTLE_OFF_PEAK_END_HOUR, DEFAULT_REPOSITORY_THROTTLE_OFF_PEAK_END_HOUR);
+    private final DynamicIntProperty REPOSITORY_THROTTLE_MAX_QUEUE_SIZE = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_REPOSITORY_THROTTLE_MAX_QUEUE_SIZE, DEFAULT_REPOSITORY_THROTTLE_MAX_QUEUE_SIZE);
+    private final DynamicIntProperty REPOSITORY_THROTTLE_MAX_QUERY_LATENCY_MILLIS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_REPOSITORY_THROTTLE_MAX_QUERY_LATENCY_MILLIS, DEFAULT_REPOSITORY_THROTTLE_MAX_QUERY_LATENCY_MILLIS);
+    private final DynamicIntProperty REPOSITORY_THROTTLE_MAX_INDEXING_LATENCY_MILLIS = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_REPOSITORY_THROTTLE_MAX_INDEXING_LATENCY_MILLIS, DEFAULT_REPOSITORY_THROTTLE_MAX_INDEXING_LATENCY_MILLIS);
+    private final DynamicIntProperty REPOSITORY_THROTTLE_MAX_DISK_KBYTES_PER_SEC = DynamicPropertyFactory.getInstance().getIntProperty(CONFIG_REPOSITORY_THROTTLE_MAX_DISK_KBYTES_PER_SEC, DEFAULT_REPOSITORY_THROTTLE_MAX_DISK_KBYTES_PER_SEC);
 
     @Inject
     public RaigadConfiguration(ICredential provider, IConfigSource config) {
@@ -917,4 +1046,219 @@ public class RaigadConfiguration implements IConfiguration {
     public String getMacIdForInstance() {
         return MAC_ID;
     }
+
+    @Override
+    public int getMembershipCacheTtlSeconds() {
+        return MEMBERSHIP_CACHE_TTL_SECONDS.get();
+    }
+
+    @Override
+    public int getMembershipCacheMaxStaleSeconds() {
+        return MEMBERSHIP_CACHE_MAX_STALE_SECONDS.get();
+    }
+
+    @Override
+    public int getHttpClientConnectTimeoutMillis() {
+        return HTTP_CLIENT_CONNECT_TIMEOUT_MILLIS.get();
+    }
+
+    @Override
+    public int getHttpClientSocketTimeoutMillis() {
+        return HTTP_CLIENT_SOCKET_TIMEOUT_MILLIS.get();
+    }
+
+    @Override
+    public int getHttpClientMaxConnections() {
+        return HTTP_CLIENT_MAX_CONNECTIONS.get();
+    }
+
+    @Override
+    public int getHttpClientAsyncThreads() {
+        return HTTP_CLIENT_ASYNC_THREADS.get();
+    }
+
+    @Override
+    public int getMasterStatusRefreshIntervalMillis() {
+        return MASTER_STATUS_REFRESH_INTERVAL_MILLIS.get();
+    }
+
+    @Override
+    public int getIndexRetentionDeleteBatchSize() {
+        return INDEX_RETENTION_DELETE_BATCH_SIZE.get();
+    }
+
+    @Override
+    public int getIndexRetentionDeleteConcurrency() {
+        return INDEX_RETENTION_DELETE_CONCURRENCY.get();
+    }
+
+    @Override
+    public int getIndexWarmPhaseStartHour() {
+        return INDEX_WARM_PHASE_START_HOUR.get();
+    }
+
+    @Override
+    public int getIndexWarmPhaseEndHour() {
+        return INDEX_WARM_PHASE_END_HOUR.get();
+    }
+
+    @Override
+    public int getIndexWarmPhaseForceMergeTimeoutMinutes() {
+        return INDEX_WARM_PHASE_FORCE_MERGE_TIMEOUT_MINUTES.get();
+    }
+
+    @Override
+    public int getIndexReopenTtlMinutes() {
+        return INDEX_REOPEN_TTL_MINUTES.get();
+    }
+
+    @Override
+    public int getIndexReopenMaxIndices() {
+        return INDEX_REOPEN_MAX_INDICES.get();
+    }
+
+    @Override
+    public int getSchedulerThreadCount() {
+        return SCHEDULER_THREAD_COUNT.get();
+    }
+
+    @Override
+    public int getSchedulerMaxStartJitterMillis() {
+        return SCHEDULER_MAX_START_JITTER_MILLIS.get();
+    }
+
+    @Override
+    public boolean isMonitorIntervalAdaptive() {
+        return MONITOR_INTERVAL_ADAPTIVE.get();
+    }
+
+    @Override
+    public int getMonitorMinIntervalSeconds() {
+        return MONITOR_MIN_INTERVAL_SECONDS.get();
+    }
+
+    @Override
+    public int getMonitorMaxIntervalSeconds() {
+        return MONITOR_MAX_INTERVAL_SECONDS.get();
+    }
+
+    @Override
+    public int getMonitorStressHeapUsedPercent() {
+        return MONITOR_STRESS_HEAP_USED_PERCENT.get();
+    }
+
+    @Override
+    public int getMonitorStressSearchQueueSize() {
+        return MONITOR_STRESS_SEARCH_QUEUE_SIZE.get();
+    }
+
+    @Override
+    public int getMonitorStressBreakerUsedPercent() {
+        return MONITOR_STRESS_BREAKER_USED_PERCENT.get();
+    }
+
+    @Override
+    public String getElasticsearchPidFile() {
+        return ES_PID_FILE.get();
+    }
+
+    @Override
+    public int getElasticsearchProcessCheckIntervalMillis() {
+        return ES_PROCESS_CHECK_INTERVAL_MILLIS.get();
+    }
+
+    @Override
+    public int getTransportClientMaxWaitMillis() {
+        return TRANSPORT_CLIENT_MAX_WAIT_MILLIS.get();
+    }
+
+    @Override
+    public int getTransportClientMaxConsecutiveFailures() {
+        return TRANSPORT_CLIENT_MAX_CONSECUTIVE_FAILURES.get();
+    }
+
+    @Override
+    public int getTransportClientRebuildMaxBackoffSeconds() {
+        return TRANSPORT_CLIENT_REBUILD_MAX_BACKOFF_SECONDS.get();
+    }
+
+    @Override
+    public String getNodeStatsBackend() {
+        return NODE_STATS_BACKEND.get();
+    }
+
+    @Override
+    public int getSnapshotStatusPollIntervalSeconds() {
+        return SNAPSHOT_STATUS_POLL_INTERVAL_SECONDS.get();
+    }
+
+    @Override
+    public int getSnapshotStatusMaxPollFailures() {
+        return SNAPSHOT_STATUS_MAX_POLL_FAILURES.get();
+    }
+
+    @Override
+    public String getSnapshotGroups() {
+        return SNAPSHOT_GROUPS.get();
+    }
+
+    @Override
+    public int getSnapshotCoordinatorIntervalSeconds() {
+        return SNAPSHOT_COORDINATOR_INTERVAL_SECONDS.get();
+    }
+
+    @Override
+    public boolean isRepositoryThrottleAdaptive() {
+        return REPOSITORY_THROTTLE_ADAPTIVE.get();
+    }
+
+    @Override
+    public int getRepositoryThrottleIntervalSeconds() {
+        return REPOSITORY_THROTTLE_INTERVAL_SECONDS.get();
+    }
+
+    @Override
+    public int getRepositoryThrottleMinMBPerSec() {
+        return REPOSITORY_THROTTLE_MIN_MB_PER_SEC.get();
+    }
+
+    @Override
+    public int getRepositoryThrottleMaxMBPerSec() {
+        return REPOSITORY_THROTTLE_MAX_MB_PER_SEC.get();
+    }
+
+    @Override
+    public int getRepositoryThrottleOffPeakMaxMBPerSec() {
+        return REPOSITORY_THROTTLE_OFF_PEAK_MAX_MB_PER_SEC.get();
+    }
+
+    @Override
+    public int getRepositoryThrottleOffPeakStartHour() {
+        return REPOSITORY_THROTTLE_OFF_PEAK_START_HOUR.get();
+    }
+
+    @Override
+    public int getRepositoryThrottleOffPeakEndHour() {
+        return REPOSITORY_THROTTLE_OFF_PEAK_END_HOUR.get();
+    }
+
+    @Override
+    public int getRepositoryThrottleMaxQueueSize() {
+        return REPOSITORY_THROTTLE_MAX_QUEUE_SIZE.get();
+    }
+
+    @Override
+    public int getRepositoryThrottleMaxQueryLatencyMillis() {
+        return REPOSITORY_THROTTLE_MAX_QUERY_LATENCY_MILLIS.get();
+    }
+
+    @Override
+    public int getRepositoryThrottleMaxIndexingLatencyMillis() {
+        return REPOSITORY_THROTTLE_MAX_INDEXING_LATENCY_MILLIS.get();
+    }
+
+    @Override
+    public int getRepositoryThrottleMaxDiskKBytesPerSec() {
+        return REPOSITORY_THROTTLE_MAX_DISK_KBYTES_PER_SEC.get();
+    }
 }
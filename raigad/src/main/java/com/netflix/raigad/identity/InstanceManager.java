@@ -25,6 +25,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -42,13 +43,16 @@ public class InstanceManager {
 	private final IRaigadInstanceFactory instanceFactory;
 	private final IMembership membership;
 	private final IConfiguration config;
+	private final MembershipCache membershipCache;
 	private RaigadInstance thisInstance;
 
 	@Inject
-	public InstanceManager(IRaigadInstanceFactory instanceFactory, IMembership membership, IConfiguration config) throws Exception {
+	public InstanceManager(IRaigadInstanceFactory instanceFactory, IMembership membership, IConfiguration config,
+						   MembershipCache membershipCache) throws Exception {
 		this.instanceFactory = instanceFactory;
 		this.membership = membership;
 		this.config = config;
+		this.membershipCache = membershipCache;
 		init();
 	}
 
@@ -71,6 +75,9 @@ public class InstanceManager {
 			}
 		}.call();
 
+		// Both steps above changed the registry behind the cache
+		membershipCache.invalidate(config.getAppName());
+
 		logger.info("Raigad instance details: " + thisInstance.toString());
 	}
 
@@ -143,6 +150,33 @@ public class InstanceManager {
 	private List<RaigadInstance> getInstanceList() {
 		List<RaigadInstance> instances = new ArrayList<RaigadInstance>();
 
+		for (String clusterName : getClusterNames()) {
+			instances.addAll(membershipCache.getInstances(clusterName));
+		}
+
+		if (config.amITribeNode()) {
+			logger.info("Printing tribe node related nodes...");
+
+			for (RaigadInstance instance:instances) {
+				logger.info(instance.toString());
+			}
+		}
+
+		if (config.isDebugEnabled()) {
+			for (RaigadInstance instance : instances) {
+				logger.debug(instance.toString());
+			}
+		}
+
+		return instances;
+	}
+
+	private List<String> getClusterNames() {
+		List<String> clusterNames = new ArrayList<>();
+
+		// Adding current cluster
+		clusterNames.add(config.getAppName());
+
 		// Considering same cluster will not serve as a tribe node and source cluster for the tribe node
 		if (config.amITribeNode()) {
 			String clusterParams = config.getCommaSeparatedSourceClustersForTribeNode();
@@ -151,40 +185,39 @@ public class InstanceManager {
 			String[] clusters = StringUtils.split(clusterParams, COMMA_SEPARATOR);
 			assert (clusters.length != 0) : "One or more clusters needed";
 
-			List<String> sourceClusters = new ArrayList<>();
-
-			// Adding current cluster
-			sourceClusters.add(config.getAppName());
-
 			// Common settings
 			for (int i = 0; i < clusters.length; i ++) {
 				String[] clusterAndPort = clusters[i].split(PARAM_SEPARATOR);
 				assert (clusterAndPort.length != 2) : "Cluster name or transport port is missing in configuration";
-				sourceClusters.add(clusterAndPort[0]);
+				clusterNames.add(clusterAndPort[0]);
 				logger.info("Adding cluster = <{}> ", clusterAndPort[0]);
 			}
+		}
 
-			for (String sourceClusterName : sourceClusters) {
-				instances.addAll(instanceFactory.getAllIds(sourceClusterName));
-			}
-
-			logger.info("Printing tribe node related nodes...");
+		return clusterNames;
+	}
 
-			for (RaigadInstance instance:instances) {
-				logger.info(instance.toString());
-			}
-		}
-		else {
-			instances.addAll(instanceFactory.getAllIds(config.getAppName()));
-		}
+	/**
+	 * @param sinceVersion version returned by a previous delta, or 0 to get the full membership
+	 * @return changes to {@link #getAllInstances()} since the given version
+	 */
+	public MembershipDelta getAllInstancesDelta(long sinceVersion) {
+		return membershipCache.getDelta(getClusterNames(), sinceVersion);
+	}
 
-		if (config.isDebugEnabled()) {
-			for (RaigadInstance instance : instances) {
-				logger.debug(instance.toString());
-			}
-		}
+	/**
+	 * @param sinceVersion version returned by a previous delta, or 0 to get the full membership
+	 * @return changes to {@link #getAllInstancesPerCluster(String)} since the given version
+	 */
+	public MembershipDelta getAllInstancesPerClusterDelta(String clusterName, long sinceVersion) {
+		return membershipCache.getDelta(Collections.singletonList(clusterName.trim().toLowerCase()), sinceVersion);
+	}
 
-		return instances;
+	/**
+	 * @return a version that changes whenever the membership returned by this class changes
+	 */
+	public long getMembershipVersion() {
+		return membershipCache.getVersion();
 	}
 
 	public List<RaigadInstance> getAllInstancesPerCluster(String clusterName) {
@@ -193,7 +226,7 @@ public class InstanceManager {
 
 	private List<RaigadInstance> getInstanceListPerCluster(String clusterName) {
 		List<RaigadInstance> instances = new ArrayList<RaigadInstance>();
-		instances.addAll(instanceFactory.getAllIds(clusterName.trim().toLowerCase()));
+		instances.addAll(membershipCache.getInstances(clusterName.trim().toLowerCase()));
 
 		if (config.isDebugEnabled()) {
 			for (RaigadInstance instance : instances) {
@@ -0,0 +1,299 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.identity;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.scheduler.NamedThreadPoolExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory, TTL-bounded view of cluster membership backed by {@link IRaigadInstanceFactory}.
+ * <p>
+ * Entries younger than the TTL are served directly. Entries older than the TTL are still served,
+ * but trigger a single background reload (stale-while-revalidate). Only a missing entry or one older
+ * than the max-stale bound makes the caller wait for the registry. A TTL of 0 disables caching.
+ * <p>
+ * {@link #getVersion()} changes whenever the content of any cached cluster changes, so callers can
+ * cheaply tell whether derived data (e.g. serialized responses) needs to be rebuilt. A short history of
+ * memberships per cluster lets {@link #getDelta(Collection, long)} answer with only what changed since a version.
+ */
+@Singleton
+public class MembershipCache {
+    private static final Logger logger = LoggerFactory.getLogger(MembershipCache.class);
+
+    private static final int HISTORY_SIZE = 32;
+
+    private final IRaigadInstanceFactory instanceFactory;
+    private final IConfiguration config;
+    private final Executor refreshExecutor;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, History> histories = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Object> loadLocks = new ConcurrentHashMap<>();
+    private final Set<String> refreshesInFlight = ConcurrentHashMap.newKeySet();
+    // Seeded with the start time so versions handed out before a restart are never mistaken for current ones
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    @Inject
+    public MembershipCache(IRaigadInstanceFactory instanceFactory, IConfiguration config) {
+        this(instanceFactory, config, new NamedThreadPoolExecutor(1, "MembershipCacheRefresh"));
+    }
+
+    MembershipCache(IRaigadInstanceFactory instanceFactory, IConfiguration config, Executor refreshExecutor) {
+        this.instanceFactory = instanceFactory;
+        this.config = config;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /**
+     * @param clusterName cluster (application) name as registered in the instance registry
+     * @return an unmodifiable list of the instances registered for the cluster
+     */
+    public List<RaigadInstance> getInstances(String clusterName) {
+        long ttlMillis = config.getMembershipCacheTtlSeconds() * 1000L;
+        long now = currentTimeMillis();
+        Entry entry = entries.get(clusterName);
+
+        if (ttlMillis <= 0) {
+            return load(clusterName, entry).instances;
+        }
+
+        if (entry == null || now - entry.loadedAt >= maxStaleMillis(ttlMillis)) {
+            // Concurrent callers for the same cluster wait for a single registry read
+            synchronized (loadLocks.computeIfAbsent(clusterName, name -> new Object())) {
+                entry = entries.get(clusterName);
+                if (entry == null || currentTimeMillis() - entry.loadedAt >= ttlMillis) {
+                    entry = load(clusterName, entry);
+                }
+                return entry.instances;
+            }
+        }
+
+        if (now - entry.loadedAt >= ttlMillis) {
+            scheduleRefresh(clusterName);
+        }
+
+        return entry.instances;
+    }
+
+    /**
+     * @return a counter that is incremented every time the cached membership of any cluster changes
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * @param clusterNames cluster (application) names as registered in the instance registry
+     * @param sinceVersion a version previously returned by {@link #getVersion()} or a delta
+     * @return instances added, changed or removed since {@code sinceVersion} across the given clusters,
+     * or their full membership if that version is no longer known for any of them
+     */
+    public MembershipDelta getDelta(Collection<String> clusterNames, long sinceVersion) {
+        // Read the version first: changes racing with this call are sent again next time rather than lost
+        long currentVersion = version.get();
+
+        List<RaigadInstance> updated = new ArrayList<>();
+        List<String> removedIds = new ArrayList<>();
+        boolean full = false;
+
+        for (String clusterName : clusterNames) {
+            getInstances(clusterName);
+            MembershipDelta delta = histories.get(clusterName).delta(sinceVersion, currentVersion);
+            full |= delta.isFull();
+            updated.addAll(delta.getInstances());
+            removedIds.addAll(delta.getRemovedIds());
+        }
+
+        if (!full) {
+            return MembershipDelta.incremental(currentVersion, updated, removedIds);
+        }
+
+        List<RaigadInstance> instances = new ArrayList<>();
+        for (String clusterName : clusterNames) {
+            instances.addAll(getInstances(clusterName));
+        }
+
+        return MembershipDelta.full(currentVersion, instances);
+    }
+
+    /**
+     * Drops the cached view of the given cluster so the next read goes to the registry.
+     * Called after this node registers or deletes instances.
+     */
+    public void invalidate(String clusterName) {
+        entries.remove(clusterName);
+    }
+
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private long maxStaleMillis(long ttlMillis) {
+        return Math.max(ttlMillis, config.getMembershipCacheMaxStaleSeconds() * 1000L);
+    }
+
+    private void scheduleRefresh(String clusterName) {
+        if (!refreshesInFlight.add(clusterName)) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    load(clusterName, entries.get(clusterName));
+                } catch (Exception e) {
+                    logger.warn("Failed to refresh membership of cluster " + clusterName + ", serving stale view", e);
+                } finally {
+                    refreshesInFlight.remove(clusterName);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshesInFlight.remove(clusterName);
+            logger.warn("Unable to schedule membership refresh of cluster " + clusterName, e);
+        }
+    }
+
+    private Entry load(String clusterName, Entry previous) {
+        List<RaigadInstance> instances;
+        try {
+            instances = instanceFactory.getAllIds(clusterName);
+        } catch (RuntimeException e) {
+            if (previous == null) {
+                throw e;
+            }
+
+            logger.warn("Failed to load membership of cluster " + clusterName + ", serving stale view", e);
+            return previous;
+        }
+
+        Snapshot snapshot = histories.computeIfAbsent(clusterName, name -> new History()).record(instances, version);
+        Entry loaded = new Entry(snapshot, currentTimeMillis());
+        entries.put(clusterName, loaded);
+
+        return loaded;
+    }
+
+    private static String fingerprint(RaigadInstance instance) {
+        return instance.getId() + "|" + instance.getInstanceId() + "|" + instance.getHostName() + "|" +
+                instance.getHostIP() + "|" + instance.getDC() + "|" + instance.getAvailabilityZone() + "|" +
+                instance.getAsg() + "|" + instance.isOutOfService();
+    }
+
+    private static final class Entry {
+        private final List<RaigadInstance> instances;
+        private final long loadedAt;
+
+        private Entry(Snapshot snapshot, long loadedAt) {
+            this.instances = snapshot.instances;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * Membership of a cluster as of the given version, with instance fingerprints mapped to instance IDs.
+     */
+    private static final class Snapshot {
+        private final long version;
+        private final List<RaigadInstance> instances;
+        private final Map<String, String> fingerprints;
+
+        private Snapshot(long version, List<RaigadInstance> instances, Map<String, String> fingerprints) {
+            this.version = version;
+            this.instances = Collections.unmodifiableList(new ArrayList<>(instances));
+            this.fingerprints = fingerprints;
+        }
+    }
+
+    /**
+     * The last {@link #HISTORY_SIZE} distinct memberships of a cluster, oldest first.
+     */
+    private static final class History {
+        private final Deque<Snapshot> snapshots = new ArrayDeque<>();
+
+        synchronized Snapshot record(List<RaigadInstance> instances, AtomicLong version) {
+            Map<String, String> fingerprints = new HashMap<>();
+            for (RaigadInstance instance : instances) {
+                fingerprints.put(fingerprint(instance), instance.getId());
+            }
+
+            Snapshot latest = snapshots.peekLast();
+            if (latest != null && latest.fingerprints.equals(fingerprints)) {
+                return latest;
+            }
+
+            Snapshot snapshot = new Snapshot(version.incrementAndGet(), instances, fingerprints);
+            snapshots.addLast(snapshot);
+            if (snapshots.size() > HISTORY_SIZE) {
+                snapshots.removeFirst();
+            }
+
+            return snapshot;
+        }
+
+        synchronized MembershipDelta delta(long sinceVersion, long currentVersion) {
+            Snapshot latest = snapshots.peekLast();
+
+            // The client saw the newest snapshot that is not newer than its version
+            Snapshot base = null;
+            for (Snapshot snapshot : snapshots) {
+                if (snapshot.version <= sinceVersion) {
+                    base = snapshot;
+                }
+            }
+
+            // Unknown version: history was trimmed, or the version was handed out before a restart
+            if (base == null || sinceVersion > currentVersion) {
+                return MembershipDelta.full(currentVersion, latest.instances);
+            }
+
+            List<RaigadInstance> updated = new ArrayList<>();
+            for (RaigadInstance instance : latest.instances) {
+                if (!base.fingerprints.containsKey(fingerprint(instance))) {
+                    updated.add(instance);
+                }
+            }
+
+            Set<String> currentIds = new HashSet<>(latest.fingerprints.values());
+            List<String> removed = new ArrayList<>();
+            for (String id : base.fingerprints.values()) {
+                if (!currentIds.contains(id)) {
+                    removed.add(id);
+                }
+            }
+
+            return MembershipDelta.incremental(currentVersion, updated, removed);
+        }
+    }
+}
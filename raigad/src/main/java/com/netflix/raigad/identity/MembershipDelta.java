@@ -0,0 +1,64 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.identity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Membership changes since a client-supplied version, see {@link MembershipCache#getDelta(java.util.Collection, long)}.
+ * <p>
+ * If {@link #isFull()} is true the client must replace its view with {@link #getInstances()};
+ * otherwise it upserts {@link #getInstances()} by ID and drops {@link #getRemovedIds()}.
+ */
+public final class MembershipDelta {
+    private final long version;
+    private final boolean full;
+    private final List<RaigadInstance> instances;
+    private final List<String> removedIds;
+
+    private MembershipDelta(long version, boolean full, List<RaigadInstance> instances, List<String> removedIds) {
+        this.version = version;
+        this.full = full;
+        this.instances = Collections.unmodifiableList(instances);
+        this.removedIds = Collections.unmodifiableList(removedIds);
+    }
+
+    static MembershipDelta full(long version, List<RaigadInstance> instances) {
+        return new MembershipDelta(version, true, new ArrayList<>(instances), Collections.emptyList());
+    }
+
+    static MembershipDelta incremental(long version, List<RaigadInstance> updated, List<String> removedIds) {
+        return new MembershipDelta(version, false, updated, removedIds);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public List<RaigadInstance> getInstances() {
+        return instances;
+    }
+
+    public List<String> getRemovedIds() {
+        return removedIds;
+    }
+}
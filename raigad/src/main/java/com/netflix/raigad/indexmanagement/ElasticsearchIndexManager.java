@@ -16,6 +16,7 @@
 
 package com.netflix.raigad.indexmanagement;
 
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.netflix.raigad.configuration.IConfiguration;
@@ -24,17 +25,49 @@ import com.netflix.raigad.scheduler.CronTimer;
 import com.netflix.raigad.scheduler.Task;
 import com.netflix.raigad.scheduler.TaskTimer;
 import com.netflix.raigad.utils.*;
+import org.elasticsearch.ElasticsearchTimeoutException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionFuture;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.admin.cluster.state.ClusterStateResponse;
+import org.elasticsearch.action.admin.indices.alias.Alias;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexResponse;
+import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeResponse;
+import org.elasticsearch.action.admin.indices.rollover.RolloverRequestBuilder;
+import org.elasticsearch.action.admin.indices.rollover.RolloverResponse;
 import org.elasticsearch.action.admin.indices.stats.IndexStats;
 import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.health.ClusterHealthStatus;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
+import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.settings.Settings;
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Index retention will delete indices older than certain date e.g. if the current date is 10/28/2014,
@@ -50,18 +83,38 @@ import java.util.Set;
  * <p>
  * If pre-create option is enabled, then one future index will be pre-created. Using the input data from above,
  * the following index will be pre-created: test_index20141029
+ * <p>
+ * If a rollover alias is configured, the alias is instead rolled over to the next index of the series
+ * (test_index-000001, test_index-000002, ...) once the current write index crosses the configured age,
+ * document count or primary store size, and retention applies to the creation dates of the series' indices.
+ * <p>
+ * If a warm phase is configured, indices older than the warm phase cutoff are made read-only, optionally shrunk
+ * and force-merged during the off-peak window, see {@link #runWarmPhase}. If a close phase is configured, indices
+ * older than the close cutoff are closed until retention deletes them, unless they were reopened on demand,
+ * see {@link #reopenIndices}.
  */
 @Singleton
 public class ElasticsearchIndexManager extends Task {
     private static final Logger logger = LoggerFactory.getLogger(ElasticsearchIndexManager.class);
 
     public static String JOB_NAME = "ElasticsearchIndexManager";
-    private final HttpModule httpModule;
+
+    private final MasterStatusTracker masterStatusTracker;
+    private final Set<String> forceMergedIndices = ConcurrentHashMap.newKeySet();
+    private final Set<String> abandonedShrinks = ConcurrentHashMap.newKeySet();
+
+    private final Object forceMergeLock = new Object();
+    private final Map<String, PendingForceMerge> inFlightForceMerges = new HashMap<>();
+    private final Deque<PendingForceMerge> queuedForceMerges = new ArrayDeque<>();
+
+    // Cleared once Elasticsearch rejects the index.raigad.* settings, when the discovery plugin is not installed
+    private volatile boolean raigadSettingsRegistered = true;
+    private final Map<String, ReopenedIndex> localReopenedIndices = new ConcurrentHashMap<>();
 
     @Inject
-    protected ElasticsearchIndexManager(IConfiguration config, HttpModule httpModule) {
+    protected ElasticsearchIndexManager(IConfiguration config, MasterStatusTracker masterStatusTracker) {
         super(config);
-        this.httpModule = httpModule;
+        this.masterStatusTracker = masterStatusTracker;
     }
 
     Client getTransportClient() throws ElasticsearchTransportClientConnectionException {
@@ -83,7 +136,7 @@ public class ElasticsearchIndexManager extends Task {
             }
 
             // Only active master can perform index management
-            if (!ElasticsearchUtils.amIMasterNode(config, httpModule)) {
+            if (!masterStatusTracker.isMaster()) {
                 if (config.isDebugEnabled()) {
                     logger.debug("Cannot perform index management: current node is not an active master node");
                 }
@@ -117,13 +170,10 @@ public class ElasticsearchIndexManager extends Task {
 
     void runIndexManagement(Client esTransportClient, List<IndexMetadata> indexMetadataList, DateTime dateTime) {
         // Find all the indices
-        IndicesStatsResponse indicesStatsResponse = getIndicesStatsResponse(esTransportClient);
-        Map<String, IndexStats> indexStatsMap = indicesStatsResponse.getIndices();
+        IndexCatalog indexCatalog = getIndexCatalog(esTransportClient);
 
-        if (indexStatsMap == null || indexStatsMap.isEmpty()) {
-            logger.info("Cluster is empty, no indices found");
-            return;
-        }
+        List<IndexMetadata> calendarIndexMetadataList = new ArrayList<>();
+        List<IndexMetadata> rolloverIndexMetadataList = new ArrayList<>();
 
         for (IndexMetadata indexMetadata : indexMetadataList) {
             if (!indexMetadata.isActionable()) {
@@ -131,17 +181,82 @@ public class ElasticsearchIndexManager extends Task {
                 continue;
             }
 
+            if (indexMetadata.isRollover()) {
+                rolloverIndexMetadataList.add(indexMetadata);
+            } else {
+                calendarIndexMetadataList.add(indexMetadata);
+            }
+        }
+
+        // Rollover series are bootstrapped even on an empty cluster
+        if (indexCatalog.isEmpty() && rolloverIndexMetadataList.isEmpty()) {
+            logger.info("Cluster is empty, no indices found");
+            return;
+        }
+
+        Map<IndexMetadata, NavigableMap<String, DateTime>> warmIndices = new LinkedHashMap<>();
+        Map<IndexMetadata, NavigableMap<String, DateTime>> coldIndices = new LinkedHashMap<>();
+
+        for (IndexMetadata indexMetadata : rolloverIndexMetadataList) {
             try {
-                checkIndexRetention(esTransportClient, indexStatsMap.keySet(), indexMetadata, dateTime);
+                NavigableMap<String, DateTime> rolloverSeries = getRolloverSeries(indexCatalog, indexMetadata);
+
+                // The newest index of the series is the write index and is never deleted nor warmed
+                if (!rolloverSeries.isEmpty()) {
+                    NavigableMap<String, DateTime> readOnlyIndices = rolloverSeries.headMap(rolloverSeries.lastKey(), false);
+
+                    if (indexMetadata.getRetentionPeriod() != null) {
+                        checkIndexRetention(esTransportClient, readOnlyIndices, indexMetadata, dateTime);
+                    }
 
-                if (indexMetadata.isPreCreate()) {
-                    preCreateIndex(esTransportClient, indexMetadata, dateTime);
+                    if (indexMetadata.isWarmPhaseEnabled()) {
+                        warmIndices.put(indexMetadata, getAgedIndices(readOnlyIndices, indexMetadata, indexMetadata.getPastWarmCutoffDate(dateTime), dateTime));
+                    }
+
+                    if (indexMetadata.isClosePhaseEnabled()) {
+                        coldIndices.put(indexMetadata, getAgedIndices(readOnlyIndices, indexMetadata, indexMetadata.getPastCloseCutoffDate(dateTime), dateTime));
+                    }
                 }
+
+                rolloverIndex(esTransportClient, rolloverSeries, indexMetadata);
             } catch (Exception e) {
-                logger.error("Caught an exception while building index metadata information from configuration property", e);
-                return;
+                logger.error(String.format("Caught an exception while rolling over %s", indexMetadata), e);
             }
         }
+
+        // Classify all index names against all index metadata entries at once
+        Map<IndexMetadata, NavigableMap<String, DateTime>> matchedIndices =
+                new IndexNameMatcher(calendarIndexMetadataList).match(indexCatalog.getIndexNames());
+
+        for (IndexMetadata indexMetadata : calendarIndexMetadataList) {
+            NavigableMap<String, DateTime> indexDates = matchedIndices.get(indexMetadata);
+
+            // Indices that failed to be deleted, e.g. while being snapshotted, are retried on the next run
+            try {
+                checkIndexRetention(esTransportClient, indexDates, indexMetadata, dateTime);
+            } catch (Exception e) {
+                logger.warn(String.format("Caught an exception while applying retention of %s", indexMetadata), e);
+            }
+
+            try {
+                if (indexMetadata.isPreCreate() && !indexDates.isEmpty()) {
+                    preCreateIndex(esTransportClient, indexCatalog, indexMetadata, dateTime);
+                }
+
+                if (indexMetadata.isWarmPhaseEnabled()) {
+                    warmIndices.put(indexMetadata, getAgedIndices(indexDates, indexMetadata, indexMetadata.getPastWarmCutoffDate(dateTime), dateTime));
+                }
+
+                if (indexMetadata.isClosePhaseEnabled()) {
+                    coldIndices.put(indexMetadata, getAgedIndices(indexDates, indexMetadata, indexMetadata.getPastCloseCutoffDate(dateTime), dateTime));
+                }
+            } catch (Exception e) {
+                logger.error(String.format("Caught an exception while managing %s", indexMetadata), e);
+            }
+        }
+
+        runWarmPhase(esTransportClient, indexCatalog, warmIndices, dateTime);
+        runClosePhase(esTransportClient, indexCatalog, coldIndices, dateTime.getMillis());
     }
 
     @Override
@@ -153,48 +268,737 @@ public class ElasticsearchIndexManager extends Task {
         return new CronTimer(config.getAutoCreateIndexScheduleMinutes(), 0, JOB_NAME);
     }
 
-    void checkIndexRetention(Client esTransportClient, Set<String> indices, IndexMetadata indexMetadata, DateTime dateTime) throws UnsupportedAutoIndexException {
+    /**
+     * @param indexDates index names matching the index metadata, with the dates encoded in them
+     */
+    void checkIndexRetention(Client esTransportClient, NavigableMap<String, DateTime> indexDates, IndexMetadata indexMetadata, DateTime dateTime) {
         // Calculate the past retention date
         DateTime pastRetentionCutoffDate = indexMetadata.getPastRetentionCutoffDate(dateTime);
         logger.info("Deleting indices that are older than {}", pastRetentionCutoffDate);
 
-        indices.forEach(indexName -> {
-            logger.info("Processing index [{}]", indexName);
+        List<String> expiredIndices = new ArrayList<>();
 
-            if (indexMetadata.getIndexNameFilter().filter(indexName)) {
+        for (Map.Entry<String, DateTime> indexDate : indexDates.entrySet()) {
+            if (config.isDebugEnabled()) {
+                logger.debug("Processing index [{}]", indexDate.getKey());
+            }
 
-                // Extract date from the index name
-                DateTime indexDate = indexMetadata.getDateForIndexName(indexName);
+            if (indexDate.getValue().isBefore(pastRetentionCutoffDate)) {
+                logger.info("Date {} for index {} is past the retention date of {}, deleting it", indexDate.getValue(), indexDate.getKey(), pastRetentionCutoffDate);
+                expiredIndices.add(indexDate.getKey());
+            }
+        }
 
-                if (indexDate.isBefore(pastRetentionCutoffDate)) {
-                    logger.info("Date {} for index {} is past the retention date of {}, deleting it", indexDate, indexName, pastRetentionCutoffDate);
-                    deleteIndices(esTransportClient, indexName, config.getAutoCreateIndexTimeout());
+        if (!expiredIndices.isEmpty()) {
+            deleteIndices(esTransportClient, expiredIndices, config.getAutoCreateIndexTimeout());
+        }
+    }
+
+    void preCreateIndex(Client client, IndexCatalog indexCatalog, IndexMetadata indexMetadata, DateTime dateTime) throws UnsupportedAutoIndexException {
+        logger.info("Pre-creating indices for {}*", indexMetadata.getIndexNamePattern());
+
+        String indexName = indexMetadata.getIndexNameToPreCreate(dateTime);
+
+        if (indexCatalog.contains(indexName)) {
+            if (config.isDebugEnabled()) {
+                logger.debug("{} already exists", indexName);
+            }
+            return;
+        }
+
+        createIndex(client, indexName);
+    }
+
+    /**
+     * @return indices older than the cutoff date that have not been deleted by retention
+     */
+    NavigableMap<String, DateTime> getAgedIndices(NavigableMap<String, DateTime> indexDates, IndexMetadata indexMetadata, DateTime cutoffDate, DateTime dateTime) {
+        DateTime pastRetentionCutoffDate = indexMetadata.getRetentionPeriod() == null ? null : indexMetadata.getPastRetentionCutoffDate(dateTime);
+
+        NavigableMap<String, DateTime> agedIndices = new TreeMap<>();
+
+        for (Map.Entry<String, DateTime> indexDate : indexDates.entrySet()) {
+            if (indexDate.getValue().isBefore(cutoffDate)
+                    && (pastRetentionCutoffDate == null || !indexDate.getValue().isBefore(pastRetentionCutoffDate))) {
+                agedIndices.put(indexDate.getKey(), indexDate.getValue());
+            }
+        }
+
+        return agedIndices;
+    }
+
+    /**
+     * Moves aged indices through the warm phase during the off-peak window. Every step is idempotent and derived
+     * from the current cluster state, so an index may take several runs to complete:
+     * <ol>
+     * <li>writes are blocked, and if the index is to be shrunk, its shards are moved to a single node</li>
+     * <li>once a copy of every shard is on that node, the index is shrunk into {@code <index>-shrunk}</li>
+     * <li>once the shrunk index is green, the source index is deleted</li>
+     * <li>indices which are not shrunk, or are the result of a shrink, are queued for a force-merge</li>
+     * </ol>
+     * Indices whose number of shards warmShrinkShards is not a factor of, or which Elasticsearch refuses to shrink,
+     * are force-merged instead, and released from the node their shards were moved to.
+     * Queued force-merges are issued asynchronously, at most one at a time per node holding a copy of one of the
+     * index's shards according to the routing table, so the task is never blocked by a merge. Whenever a merge
+     * completes within the window, the next queued index whose nodes are all idle is merged. The queue is rebuilt
+     * every run, and merges in flight for longer than {@link IConfiguration#getIndexWarmPhaseForceMergeTimeoutMinutes()}
+     * no longer count as busying their nodes.
+     */
+    void runWarmPhase(Client client, IndexCatalog indexCatalog, Map<IndexMetadata, NavigableMap<String, DateTime>> warmIndices, DateTime dateTime) {
+        if (warmIndices.isEmpty()) {
+            synchronized (forceMergeLock) {
+                queuedForceMerges.clear();
+            }
+            return;
+        }
+
+        if (!isWarmPhaseWindow(dateTime)) {
+            if (config.isDebugEnabled()) {
+                logger.debug("Outside of the warm phase window, skipping warm phase");
+            }
+            return;
+        }
+
+        forceMergedIndices.retainAll(indexCatalog.getIndexNames());
+        abandonedShrinks.retainAll(indexCatalog.getIndexNames());
+
+        Map<String, Integer> forceMergeMaxSegments = new LinkedHashMap<>();
+
+        for (Map.Entry<IndexMetadata, NavigableMap<String, DateTime>> entry : warmIndices.entrySet()) {
+            for (String indexName : entry.getValue().keySet()) {
+                if (indexCatalog.isClosed(indexName)) {
+                    continue;
+                }
+
+                try {
+                    if (warmIndex(client, indexCatalog, entry.getKey(), indexName)) {
+                        forceMergeMaxSegments.put(indexName, entry.getKey().getWarmMaxSegments());
+                    }
+                } catch (Exception e) {
+                    logger.warn(String.format("Caught an exception while moving %s to the warm phase", indexName), e);
                 }
             }
-        });
+        }
+
+        try {
+            queueForceMerges(client, forceMergeMaxSegments, dateTime.getMillis());
+        } catch (Exception e) {
+            logger.warn("Caught an exception while queueing force-merges", e);
+        }
     }
 
-    void preCreateIndex(Client client, IndexMetadata indexMetadata, DateTime dateTime) throws UnsupportedAutoIndexException {
-        logger.info("Pre-creating indices for {}*", indexMetadata.getIndexNamePattern());
+    /**
+     * Replaces the queue of force-merges with the given indices, in order, and starts those whose nodes are idle
+     *
+     * @param forceMergeMaxSegments indices to force-merge, with the number of segments per shard to merge them to
+     */
+    void queueForceMerges(Client client, Map<String, Integer> forceMergeMaxSegments, long now) {
+        Map<String, Set<String>> shardNodes = forceMergeMaxSegments.isEmpty()
+                ? Collections.emptyMap()
+                : getShardNodes(client, forceMergeMaxSegments.keySet());
 
-        IndicesStatsResponse indicesStatsResponse = getIndicesStatsResponse(client);
-        Map<String, IndexStats> indexStatsMap = indicesStatsResponse.getIndices();
+        synchronized (forceMergeLock) {
+            long timeoutMillis = TimeUnit.MINUTES.toMillis(config.getIndexWarmPhaseForceMergeTimeoutMinutes());
 
-        if (indexStatsMap == null || indexStatsMap.isEmpty()) {
-            logger.info("No existing indices, no need to pre-create");
+            for (Iterator<PendingForceMerge> iterator = inFlightForceMerges.values().iterator(); iterator.hasNext(); ) {
+                PendingForceMerge pendingForceMerge = iterator.next();
+                if (now - pendingForceMerge.startTime > timeoutMillis) {
+                    // The merge still completes in Elasticsearch, the index is queued again if it needs to be
+                    logger.info("Force-merge of {} did not complete in time, no longer waiting for it", pendingForceMerge.indexName);
+                    iterator.remove();
+                }
+            }
+
+            queuedForceMerges.clear();
+
+            for (Map.Entry<String, Integer> entry : forceMergeMaxSegments.entrySet()) {
+                Set<String> nodeIds = shardNodes.get(entry.getKey());
+                if (nodeIds != null && !nodeIds.isEmpty()) {
+                    queuedForceMerges.add(new PendingForceMerge(entry.getKey(), entry.getValue(), nodeIds));
+                }
+            }
+        }
+
+        startForceMerges(client, now);
+    }
+
+    private void startForceMerges(Client client, long now) {
+        List<PendingForceMerge> startedForceMerges = new ArrayList<>();
+
+        synchronized (forceMergeLock) {
+            Set<String> busyNodeIds = new HashSet<>();
+            for (PendingForceMerge pendingForceMerge : inFlightForceMerges.values()) {
+                busyNodeIds.addAll(pendingForceMerge.nodeIds);
+            }
+
+            for (Iterator<PendingForceMerge> iterator = queuedForceMerges.iterator(); iterator.hasNext(); ) {
+                PendingForceMerge pendingForceMerge = iterator.next();
+
+                if (inFlightForceMerges.containsKey(pendingForceMerge.indexName)) {
+                    iterator.remove();
+                } else if (Collections.disjoint(busyNodeIds, pendingForceMerge.nodeIds)) {
+                    iterator.remove();
+                    pendingForceMerge.startTime = now;
+                    inFlightForceMerges.put(pendingForceMerge.indexName, pendingForceMerge);
+                    busyNodeIds.addAll(pendingForceMerge.nodeIds);
+                    startedForceMerges.add(pendingForceMerge);
+                }
+            }
+        }
+
+        for (PendingForceMerge pendingForceMerge : startedForceMerges) {
+            try {
+                forceMerge(client, pendingForceMerge.indexName, pendingForceMerge.maxSegments, new ActionListener<ForceMergeResponse>() {
+                    @Override
+                    public void onResponse(ForceMergeResponse forceMergeResponse) {
+                        if (forceMergeResponse.getFailedShards() == 0) {
+                            forceMergedIndices.add(pendingForceMerge.indexName);
+                            logger.info("{} has been force-merged", pendingForceMerge.indexName);
+                        } else {
+                            logger.warn("Force-merge of {} failed on {} shards", pendingForceMerge.indexName, forceMergeResponse.getFailedShards());
+                        }
+                        onForceMergeFinished(client, pendingForceMerge);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        logger.warn(String.format("Failed to force-merge %s", pendingForceMerge.indexName), e);
+                        onForceMergeFinished(client, pendingForceMerge);
+                    }
+                });
+            } catch (Exception e) {
+                logger.warn(String.format("Failed to force-merge %s", pendingForceMerge.indexName), e);
+
+                synchronized (forceMergeLock) {
+                    inFlightForceMerges.remove(pendingForceMerge.indexName, pendingForceMerge);
+                }
+            }
+        }
+    }
+
+    private void onForceMergeFinished(Client client, PendingForceMerge pendingForceMerge) {
+        synchronized (forceMergeLock) {
+            inFlightForceMerges.remove(pendingForceMerge.indexName, pendingForceMerge);
+        }
+
+        // Keeps the freed nodes busy until the next run rebuilds the queue, without blocking the calling thread
+        DateTime now = new DateTime();
+        if (isWarmPhaseWindow(now)) {
+            startForceMerges(client, now.getMillis());
+        }
+    }
+
+    boolean isForceMergeInFlight(String indexName) {
+        synchronized (forceMergeLock) {
+            return inFlightForceMerges.containsKey(indexName);
+        }
+    }
+
+    /**
+     * Closes indices past the close cutoff, unless they were reopened on demand and are still in use.
+     */
+    void runClosePhase(Client client, IndexCatalog indexCatalog, Map<IndexMetadata, NavigableMap<String, DateTime>> coldIndices, long now) {
+        List<String> expiredIndices = new ArrayList<>();
+        Set<String> keptOpenIndices = new HashSet<>();
+
+        localReopenedIndices.keySet().removeIf(indexName -> !indexCatalog.contains(indexName) || indexCatalog.isClosed(indexName));
+
+        for (String indexName : indexCatalog.getIndexNames()) {
+            ReopenedIndex reopenedIndex = getReopenedIndex(indexCatalog, indexName);
+
+            if (reopenedIndex == null || indexCatalog.isClosed(indexName)) {
+                continue;
+            }
+
+            if (reopenedIndex.isExpired(now)) {
+                expiredIndices.add(indexName);
+            } else {
+                keptOpenIndices.add(indexName);
+            }
+        }
+
+        if (!expiredIndices.isEmpty()) {
+            Map<String, Long> queryTotals = getQueryTotals(client, expiredIndices);
+
+            for (String indexName : expiredIndices) {
+                Long queryTotal = queryTotals.get(indexName);
+                ReopenedIndex reopenedIndex = getReopenedIndex(indexCatalog, indexName);
+
+                if (queryTotal != null && reopenedIndex.isSearchedSince(queryTotal)) {
+                    try {
+                        updateReopenedIndex(client, indexName, reopenedIndex.extend(queryTotal, now));
+                        keptOpenIndices.add(indexName);
+                        logger.info("{} was searched since it was reopened, keeping it open", indexName);
+                    } catch (Exception e) {
+                        logger.warn("Failed to extend the reopen TTL of " + indexName, e);
+                    }
+                }
+            }
+        }
+
+        Set<String> indicesToClose = new TreeSet<>();
+
+        for (NavigableMap<String, DateTime> indexDates : coldIndices.values()) {
+            for (String indexName : indexDates.keySet()) {
+                if (!indexCatalog.isClosed(indexName) && !keptOpenIndices.contains(indexName)) {
+                    indicesToClose.add(indexName);
+                }
+            }
+        }
+
+        if (indicesToClose.isEmpty()) {
             return;
         }
 
-        indexStatsMap.keySet().stream()
-            .filter(indexName -> indexMetadata.getIndexNameFilter().filter(indexName))
-            .findFirst()
-            .ifPresent(indexName -> {
+        for (List<String> batch : Lists.partition(new ArrayList<>(indicesToClose), Math.max(1, config.getIndexRetentionDeleteBatchSize()))) {
+            try {
+                closeIndices(client, batch);
+            } catch (Exception e) {
+                logger.warn("Failed to close " + batch, e);
+            }
+        }
+    }
+
+    /**
+     * Reopens closed indices on demand. They are closed again by index management once they have not been
+     * searched for the given TTL.
+     *
+     * @param indexNames    indices to reopen
+     * @param fromIndexName if set, together with toIndexName, also reopens the closed indices in this (inclusive) name range
+     * @param toIndexName   end of the name range, inclusive
+     * @return indices that were reopened or had their TTL extended
+     */
+    public List<String> reopenIndices(Collection<String> indexNames, String fromIndexName, String toIndexName, int ttlMinutes) throws Exception {
+        // Only the elected master closes indices, so that is where reopen requests are served
+        if (!masterStatusTracker.isMaster()) {
+            throw new IllegalStateException("Indices can only be reopened through the elected master " + masterStatusTracker.getMasterIp());
+        }
+
+        Client client = getTransportClient();
+        IndexCatalog indexCatalog = getIndexCatalog(client);
+
+        Set<String> requestedIndices = new TreeSet<>();
+
+        for (String indexName : indexNames) {
+            if (!indexCatalog.contains(indexName)) {
+                throw new IllegalArgumentException("Index " + indexName + " does not exist");
+            }
+            requestedIndices.add(indexName);
+        }
+
+        if (fromIndexName != null && toIndexName != null) {
+            if (fromIndexName.compareTo(toIndexName) > 0) {
+                throw new IllegalArgumentException("Index range " + fromIndexName + " - " + toIndexName + " is empty");
+            }
+
+            for (String indexName : indexCatalog.getIndexNames().subSet(fromIndexName, true, toIndexName, true)) {
+                if (indexCatalog.isClosed(indexName) || getReopenedIndex(indexCatalog, indexName) != null) {
+                    requestedIndices.add(indexName);
+                }
+            }
+        }
+
+        if (requestedIndices.size() > config.getIndexReopenMaxIndices()) {
+            throw new IllegalArgumentException(String.format("Cannot reopen %d indices at once, the limit is %d",
+                    requestedIndices.size(), config.getIndexReopenMaxIndices()));
+        }
+
+        List<String> closedIndices = new ArrayList<>();
+        for (String indexName : requestedIndices) {
+            if (indexCatalog.isClosed(indexName)) {
+                closedIndices.add(indexName);
+            }
+        }
+
+        if (!closedIndices.isEmpty()) {
+            openIndices(client, closedIndices);
+        }
+
+        long now = System.currentTimeMillis();
+        for (String indexName : requestedIndices) {
+            ReopenedIndex existing = indexCatalog.isClosed(indexName) ? null : getReopenedIndex(indexCatalog, indexName);
+            updateReopenedIndex(client, indexName, ReopenedIndex.reopen(existing, TimeUnit.MINUTES.toMillis(ttlMinutes), now));
+        }
+
+        logger.info("Reopened {} for {} minutes", requestedIndices, ttlMinutes);
+
+        return new ArrayList<>(requestedIndices);
+    }
+
+    /**
+     * Stores when a reopened index may be closed again in its settings, where any master finds it.
+     * Without the Raigad discovery plugin the state is only kept in memory, so an index reopened before a master
+     * failover or Raigad restart is closed again by the next run if it is past the close cutoff.
+     */
+    void updateReopenedIndex(Client client, String indexName, ReopenedIndex reopenedIndex) {
+        if (raigadSettingsRegistered) {
+            try {
+                client.admin().indices().prepareUpdateSettings(indexName)
+                        .setSettings(reopenedIndex.toSettings())
+                        .execute()
+                        .actionGet(config.getAutoCreateIndexTimeout());
+                return;
+            } catch (Exception e) {
+                if (!isUnknownRaigadSetting(e)) {
+                    throw e;
+                }
+                onRaigadSettingsRejected(e);
+            }
+        }
+
+        localReopenedIndices.put(indexName, reopenedIndex);
+    }
+
+    ReopenedIndex getReopenedIndex(IndexCatalog indexCatalog, String indexName) {
+        ReopenedIndex reopenedIndex = localReopenedIndices.get(indexName);
+        return reopenedIndex != null ? reopenedIndex : indexCatalog.getReopenedIndex(indexName);
+    }
+
+    /**
+     * @return true if Elasticsearch rejected one of the index.raigad.* settings as not registered by any plugin
+     */
+    static boolean isUnknownRaigadSetting(Exception e) {
+        Throwable cause = ExceptionsHelper.unwrapCause(e);
+        return cause instanceof IllegalArgumentException
+                && cause.getMessage() != null
+                && cause.getMessage().contains("index.raigad.");
+    }
+
+    private void onRaigadSettingsRejected(Exception e) {
+        raigadSettingsRegistered = false;
+        logger.warn("Raigad index settings are not registered, install raigad-discovery-plugin on every node to keep shrunk index "
+                + "creation dates and reopened index state in the cluster: " + ExceptionsHelper.unwrapCause(e).getMessage());
+    }
+
+    void closeIndices(Client client, List<String> indexNames) {
+        client.admin().indices().prepareClose(indexNames.toArray(new String[indexNames.size()]))
+                .execute()
+                .actionGet(config.getAutoCreateIndexTimeout());
+
+        logger.info("Closed {}", indexNames);
+    }
+
+    void openIndices(Client client, List<String> indexNames) {
+        client.admin().indices().prepareOpen(indexNames.toArray(new String[indexNames.size()]))
+                .execute()
+                .actionGet(config.getAutoCreateIndexTimeout());
+    }
+
+    Map<String, Long> getQueryTotals(Client client, Collection<String> indexNames) {
+        IndicesStatsResponse indicesStatsResponse = client.admin().indices().prepareStats(indexNames.toArray(new String[indexNames.size()]))
+                .clear()
+                .setSearch(true)
+                .execute()
+                .actionGet(config.getAutoCreateIndexTimeout());
+
+        Map<String, Long> queryTotals = new HashMap<>();
+        for (Map.Entry<String, IndexStats> indexStats : indicesStatsResponse.getIndices().entrySet()) {
+            queryTotals.put(indexStats.getKey(), indexStats.getValue().getTotal().getSearch().getTotal().getQueryCount());
+        }
+
+        return queryTotals;
+    }
+
+    boolean isWarmPhaseWindow(DateTime dateTime) {
+        int hour = dateTime.withZone(DateTimeZone.UTC).getHourOfDay();
+        int startHour = config.getIndexWarmPhaseStartHour();
+        int endHour = config.getIndexWarmPhaseEndHour();
+
+        if (startHour == endHour) {
+            return true;
+        }
+
+        return startHour < endHour
+                ? hour >= startHour && hour < endHour
+                : hour >= startHour || hour < endHour;
+    }
+
+    /**
+     * @return true if the index is ready to be force-merged
+     */
+    boolean warmIndex(Client client, IndexCatalog indexCatalog, IndexMetadata indexMetadata, String indexName) {
+        Integer shrinkShards = indexMetadata.getWarmShrinkShards();
+        int numberOfShards = indexCatalog.getNumberOfShards(indexName);
+        boolean shrink = shrinkShards != null
+                && !IndexMetadata.isShrunkIndex(indexName)
+                && numberOfShards > shrinkShards
+                && !abandonedShrinks.contains(indexName);
+
+        if (shrink && !indexMetadata.canShrink(numberOfShards)) {
+            logger.warn("{} cannot be shrunk from {} to {} shards, which is not a factor of {}, force-merging it instead",
+                    indexName, numberOfShards, shrinkShards, numberOfShards);
+            abandonedShrinks.add(indexName);
+            shrink = false;
+        }
+
+        if (shrink) {
+            String shrunkIndexName = indexName + IndexMetadata.SHRUNK_INDEX_SUFFIX;
+
+            if (indexCatalog.contains(shrunkIndexName)) {
+                if (isIndexGreen(client, shrunkIndexName)) {
+                    logger.info("{} has been shrunk into {}, deleting it", indexName, shrunkIndexName);
+                    deleteIndices(client, Collections.singletonList(indexName), config.getAutoCreateIndexTimeout());
+                }
+                return false;
+            } else if (indexCatalog.isWriteBlocked(indexName) && findShrinkNode(client, indexName, true) != null) {
                 try {
-                    createIndex(client, indexMetadata.getIndexNameToPreCreate(dateTime));
-                } catch (UnsupportedAutoIndexException e) {
-                    logger.error("Invalid index metadata: " + indexMetadata.toString(), e);
+                    shrinkIndex(client, indexName, shrunkIndexName, shrinkShards, indexCatalog.getCreationDate(indexName));
+                    return false;
+                } catch (ElasticsearchTimeoutException e) {
+                    // The shrink may still be going on, the shrunk index shows up in the next run if it is
+                    throw e;
+                } catch (Exception e) {
+                    logger.warn(String.format("Elasticsearch refused to shrink %s, force-merging it instead", indexName), e);
+                    abandonedShrinks.add(indexName);
                 }
-            });
+            } else {
+                // Applied again until a copy of every shard is on one node, in case that node left in the meantime
+                blockWrites(client, indexName, findShrinkNode(client, indexName, false));
+                return false;
+            }
+        }
+
+        // Shards of an index which is not shrunk after all must not stay on a single node
+        if (indexCatalog.isPinned(indexName) && !indexCatalog.contains(indexName + IndexMetadata.SHRUNK_INDEX_SUFFIX)) {
+            unpinIndex(client, indexName);
+        }
+
+        if (!indexCatalog.isWriteBlocked(indexName)) {
+            blockWrites(client, indexName, null);
+        }
+
+        return !forceMergedIndices.contains(indexName) && !isForceMergeInFlight(indexName);
+    }
+
+    void blockWrites(Client client, String indexName, String shrinkNodeName) {
+        Settings.Builder settings = Settings.builder().put(IndexMetaData.SETTING_BLOCKS_WRITE, true);
+
+        if (shrinkNodeName != null) {
+            settings.put(IndexCatalog.ROUTING_REQUIRE_NAME_SETTING, shrinkNodeName);
+        }
+
+        client.admin().indices().prepareUpdateSettings(indexName)
+                .setSettings(settings)
+                .execute()
+                .actionGet(config.getAutoCreateIndexTimeout());
+
+        logger.info("Blocked writes to {}{}", indexName, shrinkNodeName == null ? "" : ", moving its shards to " + shrinkNodeName);
+    }
+
+    void unpinIndex(Client client, String indexName) {
+        client.admin().indices().prepareUpdateSettings(indexName)
+                .setSettings(Settings.builder().putNull(IndexCatalog.ROUTING_REQUIRE_NAME_SETTING))
+                .execute()
+                .actionGet(config.getAutoCreateIndexTimeout());
+
+        logger.info("Cleared the shrink node of {}", indexName);
+    }
+
+    /**
+     * @param requireAllShards only return a node holding a started copy of every shard of the index
+     * @return name of the node holding started copies of most shards of the index, or null if there is none
+     */
+    String findShrinkNode(Client client, String indexName, boolean requireAllShards) {
+        ClusterState clusterState = client.admin().cluster().prepareState()
+                .clear()
+                .setRoutingTable(true)
+                .setNodes(true)
+                .setIndices(indexName)
+                .execute()
+                .actionGet(config.getAutoCreateIndexTimeout())
+                .getState();
+
+        IndexRoutingTable indexRoutingTable = clusterState.getRoutingTable().index(indexName);
+        if (indexRoutingTable == null) {
+            return null;
+        }
+
+        Map<String, Set<Integer>> shardsPerNode = new HashMap<>();
+        for (IndexShardRoutingTable indexShardRoutingTable : indexRoutingTable) {
+            for (ShardRouting shardRouting : indexShardRoutingTable) {
+                if (shardRouting.started()) {
+                    shardsPerNode.computeIfAbsent(shardRouting.currentNodeId(), nodeId -> new HashSet<>()).add(shardRouting.id());
+                }
+            }
+        }
+
+        String shrinkNodeId = null;
+        int shrinkNodeShards = 0;
+
+        for (Map.Entry<String, Set<Integer>> entry : shardsPerNode.entrySet()) {
+            if (entry.getValue().size() > shrinkNodeShards) {
+                shrinkNodeId = entry.getKey();
+                shrinkNodeShards = entry.getValue().size();
+            }
+        }
+
+        if (shrinkNodeId == null || (requireAllShards && shrinkNodeShards < indexRoutingTable.shards().size())) {
+            return null;
+        }
+
+        DiscoveryNode shrinkNode = clusterState.getNodes().get(shrinkNodeId);
+        return shrinkNode == null ? null : shrinkNode.getName();
+    }
+
+    /**
+     * The shrunk index is a new index with a new creation date, so the creation date of the source index is recorded
+     * on it. Otherwise each shrink would restart the retention and close clocks of a rollover index.
+     * Without the Raigad discovery plugin, which registers that setting, the index is shrunk without it.
+     */
+    void shrinkIndex(Client client, String indexName, String shrunkIndexName, int shards, DateTime originCreationDate) {
+        Settings.Builder settings = Settings.builder()
+                .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, shards)
+                .put(IndexMetaData.SETTING_BLOCKS_WRITE, true);
+
+        boolean withOriginCreationDate = raigadSettingsRegistered;
+        if (withOriginCreationDate) {
+            settings.put(IndexCatalog.ORIGIN_CREATION_DATE_SETTING, originCreationDate.getMillis());
+        }
+
+        try {
+            client.admin().indices().prepareShrinkIndex(indexName, shrunkIndexName)
+                    .setSettings(settings.build())
+                    .execute()
+                    .actionGet(config.getAutoCreateIndexTimeout());
+        } catch (Exception e) {
+            if (!withOriginCreationDate || !isUnknownRaigadSetting(e)) {
+                throw e;
+            }
+            onRaigadSettingsRejected(e);
+            shrinkIndex(client, indexName, shrunkIndexName, shards, originCreationDate);
+            return;
+        }
+
+        logger.info("Shrinking {} into {} with {} shards", indexName, shrunkIndexName, shards);
+    }
+
+    boolean isIndexGreen(Client client, String indexName) {
+        return client.admin().cluster().prepareHealth(indexName)
+                .execute()
+                .actionGet(config.getAutoCreateIndexTimeout())
+                .getStatus() == ClusterHealthStatus.GREEN;
+    }
+
+    void forceMerge(Client client, String indexName, int maxSegments, ActionListener<ForceMergeResponse> listener) {
+        logger.info("Force-merging {} to {} segments per shard", indexName, maxSegments);
+
+        client.admin().indices().prepareForceMerge(indexName)
+                .setMaxNumSegments(maxSegments)
+                .execute(listener);
+    }
+
+    /**
+     * @return IDs of the nodes holding an assigned copy of a shard of each index, indices without any are left out
+     */
+    Map<String, Set<String>> getShardNodes(Client client, Collection<String> indexNames) {
+        ClusterState clusterState = client.admin().cluster().prepareState()
+                .clear()
+                .setRoutingTable(true)
+                .setIndices(indexNames.toArray(new String[indexNames.size()]))
+                .execute()
+                .actionGet(config.getAutoCreateIndexTimeout())
+                .getState();
+
+        Map<String, Set<String>> shardNodes = new HashMap<>();
+
+        for (String indexName : indexNames) {
+            IndexRoutingTable indexRoutingTable = clusterState.getRoutingTable().index(indexName);
+            if (indexRoutingTable == null) {
+                continue;
+            }
+
+            for (IndexShardRoutingTable indexShardRoutingTable : indexRoutingTable) {
+                for (ShardRouting shardRouting : indexShardRoutingTable) {
+                    if (shardRouting.assignedToNode()) {
+                        shardNodes.computeIfAbsent(indexName, name -> new HashSet<>()).add(shardRouting.currentNodeId());
+                    }
+                }
+            }
+        }
+
+        return shardNodes;
+    }
+
+    /**
+     * @return indices of the rollover series with their creation dates, the last entry being the current write index
+     */
+    NavigableMap<String, DateTime> getRolloverSeries(IndexCatalog indexCatalog, IndexMetadata indexMetadata) {
+        NavigableMap<String, DateTime> rolloverSeries = new TreeMap<>();
+
+        for (String indexName : indexCatalog.getIndexNames()) {
+            if (indexMetadata.getIndexNameFilter().filter(indexName)) {
+                rolloverSeries.put(indexName, indexCatalog.getCreationDate(indexName));
+            }
+        }
+
+        return rolloverSeries;
+    }
+
+    /**
+     * Rolls the write alias over to the next index of the series once one of the configured conditions is met,
+     * or bootstraps the series if it does not exist yet.
+     * <p>
+     * Elasticsearch 5.x only evaluates age and document count conditions, so the primary store size of the
+     * write index is checked here and an unconditional rollover is issued when it is over the limit.
+     */
+    void rolloverIndex(Client client, NavigableMap<String, DateTime> rolloverSeries, IndexMetadata indexMetadata) {
+        String rolloverAlias = indexMetadata.getRolloverAlias();
+
+        if (rolloverSeries.isEmpty()) {
+            String indexName = indexMetadata.getRolloverBootstrapIndexName();
+            client.admin().indices().prepareCreate(indexName)
+                    .addAlias(new Alias(rolloverAlias))
+                    .execute()
+                    .actionGet(config.getAutoCreateIndexTimeout());
+            logger.info("{} has been created with write alias {}", indexName, rolloverAlias);
+            return;
+        }
+
+        String writeIndexName = rolloverSeries.lastKey();
+        boolean sizeExceeded = false;
+
+        if (indexMetadata.getRolloverMaxSize() != null) {
+            long primaryStoreSizeInBytes = getPrimaryStoreSizeInBytes(client, writeIndexName);
+            sizeExceeded = primaryStoreSizeInBytes >= indexMetadata.getRolloverMaxSize().getBytes();
+
+            if (config.isDebugEnabled()) {
+                logger.debug("Primary store size of {} is {} bytes", writeIndexName, primaryStoreSizeInBytes);
+            }
+        }
+
+        if (!sizeExceeded && indexMetadata.getRolloverMaxAge() == null && indexMetadata.getRolloverMaxDocs() == null) {
+            return;
+        }
+
+        RolloverRequestBuilder rolloverRequestBuilder = client.admin().indices().prepareRolloverIndex(rolloverAlias);
+
+        if (!sizeExceeded) {
+            if (indexMetadata.getRolloverMaxAge() != null) {
+                rolloverRequestBuilder.addMaxIndexAgeCondition(indexMetadata.getRolloverMaxAge());
+            }
+
+            if (indexMetadata.getRolloverMaxDocs() != null) {
+                rolloverRequestBuilder.addMaxIndexDocsCondition(indexMetadata.getRolloverMaxDocs());
+            }
+        }
+
+        RolloverResponse rolloverResponse = rolloverRequestBuilder.execute().actionGet(config.getAutoCreateIndexTimeout());
+
+        if (rolloverResponse.isRolledOver()) {
+            logger.info("{} rolled over from {} to {}", rolloverAlias, rolloverResponse.getOldIndex(), rolloverResponse.getNewIndex());
+        } else if (config.isDebugEnabled()) {
+            logger.debug("{} does not need to be rolled over yet", rolloverAlias);
+        }
+    }
+
+    long getPrimaryStoreSizeInBytes(Client client, String indexName) {
+        IndicesStatsResponse indicesStatsResponse = client.admin().indices().prepareStats(indexName)
+                .clear()
+                .setStore(true)
+                .execute()
+                .actionGet(config.getAutoCreateIndexTimeout());
+
+        return indicesStatsResponse.getIndex(indexName).getPrimaries().getStore().getSizeInBytes();
     }
 
     void createIndex(Client client, String indexName) {
@@ -206,14 +1010,81 @@ public class ElasticsearchIndexManager extends Task {
         }
     }
 
-    void deleteIndices(Client client, String indexName, int timeout) {
-        DeleteIndexResponse deleteIndexResponse = client.admin().indices().prepareDelete(indexName).execute().actionGet(timeout);
+    /**
+     * Deletes the given indices in multi-index requests of at most {@link IConfiguration#getIndexRetentionDeleteBatchSize()}
+     * indices each, keeping up to {@link IConfiguration#getIndexRetentionDeleteConcurrency()} requests in flight.
+     * A failed batch does not stop the remaining ones, but is reported once all batches are done.
+     */
+    void deleteIndices(Client client, List<String> indexNames, int timeout) {
+        int batchSize = Math.max(1, config.getIndexRetentionDeleteBatchSize());
+        int concurrency = Math.max(1, config.getIndexRetentionDeleteConcurrency());
+
+        Deque<PendingDelete> inFlight = new ArrayDeque<>();
+        List<String> failedIndices = new ArrayList<>();
 
-        if (deleteIndexResponse.isAcknowledged()) {
-            logger.info(indexName + " deleted");
-        } else {
-            logger.warn("Failed to delete " + indexName);
-            throw new RuntimeException("Failed to delete " + indexName);
+        for (List<String> batch : Lists.partition(indexNames, batchSize)) {
+            if (inFlight.size() >= concurrency) {
+                awaitDelete(inFlight.poll(), timeout, failedIndices);
+            }
+
+            try {
+                inFlight.add(new PendingDelete(batch, deleteIndicesAsync(client, batch)));
+            } catch (Exception e) {
+                logger.warn("Failed to submit deletion of " + batch, e);
+                failedIndices.addAll(batch);
+            }
+        }
+
+        while (!inFlight.isEmpty()) {
+            awaitDelete(inFlight.poll(), timeout, failedIndices);
+        }
+
+        if (!failedIndices.isEmpty()) {
+            throw new RuntimeException("Failed to delete " + failedIndices);
+        }
+    }
+
+    ActionFuture<DeleteIndexResponse> deleteIndicesAsync(Client client, List<String> indexNames) {
+        return client.admin().indices().prepareDelete(indexNames.toArray(new String[indexNames.size()])).execute();
+    }
+
+    private void awaitDelete(PendingDelete pendingDelete, int timeout, List<String> failedIndices) {
+        try {
+            DeleteIndexResponse deleteIndexResponse = pendingDelete.future.actionGet((long) timeout);
+
+            if (deleteIndexResponse.isAcknowledged()) {
+                logger.info(pendingDelete.indexNames + " deleted");
+                return;
+            }
+
+            logger.warn("Failed to delete " + pendingDelete.indexNames);
+        } catch (Exception e) {
+            logger.warn("Failed to delete " + pendingDelete.indexNames, e);
+        }
+
+        failedIndices.addAll(pendingDelete.indexNames);
+    }
+
+    private static final class PendingForceMerge {
+        private final String indexName;
+        private final int maxSegments;
+        private final Set<String> nodeIds;
+        private long startTime;
+
+        private PendingForceMerge(String indexName, int maxSegments, Set<String> nodeIds) {
+            this.indexName = indexName;
+            this.maxSegments = maxSegments;
+            this.nodeIds = nodeIds;
+        }
+    }
+
+    private static final class PendingDelete {
+        private final List<String> indexNames;
+        private final ActionFuture<DeleteIndexResponse> future;
+
+        private PendingDelete(List<String> indexNames, ActionFuture<DeleteIndexResponse> future) {
+            this.indexNames = indexNames;
+            this.future = future;
         }
     }
 
@@ -223,7 +1094,13 @@ public class ElasticsearchIndexManager extends Task {
      * @param esTransportClient
      * @return
      */
-    IndicesStatsResponse getIndicesStatsResponse(Client esTransportClient) {
-        return esTransportClient.admin().indices().prepareStats("_all").execute().actionGet(config.getAutoCreateIndexTimeout());
+    IndexCatalog getIndexCatalog(Client esTransportClient) {
+        ClusterStateResponse clusterStateResponse = esTransportClient.admin().cluster().prepareState()
+                .clear()
+                .setMetaData(true)
+                .execute()
+                .actionGet(config.getAutoCreateIndexTimeout());
+
+        return IndexCatalog.fromClusterState(clusterStateResponse);
     }
 }
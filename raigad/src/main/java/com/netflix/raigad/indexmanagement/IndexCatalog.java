@@ -0,0 +1,193 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.indexmanagement;
+
+import org.elasticsearch.action.admin.cluster.state.ClusterStateResponse;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.joda.time.DateTime;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Sorted, immutable view of the index names in the cluster, their creation dates and the few settings
+ * lifecycle steps depend on.
+ * <p>
+ * The catalog is built from the metadata section of the cluster state only, which the master answers
+ * from memory, as opposed to indices stats which make every data node compute per-shard statistics.
+ * One catalog is built per index management run and shared by retention, pre-creation and other lifecycle steps.
+ */
+public class IndexCatalog {
+    /**
+     * Set on shrunk indices to the creation date of their source index, registered by the Raigad discovery plugin.
+     * Indices shrunk without the plugin installed keep their own creation date.
+     */
+    public static final String ORIGIN_CREATION_DATE_SETTING = "index.raigad.origin_creation_date";
+
+    static final String ROUTING_REQUIRE_NAME_SETTING = "index.routing.allocation.require._name";
+
+    private final NavigableSet<String> indexNames;
+    private final Map<String, DateTime> creationDates;
+    private final Set<String> writeBlockedIndices;
+    private final Map<String, Integer> numberOfShards;
+    private final Set<String> closedIndices;
+    private final Map<String, ReopenedIndex> reopenedIndices;
+    private final Set<String> pinnedIndices;
+
+    IndexCatalog(Map<String, DateTime> creationDates) {
+        this(creationDates, Collections.emptySet(), Collections.emptyMap());
+    }
+
+    IndexCatalog(Map<String, DateTime> creationDates, Set<String> writeBlockedIndices, Map<String, Integer> numberOfShards) {
+        this(creationDates, writeBlockedIndices, numberOfShards, Collections.emptySet());
+    }
+
+    IndexCatalog(Map<String, DateTime> creationDates, Set<String> writeBlockedIndices, Map<String, Integer> numberOfShards, Set<String> closedIndices) {
+        this(creationDates, writeBlockedIndices, numberOfShards, closedIndices, Collections.emptyMap());
+    }
+
+    IndexCatalog(Map<String, DateTime> creationDates, Set<String> writeBlockedIndices, Map<String, Integer> numberOfShards, Set<String> closedIndices,
+                 Map<String, ReopenedIndex> reopenedIndices) {
+        this(creationDates, writeBlockedIndices, numberOfShards, closedIndices, reopenedIndices, Collections.emptySet());
+    }
+
+    IndexCatalog(Map<String, DateTime> creationDates, Set<String> writeBlockedIndices, Map<String, Integer> numberOfShards, Set<String> closedIndices,
+                 Map<String, ReopenedIndex> reopenedIndices, Set<String> pinnedIndices) {
+        TreeMap<String, DateTime> sortedCreationDates = new TreeMap<>(creationDates);
+        this.indexNames = Collections.unmodifiableNavigableSet(sortedCreationDates.navigableKeySet());
+        this.creationDates = Collections.unmodifiableMap(sortedCreationDates);
+        this.writeBlockedIndices = Collections.unmodifiableSet(new HashSet<>(writeBlockedIndices));
+        this.numberOfShards = Collections.unmodifiableMap(new HashMap<>(numberOfShards));
+        this.closedIndices = Collections.unmodifiableSet(new HashSet<>(closedIndices));
+        this.reopenedIndices = Collections.unmodifiableMap(new HashMap<>(reopenedIndices));
+        this.pinnedIndices = Collections.unmodifiableSet(new HashSet<>(pinnedIndices));
+    }
+
+    public static IndexCatalog fromClusterState(ClusterStateResponse clusterStateResponse) {
+        SortedMap<String, DateTime> creationDates = new TreeMap<>();
+        Set<String> writeBlockedIndices = new HashSet<>();
+        Map<String, Integer> numberOfShards = new HashMap<>();
+        Set<String> closedIndices = new HashSet<>();
+        Map<String, String> shrinkSourceNames = new HashMap<>();
+        Map<String, ReopenedIndex> reopenedIndices = new HashMap<>();
+        Set<String> pinnedIndices = new HashSet<>();
+
+        for (IndexMetaData indexMetaData : clusterStateResponse.getState().getMetaData()) {
+            String indexName = indexMetaData.getIndex().getName();
+            long originCreationDate = indexMetaData.getSettings().getAsLong(ORIGIN_CREATION_DATE_SETTING, -1L);
+            creationDates.put(indexName, new DateTime(originCreationDate >= 0 ? originCreationDate : indexMetaData.getCreationDate()));
+            numberOfShards.put(indexName, indexMetaData.getNumberOfShards());
+
+            if (indexMetaData.getSettings().getAsBoolean(IndexMetaData.SETTING_BLOCKS_WRITE, false)) {
+                writeBlockedIndices.add(indexName);
+            }
+
+            if (indexMetaData.getSettings().get(ROUTING_REQUIRE_NAME_SETTING) != null) {
+                pinnedIndices.add(indexName);
+            }
+
+            if (indexMetaData.getState() == IndexMetaData.State.CLOSE) {
+                closedIndices.add(indexName);
+            }
+
+            ReopenedIndex reopenedIndex = ReopenedIndex.fromSettings(indexMetaData.getSettings());
+            if (reopenedIndex != null) {
+                reopenedIndices.put(indexName, reopenedIndex);
+            }
+
+            String shrinkSourceName = indexMetaData.getSettings().get(IndexMetaData.INDEX_SHRINK_SOURCE_NAME_KEY);
+            if (shrinkSourceName != null && originCreationDate < 0) {
+                shrinkSourceNames.put(indexName, shrinkSourceName);
+            }
+        }
+
+        // Indices shrunk without the origin creation date, while their source index is still around
+        for (Map.Entry<String, String> shrinkSourceName : shrinkSourceNames.entrySet()) {
+            DateTime sourceCreationDate = creationDates.get(shrinkSourceName.getValue());
+            if (sourceCreationDate != null && sourceCreationDate.isBefore(creationDates.get(shrinkSourceName.getKey()))) {
+                creationDates.put(shrinkSourceName.getKey(), sourceCreationDate);
+            }
+        }
+
+        return new IndexCatalog(creationDates, writeBlockedIndices, numberOfShards, closedIndices, reopenedIndices, pinnedIndices);
+    }
+
+    public boolean isEmpty() {
+        return indexNames.isEmpty();
+    }
+
+    public boolean contains(String indexName) {
+        return indexNames.contains(indexName);
+    }
+
+    /**
+     * @return all index names in lexicographic order
+     */
+    public NavigableSet<String> getIndexNames() {
+        return indexNames;
+    }
+
+    /**
+     * @return creation date of the index, or of the index it was shrunk from, or null if the index is not in the catalog
+     */
+    public DateTime getCreationDate(String indexName) {
+        return creationDates.get(indexName);
+    }
+
+    /**
+     * @return true if index.blocks.write is set on the index
+     */
+    public boolean isWriteBlocked(String indexName) {
+        return writeBlockedIndices.contains(indexName);
+    }
+
+    /**
+     * @return number of primary shards of the index, or 0 if the index is not in the catalog
+     */
+    public int getNumberOfShards(String indexName) {
+        Integer shards = numberOfShards.get(indexName);
+        return shards == null ? 0 : shards;
+    }
+
+    /**
+     * @return true if index.routing.allocation.require._name is set on the index, i.e. it is being moved to a single node
+     */
+    public boolean isPinned(String indexName) {
+        return pinnedIndices.contains(indexName);
+    }
+
+    public boolean isClosed(String indexName) {
+        return closedIndices.contains(indexName);
+    }
+
+    /**
+     * @return state of the last on-demand reopen of the index, or null if it was never reopened
+     */
+    ReopenedIndex getReopenedIndex(String indexName) {
+        return reopenedIndices.get(indexName);
+    }
+
+    @Override
+    public String toString() {
+        return "IndexCatalog{" + indexNames.size() + " indices}";
+    }
+}
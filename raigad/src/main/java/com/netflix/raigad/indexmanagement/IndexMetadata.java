@@ -17,8 +17,11 @@ package com.netflix.raigad.indexmanagement;
 
 import com.netflix.raigad.indexmanagement.exception.UnsupportedAutoIndexException;
 import com.netflix.raigad.indexmanagement.indexfilters.DatePatternIndexNameFilter;
+import com.netflix.raigad.indexmanagement.indexfilters.RolloverSeriesIndexNameFilter;
 import org.codehaus.jackson.annotate.JsonCreator;
 import org.codehaus.jackson.annotate.JsonProperty;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.joda.time.DateTime;
 import org.joda.time.Period;
 import org.joda.time.format.DateTimeFormat;
@@ -28,6 +31,11 @@ import org.joda.time.format.ISOPeriodFormat;
 
 public class IndexMetadata {
 
+    /**
+     * Suffix of the index a warm phase shrinks an index into, e.g. nf_errors_log20171211-shrunk
+     */
+    public static final String SHRUNK_INDEX_SUFFIX = "-shrunk";
+
     private static Period[] AMOUNTS = new Period[] {
         Period.minutes(1),
         Period.hours(1),
@@ -57,14 +65,56 @@ public class IndexMetadata {
     private final Period retentionPeriod;
     private final IIndexNameFilter indexNameFilter;
     private final boolean preCreate;
+    private final String rolloverAlias;
+    private final String rolloverBootstrapIndexName;
+    private final TimeValue rolloverMaxAge;
+    private final Long rolloverMaxDocs;
+    private final ByteSizeValue rolloverMaxSize;
+    private final Period warmAfter;
+    private final int warmMaxSegments;
+    private final Integer warmShrinkShards;
+    private final Period closeAfter;
+
+    public IndexMetadata(
+            String indexName,
+            String indexNamePattern,
+            String retentionType,
+            String retentionPeriod,
+            Boolean preCreate) throws UnsupportedAutoIndexException {
+        this(indexName, indexNamePattern, retentionType, retentionPeriod, preCreate, null, null, null, null, null, null, null, null);
+    }
 
+    /**
+     * When rolloverAlias is set, indices are not created per calendar period. Instead the alias is rolled over
+     * to a new index of the series indexName-000001, indexName-000002, ... once the current index is older than
+     * rolloverMaxAge (e.g. "1d"), holds more than rolloverMaxDocs documents or its primary store is larger than
+     * rolloverMaxSize (e.g. "30gb"). Retention then applies to the creation dates of the series' indices.
+     * <p>
+     * When warmAfter is set (same format as retentionPeriod), indices older than that are made read-only,
+     * optionally shrunk to warmShrinkShards primaries and force-merged to warmMaxSegments segments per shard.
+     * <p>
+     * When closeAfter is set (same format as retentionPeriod), indices older than that are closed until retention
+     * deletes them. They can be reopened on demand through /v1/esadmin/reopen_indices.
+     */
     @JsonCreator
     public IndexMetadata(
             @JsonProperty("indexName") String indexName,
             @JsonProperty("indexNamePattern") String indexNamePattern,
             @JsonProperty("retentionType") String retentionType,
             @JsonProperty("retentionPeriod") String retentionPeriod,
-            @JsonProperty("preCreate") Boolean preCreate) throws UnsupportedAutoIndexException {
+            @JsonProperty("preCreate") Boolean preCreate,
+            @JsonProperty("rolloverAlias") String rolloverAlias,
+            @JsonProperty("rolloverMaxAge") String rolloverMaxAge,
+            @JsonProperty("rolloverMaxDocs") Long rolloverMaxDocs,
+            @JsonProperty("rolloverMaxSize") String rolloverMaxSize,
+            @JsonProperty("warmAfter") String warmAfter,
+            @JsonProperty("warmMaxSegments") Integer warmMaxSegments,
+            @JsonProperty("warmShrinkShards") Integer warmShrinkShards,
+            @JsonProperty("closeAfter") String closeAfter) throws UnsupportedAutoIndexException {
+
+        if (rolloverAlias != null && indexName == null) {
+            throw new UnsupportedAutoIndexException("Rollover alias " + rolloverAlias + " requires indexName to be set");
+        }
 
         if (retentionType == null) {
             retentionType = "DAILY";
@@ -84,23 +134,63 @@ public class IndexMetadata {
             : namePattern;
 
         this.formatter = DateTimeFormat.forPattern(namePattern).withZoneUTC();
-        this.indexNameFilter = new DatePatternIndexNameFilter(formatter);
+        this.indexNameFilter = (rolloverAlias == null)
+            ? new DatePatternIndexNameFilter(formatter)
+            : new RolloverSeriesIndexNameFilter(indexName);
+
+        this.retentionPeriod = parsePeriod(retentionPeriod, retType);
+
+        this.preCreate = preCreate == null ? false : preCreate;
+
+        this.rolloverAlias = rolloverAlias;
+        this.rolloverBootstrapIndexName = (rolloverAlias == null) ? null : indexName + "-000001";
+        this.rolloverMaxAge = (rolloverMaxAge == null) ? null : TimeValue.parseTimeValue(rolloverMaxAge, "rolloverMaxAge");
+        this.rolloverMaxDocs = rolloverMaxDocs;
+        this.rolloverMaxSize = (rolloverMaxSize == null) ? null : ByteSizeValue.parseBytesSizeValue(rolloverMaxSize, "rolloverMaxSize");
+
+        this.warmAfter = parsePeriod(warmAfter, retType);
+        this.warmMaxSegments = (warmMaxSegments == null) ? 1 : warmMaxSegments;
+        if (warmShrinkShards != null && warmShrinkShards < 1) {
+            throw new UnsupportedAutoIndexException("warmShrinkShards " + warmShrinkShards + " of " + indexName + " must be at least 1");
+        }
+        this.warmShrinkShards = warmShrinkShards;
+
+        this.closeAfter = parsePeriod(closeAfter, retType);
+    }
 
-        if (retentionPeriod == null) {
-            this.retentionPeriod = null;
-        } else if (retentionPeriod.startsWith("P")) {
-            this.retentionPeriod = ISOPeriodFormat.standard().parsePeriod(retentionPeriod);
+    private static Period parsePeriod(String period, RETENTION_TYPE retType) {
+        if (period == null) {
+            return null;
+        } else if (period.startsWith("P")) {
+            return ISOPeriodFormat.standard().parsePeriod(period);
         } else {
-            Integer num = Integer.parseInt(retentionPeriod);
-            String period = String.format(retType.periodFormat, num);
-            this.retentionPeriod = ISOPeriodFormat.standard().parsePeriod(period);
+            Integer num = Integer.parseInt(period);
+            return ISOPeriodFormat.standard().parsePeriod(String.format(retType.periodFormat, num));
         }
+    }
 
-        this.preCreate = preCreate == null ? false : preCreate;
+    /**
+     * @return true if the index is the result of shrinking an index in the warm phase
+     */
+    public static boolean isShrunkIndex(String indexName) {
+        return indexName.endsWith(SHRUNK_INDEX_SUFFIX);
+    }
+
+    /**
+     * @return name of the index the given index was shrunk from, or the name itself if it was not shrunk
+     */
+    public static String getSourceIndexName(String indexName) {
+        return isShrunkIndex(indexName) ? indexName.substring(0, indexName.length() - SHRUNK_INDEX_SUFFIX.length()) : indexName;
     }
 
     @Override
     public String toString() {
+        if (isRollover()) {
+            return String.format("{\"indexNamePattern\": \"%s\", \"retentionPeriod\": \"%s\", \"rolloverAlias\": \"%s\", " +
+                            "\"rolloverMaxAge\": \"%s\", \"rolloverMaxDocs\": %s, \"rolloverMaxSize\": \"%s\"}",
+                    indexNamePattern, retentionPeriod, rolloverAlias, rolloverMaxAge, rolloverMaxDocs, rolloverMaxSize);
+        }
+
         return String.format("{\"indexNamePattern\": \"%s\", \"retentionPeriod\": \"%s\", \"preCreate\": %b}",
                 indexNamePattern, retentionPeriod, preCreate);
     }
@@ -121,11 +211,89 @@ public class IndexMetadata {
         return preCreate;
     }
 
+    public boolean isRollover() {
+        return rolloverAlias != null;
+    }
+
+    public String getRolloverAlias() {
+        return rolloverAlias;
+    }
+
+    public TimeValue getRolloverMaxAge() {
+        return rolloverMaxAge;
+    }
+
+    public Long getRolloverMaxDocs() {
+        return rolloverMaxDocs;
+    }
+
+    public ByteSizeValue getRolloverMaxSize() {
+        return rolloverMaxSize;
+    }
+
+    /**
+     * @return name of the first index of the rollover series
+     */
+    public String getRolloverBootstrapIndexName() {
+        return rolloverBootstrapIndexName;
+    }
+
+    public boolean isWarmPhaseEnabled() {
+        return warmAfter != null;
+    }
+
+    public Period getWarmAfter() {
+        return warmAfter;
+    }
+
+    public int getWarmMaxSegments() {
+        return warmMaxSegments;
+    }
+
+    public Integer getWarmShrinkShards() {
+        return warmShrinkShards;
+    }
+
+    /**
+     * Elasticsearch only shrinks an index to a number of primaries that is a factor of its own
+     *
+     * @return true if an index with the given number of primaries can be shrunk to warmShrinkShards
+     */
+    public boolean canShrink(int numberOfShards) {
+        return warmShrinkShards != null && numberOfShards > warmShrinkShards && numberOfShards % warmShrinkShards == 0;
+    }
+
+    public boolean isClosePhaseEnabled() {
+        return closeAfter != null;
+    }
+
+    public Period getCloseAfter() {
+        return closeAfter;
+    }
+
     public boolean isActionable() {
-        return indexNamePattern != null && retentionPeriod != null;
+        return indexNamePattern != null && (retentionPeriod != null || isRollover());
     }
 
     public DateTime getPastRetentionCutoffDate(DateTime currentDateTime) {
+        return getCutoffDate(currentDateTime, retentionPeriod);
+    }
+
+    /**
+     * @return date before which indices enter the warm phase
+     */
+    public DateTime getPastWarmCutoffDate(DateTime currentDateTime) {
+        return getCutoffDate(currentDateTime, warmAfter);
+    }
+
+    /**
+     * @return date before which indices are closed
+     */
+    public DateTime getPastCloseCutoffDate(DateTime currentDateTime) {
+        return getCutoffDate(currentDateTime, closeAfter);
+    }
+
+    private DateTime getCutoffDate(DateTime currentDateTime, Period period) {
         // After computing the cutoff we print then reparse the cutoff time to round to
         // the significant aspects of the time based on the formatter. For example:
         //
@@ -136,7 +304,13 @@ public class IndexMetadata {
         // If the index pattern is yyyy, then a 2016 index would be before the cutoff so it
         // would get dropped. We want to floor the cutoff time to only the significant aspects
         // which for this example would be the year.
-        DateTime cutoff = currentDateTime.minus(retentionPeriod);
+        DateTime cutoff = currentDateTime.minus(period);
+
+        // Rollover series are aged by index creation date, no rounding needed
+        if (isRollover()) {
+            return cutoff;
+        }
+
         return formatter.parseDateTime(formatter.print(cutoff));
     }
 
@@ -0,0 +1,210 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.indexmanagement;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.chrono.ISOChronology;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Classifies index names against all configured {@link IndexMetadata} entries in a single pass.
+ * <p>
+ * Patterns made of a quoted literal prefix followed by one of the {@link IndexMetadata.RETENTION_TYPE} date patterns
+ * (e.g. 'nf_errors_log'YYYYMMdd, which is what the legacy indexName property produces) are compiled into a prefix trie.
+ * Every index name is walked through the trie once and the fixed-width date suffix is decoded digit by digit,
+ * instead of running every entry's Joda formatter over every index name.
+ * Any other pattern falls back to {@link IIndexNameFilter} and {@link IndexMetadata#getDateForIndexName(String)}.
+ */
+public class IndexNameMatcher {
+    private static final Pattern SIMPLE_PATTERN = Pattern.compile("^(?:'([^']*)')?([A-Za-z]+)$");
+    private static final long INVALID = Long.MIN_VALUE;
+
+    private final List<IndexMetadata> indexMetadataList;
+    private final Node root = new Node();
+    private final List<IndexMetadata> fallbackIndexMetadata = new ArrayList<>();
+
+    public IndexNameMatcher(List<IndexMetadata> indexMetadataList) {
+        this.indexMetadataList = new ArrayList<>(indexMetadataList);
+
+        for (IndexMetadata indexMetadata : indexMetadataList) {
+            Matcher matcher = indexMetadata.getIndexNamePattern() == null ? null : SIMPLE_PATTERN.matcher(indexMetadata.getIndexNamePattern());
+            DateSuffix dateSuffix = matcher != null && matcher.matches() ? DateSuffix.forPattern(matcher.group(2)) : null;
+
+            if (dateSuffix == null) {
+                fallbackIndexMetadata.add(indexMetadata);
+            } else {
+                String prefix = matcher.group(1) == null ? "" : matcher.group(1);
+                root.getOrCreate(prefix).rules.add(new Rule(indexMetadata, dateSuffix));
+            }
+        }
+    }
+
+    /**
+     * @param indexNames index names to classify
+     * @return for every index metadata entry, in configuration order, the matching index names and the dates
+     * encoded in them. An index name can match several entries.
+     */
+    public Map<IndexMetadata, NavigableMap<String, DateTime>> match(Collection<String> indexNames) {
+        Map<IndexMetadata, NavigableMap<String, DateTime>> matches = new LinkedHashMap<>();
+        for (IndexMetadata indexMetadata : indexMetadataList) {
+            matches.put(indexMetadata, new TreeMap<>());
+        }
+
+        for (String indexName : indexNames) {
+            // Shrunk indices belong to the same rules as the index they were shrunk from
+            String sourceIndexName = IndexMetadata.getSourceIndexName(indexName);
+            Node node = root;
+
+            for (int position = 0; node != null; position++) {
+                for (int i = 0; i < node.rules.size(); i++) {
+                    Rule rule = node.rules.get(i);
+                    if (sourceIndexName.length() - position == rule.dateSuffix.width) {
+                        long millis = rule.dateSuffix.decode(sourceIndexName, position);
+                        if (millis != INVALID) {
+                            matches.get(rule.indexMetadata).put(indexName, new DateTime(millis, DateTimeZone.UTC));
+                        }
+                    }
+                }
+
+                if (position == sourceIndexName.length()) {
+                    break;
+                }
+
+                node = node.children == null ? null : node.children.get(sourceIndexName.charAt(position));
+            }
+
+            for (IndexMetadata indexMetadata : fallbackIndexMetadata) {
+                if (indexMetadata.getIndexNameFilter().filter(sourceIndexName)) {
+                    matches.get(indexMetadata).put(indexName, indexMetadata.getDateForIndexName(sourceIndexName));
+                }
+            }
+        }
+
+        return matches;
+    }
+
+    private enum DateSuffix {
+        YEAR(4),
+        MONTH(6),
+        DAY(8),
+        HOUR(10);
+
+        private final int width;
+
+        DateSuffix(int width) {
+            this.width = width;
+        }
+
+        static DateSuffix forPattern(String datePattern) {
+            switch (datePattern) {
+                case "YYYY":
+                case "yyyy":
+                    return YEAR;
+                case "YYYYMM":
+                case "yyyyMM":
+                    return MONTH;
+                case "YYYYMMdd":
+                case "yyyyMMdd":
+                    return DAY;
+                case "YYYYMMddHH":
+                case "yyyyMMddHH":
+                    return HOUR;
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * @return UTC millis of the date encoded at the given offset, or {@link IndexNameMatcher#INVALID} if it is not a valid date
+         */
+        long decode(String name, int offset) {
+            int year = digits(name, offset, 4);
+            int month = width >= 6 ? digits(name, offset + 4, 2) : 1;
+            int day = width >= 8 ? digits(name, offset + 6, 2) : 1;
+            int hour = width >= 10 ? digits(name, offset + 8, 2) : 0;
+
+            if (year < 1 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month) || hour < 0 || hour > 23) {
+                return INVALID;
+            }
+
+            return ISOChronology.getInstanceUTC().getDateTimeMillis(year, month, day, hour, 0, 0, 0);
+        }
+
+        private static int digits(String name, int offset, int count) {
+            int value = 0;
+            for (int i = offset; i < offset + count; i++) {
+                char c = name.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+            }
+            return value;
+        }
+
+        private static int daysInMonth(int year, int month) {
+            switch (month) {
+                case 2:
+                    boolean leapYear = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                    return leapYear ? 29 : 28;
+                case 4:
+                case 6:
+                case 9:
+                case 11:
+                    return 30;
+                default:
+                    return 31;
+            }
+        }
+    }
+
+    private static final class Rule {
+        private final IndexMetadata indexMetadata;
+        private final DateSuffix dateSuffix;
+
+        private Rule(IndexMetadata indexMetadata, DateSuffix dateSuffix) {
+            this.indexMetadata = indexMetadata;
+            this.dateSuffix = dateSuffix;
+        }
+    }
+
+    private static final class Node {
+        private Map<Character, Node> children;
+        private final List<Rule> rules = new ArrayList<>(1);
+
+        private Node getOrCreate(String prefix) {
+            Node node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                if (node.children == null) {
+                    node.children = new HashMap<>();
+                }
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+            }
+            return node;
+        }
+    }
+}
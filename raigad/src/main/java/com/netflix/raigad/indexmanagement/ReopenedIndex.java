@@ -0,0 +1,119 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.indexmanagement;
+
+import org.elasticsearch.common.settings.Settings;
+
+/**
+ * A cold index which was reopened on demand, and when it may be closed again.
+ * <p>
+ * An index is kept open for the TTL it was reopened with, and for another TTL every time it was searched
+ * in the meantime. Search activity is detected from the query_total counter, which starts at 0 when an index is opened.
+ * <p>
+ * The state is kept in index settings, registered by the Raigad discovery plugin, so it survives master failovers
+ * and Raigad restarts. Without the plugin, the state is only kept in memory by the elected master.
+ */
+final class ReopenedIndex {
+    static final String REOPENED_UNTIL_SETTING = "index.raigad.reopened_until";
+    static final String REOPEN_TTL_SETTING = "index.raigad.reopen_ttl_millis";
+    static final String REOPEN_QUERY_TOTAL_SETTING = "index.raigad.reopen_query_total";
+
+    private final long expiresAt;
+    private final long ttlMillis;
+    private final long queryTotal;
+
+    ReopenedIndex(long expiresAt, long ttlMillis, long queryTotal) {
+        this.expiresAt = expiresAt;
+        this.ttlMillis = ttlMillis;
+        this.queryTotal = queryTotal;
+    }
+
+    /**
+     * @return reopened state stored in the index settings, or null if the index was never reopened
+     */
+    static ReopenedIndex fromSettings(Settings settings) {
+        long expiresAt = settings.getAsLong(REOPENED_UNTIL_SETTING, -1L);
+
+        if (expiresAt < 0) {
+            return null;
+        }
+
+        return new ReopenedIndex(expiresAt, settings.getAsLong(REOPEN_TTL_SETTING, 0L), settings.getAsLong(REOPEN_QUERY_TOTAL_SETTING, 0L));
+    }
+
+    Settings toSettings() {
+        return Settings.builder()
+                .put(REOPENED_UNTIL_SETTING, expiresAt)
+                .put(REOPEN_TTL_SETTING, ttlMillis)
+                .put(REOPEN_QUERY_TOTAL_SETTING, queryTotal)
+                .build();
+    }
+
+    /**
+     * @return state of an index reopened now, keeping a later expiry of a previous reopen
+     */
+    static ReopenedIndex reopen(ReopenedIndex existing, long ttlMillis, long now) {
+        if (existing == null || existing.expiresAt <= now) {
+            return new ReopenedIndex(now + ttlMillis, ttlMillis, 0);
+        }
+
+        return new ReopenedIndex(Math.max(existing.expiresAt, now + ttlMillis), ttlMillis, existing.queryTotal);
+    }
+
+    boolean isExpired(long now) {
+        return expiresAt <= now;
+    }
+
+    /**
+     * @return true if the index was searched since it was reopened or last extended
+     */
+    boolean isSearchedSince(long currentQueryTotal) {
+        return currentQueryTotal > queryTotal;
+    }
+
+    /**
+     * @return state keeping the index open for another TTL
+     */
+    ReopenedIndex extend(long currentQueryTotal, long now) {
+        return new ReopenedIndex(now + ttlMillis, ttlMillis, currentQueryTotal);
+    }
+
+    long getExpiresAt() {
+        return expiresAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ReopenedIndex)) {
+            return false;
+        }
+        ReopenedIndex that = (ReopenedIndex) o;
+        return expiresAt == that.expiresAt && ttlMillis == that.ttlMillis && queryTotal == that.queryTotal;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(expiresAt) * 31 * 31 + Long.hashCode(ttlMillis) * 31 + Long.hashCode(queryTotal);
+    }
+
+    @Override
+    public String toString() {
+        return "ReopenedIndex{expiresAt=" + expiresAt + ", ttlMillis=" + ttlMillis + ", queryTotal=" + queryTotal + "}";
+    }
+}
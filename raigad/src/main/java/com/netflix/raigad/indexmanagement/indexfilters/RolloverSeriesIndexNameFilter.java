@@ -0,0 +1,40 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.indexmanagement.indexfilters;
+
+import com.netflix.raigad.indexmanagement.IIndexNameFilter;
+import com.netflix.raigad.indexmanagement.IndexMetadata;
+
+import java.util.regex.Pattern;
+
+/**
+ * Matches the indices of a rollover series, i.e. the index name followed by the zero-padded
+ * counter Elasticsearch appends on rollover, e.g. nf_errors_log-000001, nf_errors_log-000002,
+ * as well as the indices they were shrunk into, e.g. nf_errors_log-000001-shrunk.
+ */
+public class RolloverSeriesIndexNameFilter implements IIndexNameFilter {
+
+    private final Pattern pattern;
+
+    public RolloverSeriesIndexNameFilter(String indexName) {
+        this.pattern = Pattern.compile(Pattern.quote(indexName) + "-\\d{6,}(" + Pattern.quote(IndexMetadata.SHRUNK_INDEX_SUFFIX) + ")?");
+    }
+
+    @Override
+    public boolean filter(String name) {
+        return pattern.matcher(name).matches();
+    }
+}
@@ -19,23 +19,14 @@ package com.netflix.raigad.monitoring;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.netflix.raigad.configuration.IConfiguration;
-import com.netflix.raigad.scheduler.SimpleTimer;
 import com.netflix.raigad.scheduler.Task;
-import com.netflix.raigad.scheduler.TaskTimer;
 import com.netflix.raigad.utils.ElasticsearchProcessMonitor;
-import com.netflix.raigad.utils.ElasticsearchTransportClient;
 import com.netflix.servo.annotations.DataSourceType;
 import com.netflix.servo.annotations.Monitor;
 import com.netflix.servo.monitor.Monitors;
-import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
-import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
-import org.elasticsearch.common.breaker.CircuitBreaker;
-import org.elasticsearch.indices.breaker.AllCircuitBreakerStats;
-import org.elasticsearch.indices.breaker.CircuitBreakerStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 
@@ -44,11 +35,18 @@ public class AllCircuitBreakerStatsMonitor extends Task {
     private static final Logger logger = LoggerFactory.getLogger(AllCircuitBreakerStatsMonitor.class);
 
     public static final String METRIC_NAME = "Elasticsearch_AllCircuitBreakerStatsMonitor";
+
+    private static final BreakerFields FIELDDATA = new BreakerFields("fielddata");
+    private static final BreakerFields REQUEST = new BreakerFields("request");
+
     private final Elasticsearch_AllCircuitBreakerStatsReporter allCircuitBreakerStatsReporter;
+    private final NodeStatsSnapshotService nodeStatsSnapshotService;
 
     @Inject
-    public AllCircuitBreakerStatsMonitor(IConfiguration config) {
+    public AllCircuitBreakerStatsMonitor(IConfiguration config, NodeStatsSnapshotService nodeStatsSnapshotService) {
         super(config);
+        this.nodeStatsSnapshotService = nodeStatsSnapshotService;
+        this.nodeStatsSnapshotService.registerMetricGroup(NodeStatsMetricGroup.BREAKER);
         allCircuitBreakerStatsReporter = new Elasticsearch_AllCircuitBreakerStatsReporter();
         Monitors.registerObject(allCircuitBreakerStatsReporter);
     }
@@ -65,47 +63,27 @@ public class AllCircuitBreakerStatsMonitor extends Task {
         AllCircuitBreakerStatsBean allCircuitBreakerStatsBean = new AllCircuitBreakerStatsBean();
 
         try {
-            NodesStatsResponse nodesStatsResponse = ElasticsearchTransportClient.getNodesStatsResponse(config);
-            NodeStats nodeStats = null;
+            NodeStatsValues values = nodeStatsSnapshotService.getSnapshot(NodeStatsMetricGroup.BREAKER).getValues();
 
-            List<NodeStats> nodeStatsList = nodesStatsResponse.getNodes();
-
-            if (nodeStatsList.size() > 0) {
-                nodeStats = nodeStatsList.get(0);
-            }
-
-            if (nodeStats == null) {
+            if (values == null) {
                 logger.info("Circuit breaker stats is not available (node stats is not available)");
                 return;
             }
 
-            AllCircuitBreakerStats allCircuitBreakerStats = nodeStats.getBreaker();
-            if (allCircuitBreakerStats == null) {
+            if (!values.has(FIELDDATA.limit) && !values.has(REQUEST.limit)) {
                 logger.info("Circuit breaker stats is not available");
                 return;
             }
 
-            CircuitBreakerStats[] circuitBreakerStats = allCircuitBreakerStats.getAllStats();
-            if (circuitBreakerStats == null || circuitBreakerStats.length == 0) {
-                logger.info("Circuit breaker stats is not available (stats are empty)");
-                return;
-            }
+            allCircuitBreakerStatsBean.fieldDataEstimatedSizeInBytes = values.getLong(FIELDDATA.estimated);
+            allCircuitBreakerStatsBean.fieldDataLimitMaximumSizeInBytes = values.getLong(FIELDDATA.limit);
+            allCircuitBreakerStatsBean.fieldDataOverhead = values.getDouble(FIELDDATA.overhead);
+            allCircuitBreakerStatsBean.fieldDataTrippedCount = values.getLong(FIELDDATA.tripped);
 
-            for (CircuitBreakerStats circuitBreakerStat : circuitBreakerStats) {
-                if (CircuitBreaker.FIELDDATA.equals(circuitBreakerStat.getName())) {
-                    allCircuitBreakerStatsBean.fieldDataEstimatedSizeInBytes = circuitBreakerStat.getEstimated();
-                    allCircuitBreakerStatsBean.fieldDataLimitMaximumSizeInBytes = circuitBreakerStat.getLimit();
-                    allCircuitBreakerStatsBean.fieldDataOverhead = circuitBreakerStat.getOverhead();
-                    allCircuitBreakerStatsBean.fieldDataTrippedCount = circuitBreakerStat.getTrippedCount();
-                }
-
-                if (CircuitBreaker.REQUEST.equals(circuitBreakerStat.getName())) {
-                    allCircuitBreakerStatsBean.requestEstimatedSizeInBytes = circuitBreakerStat.getEstimated();
-                    allCircuitBreakerStatsBean.requestLimitMaximumSizeInBytes = circuitBreakerStat.getLimit();
-                    allCircuitBreakerStatsBean.requestOverhead = circuitBreakerStat.getOverhead();
-                    allCircuitBreakerStatsBean.requestTrippedCount = circuitBreakerStat.getTrippedCount();
-                }
-            }
+            allCircuitBreakerStatsBean.requestEstimatedSizeInBytes = values.getLong(REQUEST.estimated);
+            allCircuitBreakerStatsBean.requestLimitMaximumSizeInBytes = values.getLong(REQUEST.limit);
+            allCircuitBreakerStatsBean.requestOverhead = values.getDouble(REQUEST.overhead);
+            allCircuitBreakerStatsBean.requestTrippedCount = values.getLong(REQUEST.tripped);
         } catch (Exception e) {
             logger.warn("Failed to load circuit breaker stats data", e);
         }
@@ -161,6 +139,21 @@ public class AllCircuitBreakerStatsMonitor extends Task {
         }
     }
 
+    private static final class BreakerFields {
+        private final NodeStatsField limit;
+        private final NodeStatsField estimated;
+        private final NodeStatsField overhead;
+        private final NodeStatsField tripped;
+
+        private BreakerFields(String breakerName) {
+            String prefix = "breakers." + breakerName + ".";
+            limit = NodeStatsField.of(prefix + "limit_size_in_bytes");
+            estimated = NodeStatsField.of(prefix + "estimated_size_in_bytes");
+            overhead = NodeStatsField.of(prefix + "overhead");
+            tripped = NodeStatsField.of(prefix + "tripped");
+        }
+    }
+
     private static class AllCircuitBreakerStatsBean {
         private long fieldDataEstimatedSizeInBytes;
         private long fieldDataLimitMaximumSizeInBytes;
@@ -172,10 +165,6 @@ public class AllCircuitBreakerStatsMonitor extends Task {
         private double requestOverhead;
     }
 
-    public static TaskTimer getTimer(String name) {
-        return new SimpleTimer(name, 60 * 1000);
-    }
-
     @Override
     public String getName() {
         return METRIC_NAME;
@@ -0,0 +1,208 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.monitoring;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.scheduler.TaskTimer;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.Monitors;
+import org.elasticsearch.cluster.health.ClusterHealthStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides how often node stats monitors collect, based on the node stats they collected last.
+ * <p>
+ * Every new node stats snapshot is checked for pressure: heap usage, search queue size and circuit breakers
+ * that are close to their limit or tripped since the previous snapshot. Under pressure the interval doubles,
+ * up to {@link IConfiguration#getMonitorMaxIntervalSeconds()}, so collection does not add load to a node that is
+ * already drowning. Without pressure, while the cluster health reported by {@link HealthMonitor} is yellow or red,
+ * the interval drops to {@link IConfiguration#getMonitorMinIntervalSeconds()} for high resolution data during
+ * the incident. Otherwise it returns to {@link NodeStatsSnapshotService#COLLECTION_INTERVAL_MILLIS}.
+ * <p>
+ * A new interval applies from the next run of the monitors on.
+ */
+@Singleton
+public class CollectionIntervalController {
+    private static final Logger logger = LoggerFactory.getLogger(CollectionIntervalController.class);
+
+    private static final NodeStatsField HEAP_USED_PERCENT = NodeStatsField.of("jvm.mem.heap_used_percent");
+    private static final NodeStatsField SEARCH_QUEUE = NodeStatsField.of("thread_pool.search.queue");
+    private static final String[] BREAKERS = {"request", "fielddata", "in_flight_requests", "parent"};
+    private static final NodeStatsField[] BREAKER_LIMITS = breakerFields("limit_size_in_bytes");
+    private static final NodeStatsField[] BREAKER_ESTIMATES = breakerFields("estimated_size_in_bytes");
+    private static final NodeStatsField[] BREAKER_TRIPPED_COUNTS = breakerFields("tripped");
+
+    private final IConfiguration config;
+    private final long[] breakerTrippedCounts = new long[BREAKERS.length];
+    private final boolean[] breakerTrippedCountsKnown = new boolean[BREAKERS.length];
+    private volatile long intervalMillis = NodeStatsSnapshotService.COLLECTION_INTERVAL_MILLIS;
+    private volatile ClusterHealthStatus clusterHealthStatus;
+
+    @Inject
+    public CollectionIntervalController(IConfiguration config) {
+        this.config = config;
+        Monitors.registerObject("Elasticsearch_CollectionIntervalController", this);
+    }
+
+    /**
+     * @return interval node stats monitors currently collect at
+     */
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    @Monitor(name = "monitor_collection_interval_seconds", type = DataSourceType.GAUGE)
+    public long getIntervalSeconds() {
+        return TimeUnit.MILLISECONDS.toSeconds(intervalMillis);
+    }
+
+    /**
+     * @param clusterHealthStatus latest cluster health, or null if it is not known on this node
+     */
+    public void setClusterHealthStatus(ClusterHealthStatus clusterHealthStatus) {
+        this.clusterHealthStatus = clusterHealthStatus;
+    }
+
+    /**
+     * Adjusts the interval to a freshly fetched node stats snapshot. A failed fetch says nothing about the pressure
+     * the node is under, so it keeps the current interval.
+     *
+     * @param values node stats values, or null if node stats were not available
+     */
+    public synchronized void update(NodeStatsValues values) {
+        if (values == null) {
+            return;
+        }
+
+        long minIntervalMillis = TimeUnit.SECONDS.toMillis(Math.max(1, config.getMonitorMinIntervalSeconds()));
+        long maxIntervalMillis = Math.max(minIntervalMillis, TimeUnit.SECONDS.toMillis(config.getMonitorMaxIntervalSeconds()));
+        long baseIntervalMillis = Math.min(maxIntervalMillis, Math.max(minIntervalMillis, NodeStatsSnapshotService.COLLECTION_INTERVAL_MILLIS));
+
+        String pressure = getPressure(values);
+        long newIntervalMillis;
+
+        if (!config.isMonitorIntervalAdaptive()) {
+            newIntervalMillis = NodeStatsSnapshotService.COLLECTION_INTERVAL_MILLIS;
+        } else if (pressure != null) {
+            newIntervalMillis = Math.min(maxIntervalMillis, Math.max(intervalMillis, baseIntervalMillis) * 2);
+        } else if (clusterHealthStatus == ClusterHealthStatus.YELLOW || clusterHealthStatus == ClusterHealthStatus.RED) {
+            newIntervalMillis = minIntervalMillis;
+        } else if (intervalMillis > baseIntervalMillis) {
+            newIntervalMillis = Math.max(baseIntervalMillis, intervalMillis / 2);
+        } else {
+            newIntervalMillis = baseIntervalMillis;
+        }
+
+        if (newIntervalMillis != intervalMillis) {
+            logger.info("Changing node stats collection interval from {}s to {}s ({})",
+                    TimeUnit.MILLISECONDS.toSeconds(intervalMillis), TimeUnit.MILLISECONDS.toSeconds(newIntervalMillis),
+                    pressure != null ? pressure : "cluster health " + clusterHealthStatus);
+            intervalMillis = newIntervalMillis;
+        }
+    }
+
+    /**
+     * @return description of the pressure the node is under, or null if there is none
+     */
+    String getPressure(NodeStatsValues values) {
+        // Breakers are checked first so tripped counts are tracked on every snapshot
+        String breakerPressure = getBreakerPressure(values);
+
+        if (values.has(HEAP_USED_PERCENT)) {
+            long heapUsedPercent = values.getLong(HEAP_USED_PERCENT);
+            if (heapUsedPercent >= config.getMonitorStressHeapUsedPercent()) {
+                return "heap used " + heapUsedPercent + "%";
+            }
+        }
+
+        if (values.has(SEARCH_QUEUE)) {
+            long searchQueue = values.getLong(SEARCH_QUEUE);
+            if (searchQueue >= config.getMonitorStressSearchQueueSize()) {
+                return "search queue " + searchQueue;
+            }
+        }
+
+        return breakerPressure;
+    }
+
+    private String getBreakerPressure(NodeStatsValues values) {
+        String pressure = null;
+
+        for (int i = 0; i < BREAKERS.length; i++) {
+            if (!values.has(BREAKER_TRIPPED_COUNTS[i])) {
+                continue;
+            }
+
+            long trippedCount = values.getLong(BREAKER_TRIPPED_COUNTS[i]);
+            boolean tripped = breakerTrippedCountsKnown[i] && trippedCount > breakerTrippedCounts[i];
+            breakerTrippedCounts[i] = trippedCount;
+            breakerTrippedCountsKnown[i] = true;
+
+            if (pressure != null) {
+                continue;
+            }
+
+            long limit = values.getLong(BREAKER_LIMITS[i]);
+
+            if (tripped) {
+                pressure = BREAKERS[i] + " breaker tripped";
+            } else if (limit > 0 && values.getLong(BREAKER_ESTIMATES[i]) * 100 >= limit * config.getMonitorStressBreakerUsedPercent()) {
+                pressure = BREAKERS[i] + " breaker near its limit";
+            }
+        }
+
+        return pressure;
+    }
+
+    private static NodeStatsField[] breakerFields(String name) {
+        NodeStatsField[] fields = new NodeStatsField[BREAKERS.length];
+        for (int i = 0; i < BREAKERS.length; i++) {
+            fields[i] = NodeStatsField.of("breakers." + BREAKERS[i] + "." + name);
+        }
+        return fields;
+    }
+
+    /**
+     * @return timer firing at the current interval, aligned to multiples of it since epoch
+     */
+    public TaskTimer getTimer() {
+        return new TaskTimer() {
+            @Override
+            public long getNextFireTime(long previousFireTime, long now) {
+                long interval = getIntervalMillis();
+                long next = previousFireTime < 0 ? now : previousFireTime + interval;
+                if (next < now) {
+                    next = now;
+                }
+
+                long remainder = Math.floorMod(next, interval);
+                return remainder == 0 ? next : next - remainder + interval;
+            }
+
+            @Override
+            public long getInterval() {
+                // Spread instances over the longest interval, which keeps them spread for shorter ones as well
+                return TimeUnit.SECONDS.toMillis(Math.max(1, config.getMonitorMaxIntervalSeconds()));
+            }
+        };
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.monitoring;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time-decaying variant of {@link EstimatedHistogram}.
+ * <p>
+ * Uses the same bucket series as {@link EstimatedHistogram} (shared between all instances), but every recorded
+ * value is stored with a fixed-point weight which is halved each time a window elapses. Percentiles therefore
+ * reflect recent windows rather than the whole lifetime of the process, and any number of percentiles can be
+ * answered from a single instance. All updates are lock-free (CAS on the bucket array).
+ */
+public class DecayingEstimatedHistogram {
+    private static final int DEFAULT_BUCKET_COUNT = 90;
+    private static final long[] DEFAULT_BUCKET_OFFSETS = EstimatedHistogram.newOffsets(DEFAULT_BUCKET_COUNT);
+
+    // Fixed-point weight of a single value, leaves room for 20 halvings before a value disappears
+    static final int WEIGHT_SHIFT = 20;
+    static final long WEIGHT = 1L << WEIGHT_SHIFT;
+
+    private final long[] bucketOffsets;
+
+    // buckets is one element longer than bucketOffsets -- the last element is values greater than the last offset
+    private final AtomicLongArray buckets;
+
+    private final long windowInMillis;
+    private final AtomicLong windowStartInMillis;
+
+    public DecayingEstimatedHistogram(long windowInMillis) {
+        this(windowInMillis, System.currentTimeMillis());
+    }
+
+    DecayingEstimatedHistogram(long windowInMillis, long nowInMillis) {
+        assert windowInMillis > 0;
+        this.bucketOffsets = DEFAULT_BUCKET_OFFSETS;
+        this.buckets = new AtomicLongArray(bucketOffsets.length + 1);
+        this.windowInMillis = windowInMillis;
+        this.windowStartInMillis = new AtomicLong(nowInMillis);
+    }
+
+    /**
+     * Records a value into the bucket closest to n, rounding UP.
+     */
+    public void add(long n) {
+        add(n, System.currentTimeMillis());
+    }
+
+    void add(long n, long nowInMillis) {
+        decayIfWindowElapsed(nowInMillis);
+
+        int index = Arrays.binarySearch(bucketOffsets, n);
+        if (index < 0) {
+            // inexact match, take the first bucket higher than n
+            index = -index - 1;
+        }
+
+        buckets.addAndGet(index, WEIGHT);
+    }
+
+    /**
+     * Halves all weights once per elapsed window. Only the thread winning the window CAS decays,
+     * concurrent writers keep adding to the buckets meanwhile.
+     */
+    void decayIfWindowElapsed(long nowInMillis) {
+        long windowStart = windowStartInMillis.get();
+        long elapsedWindows = (nowInMillis - windowStart) / windowInMillis;
+
+        if (elapsedWindows <= 0) {
+            return;
+        }
+
+        if (!windowStartInMillis.compareAndSet(windowStart, windowStart + elapsedWindows * windowInMillis)) {
+            return;
+        }
+
+        final int shift = (int) Math.min(elapsedWindows, Long.SIZE - 1);
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.getAndUpdate(i, weight -> weight >>> shift);
+        }
+    }
+
+    /**
+     * @return estimated value at given percentile, 0 if histogram is empty
+     */
+    public long percentile(double percentile) {
+        return percentiles(new double[]{percentile})[0];
+    }
+
+    /**
+     * Estimates several percentiles with a single pass over a consistent copy of the buckets.
+     *
+     * @param percentiles percentiles in ascending order, each one within [0, 1]
+     * @return estimated value for each percentile, 0 if histogram is empty
+     */
+    public long[] percentiles(double[] percentiles) {
+        return percentiles(getBuckets(false), percentiles);
+    }
+
+    long[] percentiles(long[] weights, double[] percentiles) {
+        long[] values = new long[percentiles.length];
+
+        long totalWeight = 0;
+        for (long weight : weights) {
+            totalWeight += weight;
+        }
+
+        if (totalWeight == 0) {
+            return values;
+        }
+
+        int bucket = 0;
+        long cumulativeWeight = weights[0];
+        for (int p = 0; p < percentiles.length; p++) {
+            assert percentiles[p] >= 0 && percentiles[p] <= 1.0;
+            assert p == 0 || percentiles[p] >= percentiles[p - 1];
+
+            long targetWeight = Math.max(1, (long) Math.ceil(totalWeight * percentiles[p]));
+            while (cumulativeWeight < targetWeight && bucket < weights.length - 1) {
+                cumulativeWeight += weights[++bucket];
+            }
+
+            // Values beyond the last offset are reported as the last offset
+            values[p] = bucketOffsets[Math.min(bucket, bucketOffsets.length - 1)];
+        }
+
+        return values;
+    }
+
+    /**
+     * @return decayed number of recorded values
+     */
+    public double count() {
+        long totalWeight = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            totalWeight += buckets.get(i);
+        }
+
+        return (double) totalWeight / WEIGHT;
+    }
+
+    /**
+     * @param reset zero out buckets afterwards if true
+     * @return a long[] containing the current (weighted) histogram buckets
+     */
+    public long[] getBuckets(boolean reset) {
+        final int len = buckets.length();
+        long[] rv = new long[len];
+
+        if (reset)
+            for (int i = 0; i < len; i++)
+                rv[i] = buckets.getAndSet(i, 0L);
+        else
+            for (int i = 0; i < len; i++)
+                rv[i] = buckets.get(i);
+
+        return rv;
+    }
+
+    /**
+     * @return the histogram values corresponding to each bucket index
+     */
+    public long[] getBucketOffsets() {
+        return bucketOffsets;
+    }
+}
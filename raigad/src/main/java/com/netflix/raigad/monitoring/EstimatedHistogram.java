@@ -54,7 +54,7 @@ public class EstimatedHistogram {
         buckets = new AtomicLongArray(bucketData);
     }
 
-    private static long[] newOffsets(int size) {
+    static long[] newOffsets(int size) {
         long[] result = new long[size];
         long last = 1;
         result[0] = last;
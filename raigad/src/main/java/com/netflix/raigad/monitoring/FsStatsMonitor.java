@@ -19,21 +19,14 @@ package com.netflix.raigad.monitoring;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.netflix.raigad.configuration.IConfiguration;
-import com.netflix.raigad.scheduler.SimpleTimer;
 import com.netflix.raigad.scheduler.Task;
-import com.netflix.raigad.scheduler.TaskTimer;
 import com.netflix.raigad.utils.ElasticsearchProcessMonitor;
-import com.netflix.raigad.utils.ElasticsearchTransportClient;
 import com.netflix.servo.annotations.DataSourceType;
 import com.netflix.servo.annotations.Monitor;
 import com.netflix.servo.monitor.Monitors;
-import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
-import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
-import org.elasticsearch.monitor.fs.FsInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 @Singleton
@@ -41,11 +34,19 @@ public class FsStatsMonitor extends Task {
     private static final Logger logger = LoggerFactory.getLogger(FsStatsMonitor.class);
 
     public static final String METRIC_NAME = "Elasticsearch_FsStatsMonitor";
+
+    private static final NodeStatsField TOTAL = NodeStatsField.of("fs.total.total_in_bytes");
+    private static final NodeStatsField FREE = NodeStatsField.of("fs.total.free_in_bytes");
+    private static final NodeStatsField AVAILABLE = NodeStatsField.of("fs.total.available_in_bytes");
+
     private final Elasticsearch_FsStatsReporter fsStatsReporter;
+    private final NodeStatsSnapshotService nodeStatsSnapshotService;
 
     @Inject
-    public FsStatsMonitor(IConfiguration config) {
+    public FsStatsMonitor(IConfiguration config, NodeStatsSnapshotService nodeStatsSnapshotService) {
         super(config);
+        this.nodeStatsSnapshotService = nodeStatsSnapshotService;
+        this.nodeStatsSnapshotService.registerMetricGroup(NodeStatsMetricGroup.FS);
         fsStatsReporter = new Elasticsearch_FsStatsReporter();
         Monitors.registerObject(fsStatsReporter);
     }
@@ -62,29 +63,21 @@ public class FsStatsMonitor extends Task {
         FsStatsBean fsStatsBean = new FsStatsBean();
 
         try {
-            NodesStatsResponse nodesStatsResponse = ElasticsearchTransportClient.getNodesStatsResponse(config);
-            NodeStats nodeStats = null;
+            NodeStatsValues values = nodeStatsSnapshotService.getSnapshot(NodeStatsMetricGroup.FS).getValues();
 
-            List<NodeStats> nodeStatsList = nodesStatsResponse.getNodes();
-
-            if (nodeStatsList.size() > 0) {
-                nodeStats = nodeStatsList.get(0);
-            }
-
-            if (nodeStats == null) {
+            if (values == null) {
                 logger.info("File system info is not available (node stats are not available)");
                 return;
             }
 
-            FsInfo fsInfo = nodeStats.getFs();
-            if (fsInfo == null) {
+            if (!values.has(TOTAL)) {
                 logger.info("File system info is not available");
                 return;
             }
 
-            fsStatsBean.total = fsInfo.getTotal().getTotal().getBytes();
-            fsStatsBean.free = fsInfo.getTotal().getFree().getBytes();
-            fsStatsBean.available = fsInfo.getTotal().getAvailable().getBytes();
+            fsStatsBean.total = values.getLong(TOTAL);
+            fsStatsBean.free = values.getLong(FREE);
+            fsStatsBean.available = values.getLong(AVAILABLE);
             fsStatsBean.availableDiskPercent = (fsStatsBean.available * 100) / fsStatsBean.total;
         } catch (Exception e) {
             logger.warn("Failed to load file system stats data", e);
@@ -165,10 +158,6 @@ public class FsStatsMonitor extends Task {
         private long availableDiskPercent;
     }
 
-    public static TaskTimer getTimer(String name) {
-        return new SimpleTimer(name, 60 * 1000);
-    }
-
     @Override
     public String getName() {
         return METRIC_NAME;
@@ -27,8 +27,7 @@ import com.netflix.raigad.scheduler.Task;
 import com.netflix.raigad.scheduler.TaskTimer;
 import com.netflix.raigad.utils.ElasticsearchProcessMonitor;
 import com.netflix.raigad.utils.ElasticsearchTransportClient;
-import com.netflix.raigad.utils.ElasticsearchUtils;
-import com.netflix.raigad.utils.HttpModule;
+import com.netflix.raigad.utils.MasterStatusTracker;
 import com.netflix.servo.annotations.DataSourceType;
 import com.netflix.servo.annotations.Monitor;
 import com.netflix.servo.monitor.Monitors;
@@ -50,13 +49,16 @@ public class HealthMonitor extends Task {
     private final InstanceManager instanceManager;
     private static TimeValue MASTER_NODE_TIMEOUT = TimeValue.timeValueSeconds(60);
     private final DiscoveryClient discoveryClient;
-    private final HttpModule httpModule;
+    private final MasterStatusTracker masterStatusTracker;
+    private final CollectionIntervalController collectionIntervalController;
 
     @Inject
-    public HealthMonitor(IConfiguration config, InstanceManager instanceManager, HttpModule httpModule) {
+    public HealthMonitor(IConfiguration config, InstanceManager instanceManager, MasterStatusTracker masterStatusTracker,
+                         CollectionIntervalController collectionIntervalController) {
         super(config);
         this.instanceManager = instanceManager;
-        this.httpModule = httpModule;
+        this.masterStatusTracker = masterStatusTracker;
+        this.collectionIntervalController = collectionIntervalController;
         healthReporter = new Elasticsearch_HealthReporter();
         discoveryClient = DiscoveryManager.getInstance().getDiscoveryClient();
         Monitors.registerObject(healthReporter);
@@ -71,16 +73,26 @@ public class HealthMonitor extends Task {
             return;
         }
 
-        // In case we configured only the master node to report metrics and this node is not a master - bail out
-        if (config.reportMetricsFromMasterOnly() && !ElasticsearchUtils.amIMasterNode(config, httpModule)) {
+        checkHealth();
+    }
+
+    void checkHealth() throws Exception {
+        HealthBean healthBean = new HealthBean();
+
+        // Only the elected reporter publishes cluster health, other nodes clear what they may have reported as master
+        // but still follow the health of their own cluster state to adapt their collection interval
+        if (!masterStatusTracker.isClusterMetricsReporter()) {
+            healthReporter.healthBean.set(healthBean);
+            collectionIntervalController.setClusterHealthStatus(getLocalClusterHealthStatus());
             return;
         }
 
-        HealthBean healthBean = new HealthBean();
+        ClusterHealthStatus clusterHealthStatus = null;
+
         try {
             Client esTransportClient = ElasticsearchTransportClient.instance(config).getTransportClient();
-            ClusterHealthStatus clusterHealthStatus = esTransportClient.admin().cluster().prepareHealth().setTimeout(MASTER_NODE_TIMEOUT).execute().get().getStatus();
-            ClusterHealthResponse clusterHealthResponse = esTransportClient.admin().cluster().prepareHealth().execute().actionGet(MASTER_NODE_TIMEOUT);
+            ClusterHealthResponse clusterHealthResponse = esTransportClient.admin().cluster().prepareHealth().setTimeout(MASTER_NODE_TIMEOUT).execute().actionGet(MASTER_NODE_TIMEOUT);
+            clusterHealthStatus = clusterHealthResponse.getStatus();
 
             if (clusterHealthStatus == null) {
                 logger.info("ClusterHealthStatus is null, hence returning (no health).");
@@ -115,9 +127,25 @@ public class HealthMonitor extends Task {
             logger.warn("Failed to load cluster health status", e);
         }
 
+        collectionIntervalController.setClusterHealthStatus(clusterHealthStatus);
         healthReporter.healthBean.set(healthBean);
     }
 
+    /**
+     * Computes cluster health from the cluster state this node already holds, without a request to the master
+     *
+     * @return health of the local cluster state, or null if it is not available
+     */
+    ClusterHealthStatus getLocalClusterHealthStatus() {
+        try {
+            Client esTransportClient = ElasticsearchTransportClient.instance(config).getTransportClient();
+            return esTransportClient.admin().cluster().prepareHealth().setLocal(true).execute().actionGet(MASTER_NODE_TIMEOUT).getStatus();
+        } catch (Exception e) {
+            logger.warn("Failed to load local cluster health status: {}", e.getMessage());
+            return null;
+        }
+    }
+
     public class Elasticsearch_HealthReporter {
         private final AtomicReference<HealthBean> healthBean;
 
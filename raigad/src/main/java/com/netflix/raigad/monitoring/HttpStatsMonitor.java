@@ -18,32 +18,32 @@ package com.netflix.raigad.monitoring;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.netflix.raigad.configuration.IConfiguration;
-import com.netflix.raigad.scheduler.SimpleTimer;
 import com.netflix.raigad.scheduler.Task;
-import com.netflix.raigad.scheduler.TaskTimer;
 import com.netflix.raigad.utils.ElasticsearchProcessMonitor;
-import com.netflix.raigad.utils.ElasticsearchTransportClient;
 import com.netflix.servo.annotations.DataSourceType;
 import com.netflix.servo.annotations.Monitor;
 import com.netflix.servo.monitor.Monitors;
-import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
-import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
-import org.elasticsearch.http.HttpStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 @Singleton
 public class HttpStatsMonitor extends Task {
     private static final Logger logger = LoggerFactory.getLogger(HttpStatsMonitor.class);
     public static final String METRIC_NAME = "Elasticsearch_HttpStatsMonitor";
+
+    private static final NodeStatsField CURRENT_OPEN = NodeStatsField.of("http.current_open");
+    private static final NodeStatsField TOTAL_OPENED = NodeStatsField.of("http.total_opened");
+
     private final Elasticsearch_HttpStatsReporter httpStatsReporter;
+    private final NodeStatsSnapshotService nodeStatsSnapshotService;
 
     @Inject
-    public HttpStatsMonitor(IConfiguration config) {
+    public HttpStatsMonitor(IConfiguration config, NodeStatsSnapshotService nodeStatsSnapshotService) {
         super(config);
+        this.nodeStatsSnapshotService = nodeStatsSnapshotService;
+        this.nodeStatsSnapshotService.registerMetricGroup(NodeStatsMetricGroup.HTTP);
         httpStatsReporter = new Elasticsearch_HttpStatsReporter();
         Monitors.registerObject(httpStatsReporter);
     }
@@ -60,29 +60,20 @@ public class HttpStatsMonitor extends Task {
         HttpStatsBean httpStatsBean = new HttpStatsBean();
 
         try {
-            NodesStatsResponse nodesStatsResponse = ElasticsearchTransportClient.getNodesStatsResponse(config);
-            NodeStats nodeStats = null;
-
-            List<NodeStats> nodeStatsList = nodesStatsResponse.getNodes();
-
-            if (nodeStatsList.size() > 0) {
-                nodeStats = nodeStatsList.get(0);
-            }
+            NodeStatsValues values = nodeStatsSnapshotService.getSnapshot(NodeStatsMetricGroup.HTTP).getValues();
 
-            if (nodeStats == null) {
+            if (values == null) {
                 logger.info("HTTP stats is not available (node stats are not available)");
                 return;
             }
 
-            HttpStats httpStats = nodeStats.getHttp();
-
-            if (httpStats == null) {
+            if (!values.has(CURRENT_OPEN)) {
                 logger.info("HTTP stats is not available");
                 return;
             }
 
-            httpStatsBean.serverOpen = httpStats.getServerOpen();
-            httpStatsBean.totalOpen = httpStats.getTotalOpen();
+            httpStatsBean.serverOpen = values.getLong(CURRENT_OPEN);
+            httpStatsBean.totalOpen = values.getLong(TOTAL_OPENED);
         } catch (Exception e) {
             logger.warn("Failed to load HTTP stats data", e);
         }
@@ -113,10 +104,6 @@ public class HttpStatsMonitor extends Task {
         private long totalOpen;
     }
 
-    public static TaskTimer getTimer(String name) {
-        return new SimpleTimer(name, 60 * 1000);
-    }
-
     @Override
     public String getName() {
         return METRIC_NAME;
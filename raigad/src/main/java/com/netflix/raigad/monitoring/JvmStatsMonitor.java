@@ -19,22 +19,15 @@ package com.netflix.raigad.monitoring;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.netflix.raigad.configuration.IConfiguration;
-import com.netflix.raigad.scheduler.SimpleTimer;
 import com.netflix.raigad.scheduler.Task;
-import com.netflix.raigad.scheduler.TaskTimer;
 import com.netflix.raigad.utils.ElasticsearchProcessMonitor;
-import com.netflix.raigad.utils.ElasticsearchTransportClient;
 import com.netflix.servo.annotations.DataSourceType;
 import com.netflix.servo.annotations.Monitor;
 import com.netflix.servo.monitor.Monitors;
-import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
-import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
-import org.elasticsearch.monitor.jvm.JvmStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Iterator;
-import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 @Singleton
@@ -46,11 +39,34 @@ public class JvmStatsMonitor extends Task {
     public static final String GC_OLD_TAG = "old";
     public static final String GC_SURVIVOR_TAG = "survivor";
 
+    private static final long BYTES_PER_MB = 1024 * 1024;
+
+    private static final NodeStatsField TIMESTAMP = NodeStatsField.of("jvm.timestamp");
+    private static final NodeStatsField UPTIME = NodeStatsField.of("jvm.uptime_in_millis");
+    private static final NodeStatsField HEAP_USED = NodeStatsField.of("jvm.mem.heap_used_in_bytes");
+    private static final NodeStatsField HEAP_USED_PERCENT = NodeStatsField.of("jvm.mem.heap_used_percent");
+    private static final NodeStatsField HEAP_COMMITTED = NodeStatsField.of("jvm.mem.heap_committed_in_bytes");
+    private static final NodeStatsField HEAP_MAX = NodeStatsField.of("jvm.mem.heap_max_in_bytes");
+    private static final NodeStatsField NON_HEAP_USED = NodeStatsField.of("jvm.mem.non_heap_used_in_bytes");
+    private static final NodeStatsField NON_HEAP_COMMITTED = NodeStatsField.of("jvm.mem.non_heap_committed_in_bytes");
+    private static final NodeStatsField THREADS_COUNT = NodeStatsField.of("jvm.threads.count");
+    private static final NodeStatsField THREADS_PEAK_COUNT = NodeStatsField.of("jvm.threads.peak_count");
+    private static final MemoryPoolFields YOUNG_POOL = new MemoryPoolFields(GC_YOUNG_TAG);
+    private static final MemoryPoolFields SURVIVOR_POOL = new MemoryPoolFields(GC_SURVIVOR_TAG);
+    private static final MemoryPoolFields OLD_POOL = new MemoryPoolFields(GC_OLD_TAG);
+    private static final NodeStatsField YOUNG_COLLECTION_COUNT = NodeStatsField.of("jvm.gc.collectors." + GC_YOUNG_TAG + ".collection_count");
+    private static final NodeStatsField YOUNG_COLLECTION_TIME = NodeStatsField.of("jvm.gc.collectors." + GC_YOUNG_TAG + ".collection_time_in_millis");
+    private static final NodeStatsField OLD_COLLECTION_COUNT = NodeStatsField.of("jvm.gc.collectors." + GC_OLD_TAG + ".collection_count");
+    private static final NodeStatsField OLD_COLLECTION_TIME = NodeStatsField.of("jvm.gc.collectors." + GC_OLD_TAG + ".collection_time_in_millis");
+
     private final Elasticsearch_JvmStatsReporter jvmStatsReporter;
+    private final NodeStatsSnapshotService nodeStatsSnapshotService;
 
     @Inject
-    public JvmStatsMonitor(IConfiguration config) {
+    public JvmStatsMonitor(IConfiguration config, NodeStatsSnapshotService nodeStatsSnapshotService) {
         super(config);
+        this.nodeStatsSnapshotService = nodeStatsSnapshotService;
+        this.nodeStatsSnapshotService.registerMetricGroup(NodeStatsMetricGroup.JVM);
         jvmStatsReporter = new Elasticsearch_JvmStatsReporter();
         Monitors.registerObject(jvmStatsReporter);
     }
@@ -67,71 +83,50 @@ public class JvmStatsMonitor extends Task {
         JvmStatsBean jvmStatsBean = new JvmStatsBean();
 
         try {
-            NodesStatsResponse nodesStatsResponse = ElasticsearchTransportClient.getNodesStatsResponse(config);
-            NodeStats nodeStats = null;
-
-            List<NodeStats> nodeStatsList = nodesStatsResponse.getNodes();
-
-            if (nodeStatsList.size() > 0) {
-                nodeStats = nodeStatsList.get(0);
-            }
+            NodeStatsValues values = nodeStatsSnapshotService.getSnapshot(NodeStatsMetricGroup.JVM).getValues();
 
-            if (nodeStats == null) {
+            if (values == null) {
                 logger.info("JVM stats is not available (node stats is not available)");
                 return;
             }
 
-            JvmStats jvmStats = nodeStats.getJvm();
-            if (jvmStats == null) {
+            if (!values.has(TIMESTAMP)) {
                 logger.info("JVM stats is not available");
                 return;
             }
 
             //Heap
-            jvmStatsBean.heapCommittedInBytes = jvmStats.getMem().getHeapCommitted().getMb();
-            jvmStatsBean.heapMaxInBytes = jvmStats.getMem().getHeapMax().getMb();
-            jvmStatsBean.heapUsedInBytes = jvmStats.getMem().getHeapUsed().getMb();
-            jvmStatsBean.heapUsedPercent = jvmStats.getMem().getHeapUsedPercent();
-            jvmStatsBean.nonHeapCommittedInBytes = jvmStats.getMem().getNonHeapCommitted().getMb();
-            jvmStatsBean.nonHeapUsedInBytes = jvmStats.getMem().getNonHeapUsed().getMb();
-
-            Iterator<JvmStats.MemoryPool> memoryPoolIterator = jvmStats.getMem().iterator();
-
-            while (memoryPoolIterator.hasNext()) {
-                JvmStats.MemoryPool memoryPoolStats = memoryPoolIterator.next();
-                if (memoryPoolStats.getName().equalsIgnoreCase(GC_YOUNG_TAG)) {
-                    jvmStatsBean.youngMaxInBytes = memoryPoolStats.getMax().getBytes();
-                    jvmStatsBean.youngUsedInBytes = memoryPoolStats.getUsed().getBytes();
-                    jvmStatsBean.youngPeakUsedInBytes = memoryPoolStats.getPeakUsed().getBytes();
-                    jvmStatsBean.youngPeakMaxInBytes = memoryPoolStats.getPeakMax().getBytes();
-                } else if (memoryPoolStats.getName().equalsIgnoreCase(GC_SURVIVOR_TAG)) {
-                    jvmStatsBean.survivorMaxInBytes = memoryPoolStats.getMax().getBytes();
-                    jvmStatsBean.survivorUsedInBytes = memoryPoolStats.getUsed().getBytes();
-                    jvmStatsBean.survivorPeakUsedInBytes = memoryPoolStats.getPeakUsed().getBytes();
-                    jvmStatsBean.survivorPeakMaxInBytes = memoryPoolStats.getPeakMax().getBytes();
-                } else if (memoryPoolStats.getName().equalsIgnoreCase(GC_OLD_TAG)) {
-                    jvmStatsBean.oldMaxInBytes = memoryPoolStats.getMax().getBytes();
-                    jvmStatsBean.oldUsedInBytes = memoryPoolStats.getUsed().getBytes();
-                    jvmStatsBean.oldPeakUsedInBytes = memoryPoolStats.getPeakUsed().getBytes();
-                    jvmStatsBean.oldPeakMaxInBytes = memoryPoolStats.getPeakMax().getBytes();
-                }
-            }
+            jvmStatsBean.heapCommittedInBytes = values.getLong(HEAP_COMMITTED) / BYTES_PER_MB;
+            jvmStatsBean.heapMaxInBytes = values.getLong(HEAP_MAX) / BYTES_PER_MB;
+            jvmStatsBean.heapUsedInBytes = values.getLong(HEAP_USED) / BYTES_PER_MB;
+            jvmStatsBean.heapUsedPercent = (short) values.getLong(HEAP_USED_PERCENT);
+            jvmStatsBean.nonHeapCommittedInBytes = values.getLong(NON_HEAP_COMMITTED) / BYTES_PER_MB;
+            jvmStatsBean.nonHeapUsedInBytes = values.getLong(NON_HEAP_USED) / BYTES_PER_MB;
+
+            //Memory pools
+            jvmStatsBean.youngMaxInBytes = values.getLong(YOUNG_POOL.max);
+            jvmStatsBean.youngUsedInBytes = values.getLong(YOUNG_POOL.used);
+            jvmStatsBean.youngPeakUsedInBytes = values.getLong(YOUNG_POOL.peakUsed);
+            jvmStatsBean.youngPeakMaxInBytes = values.getLong(YOUNG_POOL.peakMax);
+            jvmStatsBean.survivorMaxInBytes = values.getLong(SURVIVOR_POOL.max);
+            jvmStatsBean.survivorUsedInBytes = values.getLong(SURVIVOR_POOL.used);
+            jvmStatsBean.survivorPeakUsedInBytes = values.getLong(SURVIVOR_POOL.peakUsed);
+            jvmStatsBean.survivorPeakMaxInBytes = values.getLong(SURVIVOR_POOL.peakMax);
+            jvmStatsBean.oldMaxInBytes = values.getLong(OLD_POOL.max);
+            jvmStatsBean.oldUsedInBytes = values.getLong(OLD_POOL.used);
+            jvmStatsBean.oldPeakUsedInBytes = values.getLong(OLD_POOL.peakUsed);
+            jvmStatsBean.oldPeakMaxInBytes = values.getLong(OLD_POOL.peakMax);
 
             //Threads
-            jvmStatsBean.threadCount = jvmStats.getThreads().getCount();
-            jvmStatsBean.threadPeakCount = jvmStats.getThreads().getPeakCount();
-            jvmStatsBean.uptimeHours = jvmStats.getUptime().getHours();
+            jvmStatsBean.threadCount = (int) values.getLong(THREADS_COUNT);
+            jvmStatsBean.threadPeakCount = (int) values.getLong(THREADS_PEAK_COUNT);
+            jvmStatsBean.uptimeHours = TimeUnit.MILLISECONDS.toHours(values.getLong(UPTIME));
 
             //GC
-            for (JvmStats.GarbageCollector garbageCollector : jvmStats.getGc().getCollectors()) {
-                if (garbageCollector.getName().equalsIgnoreCase(GC_YOUNG_TAG)) {
-                    jvmStatsBean.youngCollectionCount = garbageCollector.getCollectionCount();
-                    jvmStatsBean.youngCollectionTimeInMillis = garbageCollector.getCollectionTime().getMillis();
-                } else if (garbageCollector.getName().equalsIgnoreCase(GC_OLD_TAG)) {
-                    jvmStatsBean.oldCollectionCount = garbageCollector.getCollectionCount();
-                    jvmStatsBean.oldCollectionTimeInMillis = garbageCollector.getCollectionTime().getMillis();
-                }
-            }
+            jvmStatsBean.youngCollectionCount = values.getLong(YOUNG_COLLECTION_COUNT);
+            jvmStatsBean.youngCollectionTimeInMillis = values.getLong(YOUNG_COLLECTION_TIME);
+            jvmStatsBean.oldCollectionCount = values.getLong(OLD_COLLECTION_COUNT);
+            jvmStatsBean.oldCollectionTimeInMillis = values.getLong(OLD_COLLECTION_TIME);
         } catch (Exception e) {
             logger.warn("Failed to load JVM stats data", e);
         }
@@ -332,6 +327,21 @@ public class JvmStatsMonitor extends Task {
         }
     }
 
+    private static final class MemoryPoolFields {
+        private final NodeStatsField used;
+        private final NodeStatsField max;
+        private final NodeStatsField peakUsed;
+        private final NodeStatsField peakMax;
+
+        private MemoryPoolFields(String poolName) {
+            String prefix = "jvm.mem.pools." + poolName + ".";
+            used = NodeStatsField.of(prefix + "used_in_bytes");
+            max = NodeStatsField.of(prefix + "max_in_bytes");
+            peakUsed = NodeStatsField.of(prefix + "peak_used_in_bytes");
+            peakMax = NodeStatsField.of(prefix + "peak_max_in_bytes");
+        }
+    }
+
     private static class JvmStatsBean {
         private long heapCommittedInBytes;
         private long heapMaxInBytes;
@@ -372,10 +382,6 @@ public class JvmStatsMonitor extends Task {
         private long oldLastGcDuration;
     }
 
-    public static TaskTimer getTimer(String name) {
-        return new SimpleTimer(name, 60 * 1000);
-    }
-
     @Override
     public String getName() {
         return METRIC_NAME;
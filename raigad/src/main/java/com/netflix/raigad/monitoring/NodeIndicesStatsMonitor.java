@@ -19,23 +19,17 @@ package com.netflix.raigad.monitoring;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.netflix.raigad.configuration.IConfiguration;
-import com.netflix.raigad.scheduler.SimpleTimer;
 import com.netflix.raigad.scheduler.Task;
-import com.netflix.raigad.scheduler.TaskTimer;
 import com.netflix.raigad.utils.ElasticsearchProcessMonitor;
-import com.netflix.raigad.utils.ElasticsearchTransportClient;
 import com.netflix.servo.annotations.DataSourceType;
 import com.netflix.servo.annotations.Monitor;
 import com.netflix.servo.monitor.Monitors;
-import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
-import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
-import org.elasticsearch.indices.NodeIndicesStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
 
 /**
  * Note: percentiles over average latencies
@@ -50,25 +44,64 @@ public class NodeIndicesStatsMonitor extends Task {
     private static final Logger logger = LoggerFactory.getLogger(NodeIndicesStatsMonitor.class);
 
     public static final String METRIC_NAME = "Elasticsearch_NodeIndicesMonitor";
-    private final Elasticsearch_NodeIndicesStatsReporter nodeIndicesStatsReporter;
 
-    private final EstimatedHistogram latencySearchQuery95Histo = new EstimatedHistogram();
-    private final EstimatedHistogram latencySearchQuery99Histo = new EstimatedHistogram();
-    private final EstimatedHistogram latencySearchFetch95Histo = new EstimatedHistogram();
-    private final EstimatedHistogram latencySearchFetch99Histo = new EstimatedHistogram();
-    private final EstimatedHistogram latencyGet95Histo = new EstimatedHistogram();
-    private final EstimatedHistogram latencyGet99Histo = new EstimatedHistogram();
-    private final EstimatedHistogram latencyGetExists95Histo = new EstimatedHistogram();
-    private final EstimatedHistogram latencyGetExists99Histo = new EstimatedHistogram();
-    private final EstimatedHistogram latencyGetMissing95Histo = new EstimatedHistogram();
-    private final EstimatedHistogram latencyGetMissing99Histo = new EstimatedHistogram();
-    private final EstimatedHistogram latencyIndexing95Histo = new EstimatedHistogram();
-    private final EstimatedHistogram latencyIndexing99Histo = new EstimatedHistogram();
-    private final EstimatedHistogram latencyIndexDelete95Histo = new EstimatedHistogram();
-    private final EstimatedHistogram latencyIndexDelete99Histo = new EstimatedHistogram();
-
-    private final double PERCENTILE_95 = 0.95;
-    private final double PERCENTILE_99 = 0.99;
+    private static final NodeStatsField STORE_SIZE = NodeStatsField.of("indices.store.size_in_bytes");
+    private static final NodeStatsField STORE_THROTTLE_TIME = NodeStatsField.of("indices.store.throttle_time_in_millis");
+    private static final NodeStatsField DOCS_COUNT = NodeStatsField.of("indices.docs.count");
+    private static final NodeStatsField DOCS_DELETED = NodeStatsField.of("indices.docs.deleted");
+    private static final NodeStatsField REFRESH_TOTAL = NodeStatsField.of("indices.refresh.total");
+    private static final NodeStatsField REFRESH_TOTAL_TIME = NodeStatsField.of("indices.refresh.total_time_in_millis");
+    private static final NodeStatsField FLUSH_TOTAL = NodeStatsField.of("indices.flush.total");
+    private static final NodeStatsField FLUSH_TOTAL_TIME = NodeStatsField.of("indices.flush.total_time_in_millis");
+    private static final NodeStatsField MERGES_CURRENT = NodeStatsField.of("indices.merges.current");
+    private static final NodeStatsField MERGES_CURRENT_DOCS = NodeStatsField.of("indices.merges.current_docs");
+    private static final NodeStatsField MERGES_CURRENT_SIZE = NodeStatsField.of("indices.merges.current_size_in_bytes");
+    private static final NodeStatsField MERGES_TOTAL = NodeStatsField.of("indices.merges.total");
+    private static final NodeStatsField MERGES_TOTAL_TIME = NodeStatsField.of("indices.merges.total_time_in_millis");
+    private static final NodeStatsField MERGES_TOTAL_SIZE = NodeStatsField.of("indices.merges.total_size_in_bytes");
+    private static final NodeStatsField FIELDDATA_EVICTIONS = NodeStatsField.of("indices.fielddata.evictions");
+    private static final NodeStatsField FIELDDATA_MEMORY_SIZE = NodeStatsField.of("indices.fielddata.memory_size_in_bytes");
+    private static final NodeStatsField SEARCH_QUERY_TOTAL = NodeStatsField.of("indices.search.query_total");
+    private static final NodeStatsField SEARCH_FETCH_TOTAL = NodeStatsField.of("indices.search.fetch_total");
+    private static final NodeStatsField SEARCH_QUERY_CURRENT = NodeStatsField.of("indices.search.query_current");
+    private static final NodeStatsField SEARCH_QUERY_TIME = NodeStatsField.of("indices.search.query_time_in_millis");
+    private static final NodeStatsField SEARCH_FETCH_TIME = NodeStatsField.of("indices.search.fetch_time_in_millis");
+    private static final NodeStatsField SEARCH_FETCH_CURRENT = NodeStatsField.of("indices.search.fetch_current");
+    private static final NodeStatsField GET_TOTAL = NodeStatsField.of("indices.get.total");
+    private static final NodeStatsField GET_EXISTS_TOTAL = NodeStatsField.of("indices.get.exists_total");
+    private static final NodeStatsField GET_MISSING_TOTAL = NodeStatsField.of("indices.get.missing_total");
+    private static final NodeStatsField GET_TIME = NodeStatsField.of("indices.get.time_in_millis");
+    private static final NodeStatsField GET_EXISTS_TIME = NodeStatsField.of("indices.get.exists_time_in_millis");
+    private static final NodeStatsField GET_MISSING_TIME = NodeStatsField.of("indices.get.missing_time_in_millis");
+    private static final NodeStatsField GET_CURRENT = NodeStatsField.of("indices.get.current");
+    private static final NodeStatsField INDEXING_INDEX_TOTAL = NodeStatsField.of("indices.indexing.index_total");
+    private static final NodeStatsField INDEXING_DELETE_TOTAL = NodeStatsField.of("indices.indexing.delete_total");
+    private static final NodeStatsField INDEXING_INDEX_CURRENT = NodeStatsField.of("indices.indexing.index_current");
+    private static final NodeStatsField INDEXING_INDEX_TIME = NodeStatsField.of("indices.indexing.index_time_in_millis");
+    private static final NodeStatsField INDEXING_DELETE_TIME = NodeStatsField.of("indices.indexing.delete_time_in_millis");
+    private static final NodeStatsField INDEXING_DELETE_CURRENT = NodeStatsField.of("indices.indexing.delete_current");
+
+    private final Elasticsearch_NodeIndicesStatsReporter nodeIndicesStatsReporter;
+    private final NodeStatsSnapshotService nodeStatsSnapshotService;
+    private final BooleanSupplier elasticsearchRunning;
+
+    // Weight of recorded latencies halves every window, percentiles follow recent behaviour
+    private static final long LATENCY_WINDOW_MILLIS = 5 * 60 * 1000;
+
+    // Ascending order, indices below must match
+    private static final double[] LATENCY_PERCENTILES = {0.50, 0.95, 0.99, 0.999};
+    private static final int PERCENTILE_50 = 0;
+    private static final int PERCENTILE_95 = 1;
+    private static final int PERCENTILE_99 = 2;
+    private static final int PERCENTILE_999 = 3;
+
+    private final DecayingEstimatedHistogram latencySearchQueryHisto = new DecayingEstimatedHistogram(LATENCY_WINDOW_MILLIS);
+    private final DecayingEstimatedHistogram latencySearchFetchHisto = new DecayingEstimatedHistogram(LATENCY_WINDOW_MILLIS);
+    private final DecayingEstimatedHistogram latencyGetHisto = new DecayingEstimatedHistogram(LATENCY_WINDOW_MILLIS);
+    private final DecayingEstimatedHistogram latencyGetExistsHisto = new DecayingEstimatedHistogram(LATENCY_WINDOW_MILLIS);
+    private final DecayingEstimatedHistogram latencyGetMissingHisto = new DecayingEstimatedHistogram(LATENCY_WINDOW_MILLIS);
+    private final DecayingEstimatedHistogram latencyIndexingHisto = new DecayingEstimatedHistogram(LATENCY_WINDOW_MILLIS);
+    private final DecayingEstimatedHistogram latencyIndexDeleteHisto = new DecayingEstimatedHistogram(LATENCY_WINDOW_MILLIS);
 
     private long cachedQueryCount;
     private long cachedFetchCount;
@@ -86,20 +119,26 @@ public class NodeIndicesStatsMonitor extends Task {
     private long cachedIndexDeleteTime;
 
     @Inject
-    public NodeIndicesStatsMonitor(IConfiguration config) {
+    public NodeIndicesStatsMonitor(IConfiguration config, NodeStatsSnapshotService nodeStatsSnapshotService) {
+        this(config, nodeStatsSnapshotService, ElasticsearchProcessMonitor::isElasticsearchRunning);
+    }
+
+    /**
+     * @param elasticsearchRunning liveness check, replaceable to collect without an Elasticsearch process
+     */
+    NodeIndicesStatsMonitor(IConfiguration config, NodeStatsSnapshotService nodeStatsSnapshotService, BooleanSupplier elasticsearchRunning) {
         super(config);
+        this.nodeStatsSnapshotService = nodeStatsSnapshotService;
+        this.elasticsearchRunning = elasticsearchRunning;
+        this.nodeStatsSnapshotService.registerMetricGroup(NodeStatsMetricGroup.INDICES);
         nodeIndicesStatsReporter = new Elasticsearch_NodeIndicesStatsReporter();
         Monitors.registerObject(nodeIndicesStatsReporter);
     }
 
-    public static TaskTimer getTimer(String name) {
-        return new SimpleTimer(name, 60 * 1000);
-    }
-
     @Override
     public void execute() throws Exception {
         // Only start monitoring if Elasticsearch is started
-        if (!ElasticsearchProcessMonitor.isElasticsearchRunning()) {
+        if (!elasticsearchRunning.getAsBoolean()) {
             String exceptionMsg = "Elasticsearch is not yet started, check back again later";
             logger.info(exceptionMsg);
             return;
@@ -108,33 +147,25 @@ public class NodeIndicesStatsMonitor extends Task {
         NodeIndicesStatsBean nodeIndicesStatsBean = new NodeIndicesStatsBean();
 
         try {
-            NodesStatsResponse nodesStatsResponse = ElasticsearchTransportClient.getNodesStatsResponse(config);
-            NodeStats nodeStats = null;
-
-            List<NodeStats> nodeStatsList = nodesStatsResponse.getNodes();
+            NodeStatsValues values = nodeStatsSnapshotService.getSnapshot(NodeStatsMetricGroup.INDICES).getValues();
 
-            if (nodeStatsList.size() > 0) {
-                nodeStats = nodeStatsList.get(0);
-            }
-
-            if (nodeStats == null) {
+            if (values == null) {
                 logger.info("Node indices stats is not available (node stats is not available)");
                 return;
             }
 
-            NodeIndicesStats nodeIndicesStats = nodeStats.getIndices();
-            if (nodeIndicesStats == null) {
+            if (!values.has(DOCS_COUNT)) {
                 logger.info("Node indices stats is not available");
                 return;
             }
 
-            updateStoreDocs(nodeIndicesStatsBean, nodeIndicesStats);
-            updateRefreshFlush(nodeIndicesStatsBean, nodeIndicesStats);
-            updateMerge(nodeIndicesStatsBean, nodeIndicesStats);
-            updateCache(nodeIndicesStatsBean, nodeIndicesStats);
-            updateSearch(nodeIndicesStatsBean, nodeIndicesStats);
-            updateGet(nodeIndicesStatsBean, nodeIndicesStats);
-            updateIndexing(nodeIndicesStatsBean, nodeIndicesStats);
+            updateStoreDocs(nodeIndicesStatsBean, values);
+            updateRefreshFlush(nodeIndicesStatsBean, values);
+            updateMerge(nodeIndicesStatsBean, values);
+            updateCache(nodeIndicesStatsBean, values);
+            updateSearch(nodeIndicesStatsBean, values);
+            updateGet(nodeIndicesStatsBean, values);
+            updateIndexing(nodeIndicesStatsBean, values);
         } catch (Exception e) {
             logger.warn("Failed to load indices stats data", e);
         }
@@ -142,62 +173,67 @@ public class NodeIndicesStatsMonitor extends Task {
         nodeIndicesStatsReporter.nodeIndicesStatsBean.set(nodeIndicesStatsBean);
     }
 
-    private void updateStoreDocs(NodeIndicesStatsBean nodeIndicesStatsBean, NodeIndicesStats nodeIndicesStats) {
-        nodeIndicesStatsBean.storeSize = nodeIndicesStats.getStore().getSizeInBytes();
-        nodeIndicesStatsBean.storeThrottleTime = nodeIndicesStats.getStore().getThrottleTime().millis();
-        nodeIndicesStatsBean.docsCount = nodeIndicesStats.getDocs().getCount();
-        nodeIndicesStatsBean.docsDeleted = nodeIndicesStats.getDocs().getDeleted();
+    private void updateStoreDocs(NodeIndicesStatsBean nodeIndicesStatsBean, NodeStatsValues values) {
+        nodeIndicesStatsBean.storeSize = values.getLong(STORE_SIZE);
+        nodeIndicesStatsBean.storeThrottleTime = values.getLong(STORE_THROTTLE_TIME);
+        nodeIndicesStatsBean.docsCount = values.getLong(DOCS_COUNT);
+        nodeIndicesStatsBean.docsDeleted = values.getLong(DOCS_DELETED);
     }
 
-    private void updateRefreshFlush(NodeIndicesStatsBean nodeIndicesStatsBean, NodeIndicesStats nodeIndicesStats) {
-        nodeIndicesStatsBean.refreshTotal = nodeIndicesStats.getRefresh().getTotal();
-        nodeIndicesStatsBean.refreshTotalTime = nodeIndicesStats.getRefresh().getTotalTimeInMillis();
+    private void updateRefreshFlush(NodeIndicesStatsBean nodeIndicesStatsBean, NodeStatsValues values) {
+        nodeIndicesStatsBean.refreshTotal = values.getLong(REFRESH_TOTAL);
+        nodeIndicesStatsBean.refreshTotalTime = values.getLong(REFRESH_TOTAL_TIME);
         if (nodeIndicesStatsBean.refreshTotal != 0) {
             nodeIndicesStatsBean.refreshAvgTimeInMillisPerRequest = nodeIndicesStatsBean.refreshTotalTime / nodeIndicesStatsBean.refreshTotal;
         }
 
-        nodeIndicesStatsBean.flushTotal = nodeIndicesStats.getFlush().getTotal();
-        nodeIndicesStatsBean.flushTotalTime = nodeIndicesStats.getFlush().getTotalTimeInMillis();
+        nodeIndicesStatsBean.flushTotal = values.getLong(FLUSH_TOTAL);
+        nodeIndicesStatsBean.flushTotalTime = values.getLong(FLUSH_TOTAL_TIME);
         if (nodeIndicesStatsBean.flushTotal != 0) {
             nodeIndicesStatsBean.flushAvgTimeInMillisPerRequest = nodeIndicesStatsBean.flushTotalTime / nodeIndicesStatsBean.flushTotal;
         }
     }
 
-    private void updateMerge(NodeIndicesStatsBean nodeIndicesStatsBean, NodeIndicesStats nodeIndicesStats) {
-        nodeIndicesStatsBean.mergesCurrent = nodeIndicesStats.getMerge().getCurrent();
-        nodeIndicesStatsBean.mergesCurrentDocs = nodeIndicesStats.getMerge().getCurrentNumDocs();
-        nodeIndicesStatsBean.mergesCurrentSize = nodeIndicesStats.getMerge().getCurrentSizeInBytes();
-        nodeIndicesStatsBean.mergesTotal = nodeIndicesStats.getMerge().getTotal();
-        nodeIndicesStatsBean.mergesTotalTime = nodeIndicesStats.getMerge().getTotalTimeInMillis();
-        nodeIndicesStatsBean.mergesTotalSize = nodeIndicesStats.getMerge().getTotalSizeInBytes();
+    private void updateMerge(NodeIndicesStatsBean nodeIndicesStatsBean, NodeStatsValues values) {
+        nodeIndicesStatsBean.mergesCurrent = values.getLong(MERGES_CURRENT);
+        nodeIndicesStatsBean.mergesCurrentDocs = values.getLong(MERGES_CURRENT_DOCS);
+        nodeIndicesStatsBean.mergesCurrentSize = values.getLong(MERGES_CURRENT_SIZE);
+        nodeIndicesStatsBean.mergesTotal = values.getLong(MERGES_TOTAL);
+        nodeIndicesStatsBean.mergesTotalTime = values.getLong(MERGES_TOTAL_TIME);
+        nodeIndicesStatsBean.mergesTotalSize = values.getLong(MERGES_TOTAL_SIZE);
     }
 
-    private void updateCache(NodeIndicesStatsBean nodeIndicesStatsBean, NodeIndicesStats nodeIndicesStats) {
-        nodeIndicesStatsBean.cacheFieldEvictions = nodeIndicesStats.getFieldData().getEvictions();
-        nodeIndicesStatsBean.cacheFieldSize = nodeIndicesStats.getFieldData().getMemorySizeInBytes();
+    private void updateCache(NodeIndicesStatsBean nodeIndicesStatsBean, NodeStatsValues values) {
+        nodeIndicesStatsBean.cacheFieldEvictions = values.getLong(FIELDDATA_EVICTIONS);
+        nodeIndicesStatsBean.cacheFieldSize = values.getLong(FIELDDATA_MEMORY_SIZE);
     }
 
-    private void updateSearch(NodeIndicesStatsBean nodeIndicesStatsBean, NodeIndicesStats nodeIndicesStats) {
-        nodeIndicesStatsBean.searchQueryTotal = nodeIndicesStats.getSearch().getTotal().getQueryCount();
-        nodeIndicesStatsBean.searchFetchTotal = nodeIndicesStats.getSearch().getTotal().getFetchCount();
-        nodeIndicesStatsBean.searchQueryCurrent = nodeIndicesStats.getSearch().getTotal().getQueryCurrent();
+    private void updateSearch(NodeIndicesStatsBean nodeIndicesStatsBean, NodeStatsValues values) {
+        nodeIndicesStatsBean.searchQueryTotal = values.getLong(SEARCH_QUERY_TOTAL);
+        nodeIndicesStatsBean.searchFetchTotal = values.getLong(SEARCH_FETCH_TOTAL);
+        nodeIndicesStatsBean.searchQueryCurrent = values.getLong(SEARCH_QUERY_CURRENT);
 
         long tmpSearchQueryDelta = nodeIndicesStatsBean.searchQueryTotal - cachedQueryCount;
         nodeIndicesStatsBean.searchQueryDelta = tmpSearchQueryDelta < 0 ? 0 : tmpSearchQueryDelta;
         long tmpSearchFetchDelta = nodeIndicesStatsBean.searchFetchTotal - cachedFetchCount;
         nodeIndicesStatsBean.searchFetchDelta = tmpSearchFetchDelta < 0 ? 0 : tmpSearchFetchDelta;
 
-        nodeIndicesStatsBean.searchQueryTime = nodeIndicesStats.getSearch().getTotal().getQueryTimeInMillis();
-        nodeIndicesStatsBean.searchFetchTime = nodeIndicesStats.getSearch().getTotal().getFetchTimeInMillis();
+        nodeIndicesStatsBean.searchQueryTime = values.getLong(SEARCH_QUERY_TIME);
+        nodeIndicesStatsBean.searchFetchTime = values.getLong(SEARCH_FETCH_TIME);
 
         long searchQueryDeltaTimeInMillis = (nodeIndicesStatsBean.searchQueryTime - cachedSearchQueryTime);
         if (nodeIndicesStatsBean.searchQueryDelta != 0) {
             recordSearchQueryLatencies(searchQueryDeltaTimeInMillis / nodeIndicesStatsBean.searchQueryDelta, TimeUnit.MILLISECONDS);
-            nodeIndicesStatsBean.latencySearchQuery95 = latencySearchQuery95Histo.percentile(PERCENTILE_95);
-            nodeIndicesStatsBean.latencySearchQuery99 = latencySearchQuery99Histo.percentile(PERCENTILE_99);
+            long[] latenciesSearchQuery = latencySearchQueryHisto.percentiles(LATENCY_PERCENTILES);
+            nodeIndicesStatsBean.latencySearchQuery50 = latenciesSearchQuery[PERCENTILE_50];
+            nodeIndicesStatsBean.latencySearchQuery95 = latenciesSearchQuery[PERCENTILE_95];
+            nodeIndicesStatsBean.latencySearchQuery99 = latenciesSearchQuery[PERCENTILE_99];
+            nodeIndicesStatsBean.latencySearchQuery999 = latenciesSearchQuery[PERCENTILE_999];
         } else {
+            nodeIndicesStatsBean.latencySearchQuery50 = 0;
             nodeIndicesStatsBean.latencySearchQuery95 = 0;
             nodeIndicesStatsBean.latencySearchQuery99 = 0;
+            nodeIndicesStatsBean.latencySearchQuery999 = 0;
         }
 
         if (nodeIndicesStatsBean.searchQueryTotal != 0) {
@@ -207,18 +243,23 @@ public class NodeIndicesStatsMonitor extends Task {
         long searchFetchDeltaTimeInMillis = (nodeIndicesStatsBean.searchFetchTime - cachedSearchFetchTime);
         if (nodeIndicesStatsBean.searchFetchDelta != 0) {
             recordSearchFetchLatencies(searchFetchDeltaTimeInMillis / nodeIndicesStatsBean.searchFetchDelta, TimeUnit.MILLISECONDS);
-            nodeIndicesStatsBean.latencySearchFetch95 = latencySearchFetch95Histo.percentile(PERCENTILE_95);
-            nodeIndicesStatsBean.latencySearchFetch99 = latencySearchFetch99Histo.percentile(PERCENTILE_99);
+            long[] latenciesSearchFetch = latencySearchFetchHisto.percentiles(LATENCY_PERCENTILES);
+            nodeIndicesStatsBean.latencySearchFetch50 = latenciesSearchFetch[PERCENTILE_50];
+            nodeIndicesStatsBean.latencySearchFetch95 = latenciesSearchFetch[PERCENTILE_95];
+            nodeIndicesStatsBean.latencySearchFetch99 = latenciesSearchFetch[PERCENTILE_99];
+            nodeIndicesStatsBean.latencySearchFetch999 = latenciesSearchFetch[PERCENTILE_999];
         } else {
+            nodeIndicesStatsBean.latencySearchFetch50 = 0;
             nodeIndicesStatsBean.latencySearchFetch95 = 0;
             nodeIndicesStatsBean.latencySearchFetch99 = 0;
+            nodeIndicesStatsBean.latencySearchFetch999 = 0;
         }
 
         if (nodeIndicesStatsBean.searchFetchTotal != 0) {
             nodeIndicesStatsBean.searchFetchAvgTimeInMillisPerRequest = nodeIndicesStatsBean.searchFetchTime / nodeIndicesStatsBean.searchFetchTotal;
         }
 
-        nodeIndicesStatsBean.searchFetchCurrent = nodeIndicesStats.getSearch().getTotal().getFetchCurrent();
+        nodeIndicesStatsBean.searchFetchCurrent = values.getLong(SEARCH_FETCH_CURRENT);
 
         cachedQueryCount += nodeIndicesStatsBean.searchQueryDelta;
         cachedFetchCount += nodeIndicesStatsBean.searchFetchDelta;
@@ -226,13 +267,13 @@ public class NodeIndicesStatsMonitor extends Task {
         cachedSearchFetchTime += searchFetchDeltaTimeInMillis;
     }
 
-    private void updateGet(NodeIndicesStatsBean nodeIndicesStatsBean, NodeIndicesStats nodeIndicesStats) {
-        nodeIndicesStatsBean.getTotal = nodeIndicesStats.getGet().getCount();
-        nodeIndicesStatsBean.getExistsTotal = nodeIndicesStats.getGet().getExistsCount();
-        nodeIndicesStatsBean.getMissingTotal = nodeIndicesStats.getGet().getMissingCount();
-        nodeIndicesStatsBean.getTime = nodeIndicesStats.getGet().getTimeInMillis();
-        nodeIndicesStatsBean.getExistsTime = nodeIndicesStats.getGet().getExistsTimeInMillis();
-        nodeIndicesStatsBean.getMissingTime = nodeIndicesStats.getGet().getMissingTimeInMillis();
+    private void updateGet(NodeIndicesStatsBean nodeIndicesStatsBean, NodeStatsValues values) {
+        nodeIndicesStatsBean.getTotal = values.getLong(GET_TOTAL);
+        nodeIndicesStatsBean.getExistsTotal = values.getLong(GET_EXISTS_TOTAL);
+        nodeIndicesStatsBean.getMissingTotal = values.getLong(GET_MISSING_TOTAL);
+        nodeIndicesStatsBean.getTime = values.getLong(GET_TIME);
+        nodeIndicesStatsBean.getExistsTime = values.getLong(GET_EXISTS_TIME);
+        nodeIndicesStatsBean.getMissingTime = values.getLong(GET_MISSING_TIME);
 
         long tmpGetTotalDelta = nodeIndicesStatsBean.getTotal - cachedGetCount;
         nodeIndicesStatsBean.getTotalDelta = tmpGetTotalDelta < 0 ? 0 : tmpGetTotalDelta;
@@ -244,22 +285,28 @@ public class NodeIndicesStatsMonitor extends Task {
         long getDeltaTimeInMillis = (nodeIndicesStatsBean.getTime - cachedGetTime);
         if (nodeIndicesStatsBean.getTotalDelta != 0) {
             recordGetLatencies(getDeltaTimeInMillis / nodeIndicesStatsBean.getTotalDelta, TimeUnit.MILLISECONDS);
-            nodeIndicesStatsBean.latencyGet95 = latencyGet95Histo.percentile(PERCENTILE_95);
-            nodeIndicesStatsBean.latencyGet99 = latencyGet99Histo.percentile(PERCENTILE_99);
+            long[] latenciesGet = latencyGetHisto.percentiles(LATENCY_PERCENTILES);
+            nodeIndicesStatsBean.latencyGet50 = latenciesGet[PERCENTILE_50];
+            nodeIndicesStatsBean.latencyGet95 = latenciesGet[PERCENTILE_95];
+            nodeIndicesStatsBean.latencyGet99 = latenciesGet[PERCENTILE_99];
+            nodeIndicesStatsBean.latencyGet999 = latenciesGet[PERCENTILE_999];
         } else {
+            nodeIndicesStatsBean.latencyGet50 = 0;
             nodeIndicesStatsBean.latencyGet95 = 0;
             nodeIndicesStatsBean.latencyGet99 = 0;
+            nodeIndicesStatsBean.latencyGet999 = 0;
         }
 
         if (nodeIndicesStatsBean.getTotal != 0)
             nodeIndicesStatsBean.getTotalAvgTimeInMillisPerRequest = nodeIndicesStatsBean.getTime / nodeIndicesStatsBean.getTotal;
-        nodeIndicesStatsBean.getCurrent = nodeIndicesStats.getGet().current();
+        nodeIndicesStatsBean.getCurrent = values.getLong(GET_CURRENT);
 
         long getExistsDeltaTimeInMillies = (nodeIndicesStatsBean.getExistsTime - cachedGetExistsTime);
         if (nodeIndicesStatsBean.getExistsDelta != 0) {
             recordGetExistsLatencies(getExistsDeltaTimeInMillies / nodeIndicesStatsBean.getExistsDelta, TimeUnit.MILLISECONDS);
-            nodeIndicesStatsBean.latencyGetExists95 = latencyGetExists95Histo.percentile(PERCENTILE_95);
-            nodeIndicesStatsBean.latencyGetExists99 = latencyGetExists99Histo.percentile(PERCENTILE_99);
+            long[] latenciesGetExists = latencyGetExistsHisto.percentiles(LATENCY_PERCENTILES);
+            nodeIndicesStatsBean.latencyGetExists95 = latenciesGetExists[PERCENTILE_95];
+            nodeIndicesStatsBean.latencyGetExists99 = latenciesGetExists[PERCENTILE_99];
         } else {
             nodeIndicesStatsBean.latencyGetExists95 = 0;
             nodeIndicesStatsBean.latencyGetExists99 = 0;
@@ -271,8 +318,9 @@ public class NodeIndicesStatsMonitor extends Task {
         long getMissingDeltaTimeInMillies = (nodeIndicesStatsBean.getMissingTime - cachedGetMissingTime);
         if (nodeIndicesStatsBean.getMissingDelta != 0) {
             recordGetMissingLatencies(getMissingDeltaTimeInMillies / nodeIndicesStatsBean.getMissingDelta, TimeUnit.MILLISECONDS);
-            nodeIndicesStatsBean.latencyGetMissing95 = latencyGetMissing95Histo.percentile(PERCENTILE_95);
-            nodeIndicesStatsBean.latencyGetMissing99 = latencyGetMissing99Histo.percentile(PERCENTILE_99);
+            long[] latenciesGetMissing = latencyGetMissingHisto.percentiles(LATENCY_PERCENTILES);
+            nodeIndicesStatsBean.latencyGetMissing95 = latenciesGetMissing[PERCENTILE_95];
+            nodeIndicesStatsBean.latencyGetMissing99 = latenciesGetMissing[PERCENTILE_99];
         } else {
             nodeIndicesStatsBean.latencyGetMissing95 = 0;
             nodeIndicesStatsBean.latencyGetMissing99 = 0;
@@ -290,27 +338,32 @@ public class NodeIndicesStatsMonitor extends Task {
         cachedGetMissingTime += getMissingDeltaTimeInMillies;
     }
 
-    private void updateIndexing(NodeIndicesStatsBean nodeIndicesStatsBean, NodeIndicesStats nodeIndicesStats) {
-        nodeIndicesStatsBean.indexingIndexTotal = nodeIndicesStats.getIndexing().getTotal().getIndexCount();
-        nodeIndicesStatsBean.indexingDeleteTotal = nodeIndicesStats.getIndexing().getTotal().getDeleteCount();
-        nodeIndicesStatsBean.indexingIndexCurrent = nodeIndicesStats.getIndexing().getTotal().getIndexCurrent();
+    private void updateIndexing(NodeIndicesStatsBean nodeIndicesStatsBean, NodeStatsValues values) {
+        nodeIndicesStatsBean.indexingIndexTotal = values.getLong(INDEXING_INDEX_TOTAL);
+        nodeIndicesStatsBean.indexingDeleteTotal = values.getLong(INDEXING_DELETE_TOTAL);
+        nodeIndicesStatsBean.indexingIndexCurrent = values.getLong(INDEXING_INDEX_CURRENT);
 
         long tmpIndexingIndexDelta = (nodeIndicesStatsBean.indexingIndexTotal - cachedIndexingIndexTotal);
         nodeIndicesStatsBean.indexingIndexDelta = tmpIndexingIndexDelta < 0 ? 0 : tmpIndexingIndexDelta;
         long tmpIndexingDeleteDelta = (nodeIndicesStatsBean.indexingDeleteTotal - cachedIndexingDeleteTotal);
         nodeIndicesStatsBean.indexingDeleteDelta = tmpIndexingDeleteDelta < 0 ? 0 : tmpIndexingDeleteDelta;
 
-        nodeIndicesStatsBean.indexingIndexTimeInMillis = nodeIndicesStats.getIndexing().getTotal().getIndexTime().getMillis();
-        nodeIndicesStatsBean.indexingDeleteTime = nodeIndicesStats.getIndexing().getTotal().getDeleteTime().getMillis();
+        nodeIndicesStatsBean.indexingIndexTimeInMillis = values.getLong(INDEXING_INDEX_TIME);
+        nodeIndicesStatsBean.indexingDeleteTime = values.getLong(INDEXING_DELETE_TIME);
 
         long indexingTimeInMillis = (nodeIndicesStatsBean.indexingIndexTimeInMillis - cachedIndexingTime);
         if (nodeIndicesStatsBean.indexingIndexDelta != 0) {
             recordIndexingLatencies(indexingTimeInMillis / nodeIndicesStatsBean.indexingIndexDelta, TimeUnit.MILLISECONDS);
-            nodeIndicesStatsBean.latencyIndexing95 = latencyIndexing95Histo.percentile(PERCENTILE_95);
-            nodeIndicesStatsBean.latencyIndexing99 = latencyIndexing99Histo.percentile(PERCENTILE_99);
+            long[] latenciesIndexing = latencyIndexingHisto.percentiles(LATENCY_PERCENTILES);
+            nodeIndicesStatsBean.latencyIndexing50 = latenciesIndexing[PERCENTILE_50];
+            nodeIndicesStatsBean.latencyIndexing95 = latenciesIndexing[PERCENTILE_95];
+            nodeIndicesStatsBean.latencyIndexing99 = latenciesIndexing[PERCENTILE_99];
+            nodeIndicesStatsBean.latencyIndexing999 = latenciesIndexing[PERCENTILE_999];
         } else {
+            nodeIndicesStatsBean.latencyIndexing50 = 0;
             nodeIndicesStatsBean.latencyIndexing95 = 0;
             nodeIndicesStatsBean.latencyIndexing99 = 0;
+            nodeIndicesStatsBean.latencyIndexing999 = 0;
         }
 
         if (nodeIndicesStatsBean.indexingIndexTotal != 0) {
@@ -320,18 +373,23 @@ public class NodeIndicesStatsMonitor extends Task {
         long indexDeleteTimeInMillis = (nodeIndicesStatsBean.indexingDeleteTime - cachedIndexDeleteTime);
         if (nodeIndicesStatsBean.indexingDeleteDelta != 0) {
             recordIndexDeleteLatencies(indexDeleteTimeInMillis / nodeIndicesStatsBean.indexingDeleteDelta, TimeUnit.MILLISECONDS);
-            nodeIndicesStatsBean.latencyIndexDelete95 = latencyIndexDelete95Histo.percentile(PERCENTILE_95);
-            nodeIndicesStatsBean.latencyIndexDelete99 = latencyIndexDelete99Histo.percentile(PERCENTILE_99);
+            long[] latenciesIndexDelete = latencyIndexDeleteHisto.percentiles(LATENCY_PERCENTILES);
+            nodeIndicesStatsBean.latencyIndexDelete50 = latenciesIndexDelete[PERCENTILE_50];
+            nodeIndicesStatsBean.latencyIndexDelete95 = latenciesIndexDelete[PERCENTILE_95];
+            nodeIndicesStatsBean.latencyIndexDelete99 = latenciesIndexDelete[PERCENTILE_99];
+            nodeIndicesStatsBean.latencyIndexDelete999 = latenciesIndexDelete[PERCENTILE_999];
         } else {
+            nodeIndicesStatsBean.latencyIndexDelete50 = 0;
             nodeIndicesStatsBean.latencyIndexDelete95 = 0;
             nodeIndicesStatsBean.latencyIndexDelete99 = 0;
+            nodeIndicesStatsBean.latencyIndexDelete999 = 0;
         }
 
         if (nodeIndicesStatsBean.indexingDeleteTotal != 0) {
             nodeIndicesStatsBean.indexingDeleteAvgTimeInMillisPerRequest = nodeIndicesStatsBean.indexingDeleteTime / nodeIndicesStatsBean.indexingDeleteTotal;
         }
 
-        nodeIndicesStatsBean.indexingDeleteCurrent = nodeIndicesStats.getIndexing().getTotal().getDeleteCurrent();
+        nodeIndicesStatsBean.indexingDeleteCurrent = values.getLong(INDEXING_DELETE_CURRENT);
 
         cachedIndexingIndexTotal += nodeIndicesStatsBean.indexingIndexDelta;
         cachedIndexingDeleteTotal += nodeIndicesStatsBean.indexingDeleteDelta;
@@ -341,44 +399,37 @@ public class NodeIndicesStatsMonitor extends Task {
 
     private void recordSearchQueryLatencies(long duration, TimeUnit unit) {
         long searchQueryLatency = TimeUnit.MICROSECONDS.convert(duration, unit);
-        latencySearchQuery95Histo.add(searchQueryLatency);
-        latencySearchQuery99Histo.add(searchQueryLatency);
+        latencySearchQueryHisto.add(searchQueryLatency);
     }
 
     private void recordSearchFetchLatencies(long duration, TimeUnit unit) {
         long fetchQueryLatency = TimeUnit.MICROSECONDS.convert(duration, unit);
-        latencySearchFetch95Histo.add(fetchQueryLatency);
-        latencySearchFetch99Histo.add(fetchQueryLatency);
+        latencySearchFetchHisto.add(fetchQueryLatency);
     }
 
     private void recordGetLatencies(long duration, TimeUnit unit) {
         long getLatency = TimeUnit.MICROSECONDS.convert(duration, unit);
-        latencyGet95Histo.add(getLatency);
-        latencyGet99Histo.add(getLatency);
+        latencyGetHisto.add(getLatency);
     }
 
     private void recordGetExistsLatencies(long duration, TimeUnit unit) {
         long getExistsLatency = TimeUnit.MICROSECONDS.convert(duration, unit);
-        latencyGetExists95Histo.add(getExistsLatency);
-        latencyGetExists99Histo.add(getExistsLatency);
+        latencyGetExistsHisto.add(getExistsLatency);
     }
 
     private void recordGetMissingLatencies(long duration, TimeUnit unit) {
         long getMissingLatency = TimeUnit.MICROSECONDS.convert(duration, unit);
-        latencyGetMissing95Histo.add(getMissingLatency);
-        latencyGetMissing99Histo.add(getMissingLatency);
+        latencyGetMissingHisto.add(getMissingLatency);
     }
 
     private void recordIndexingLatencies(long duration, TimeUnit unit) {
         long indexingLatency = TimeUnit.MICROSECONDS.convert(duration, unit);
-        latencyIndexing95Histo.add(indexingLatency);
-        latencyIndexing99Histo.add(indexingLatency);
+        latencyIndexingHisto.add(indexingLatency);
     }
 
     private void recordIndexDeleteLatencies(long duration, TimeUnit unit) {
         long indexDeleteLatency = TimeUnit.MICROSECONDS.convert(duration, unit);
-        latencyIndexDelete95Histo.add(indexDeleteLatency);
-        latencyIndexDelete99Histo.add(indexDeleteLatency);
+        latencyIndexDeleteHisto.add(indexDeleteLatency);
     }
 
     @Override
@@ -440,20 +491,30 @@ public class NodeIndicesStatsMonitor extends Task {
         private long flushTotal;
         private long flushTotalTime;
         private double flushAvgTimeInMillisPerRequest;
+        private double latencySearchQuery50;
         private double latencySearchQuery95;
         private double latencySearchQuery99;
+        private double latencySearchQuery999;
+        private double latencySearchFetch50;
         private double latencySearchFetch95;
         private double latencySearchFetch99;
+        private double latencySearchFetch999;
+        private double latencyGet50;
         private double latencyGet95;
         private double latencyGet99;
+        private double latencyGet999;
         private double latencyGetExists95;
         private double latencyGetExists99;
         private double latencyGetMissing95;
         private double latencyGetMissing99;
+        private double latencyIndexing50;
         private double latencyIndexing95;
         private double latencyIndexing99;
+        private double latencyIndexing999;
+        private double latencyIndexDelete50;
         private double latencyIndexDelete95;
         private double latencyIndexDelete99;
+        private double latencyIndexDelete999;
     }
 
     public class Elasticsearch_NodeIndicesStatsReporter {
@@ -739,6 +800,11 @@ public class NodeIndicesStatsMonitor extends Task {
         }
 
         //Percentile Latencies
+        @Monitor(name = "latencySearchQuery50", type = DataSourceType.GAUGE)
+        public double getLatencySearchQuery50() {
+            return nodeIndicesStatsBean.get().latencySearchQuery50;
+        }
+
         @Monitor(name = "latencySearchQuery95", type = DataSourceType.GAUGE)
         public double getLatencySearchQuery95() {
             return nodeIndicesStatsBean.get().latencySearchQuery95;
@@ -749,6 +815,16 @@ public class NodeIndicesStatsMonitor extends Task {
             return nodeIndicesStatsBean.get().latencySearchQuery99;
         }
 
+        @Monitor(name = "latencySearchQuery999", type = DataSourceType.GAUGE)
+        public double getLatencySearchQuery999() {
+            return nodeIndicesStatsBean.get().latencySearchQuery999;
+        }
+
+        @Monitor(name = "latencySearchFetch50", type = DataSourceType.GAUGE)
+        public double getLatencySearchFetch50() {
+            return nodeIndicesStatsBean.get().latencySearchFetch50;
+        }
+
         @Monitor(name = "latencySearchFetch95", type = DataSourceType.GAUGE)
         public double getLatencySearchFetch95() {
             return nodeIndicesStatsBean.get().latencySearchFetch95;
@@ -759,6 +835,16 @@ public class NodeIndicesStatsMonitor extends Task {
             return nodeIndicesStatsBean.get().latencySearchFetch99;
         }
 
+        @Monitor(name = "latencySearchFetch999", type = DataSourceType.GAUGE)
+        public double getLatencySearchFetch999() {
+            return nodeIndicesStatsBean.get().latencySearchFetch999;
+        }
+
+        @Monitor(name = "latencyGet50", type = DataSourceType.GAUGE)
+        public double getLatencyGet50() {
+            return nodeIndicesStatsBean.get().latencyGet50;
+        }
+
         @Monitor(name = "latencyGet95", type = DataSourceType.GAUGE)
         public double getLatencyGet95() {
             return nodeIndicesStatsBean.get().latencyGet95;
@@ -769,6 +855,11 @@ public class NodeIndicesStatsMonitor extends Task {
             return nodeIndicesStatsBean.get().latencyGet99;
         }
 
+        @Monitor(name = "latencyGet999", type = DataSourceType.GAUGE)
+        public double getLatencyGet999() {
+            return nodeIndicesStatsBean.get().latencyGet999;
+        }
+
         @Monitor(name = "latencyGetExists95", type = DataSourceType.GAUGE)
         public double getLatencyGetExists95() {
             return nodeIndicesStatsBean.get().latencyGetExists95;
@@ -789,6 +880,11 @@ public class NodeIndicesStatsMonitor extends Task {
             return nodeIndicesStatsBean.get().latencyGetMissing99;
         }
 
+        @Monitor(name = "latencyIndexing50", type = DataSourceType.GAUGE)
+        public double getLatencyIndexing50() {
+            return nodeIndicesStatsBean.get().latencyIndexing50;
+        }
+
         @Monitor(name = "latencyIndexing95", type = DataSourceType.GAUGE)
         public double getLatencyIndexing95() {
             return nodeIndicesStatsBean.get().latencyIndexing95;
@@ -799,6 +895,16 @@ public class NodeIndicesStatsMonitor extends Task {
             return nodeIndicesStatsBean.get().latencyIndexing99;
         }
 
+        @Monitor(name = "latencyIndexing999", type = DataSourceType.GAUGE)
+        public double getLatencyIndexing999() {
+            return nodeIndicesStatsBean.get().latencyIndexing999;
+        }
+
+        @Monitor(name = "latencyIndexDelete50", type = DataSourceType.GAUGE)
+        public double getLatencyIndexDelete50() {
+            return nodeIndicesStatsBean.get().latencyIndexDelete50;
+        }
+
         @Monitor(name = "latencyIndexDelete95", type = DataSourceType.GAUGE)
         public double getLatencyIndexDelete95() {
             return nodeIndicesStatsBean.get().latencyIndexDelete95;
@@ -808,5 +914,10 @@ public class NodeIndicesStatsMonitor extends Task {
         public double getLatencyIndexDelete99() {
             return nodeIndicesStatsBean.get().latencyIndexDelete99;
         }
+
+        @Monitor(name = "latencyIndexDelete999", type = DataSourceType.GAUGE)
+        public double getLatencyIndexDelete999() {
+            return nodeIndicesStatsBean.get().latencyIndexDelete999;
+        }
     }
 }
@@ -0,0 +1,80 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.monitoring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A numeric node stats value, addressed by its dot separated path in the node object of the
+ * node stats REST response, e.g. jvm.mem.heap_used_in_bytes or thread_pool.search.queue.
+ * <p>
+ * Fields are registered once, usually as constants of the monitor reading them, and only registered
+ * fields are extracted from node stats. Every field owns a slot in {@link NodeStatsValues}.
+ */
+public final class NodeStatsField {
+    private static final Map<String, NodeStatsField> fieldsByPath = new HashMap<>();
+    private static final List<NodeStatsField> fields = new ArrayList<>();
+
+    private final String path;
+    private final String[] names;
+    private final int index;
+
+    private NodeStatsField(String path, int index) {
+        this.path = path;
+        this.names = path.split("\\.");
+        this.index = index;
+    }
+
+    public static synchronized NodeStatsField of(String path) {
+        return fieldsByPath.computeIfAbsent(path, p -> {
+            NodeStatsField field = new NodeStatsField(p, fields.size());
+            fields.add(field);
+            return field;
+        });
+    }
+
+    /**
+     * @return all fields registered so far, in registration order
+     */
+    static synchronized List<NodeStatsField> getFields() {
+        return Collections.unmodifiableList(new ArrayList<>(fields));
+    }
+
+    static synchronized int getFieldCount() {
+        return fields.size();
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    String[] getNames() {
+        return names;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
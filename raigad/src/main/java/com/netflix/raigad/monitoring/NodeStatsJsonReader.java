@@ -0,0 +1,181 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.monitoring;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extracts the registered {@link NodeStatsField}s from node stats JSON with a pull parser.
+ * <p>
+ * The document is walked token by token along a tree of the registered field paths: subtrees no field
+ * lives in are skipped without being parsed into values, and numbers are written straight into the slots
+ * of {@link NodeStatsValues}. Field names come from the parser's canonicalized symbol table and parser buffers
+ * are recycled by the shared {@link JsonFactory}, so reading a response allocates next to nothing besides the values.
+ */
+class NodeStatsJsonReader {
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private volatile PathNode root = new PathNode();
+    private volatile int fieldCount;
+
+    /**
+     * Reads the first node of a node stats REST response, i.e. {"nodes": {"node id": {...}}}
+     *
+     * @return values of the node, or null if the response does not contain any node
+     */
+    NodeStatsValues readResponse(InputStream inputStream) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Node stats response is not a JSON object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+
+                if ("nodes".equals(name) && token == JsonToken.START_OBJECT) {
+                    if (parser.nextToken() != JsonToken.FIELD_NAME || parser.nextToken() != JsonToken.START_OBJECT) {
+                        return null;
+                    }
+
+                    return readNode(parser);
+                }
+
+                parser.skipChildren();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads every node of a node stats REST response
+     *
+     * @return values by node id, in response order
+     */
+    Map<String, NodeStatsValues> readResponseNodes(InputStream inputStream) throws IOException {
+        Map<String, NodeStatsValues> nodes = new LinkedHashMap<>();
+
+        try (JsonParser parser = jsonFactory.createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Node stats response is not a JSON object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+
+                if ("nodes".equals(name) && token == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String nodeId = parser.getCurrentName();
+                        if (parser.nextToken() == JsonToken.START_OBJECT) {
+                            nodes.put(nodeId, readNode(parser));
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return nodes;
+    }
+
+    /**
+     * Reads a single node object, as written by NodeStats#toXContent
+     */
+    NodeStatsValues readNode(InputStream inputStream) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Node stats are not a JSON object");
+            }
+
+            return readNode(parser);
+        }
+    }
+
+    private NodeStatsValues readNode(JsonParser parser) throws IOException {
+        PathNode pathRoot = getRoot();
+        NodeStatsValues values = new NodeStatsValues(fieldCount);
+        readObject(parser, pathRoot, values);
+        return values;
+    }
+
+    private static void readObject(JsonParser parser, PathNode pathNode, NodeStatsValues values) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            PathNode child = pathNode.children.get(parser.getCurrentName());
+            JsonToken token = parser.nextToken();
+
+            if (child == null) {
+                parser.skipChildren();
+            } else if (token == JsonToken.START_OBJECT) {
+                readObject(parser, child, values);
+            } else if (token == JsonToken.VALUE_NUMBER_INT && child.index >= 0) {
+                values.set(child.index, parser.getLongValue());
+            } else if (token == JsonToken.VALUE_NUMBER_FLOAT && child.index >= 0) {
+                values.set(child.index, parser.getDoubleValue());
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * @return path tree of all registered fields, rebuilt if fields were registered since it was last built
+     */
+    private synchronized PathNode getRoot() {
+        if (NodeStatsField.getFieldCount() != fieldCount) {
+            List<NodeStatsField> fields = NodeStatsField.getFields();
+            PathNode newRoot = new PathNode();
+            for (NodeStatsField field : fields) {
+                PathNode pathNode = newRoot;
+                for (String name : field.getNames()) {
+                    pathNode = pathNode.getOrCreate(name);
+                }
+                pathNode.index = field.getIndex();
+            }
+
+            root = newRoot;
+            fieldCount = fields.size();
+        }
+
+        return root;
+    }
+
+    private static final class PathNode {
+        private Map<String, PathNode> children = Collections.emptyMap();
+        private int index = -1;
+
+        private PathNode getOrCreate(String name) {
+            if (children.isEmpty()) {
+                children = new HashMap<>();
+            }
+            return children.computeIfAbsent(name, n -> new PathNode());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.raigad.monitoring;
+
+import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsRequestBuilder;
+
+/**
+ * Sections of the node stats API, each one is only requested if some monitor reads it
+ */
+public enum NodeStatsMetricGroup {
+    INDICES("indices") {
+        @Override
+        public void enable(NodesStatsRequestBuilder nodesStatsRequestBuilder) {
+            nodesStatsRequestBuilder.setIndices(true);
+        }
+    },
+    OS("os") {
+        @Override
+        public void enable(NodesStatsRequestBuilder nodesStatsRequestBuilder) {
+            nodesStatsRequestBuilder.setOs(true);
+        }
+    },
+    PROCESS("process") {
+        @Override
+        public void enable(NodesStatsRequestBuilder nodesStatsRequestBuilder) {
+            nodesStatsRequestBuilder.setProcess(true);
+        }
+    },
+    JVM("jvm") {
+        @Override
+        public void enable(NodesStatsRequestBuilder nodesStatsRequestBuilder) {
+            nodesStatsRequestBuilder.setJvm(true);
+        }
+    },
+    THREAD_POOL("thread_pool") {
+        @Override
+        public void enable(NodesStatsRequestBuilder nodesStatsRequestBuilder) {
+            nodesStatsRequestBuilder.setThreadPool(true);
+        }
+    },
+    FS("fs") {
+        @Override
+        public void enable(NodesStatsRequestBuilder nodesStatsRequestBuilder) {
+            nodesStatsRequestBuilder.setFs(true);
+        }
+    },
+    TRANSPORT("transport") {
+        @Override
+        public void enable(NodesStatsRequestBuilder nodesStatsRequestBuilder) {
+            nodesStatsRequestBuilder.setTransport(true);
+        }
+    },
+    HTTP("http") {
+        @Override
+        public void enable(NodesStatsRequestBuilder nodesStatsRequestBuilder) {
+            nodesStatsRequestBuilder.setHttp(true);
+        }
+    },
+    BREAKER("breaker") {
+        @Override
+        public void enable(NodesStatsRequestBuilder nodesStatsRequestBuilder) {
+            nodesStatsRequestBuilder.setBreaker(true);
+        }
+    },
+    SCRIPT("script") {
+        @Override
+        public void enable(NodesStatsRequestBuilder nodesStatsRequestBuilder) {
+            nodesStatsRequestBuilder.setScript(true);
+        }
+    },
+    DISCOVERY("discovery") {
+        @Override
+        public void enable(NodesStatsRequestBuilder nodesStatsRequestBuilder) {
+            nodesStatsRequestBuilder.setDiscovery(true);
+        }
+    },
+    INGEST("ingest") {
+        @Override
+        public void enable(NodesStatsRequestBuilder nodesStatsRequestBuilder) {
+            nodesStatsRequestBuilder.setIngest(true);
+        }
+    };
+
+    private final String metricName;
+
+    NodeStatsMetricGroup(String metricName) {
+        this.metricName = metricName;
+    }
+
+    /**
+     * @return name of the section in the node stats REST API, e.g. _nodes/_local/stats/thread_pool
+     */
+    public String getMetricName() {
+        return metricName;
+    }
+
+    public abstract void enable(NodesStatsRequestBuilder nodesStatsRequestBuilder);
+}
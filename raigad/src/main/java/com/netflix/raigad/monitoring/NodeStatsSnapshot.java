@@ -0,0 +1,61 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.raigad.monitoring;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Node stats of the local Elasticsearch node as fetched at a given point in time.
+ * A snapshot is shared by all monitors and must be treated as read-only.
+ */
+public final class NodeStatsSnapshot {
+    static final NodeStatsSnapshot EMPTY = new NodeStatsSnapshot(null, EnumSet.noneOf(NodeStatsMetricGroup.class), 0);
+
+    private final NodeStatsValues values;
+    private final Set<NodeStatsMetricGroup> metricGroups;
+    private final long fetchTimeInMillis;
+
+    NodeStatsSnapshot(NodeStatsValues values, Set<NodeStatsMetricGroup> metricGroups, long fetchTimeInMillis) {
+        this.values = values;
+        this.metricGroups = Collections.unmodifiableSet(EnumSet.copyOf(metricGroups));
+        this.fetchTimeInMillis = fetchTimeInMillis;
+    }
+
+    /**
+     * @return node stats values or null if node stats were not available at fetch time
+     */
+    public NodeStatsValues getValues() {
+        return values;
+    }
+
+    /**
+     * @return metric groups which were requested when this snapshot was fetched
+     */
+    public Set<NodeStatsMetricGroup> getMetricGroups() {
+        return metricGroups;
+    }
+
+    public long getFetchTimeInMillis() {
+        return fetchTimeInMillis;
+    }
+
+    public boolean isOlderThan(long maxAgeInMillis, long nowInMillis) {
+        return nowInMillis - fetchTimeInMillis >= maxAgeInMillis;
+    }
+}
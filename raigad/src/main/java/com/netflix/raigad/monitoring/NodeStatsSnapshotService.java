@@ -0,0 +1,199 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.raigad.monitoring;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.utils.ElasticsearchHttpClient;
+import com.netflix.raigad.utils.ElasticsearchHttpException;
+import com.netflix.raigad.utils.ElasticsearchTransportClient;
+import com.netflix.raigad.utils.HttpModule;
+import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
+import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Fetches node stats of the local node at most once per collection interval and hands out
+ * the same snapshot to every stats monitor, instead of each monitor issuing its own request.
+ * <p>
+ * Only the metric groups registered by monitors are requested, e.g. the (large) indices section is skipped
+ * unless a monitor reading it is running. Failed fetches are cached as well (with null node stats),
+ * so a struggling node is not hit again by the remaining monitors of the same collection cycle.
+ * <p>
+ * Node stats are fetched from the _nodes/_local/stats REST endpoint by default, streaming the response straight into
+ * {@link NodeStatsJsonReader} so the node stats object graph is never built. With {@link IConfiguration#getNodeStatsBackend()}
+ * set to another value they are fetched through the transport client instead, for nodes without HTTP enabled. Those
+ * responses are turned into the same JSON the REST endpoint returns and read the same way, so monitors only ever see
+ * {@link NodeStatsValues}.
+ * <p>
+ * The collection interval is decided by {@link CollectionIntervalController}, which sees every fetched snapshot.
+ */
+@Singleton
+public class NodeStatsSnapshotService {
+    private static final Logger logger = LoggerFactory.getLogger(NodeStatsSnapshotService.class);
+
+    public static final long COLLECTION_INTERVAL_MILLIS = 60 * 1000;
+    public static final String HTTP_BACKEND = "http";
+
+    // Monitors of one cycle do not fire at exactly the same time, allow some slack
+    private static final long SNAPSHOT_AGE_SLACK_MILLIS = 5 * 1000;
+
+    private final IConfiguration config;
+    private final CollectionIntervalController collectionIntervalController;
+    private final HttpModule httpModule;
+    private final ElasticsearchHttpClient httpClient;
+    private final NodeStatsJsonReader nodeStatsJsonReader = new NodeStatsJsonReader();
+    private final AtomicReference<NodeStatsSnapshot> snapshotReference = new AtomicReference<>(NodeStatsSnapshot.EMPTY);
+    private final Set<NodeStatsMetricGroup> registeredMetricGroups = EnumSet.noneOf(NodeStatsMetricGroup.class);
+
+    @Inject
+    public NodeStatsSnapshotService(IConfiguration config, CollectionIntervalController collectionIntervalController,
+                                    HttpModule httpModule, ElasticsearchHttpClient httpClient) {
+        this.config = config;
+        this.collectionIntervalController = collectionIntervalController;
+        this.httpModule = httpModule;
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Register a metric group to be included into subsequent node stats requests
+     */
+    public synchronized void registerMetricGroup(NodeStatsMetricGroup metricGroup) {
+        if (registeredMetricGroups.add(metricGroup)) {
+            logger.info("Node stats metric group {} registered", metricGroup);
+        }
+    }
+
+    synchronized Set<NodeStatsMetricGroup> getRegisteredMetricGroups() {
+        return EnumSet.copyOf(registeredMetricGroups);
+    }
+
+    /**
+     * @return current snapshot containing the given metric group, fetching a new one if the cached snapshot
+     * belongs to a previous collection cycle or was fetched before the metric group got registered
+     */
+    public NodeStatsSnapshot getSnapshot(NodeStatsMetricGroup metricGroup) {
+        NodeStatsSnapshot snapshot = snapshotReference.get();
+
+        if (isUsable(snapshot, metricGroup)) {
+            return snapshot;
+        }
+
+        synchronized (this) {
+            registerMetricGroup(metricGroup);
+
+            // Another monitor might have refreshed the snapshot while we were waiting
+            snapshot = snapshotReference.get();
+
+            if (!isUsable(snapshot, metricGroup)) {
+                Set<NodeStatsMetricGroup> metricGroups = getRegisteredMetricGroups();
+                snapshot = new NodeStatsSnapshot(fetchNodeStats(metricGroups), metricGroups, System.currentTimeMillis());
+                snapshotReference.set(snapshot);
+                collectionIntervalController.update(snapshot.getValues());
+            }
+        }
+
+        return snapshot;
+    }
+
+    private boolean isUsable(NodeStatsSnapshot snapshot, NodeStatsMetricGroup metricGroup) {
+        return snapshot.getMetricGroups().contains(metricGroup) &&
+                !snapshot.isOlderThan(getSnapshotMaxAgeMillis(collectionIntervalController.getIntervalMillis()), System.currentTimeMillis());
+    }
+
+    static long getSnapshotMaxAgeMillis(long intervalMillis) {
+        return intervalMillis - Math.min(SNAPSHOT_AGE_SLACK_MILLIS, intervalMillis / 2);
+    }
+
+    /**
+     * Fetches node stats of every node in the cluster from the _nodes/stats REST endpoint, bypassing the cached
+     * snapshot of the local node. Only fields registered through {@link NodeStatsField#of(String)} are read.
+     *
+     * @return values by node id
+     */
+    public Map<String, NodeStatsValues> fetchClusterNodeStats(Set<NodeStatsMetricGroup> metricGroups) throws ElasticsearchHttpException {
+        String metrics = metricGroups.stream().map(NodeStatsMetricGroup::getMetricName).collect(Collectors.joining(","));
+        return httpClient.get(httpModule.nodesStatsURL(metrics), config.getHttpClientSocketTimeoutMillis(), nodeStatsJsonReader::readResponseNodes);
+    }
+
+    NodeStatsValues fetchNodeStats(Set<NodeStatsMetricGroup> metricGroups) {
+        if (HTTP_BACKEND.equalsIgnoreCase(config.getNodeStatsBackend())) {
+            return fetchNodeStatsOverHttp(metricGroups);
+        }
+
+        return fetchNodeStatsOverTransport(metricGroups);
+    }
+
+    private NodeStatsValues fetchNodeStatsOverHttp(Set<NodeStatsMetricGroup> metricGroups) {
+        String metrics = metricGroups.stream().map(NodeStatsMetricGroup::getMetricName).collect(Collectors.joining(","));
+
+        try {
+            NodeStatsValues values = httpClient.get(httpModule.localNodeStatsURL(metrics),
+                    config.getHttpClientSocketTimeoutMillis(), nodeStatsJsonReader::readResponse);
+
+            if (values == null) {
+                logger.info("Node stats are not available (no nodes in the response)");
+            }
+
+            return values;
+        } catch (ElasticsearchHttpException e) {
+            logger.info("Node stats are not available: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private NodeStatsValues fetchNodeStatsOverTransport(Set<NodeStatsMetricGroup> metricGroups) {
+        NodesStatsResponse nodesStatsResponse = ElasticsearchTransportClient.getNodesStatsResponse(config, metricGroups);
+
+        if (nodesStatsResponse == null) {
+            logger.info("Node stats are not available");
+            return null;
+        }
+
+        List<NodeStats> nodeStatsList = nodesStatsResponse.getNodes();
+
+        if (nodeStatsList == null || nodeStatsList.isEmpty()) {
+            logger.info("Node stats are not available (no nodes in the response)");
+            return null;
+        }
+
+        try {
+            XContentBuilder builder = XContentFactory.jsonBuilder();
+            builder.startObject();
+            nodeStatsList.get(0).toXContent(builder, ToXContent.EMPTY_PARAMS);
+            builder.endObject();
+
+            return nodeStatsJsonReader.readNode(builder.bytes().streamInput());
+        } catch (IOException e) {
+            logger.warn("Failed to read node stats", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.monitoring;
+
+/**
+ * Values of the registered {@link NodeStatsField}s, as extracted from one node stats response.
+ * <p>
+ * Every field is kept as a primitive in a slot indexed by the field, integer values are also available
+ * as double and vice versa. Values are filled by {@link NodeStatsJsonReader} and must be treated as read-only afterwards.
+ */
+public final class NodeStatsValues {
+    private final long[] longValues;
+    private final double[] doubleValues;
+    private final boolean[] present;
+
+    NodeStatsValues(int size) {
+        longValues = new long[size];
+        doubleValues = new double[size];
+        present = new boolean[size];
+    }
+
+    /**
+     * @return true if the field was present in the node stats response
+     */
+    public boolean has(NodeStatsField field) {
+        return field.getIndex() < present.length && present[field.getIndex()];
+    }
+
+    /**
+     * @return value of the field, or 0 if it was not present
+     */
+    public long getLong(NodeStatsField field) {
+        return has(field) ? longValues[field.getIndex()] : 0;
+    }
+
+    /**
+     * @return value of the field, or 0 if it was not present
+     */
+    public double getDouble(NodeStatsField field) {
+        return has(field) ? doubleValues[field.getIndex()] : 0;
+    }
+
+    void set(int index, long value) {
+        longValues[index] = value;
+        doubleValues[index] = value;
+        present[index] = true;
+    }
+
+    void set(int index, double value) {
+        longValues[index] = (long) value;
+        doubleValues[index] = value;
+        present[index] = true;
+    }
+}
@@ -19,32 +19,38 @@ package com.netflix.raigad.monitoring;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.netflix.raigad.configuration.IConfiguration;
-import com.netflix.raigad.scheduler.SimpleTimer;
 import com.netflix.raigad.scheduler.Task;
-import com.netflix.raigad.scheduler.TaskTimer;
 import com.netflix.raigad.utils.ElasticsearchProcessMonitor;
-import com.netflix.raigad.utils.ElasticsearchTransportClient;
 import com.netflix.servo.annotations.DataSourceType;
 import com.netflix.servo.annotations.Monitor;
 import com.netflix.servo.monitor.Monitors;
-import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
-import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
-import org.elasticsearch.monitor.os.OsStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 @Singleton
 public class OsStatsMonitor extends Task {
     private static final Logger logger = LoggerFactory.getLogger(OsStatsMonitor.class);
     public static final String METRIC_NAME = "Elasticsearch_OsStatsMonitor";
+
+    private static final NodeStatsField TIMESTAMP = NodeStatsField.of("os.timestamp");
+    private static final NodeStatsField CPU_PERCENT = NodeStatsField.of("os.cpu.percent");
+    private static final NodeStatsField MEM_FREE = NodeStatsField.of("os.mem.free_in_bytes");
+    private static final NodeStatsField MEM_USED = NodeStatsField.of("os.mem.used_in_bytes");
+    private static final NodeStatsField MEM_FREE_PERCENT = NodeStatsField.of("os.mem.free_percent");
+    private static final NodeStatsField MEM_USED_PERCENT = NodeStatsField.of("os.mem.used_percent");
+    private static final NodeStatsField SWAP_FREE = NodeStatsField.of("os.swap.free_in_bytes");
+    private static final NodeStatsField SWAP_USED = NodeStatsField.of("os.swap.used_in_bytes");
+
     private final Elasticsearch_OsStatsReporter osStatsReporter;
+    private final NodeStatsSnapshotService nodeStatsSnapshotService;
 
     @Inject
-    public OsStatsMonitor(IConfiguration config) {
+    public OsStatsMonitor(IConfiguration config, NodeStatsSnapshotService nodeStatsSnapshotService) {
         super(config);
+        this.nodeStatsSnapshotService = nodeStatsSnapshotService;
+        this.nodeStatsSnapshotService.registerMetricGroup(NodeStatsMetricGroup.OS);
         osStatsReporter = new Elasticsearch_OsStatsReporter();
         Monitors.registerObject(osStatsReporter);
     }
@@ -61,49 +67,41 @@ public class OsStatsMonitor extends Task {
 
         OsStatsBean osStatsBean = new OsStatsBean();
         try {
-            NodesStatsResponse nodesStatsResponse = ElasticsearchTransportClient.getNodesStatsResponse(config);
-            NodeStats nodeStats = null;
+            NodeStatsValues values = nodeStatsSnapshotService.getSnapshot(NodeStatsMetricGroup.OS).getValues();
 
-            List<NodeStats> nodeStatsList = nodesStatsResponse.getNodes();
-
-            if (nodeStatsList.size() > 0) {
-                nodeStats = nodeStatsList.get(0);
-            }
-
-            if (nodeStats == null) {
+            if (values == null) {
                 logger.info("OS stats is not available (node stats is not available)");
                 return;
             }
 
-            OsStats osStats = nodeStats.getOs();
-            if (osStats == null) {
+            if (!values.has(TIMESTAMP)) {
                 logger.info("OS stats is not available");
                 return;
             }
 
             //Memory
-            osStatsBean.freeInBytes = osStats.getMem().getFree().getBytes();
-            osStatsBean.usedInBytes = osStats.getMem().getUsed().getBytes();
-            osStatsBean.actualFreeInBytes = osStats.getMem().getFree().getBytes();
-            osStatsBean.actualUsedInBytes = osStats.getMem().getUsed().getBytes();
-            osStatsBean.freePercent = osStats.getMem().getFreePercent();
-            osStatsBean.usedPercent = osStats.getMem().getUsedPercent();
+            osStatsBean.freeInBytes = values.getLong(MEM_FREE);
+            osStatsBean.usedInBytes = values.getLong(MEM_USED);
+            osStatsBean.actualFreeInBytes = values.getLong(MEM_FREE);
+            osStatsBean.actualUsedInBytes = values.getLong(MEM_USED);
+            osStatsBean.freePercent = (short) values.getLong(MEM_FREE_PERCENT);
+            osStatsBean.usedPercent = (short) values.getLong(MEM_USED_PERCENT);
 
             //CPU
-            osStatsBean.cpuSys = osStats.getCpu().getPercent();
+            osStatsBean.cpuSys = (short) values.getLong(CPU_PERCENT);
             osStatsBean.cpuUser = 0;
             osStatsBean.cpuIdle = 0;
             osStatsBean.cpuStolen = 0;
 
             //Swap
-            osStatsBean.swapFreeInBytes = osStats.getSwap().getFree().getBytes();
-            osStatsBean.swapUsedInBytes = osStats.getSwap().getUsed().getBytes();
+            osStatsBean.swapFreeInBytes = values.getLong(SWAP_FREE);
+            osStatsBean.swapUsedInBytes = values.getLong(SWAP_USED);
 
             //Uptime
             osStatsBean.uptimeInMillis = 0;
 
             //Timestamp
-            osStatsBean.osTimestamp = osStats.getTimestamp();
+            osStatsBean.osTimestamp = values.getLong(TIMESTAMP);
         } catch (Exception e) {
             logger.warn("Failed to load OS stats data", e);
         }
@@ -206,10 +204,6 @@ public class OsStatsMonitor extends Task {
         private long osTimestamp;
     }
 
-    public static TaskTimer getTimer(String name) {
-        return new SimpleTimer(name, 60 * 1000);
-    }
-
     @Override
     public String getName() {
         return METRIC_NAME;
@@ -19,21 +19,14 @@ package com.netflix.raigad.monitoring;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.netflix.raigad.configuration.IConfiguration;
-import com.netflix.raigad.scheduler.SimpleTimer;
 import com.netflix.raigad.scheduler.Task;
-import com.netflix.raigad.scheduler.TaskTimer;
 import com.netflix.raigad.utils.ElasticsearchProcessMonitor;
-import com.netflix.raigad.utils.ElasticsearchTransportClient;
 import com.netflix.servo.annotations.DataSourceType;
 import com.netflix.servo.annotations.Monitor;
 import com.netflix.servo.monitor.Monitors;
-import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
-import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
-import org.elasticsearch.monitor.process.ProcessStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 @Singleton
@@ -41,11 +34,21 @@ public class ProcessStatsMonitor extends Task {
     private static final Logger logger = LoggerFactory.getLogger(ProcessStatsMonitor.class);
 
     public static final String METRIC_NAME = "Elasticsearch_ProcessStatsMonitor";
+
+    private static final NodeStatsField TIMESTAMP = NodeStatsField.of("process.timestamp");
+    private static final NodeStatsField OPEN_FILE_DESCRIPTORS = NodeStatsField.of("process.open_file_descriptors");
+    private static final NodeStatsField CPU_PERCENT = NodeStatsField.of("process.cpu.percent");
+    private static final NodeStatsField CPU_TOTAL = NodeStatsField.of("process.cpu.total_in_millis");
+    private static final NodeStatsField TOTAL_VIRTUAL = NodeStatsField.of("process.mem.total_virtual_in_bytes");
+
     private final Elasticsearch_ProcessStatsReporter processStatsReporter;
+    private final NodeStatsSnapshotService nodeStatsSnapshotService;
 
     @Inject
-    public ProcessStatsMonitor(IConfiguration config) {
+    public ProcessStatsMonitor(IConfiguration config, NodeStatsSnapshotService nodeStatsSnapshotService) {
         super(config);
+        this.nodeStatsSnapshotService = nodeStatsSnapshotService;
+        this.nodeStatsSnapshotService.registerMetricGroup(NodeStatsMetricGroup.PROCESS);
         processStatsReporter = new Elasticsearch_ProcessStatsReporter();
         Monitors.registerObject(processStatsReporter);
     }
@@ -62,38 +65,30 @@ public class ProcessStatsMonitor extends Task {
         ProcessStatsBean processStatsBean = new ProcessStatsBean();
 
         try {
-            NodesStatsResponse nodesStatsResponse = ElasticsearchTransportClient.getNodesStatsResponse(config);
-            NodeStats nodeStats = null;
+            NodeStatsValues values = nodeStatsSnapshotService.getSnapshot(NodeStatsMetricGroup.PROCESS).getValues();
 
-            List<NodeStats> nodeStatsList = nodesStatsResponse.getNodes();
-
-            if (nodeStatsList.size() > 0) {
-                nodeStats = nodeStatsList.get(0);
-            }
-
-            if (nodeStats == null) {
+            if (values == null) {
                 logger.info("Process stats are not available (node stats is not available)");
                 return;
             }
 
-            ProcessStats processStats = nodeStats.getProcess();
-            if (processStats == null) {
+            if (!values.has(TIMESTAMP)) {
                 logger.info("Process stats are not available");
                 return;
             }
 
             //Memory
-            processStatsBean.totalVirtualInBytes = processStats.getMem().getTotalVirtual().getBytes();
+            processStatsBean.totalVirtualInBytes = values.getLong(TOTAL_VIRTUAL);
 
             //CPU
-            processStatsBean.cpuPercent = processStats.getCpu().getPercent();
-            processStatsBean.totalInMillis = processStats.getCpu().getTotal().getMillis();
+            processStatsBean.cpuPercent = (short) values.getLong(CPU_PERCENT);
+            processStatsBean.totalInMillis = values.getLong(CPU_TOTAL);
 
             //Open file descriptors
-            processStatsBean.openFileDescriptors = processStats.getOpenFileDescriptors();
+            processStatsBean.openFileDescriptors = values.getLong(OPEN_FILE_DESCRIPTORS);
 
             //Timestamp
-            processStatsBean.cpuTimestamp = processStats.getTimestamp();
+            processStatsBean.cpuTimestamp = values.getLong(TIMESTAMP);
         } catch (Exception e) {
             logger.warn("Failed to load process stats data", e);
         }
@@ -166,10 +161,6 @@ public class ProcessStatsMonitor extends Task {
         private long cpuTimestamp;
     }
 
-    public static TaskTimer getTimer(String name) {
-        return new SimpleTimer(name, 60 * 1000);
-    }
-
     @Override
     public String getName() {
         return METRIC_NAME;
@@ -18,33 +18,34 @@ package com.netflix.raigad.monitoring;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.netflix.raigad.configuration.IConfiguration;
-import com.netflix.raigad.scheduler.SimpleTimer;
 import com.netflix.raigad.scheduler.Task;
-import com.netflix.raigad.scheduler.TaskTimer;
 import com.netflix.raigad.utils.ElasticsearchProcessMonitor;
-import com.netflix.raigad.utils.ElasticsearchTransportClient;
 import com.netflix.servo.annotations.DataSourceType;
 import com.netflix.servo.annotations.Monitor;
 import com.netflix.servo.monitor.Monitors;
-import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
-import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
-import org.elasticsearch.threadpool.ThreadPoolStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Iterator;
-import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 @Singleton
 public class ThreadPoolStatsMonitor extends Task {
     private static final Logger logger = LoggerFactory.getLogger(ThreadPoolStatsMonitor.class);
     public static final String METRIC_NAME = "Elasticsearch_ThreadPoolMonitor";
+
+    private static final ThreadPoolFields INDEX = new ThreadPoolFields("index");
+    private static final ThreadPoolFields GET = new ThreadPoolFields("get");
+    private static final ThreadPoolFields SEARCH = new ThreadPoolFields("search");
+    private static final ThreadPoolFields BULK = new ThreadPoolFields("bulk");
+
     private final Elasticsearch_ThreadPoolStatsReporter tpStatsReporter;
+    private final NodeStatsSnapshotService nodeStatsSnapshotService;
 
     @Inject
-    public ThreadPoolStatsMonitor(IConfiguration config) {
+    public ThreadPoolStatsMonitor(IConfiguration config, NodeStatsSnapshotService nodeStatsSnapshotService) {
         super(config);
+        this.nodeStatsSnapshotService = nodeStatsSnapshotService;
+        this.nodeStatsSnapshotService.registerMetricGroup(NodeStatsMetricGroup.THREAD_POOL);
         tpStatsReporter = new Elasticsearch_ThreadPoolStatsReporter();
         Monitors.registerObject(tpStatsReporter);
     }
@@ -61,61 +62,45 @@ public class ThreadPoolStatsMonitor extends Task {
         ThreadPoolStatsBean threadPoolStatsBean = new ThreadPoolStatsBean();
 
         try {
-            NodesStatsResponse nodesStatsResponse = ElasticsearchTransportClient.getNodesStatsResponse(config);
-            NodeStats nodeStats = null;
-
-            List<NodeStats> nodeStatsList = nodesStatsResponse.getNodes();
+            NodeStatsValues values = nodeStatsSnapshotService.getSnapshot(NodeStatsMetricGroup.THREAD_POOL).getValues();
 
-            if (nodeStatsList.size() > 0) {
-                nodeStats = nodeStatsList.get(0);
-            }
-
-            if (nodeStats == null) {
+            if (values == null) {
                 logger.info("Thread pool stats are not available (node stats is not available)");
                 return;
             }
 
-            ThreadPoolStats threadPoolStats = nodeStats.getThreadPool();
-
-            if (threadPoolStats == null) {
+            if (!values.has(INDEX.threads) && !values.has(GET.threads) && !values.has(SEARCH.threads) && !values.has(BULK.threads)) {
                 logger.info("Thread pool stats are not available");
                 return;
             }
 
-            Iterator<ThreadPoolStats.Stats> threadPoolStatsIterator = threadPoolStats.iterator();
-
-            while (threadPoolStatsIterator.hasNext()) {
-                ThreadPoolStats.Stats stat = threadPoolStatsIterator.next();
-                if (stat.getName().equals("index")) {
-                    threadPoolStatsBean.indexThreads = stat.getThreads();
-                    threadPoolStatsBean.indexQueue = stat.getQueue();
-                    threadPoolStatsBean.indexActive = stat.getActive();
-                    threadPoolStatsBean.indexRejected = stat.getRejected();
-                    threadPoolStatsBean.indexLargest = stat.getLargest();
-                    threadPoolStatsBean.indexCompleted = stat.getCompleted();
-                } else if (stat.getName().equals("get")) {
-                    threadPoolStatsBean.getThreads = stat.getThreads();
-                    threadPoolStatsBean.getQueue = stat.getQueue();
-                    threadPoolStatsBean.getActive = stat.getActive();
-                    threadPoolStatsBean.getRejected = stat.getRejected();
-                    threadPoolStatsBean.getLargest = stat.getLargest();
-                    threadPoolStatsBean.getCompleted = stat.getCompleted();
-                } else if (stat.getName().equals("search")) {
-                    threadPoolStatsBean.searchThreads = stat.getThreads();
-                    threadPoolStatsBean.searchQueue = stat.getQueue();
-                    threadPoolStatsBean.searchActive = stat.getActive();
-                    threadPoolStatsBean.searchRejected = stat.getRejected();
-                    threadPoolStatsBean.searchLargest = stat.getLargest();
-                    threadPoolStatsBean.searchCompleted = stat.getCompleted();
-                } else if (stat.getName().equals("bulk")) {
-                    threadPoolStatsBean.bulkThreads = stat.getThreads();
-                    threadPoolStatsBean.bulkQueue = stat.getQueue();
-                    threadPoolStatsBean.bulkActive = stat.getActive();
-                    threadPoolStatsBean.bulkRejected = stat.getRejected();
-                    threadPoolStatsBean.bulkLargest = stat.getLargest();
-                    threadPoolStatsBean.bulkCompleted = stat.getCompleted();
-                }
-            }
+            threadPoolStatsBean.indexThreads = values.getLong(INDEX.threads);
+            threadPoolStatsBean.indexQueue = values.getLong(INDEX.queue);
+            threadPoolStatsBean.indexActive = values.getLong(INDEX.active);
+            threadPoolStatsBean.indexRejected = values.getLong(INDEX.rejected);
+            threadPoolStatsBean.indexLargest = values.getLong(INDEX.largest);
+            threadPoolStatsBean.indexCompleted = values.getLong(INDEX.completed);
+
+            threadPoolStatsBean.getThreads = values.getLong(GET.threads);
+            threadPoolStatsBean.getQueue = values.getLong(GET.queue);
+            threadPoolStatsBean.getActive = values.getLong(GET.active);
+            threadPoolStatsBean.getRejected = values.getLong(GET.rejected);
+            threadPoolStatsBean.getLargest = values.getLong(GET.largest);
+            threadPoolStatsBean.getCompleted = values.getLong(GET.completed);
+
+            threadPoolStatsBean.searchThreads = values.getLong(SEARCH.threads);
+            threadPoolStatsBean.searchQueue = values.getLong(SEARCH.queue);
+            threadPoolStatsBean.searchActive = values.getLong(SEARCH.active);
+            threadPoolStatsBean.searchRejected = values.getLong(SEARCH.rejected);
+            threadPoolStatsBean.searchLargest = values.getLong(SEARCH.largest);
+            threadPoolStatsBean.searchCompleted = values.getLong(SEARCH.completed);
+
+            threadPoolStatsBean.bulkThreads = values.getLong(BULK.threads);
+            threadPoolStatsBean.bulkQueue = values.getLong(BULK.queue);
+            threadPoolStatsBean.bulkActive = values.getLong(BULK.active);
+            threadPoolStatsBean.bulkRejected = values.getLong(BULK.rejected);
+            threadPoolStatsBean.bulkLargest = values.getLong(BULK.largest);
+            threadPoolStatsBean.bulkCompleted = values.getLong(BULK.completed);
         } catch (Exception e) {
             logger.warn("Failed to load thread pool stats data", e);
         }
@@ -251,6 +236,25 @@ public class ThreadPoolStatsMonitor extends Task {
         }
     }
 
+    private static final class ThreadPoolFields {
+        private final NodeStatsField threads;
+        private final NodeStatsField queue;
+        private final NodeStatsField active;
+        private final NodeStatsField rejected;
+        private final NodeStatsField largest;
+        private final NodeStatsField completed;
+
+        private ThreadPoolFields(String threadPoolName) {
+            String prefix = "thread_pool." + threadPoolName + ".";
+            threads = NodeStatsField.of(prefix + "threads");
+            queue = NodeStatsField.of(prefix + "queue");
+            active = NodeStatsField.of(prefix + "active");
+            rejected = NodeStatsField.of(prefix + "rejected");
+            largest = NodeStatsField.of(prefix + "largest");
+            completed = NodeStatsField.of(prefix + "completed");
+        }
+    }
+
     private static class ThreadPoolStatsBean {
         private long indexThreads;
         private long indexQueue;
@@ -281,10 +285,6 @@ public class ThreadPoolStatsMonitor extends Task {
         private long bulkCompleted;
     }
 
-    public static TaskTimer getTimer(String name) {
-        return new SimpleTimer(name, 60 * 1000);
-    }
-
     @Override
     public String getName() {
         return METRIC_NAME;
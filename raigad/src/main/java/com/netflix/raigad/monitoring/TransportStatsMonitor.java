@@ -18,32 +18,35 @@ package com.netflix.raigad.monitoring;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.netflix.raigad.configuration.IConfiguration;
-import com.netflix.raigad.scheduler.SimpleTimer;
 import com.netflix.raigad.scheduler.Task;
-import com.netflix.raigad.scheduler.TaskTimer;
 import com.netflix.raigad.utils.ElasticsearchProcessMonitor;
-import com.netflix.raigad.utils.ElasticsearchTransportClient;
 import com.netflix.servo.annotations.DataSourceType;
 import com.netflix.servo.annotations.Monitor;
 import com.netflix.servo.monitor.Monitors;
-import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
-import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
-import org.elasticsearch.transport.TransportStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 @Singleton
 public class TransportStatsMonitor extends Task {
     private static final Logger logger = LoggerFactory.getLogger(TransportStatsMonitor.class);
     public static final String METRIC_NAME = "Elasticsearch_TransportMonitor";
+
+    private static final NodeStatsField SERVER_OPEN = NodeStatsField.of("transport.server_open");
+    private static final NodeStatsField RX_COUNT = NodeStatsField.of("transport.rx_count");
+    private static final NodeStatsField RX_SIZE = NodeStatsField.of("transport.rx_size_in_bytes");
+    private static final NodeStatsField TX_COUNT = NodeStatsField.of("transport.tx_count");
+    private static final NodeStatsField TX_SIZE = NodeStatsField.of("transport.tx_size_in_bytes");
+
     private final Elasticsearch_TransportStatsReporter transportStatsReporter;
+    private final NodeStatsSnapshotService nodeStatsSnapshotService;
 
     @Inject
-    public TransportStatsMonitor(IConfiguration config) {
+    public TransportStatsMonitor(IConfiguration config, NodeStatsSnapshotService nodeStatsSnapshotService) {
         super(config);
+        this.nodeStatsSnapshotService = nodeStatsSnapshotService;
+        this.nodeStatsSnapshotService.registerMetricGroup(NodeStatsMetricGroup.TRANSPORT);
         transportStatsReporter = new Elasticsearch_TransportStatsReporter();
         Monitors.registerObject(transportStatsReporter);
     }
@@ -60,34 +63,25 @@ public class TransportStatsMonitor extends Task {
         TransportStatsBean transportStatsBean = new TransportStatsBean();
 
         try {
-            NodesStatsResponse nodesStatsResponse = ElasticsearchTransportClient.getNodesStatsResponse(config);
-            NodeStats nodeStats = null;
-
-            List<NodeStats> nodeStatsList = nodesStatsResponse.getNodes();
-
-            if (nodeStatsList.size() > 0) {
-                nodeStats = nodeStatsList.get(0);
-            }
+            NodeStatsValues values = nodeStatsSnapshotService.getSnapshot(NodeStatsMetricGroup.TRANSPORT).getValues();
 
-            if (nodeStats == null) {
+            if (values == null) {
                 logger.info("Transport stats are not available (node stats is not available)");
                 return;
             }
 
-            TransportStats transportStats = nodeStats.getTransport();
-
-            if (transportStats == null) {
+            if (!values.has(SERVER_OPEN)) {
                 logger.info("Transport stats are not available");
                 return;
             }
 
-            transportStatsBean.serverOpen = transportStats.getServerOpen();
-            transportStatsBean.rxCount = transportStats.getRxCount();
-            transportStatsBean.rxSize = transportStats.getRxSize().getBytes();
-            transportStatsBean.rxSizeDelta = transportStats.getRxSize().getBytes() - transportStatsBean.rxSize;
-            transportStatsBean.txCount = transportStats.getTxCount();
-            transportStatsBean.txSize = transportStats.getTxSize().getBytes();
-            transportStatsBean.txSizeDelta = transportStats.getTxSize().getBytes() - transportStatsBean.txSize;
+            transportStatsBean.serverOpen = values.getLong(SERVER_OPEN);
+            transportStatsBean.rxCount = values.getLong(RX_COUNT);
+            transportStatsBean.rxSize = values.getLong(RX_SIZE);
+            transportStatsBean.rxSizeDelta = values.getLong(RX_SIZE) - transportStatsBean.rxSize;
+            transportStatsBean.txCount = values.getLong(TX_COUNT);
+            transportStatsBean.txSize = values.getLong(TX_SIZE);
+            transportStatsBean.txSizeDelta = values.getLong(TX_SIZE) - transportStatsBean.txSize;
         } catch (Exception e) {
             logger.warn("Failed to load transport stats data", e);
         }
@@ -148,10 +142,6 @@ public class TransportStatsMonitor extends Task {
         private long txSizeDelta;
     }
 
-    public static TaskTimer getTimer(String name) {
-        return new SimpleTimer(name, 60 * 1000);
-    }
-
     @Override
     public String getName() {
         return METRIC_NAME;
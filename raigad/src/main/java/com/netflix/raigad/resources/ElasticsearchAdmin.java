@@ -19,7 +19,9 @@ import com.google.inject.Inject;
 import com.netflix.raigad.configuration.IConfiguration;
 import com.netflix.raigad.defaultimpl.IElasticsearchProcess;
 import com.netflix.raigad.indexmanagement.ElasticsearchIndexManager;
-import com.netflix.raigad.utils.SystemUtils;
+import com.netflix.raigad.utils.ElasticsearchHttpClient;
+import org.apache.commons.lang.StringUtils;
+import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.slf4j.Logger;
@@ -29,9 +31,13 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 @Path("/v1/esadmin")
 @Produces(MediaType.APPLICATION_JSON)
@@ -44,12 +50,15 @@ public class ElasticsearchAdmin {
     private final IConfiguration config;
     private final IElasticsearchProcess esProcess;
     private final ElasticsearchIndexManager esIndexManager;
+    private final ElasticsearchHttpClient httpClient;
 
     @Inject
-    public ElasticsearchAdmin(IConfiguration config, IElasticsearchProcess esProcess, ElasticsearchIndexManager esIndexManager) {
+    public ElasticsearchAdmin(IConfiguration config, IElasticsearchProcess esProcess, ElasticsearchIndexManager esIndexManager,
+                              ElasticsearchHttpClient httpClient) {
         this.config = config;
         this.esProcess = esProcess;
         this.esIndexManager = esIndexManager;
+        this.httpClient = httpClient;
     }
 
     @GET
@@ -82,6 +91,48 @@ public class ElasticsearchAdmin {
         return Response.ok(REST_SUCCESS, MediaType.APPLICATION_JSON).build();
     }
 
+    /**
+     * Reopens closed indices, given as a comma-separated list and/or an inclusive name range,
+     * e.g. /reopen_indices?from=nf_errors_log20171201&to=nf_errors_log20171207&ttl_minutes=120
+     */
+    @GET
+    @Path("/reopen_indices")
+    public Response reopenIndices(
+            @QueryParam("index") String indices,
+            @QueryParam("from") String fromIndexName,
+            @QueryParam("to") String toIndexName,
+            @QueryParam("ttl_minutes") Integer ttlMinutes) throws Exception {
+        logger.info("Reopening closed indices through a REST call...");
+
+        List<String> indexNames = StringUtils.isBlank(indices)
+                ? Collections.emptyList()
+                : Arrays.asList(StringUtils.stripAll(StringUtils.split(indices, ",")));
+
+        if (indexNames.isEmpty() && (StringUtils.isBlank(fromIndexName) || StringUtils.isBlank(toIndexName))) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Either index or from and to must be provided").build();
+        }
+
+        if (ttlMinutes != null && ttlMinutes <= 0) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("ttl_minutes must be positive").build();
+        }
+
+        try {
+            List<String> reopenedIndices = esIndexManager.reopenIndices(indexNames, fromIndexName, toIndexName,
+                    ttlMinutes == null ? config.getIndexReopenTtlMinutes() : ttlMinutes);
+
+            JSONArray jsonArray = new JSONArray();
+            jsonArray.addAll(reopenedIndices);
+
+            return Response.ok(jsonArray.toJSONString(), MediaType.APPLICATION_JSON).build();
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid reopen request: {}", e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (IllegalStateException e) {
+            logger.warn("Cannot reopen indices: {}", e.getMessage());
+            return Response.status(Response.Status.CONFLICT).entity(e.getMessage()).build();
+        }
+    }
+
 
     @GET
     @Path("/existingRepositories")
@@ -89,7 +140,7 @@ public class ElasticsearchAdmin {
         logger.info("Retrieving existing repositories through a REST call...");
 
         String URL = "http://127.0.0.1:" + config.getHttpPort() + "/_snapshot/";
-        String RESPONSE = SystemUtils.runHttpGetCommand(URL);
+        String RESPONSE = httpClient.get(URL);
         JSONObject jsonObject = (JSONObject) new JSONParser().parse(RESPONSE);
 
         return Response.ok(jsonObject, MediaType.APPLICATION_JSON).build();
@@ -110,7 +161,7 @@ public class ElasticsearchAdmin {
         property.put(SHARD_REALLOCATION_PROPERTY, "all");
         settings.put(type, property);
 
-        String response = SystemUtils.runHttpPutCommand(url, settings.toJSONString());
+        String response = httpClient.put(url, settings.toJSONString());
 
         return Response.ok(response, MediaType.APPLICATION_JSON).build();
     }
@@ -130,7 +181,7 @@ public class ElasticsearchAdmin {
         property.put(SHARD_REALLOCATION_PROPERTY, "none");
         settings.put(type, property);
 
-        SystemUtils.runHttpPutCommand(url, settings.toJSONString());
+        httpClient.put(url, settings.toJSONString());
 
         return Response.ok(REST_SUCCESS, MediaType.APPLICATION_JSON).build();
     }
@@ -18,6 +18,10 @@ package com.netflix.raigad.resources;
 import com.google.inject.Inject;
 import com.netflix.raigad.backup.RestoreBackupManager;
 import com.netflix.raigad.backup.SnapshotBackupManager;
+import com.netflix.raigad.backup.SnapshotCoordinator;
+import com.netflix.raigad.backup.SnapshotGroup;
+import com.netflix.raigad.backup.SnapshotJob;
+import com.netflix.raigad.backup.SnapshotStatusTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,24 +44,61 @@ public class ElasticsearchBackup {
     private static final String REST_INDICES_NAME = "indices";
     private static final String REST_RESTORE_RENAME_PATTERN = "rename_pattern";
     private static final String REST_RESTORE_RENAME_REPLACEMENT = "rename_replacement";
+    private static final String REST_JOB_ID = "job_id";
+    private static final String REST_SNAPSHOT_GROUP = "group";
 
     private final SnapshotBackupManager snapshotBackupManager;
     private final RestoreBackupManager restoreBackupManager;
+    private final SnapshotStatusTracker snapshotStatusTracker;
+    private final SnapshotCoordinator snapshotCoordinator;
 
     @Inject
-    public ElasticsearchBackup(SnapshotBackupManager snapshotBackupManager, RestoreBackupManager restoreBackupManager) {
+    public ElasticsearchBackup(SnapshotBackupManager snapshotBackupManager, RestoreBackupManager restoreBackupManager,
+                               SnapshotStatusTracker snapshotStatusTracker, SnapshotCoordinator snapshotCoordinator) {
         this.snapshotBackupManager = snapshotBackupManager;
         this.restoreBackupManager = restoreBackupManager;
+        this.snapshotStatusTracker = snapshotStatusTracker;
+        this.snapshotCoordinator = snapshotCoordinator;
     }
 
     @GET
     @Path("/do_snapshot")
-    public Response snapshot() throws Exception {
+    public Response snapshot(@QueryParam(REST_SNAPSHOT_GROUP) String groupName) throws Exception {
         logger.info("Running snapshot through a REST call...");
 
-        snapshotBackupManager.runSnapshotBackup();
+        SnapshotJob job;
+        if (groupName == null) {
+            job = snapshotBackupManager.runSnapshotBackup();
+        } else {
+            SnapshotGroup group = snapshotCoordinator.getGroup(groupName);
+            if (group == null) {
+                return Response.status(Response.Status.NOT_FOUND).entity("Unknown snapshot group " + groupName).build();
+            }
+            job = snapshotBackupManager.runSnapshotBackup(group);
+        }
 
-        return Response.ok(REST_SUCCESS, MediaType.APPLICATION_JSON).build();
+        return Response.ok(job.toJson().toJSONString(), MediaType.APPLICATION_JSON).build();
+    }
+
+    /**
+     * Progress of the snapshot job returned by do_snapshot, or of the most recent snapshot if no job id is given
+     */
+    @GET
+    @Path("/snapshot_status")
+    public Response snapshotStatus(@QueryParam(REST_JOB_ID) String jobId) {
+        SnapshotJob job = jobId == null ? snapshotStatusTracker.getLatestJob() : snapshotStatusTracker.getJob(jobId);
+
+        if (job == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+
+        return Response.ok(job.toJson().toJSONString(), MediaType.APPLICATION_JSON).build();
+    }
+
+    @GET
+    @Path("/snapshot_groups")
+    public Response snapshotGroups() throws Exception {
+        return Response.ok(snapshotCoordinator.toJson().toJSONString(), MediaType.APPLICATION_JSON).build();
     }
 
     @GET
@@ -21,20 +21,25 @@ import com.google.inject.Inject;
 import com.google.inject.name.Named;
 import com.netflix.raigad.configuration.IConfigSource;
 import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.identity.InstanceManager;
+import com.netflix.raigad.identity.MembershipDelta;
 import com.netflix.raigad.identity.RaigadInstance;
 import com.netflix.raigad.startup.RaigadServer;
 import com.netflix.raigad.utils.ElasticsearchUtils;
 import com.netflix.raigad.utils.TribeUtils;
 import org.apache.commons.lang.StringUtils;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.Arrays;
@@ -51,31 +56,35 @@ public class ElasticsearchConfig {
     private final RaigadServer raigadServer;
     private final TribeUtils tribeUtils;
     private final IConfigSource configSrc;
+    private final NodesResponseCache nodesResponseCache;
 
     @Inject
-    public ElasticsearchConfig(RaigadServer raigadServer, TribeUtils tribeUtils, @Named("custom") IConfigSource configSrc, IConfiguration config) {
+    public ElasticsearchConfig(RaigadServer raigadServer, TribeUtils tribeUtils, @Named("custom") IConfigSource configSrc,
+                               IConfiguration config, NodesResponseCache nodesResponseCache) {
         this.raigadServer = raigadServer;
         this.tribeUtils = tribeUtils;
         this.configSrc = configSrc;
+        this.nodesResponseCache = nodesResponseCache;
         this.configSrc.initialize(config);
     }
 
     @GET
     @Path("/get_nodes")
     @Produces(MediaType.TEXT_PLAIN)
-    public Response getNodes() {
+    public Response getNodes(@HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
         try {
-            logger.info("Getting cluster nodes");
-            final List<RaigadInstance> instances = raigadServer.getInstanceManager().getAllInstances();
+            logger.debug("Getting cluster nodes");
+            final InstanceManager instanceManager = raigadServer.getInstanceManager();
+            final long version = instanceManager.getMembershipVersion();
+            final List<RaigadInstance> instances = instanceManager.getAllInstances();
 
             if (instances == null) {
                 logger.error("Error getting cluster nodes");
                 return Response.serverError().build();
             }
 
-            logger.info("Got {} instances", instances.size());
-            JSONObject raigadJson = ElasticsearchUtils.transformRaigadInstanceToJson(instances);
-            return Response.ok(raigadJson.toString()).build();
+            logger.debug("Got {} instances", instances.size());
+            return nodesResponse("nodes", version, instances, instanceManager, ifNoneMatch);
         } catch (Exception e) {
             logger.error("Error getting nodes (getNodes)", e);
             return Response.serverError().build();
@@ -85,7 +94,7 @@ public class ElasticsearchConfig {
     @GET
     @Path("/get_tribe_nodes/{id}")
     @Produces(MediaType.TEXT_PLAIN)
-    public Response getTribeNodes(@PathParam("id") String id) {
+    public Response getTribeNodes(@PathParam("id") String id, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
         try {
             logger.info("Getting nodes for the source tribe cluster [{}]", id);
 
@@ -99,23 +108,82 @@ public class ElasticsearchConfig {
 
             logger.info("Found source tribe cluster {} with ID [{}]", sourceTribeClusterName, id);
 
-            final List<RaigadInstance> instances =
-                    raigadServer.getInstanceManager().getAllInstancesPerCluster(sourceTribeClusterName);
+            final InstanceManager instanceManager = raigadServer.getInstanceManager();
+            final long version = instanceManager.getMembershipVersion();
+            final List<RaigadInstance> instances = instanceManager.getAllInstancesPerCluster(sourceTribeClusterName);
 
             if (instances == null) {
                 logger.error("Error getting source tribe cluster nodes for {}", sourceTribeClusterName);
                 return Response.serverError().build();
             }
 
-            logger.info("Got {} instances for {}", instances.size(), sourceTribeClusterName);
-            JSONObject raigadJson = ElasticsearchUtils.transformRaigadInstanceToJson(instances);
-            return Response.ok(raigadJson.toString()).build();
+            logger.debug("Got {} instances for {}", instances.size(), sourceTribeClusterName);
+            return nodesResponse("tribe_nodes/" + sourceTribeClusterName, version, instances, instanceManager, ifNoneMatch);
         } catch (Exception e) {
             logger.error("Exception getting nodes (getTribeNodes)", e);
             return Response.serverError().build();
         }
     }
 
+    /**
+     * Returns only the instances added, changed or removed since the version the caller got last time.
+     * Callers without a version (or with one that is no longer known) get the full list with "full": true.
+     */
+    @GET
+    @Path("/get_nodes_delta")
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getNodesDelta(@QueryParam("since") @DefaultValue("0") long sinceVersion) {
+        try {
+            MembershipDelta delta = raigadServer.getInstanceManager().getAllInstancesDelta(sinceVersion);
+            logger.debug("Membership delta since {}: {} updated, {} removed, full = {}",
+                    sinceVersion, delta.getInstances().size(), delta.getRemovedIds().size(), delta.isFull());
+            return Response.ok(ElasticsearchUtils.transformMembershipDeltaToJson(delta).toString()).build();
+        } catch (Exception e) {
+            logger.error("Error getting nodes (getNodesDelta)", e);
+            return Response.serverError().build();
+        }
+    }
+
+    @GET
+    @Path("/get_tribe_nodes_delta/{id}")
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getTribeNodesDelta(@PathParam("id") String id, @QueryParam("since") @DefaultValue("0") long sinceVersion) {
+        try {
+            String sourceTribeClusterName = tribeUtils.getTribeClusterNameFromId(id);
+
+            if (StringUtils.isEmpty(sourceTribeClusterName)) {
+                logger.error("Source tribe cluster name is null or empty, check configuration");
+                return Response.serverError().build();
+            }
+
+            MembershipDelta delta = raigadServer.getInstanceManager()
+                    .getAllInstancesPerClusterDelta(sourceTribeClusterName, sinceVersion);
+            logger.debug("Membership delta of {} since {}: {} updated, {} removed, full = {}", sourceTribeClusterName,
+                    sinceVersion, delta.getInstances().size(), delta.getRemovedIds().size(), delta.isFull());
+            return Response.ok(ElasticsearchUtils.transformMembershipDeltaToJson(delta).toString()).build();
+        } catch (Exception e) {
+            logger.error("Exception getting nodes (getTribeNodesDelta)", e);
+            return Response.serverError().build();
+        }
+    }
+
+    /**
+     * Serves the cached payload for the current membership version, or 304 if the caller already has it.
+     * The payload is not cached if membership changed while the instances were being read.
+     */
+    private Response nodesResponse(String key, long version, List<RaigadInstance> instances,
+                                   InstanceManager instanceManager, String ifNoneMatch) {
+        boolean cacheable = version == instanceManager.getMembershipVersion();
+        NodesResponseCache.SerializedNodes nodes = nodesResponseCache.get(key, version, instances, cacheable);
+        EntityTag eTag = new EntityTag(nodes.getETag());
+
+        if (nodes.matches(ifNoneMatch)) {
+            return Response.notModified(eTag).build();
+        }
+
+        return Response.ok(nodes.getBody()).tag(eTag).build();
+    }
+
     @GET
     @Path("/get_prop/{names}")
     @Produces(MediaType.APPLICATION_JSON)
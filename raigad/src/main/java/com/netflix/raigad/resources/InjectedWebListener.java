@@ -39,13 +39,10 @@ import com.netflix.raigad.identity.CassandraInstanceFactory;
 import com.netflix.raigad.identity.EurekaHostsSupplier;
 import com.netflix.raigad.identity.HostSupplier;
 import com.netflix.raigad.identity.IRaigadInstanceFactory;
-import com.netflix.raigad.scheduler.GuiceJobFactory;
 import com.netflix.raigad.startup.RaigadServer;
 import com.sun.jersey.api.core.PackagesResourceConfig;
 import com.sun.jersey.guice.spi.container.servlet.GuiceContainer;
 import com.sun.jersey.spi.container.servlet.ServletContainer;
-import org.quartz.SchedulerFactory;
-import org.quartz.impl.StdSchedulerFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -104,14 +101,12 @@ public class InjectedWebListener extends GuiceServletContextListener {
 
             // Fix bug in Jersey-Guice integration exposed by child injectors
             binder().bind(GuiceContainer.class).asEagerSingleton();
-            binder().bind(GuiceJobFactory.class).asEagerSingleton();
             binder().bind(IRaigadInstanceFactory.class).to(CassandraInstanceFactory.class);
 
             // TODO: Use config.getCredentialProvider() instead of IAMCredential
             binder().bind(ICredential.class).to(IAMCredential.class);
             binder().bind(AbstractRepository.class).annotatedWith(Names.named("s3")).to(S3Repository.class);
             binder().bind(AbstractRepositorySettingsParams.class).annotatedWith(Names.named("s3")).to(S3RepositorySettingsParams.class);
-            bind(SchedulerFactory.class).to(StdSchedulerFactory.class).asEagerSingleton();
             bind(HostSupplier.class).to(EurekaHostsSupplier.class).in(Scopes.SINGLETON);
             binder().bind(IConfigSource.class).annotatedWith(Names.named("custom")).to(CompositeConfigSource.class);
         }
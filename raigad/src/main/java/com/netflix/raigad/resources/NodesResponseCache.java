@@ -0,0 +1,100 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.resources;
+
+import com.google.common.hash.Hashing;
+import com.google.inject.Singleton;
+import com.netflix.raigad.identity.RaigadInstance;
+import com.netflix.raigad.utils.ElasticsearchUtils;
+import org.apache.commons.lang.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the serialized get_nodes / get_tribe_nodes payloads so they are only rebuilt
+ * when the membership version reported by {@link com.netflix.raigad.identity.MembershipCache} changes.
+ * <p>
+ * The ETag is derived from the payload bytes rather than the version,
+ * so it stays valid for the discovery plugin across Raigad restarts.
+ */
+@Singleton
+public class NodesResponseCache {
+    private final ConcurrentMap<String, SerializedNodes> payloads = new ConcurrentHashMap<>();
+
+    /**
+     * @param key        payload name, e.g. "nodes" or "tribe_nodes/es_tribe_source1"
+     * @param version    membership version the instances were read at
+     * @param instances  current instances, only serialized if the cached payload is outdated
+     * @param cacheable  false if membership changed while the instances were read
+     */
+    public SerializedNodes get(String key, long version, List<RaigadInstance> instances, boolean cacheable) {
+        SerializedNodes cached = payloads.get(key);
+        if (cached != null && cached.version == version) {
+            return cached;
+        }
+
+        byte[] body = ElasticsearchUtils.transformRaigadInstanceToJson(instances).toString().getBytes(StandardCharsets.UTF_8);
+        SerializedNodes serialized = new SerializedNodes(version, body, Hashing.murmur3_128().hashBytes(body).toString());
+
+        if (cacheable) {
+            payloads.put(key, serialized);
+        }
+
+        return serialized;
+    }
+
+    public static final class SerializedNodes {
+        private final long version;
+        private final byte[] body;
+        private final String eTag;
+
+        SerializedNodes(long version, byte[] body, String eTag) {
+            this.version = version;
+            this.body = body;
+            this.eTag = eTag;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * @param ifNoneMatch value of the If-None-Match request header, may be null
+         * @return true if the client already holds this payload
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (StringUtils.isBlank(ifNoneMatch)) {
+                return false;
+            }
+
+            for (String tag : StringUtils.split(ifNoneMatch, ",")) {
+                String value = StringUtils.removeStart(tag.trim(), "W/");
+                if ("*".equals(value) || eTag.equals(StringUtils.strip(value, "\""))) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.resources;
+
+import com.google.inject.Inject;
+import com.netflix.raigad.scheduler.RaigadScheduler;
+import com.netflix.raigad.scheduler.Task;
+import com.netflix.raigad.scheduler.TaskStats;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.Map;
+
+/**
+ * Lists scheduled tasks with their execution statistics
+ */
+@Path("/v1/tasks")
+@Produces(MediaType.APPLICATION_JSON)
+public class ScheduledTasks {
+    private final RaigadScheduler scheduler;
+
+    @Inject
+    public ScheduledTasks(RaigadScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @GET
+    @SuppressWarnings("unchecked")
+    public Response listTasks() {
+        JSONArray tasks = new JSONArray();
+
+        for (Map.Entry<String, Task> entry : scheduler.getTasks().entrySet()) {
+            Task task = entry.getValue();
+            TaskStats stats = task.getStats();
+
+            JSONObject durationHistogram = new JSONObject();
+            durationHistogram.putAll(stats.getDurationHistogram());
+
+            JSONObject json = new JSONObject();
+            json.put("name", entry.getKey());
+            json.put("class", task.getClass().getName());
+            json.put("state", task.state().name());
+            json.put("executions", task.getExecutionCount());
+            json.put("errors", task.getErrorCount());
+            json.put("skipped", stats.getSkippedCount());
+            json.put("next_fire_time", scheduler.getNextFireTime(entry.getKey()));
+            json.put("last_start_time", stats.getLastStartTime());
+            json.put("last_success_time", stats.getLastSuccessTime());
+            json.put("last_duration_millis", stats.getLastDurationMillis());
+            json.put("last_lag_millis", stats.getLastLagMillis());
+            json.put("duration_histogram_millis", durationHistogram);
+            tasks.add(json);
+        }
+
+        return Response.ok(tasks.toJSONString(), MediaType.APPLICATION_JSON).build();
+    }
+}
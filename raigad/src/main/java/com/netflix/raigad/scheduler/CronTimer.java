@@ -16,18 +16,19 @@
 package com.netflix.raigad.scheduler;
 
 import org.apache.commons.lang.StringUtils;
-import org.quartz.CronTrigger;
-import org.quartz.Scheduler;
-import org.quartz.Trigger;
+import org.quartz.CronExpression;
 
 import java.text.ParseException;
+import java.util.Date;
 
 /**
- * Runs jobs at the specified absolute time and frequency
+ * Runs jobs at the specified absolute time and frequency.
+ * Expressions use the Quartz cron syntax (seconds first) and the JVM default time zone.
  */
 public class CronTimer implements TaskTimer {
     private String cronExpression;
     private String triggerName;
+    private CronExpression parsedExpression;
 
     public enum DayOfWeek {
         SUN, MON, TUE, WED, THU, FRI, SAT
@@ -77,11 +78,17 @@ public class CronTimer implements TaskTimer {
         this.cronExpression = expression;
     }
 
-    public Trigger getTrigger() throws ParseException {
-        if (StringUtils.isNotBlank(triggerName)) {
-            return new CronTrigger("CronTrigger" + triggerName, Scheduler.DEFAULT_GROUP, cronExpression);
-        } else {
-            return new CronTrigger("CronTrigger", Scheduler.DEFAULT_GROUP, cronExpression);
+    public synchronized long getNextFireTime(long previousFireTime, long now) throws ParseException {
+        if (parsedExpression == null) {
+            parsedExpression = new CronExpression(cronExpression);
         }
+
+        Date next = parsedExpression.getNextValidTimeAfter(new Date(Math.max(previousFireTime, now)));
+        return next == null ? -1 : next.getTime();
+    }
+
+    @Override
+    public String toString() {
+        return StringUtils.isNotBlank(triggerName) ? "CronTimer" + triggerName + "[" + cronExpression + "]" : "CronTimer[" + cronExpression + "]";
     }
 }
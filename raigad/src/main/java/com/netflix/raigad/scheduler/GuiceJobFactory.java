@@ -1,46 +0,0 @@
-/**
- * Copyright 2017 Netflix, Inc.
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package com.netflix.raigad.scheduler;
-
-import org.quartz.Job;
-import org.quartz.JobDetail;
-import org.quartz.SchedulerException;
-import org.quartz.spi.JobFactory;
-import org.quartz.spi.TriggerFiredBundle;
-
-import com.google.inject.Inject;
-import com.google.inject.Injector;
-
-public class GuiceJobFactory implements JobFactory
-{
-    public final Injector guice;
-
-    @Inject
-    public GuiceJobFactory(Injector guice)
-    {
-        this.guice = guice;
-    }
-
-    @Override
-    public Job newJob(TriggerFiredBundle bundle) throws SchedulerException
-    {
-        JobDetail jobDetail = bundle.getJobDetail();
-        Class<?> jobClass = jobDetail.getJobClass();
-        Job job = (Job) guice.getInstance(jobClass);
-        guice.injectMembers(job);
-        return job;
-    }
-}
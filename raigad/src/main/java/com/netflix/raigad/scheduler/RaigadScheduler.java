@@ -15,119 +15,298 @@
  */
 package com.netflix.raigad.scheduler;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
+import com.google.inject.Injector;
 import com.google.inject.Singleton;
-import com.netflix.raigad.utils.Sleeper;
-import org.quartz.JobDetail;
-import org.quartz.Scheduler;
-import org.quartz.SchedulerException;
-import org.quartz.SchedulerFactory;
+import com.netflix.raigad.configuration.IConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.text.ParseException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Scheduling class to schedule Raigad tasks. Uses Quartz scheduler
+ * Scheduling class to schedule Raigad tasks.
+ * <p>
+ * All tasks share a fixed pool of {@link IConfiguration#getSchedulerThreadCount()} daemon threads.
+ * Fire times are shifted by a phase offset derived from the instance id, so the same task on different nodes of a
+ * cluster does not hit the master and the metrics backend at the same instant. Tasks repeating at a fixed rate are
+ * spread over their whole interval, other tasks over {@link IConfiguration#getSchedulerMaxStartJitterMillis()}.
+ * All tasks of one instance share the offset for a given interval, so monitors sharing a node stats snapshot still
+ * fire together.
+ * The next run of a task is only scheduled once the current one returns, so a slow run never overlaps the next one.
+ * Fire times a slow run overran are dropped and counted as skipped runs of the task.
  */
 @Singleton
 public class RaigadScheduler
 {
     private static final Logger logger = LoggerFactory.getLogger(RaigadScheduler.class);
-    private final Scheduler scheduler;
-    private final GuiceJobFactory jobFactory;
-    private final Sleeper sleeper;
+    private final IConfiguration config;
+    private final Injector injector;
+    private final Map<String, ScheduledTask> tasks = new ConcurrentHashMap<>();
+    private ScheduledThreadPoolExecutor executor;
 
     @Inject
-    public RaigadScheduler(SchedulerFactory factory, GuiceJobFactory jobFactory, Sleeper sleeper)
+    public RaigadScheduler(IConfiguration config, Injector injector)
     {
-        try
+        this.config = config;
+        this.injector = injector;
+    }
+
+    /**
+     * Add a task to the scheduler
+     */
+    public void addTask(String name, Class<? extends Task> taskclass, TaskTimer timer) throws ParseException
+    {
+        addTaskWithDelay(name, taskclass, timer, 0);
+    }
+
+    /**
+     * Add a delayed task to the scheduler
+     */
+    public synchronized void addTaskWithDelay(String name, Class<? extends Task> taskclass, TaskTimer timer, int delayInSeconds) throws ParseException
+    {
+        assert timer != null : "Cannot add scheduler task " + name + " as no timer is set";
+        if (tasks.containsKey(name))
         {
-            this.scheduler = factory.getScheduler();
-            this.scheduler.setJobFactory(jobFactory);
-            this.jobFactory = jobFactory;
+            throw new IllegalStateException("Scheduler task " + name + " already exists");
         }
-        catch (SchedulerException e)
+
+        long period = timer.getInterval() > 0 ? timer.getInterval() : config.getSchedulerMaxStartJitterMillis();
+        long offsetMillis = getPhaseOffset(config.getInstanceId(), period);
+        ScheduledTask task = new ScheduledTask(name, taskclass, timer, offsetMillis);
+
+        // Fail fast on invalid cron expressions
+        long firstFireTime = timer.getNextFireTime(-1, System.currentTimeMillis() + delayInSeconds * 1000L - offsetMillis);
+        if (firstFireTime < 0)
+        {
+            logger.warn("Scheduler task {} will never run, not adding it", name);
+            return;
+        }
+
+        tasks.put(name, task);
+        task.nominalFireTime = firstFireTime;
+        if (executor != null)
         {
-            throw new RuntimeException(e);
+            task.schedule();
         }
-        this.sleeper = sleeper;
     }
 
     /**
-     * Add a task to the scheduler
+     * @return offset in [0, period) that is stable for the instance id
      */
-    public void addTask(String name, Class<? extends Task> taskclass, TaskTimer timer) throws SchedulerException, ParseException
+    static long getPhaseOffset(String instanceId, long period)
     {
-        assert timer != null : "Cannot add scheduler task " + name + " as no timer is set";
-        JobDetail job = new JobDetail(name, Scheduler.DEFAULT_GROUP, taskclass);
-        scheduler.scheduleJob(job, timer.getTrigger());
+        if (period <= 0 || instanceId == null)
+        {
+            return 0;
+        }
+
+        // Murmur3 finalizer, spreads ids that only differ in a few characters
+        int hash = instanceId.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return Math.floorMod((long) hash, period);
+    }
+
+    public void runTaskNow(Class<? extends Task> taskclass) throws Exception
+    {
+        if (!injector.getInstance(taskclass).tryExecute())
+        {
+            logger.info("{} is already running, not running it again", taskclass.getSimpleName());
+        }
     }
 
     /**
-     * Add a delayed task to the scheduler
+     * @return scheduled tasks that have been instantiated by a first run, keyed by scheduler task name
      */
-    public void addTaskWithDelay(final String name, Class<? extends Task> taskclass, final TaskTimer timer, final int delayInSeconds) throws SchedulerException, ParseException
+    public Map<String, Task> getTasks()
     {
-        assert timer != null : "Cannot add scheduler task " + name + " as no timer is set";
-        final JobDetail job = new JobDetail(name, Scheduler.DEFAULT_GROUP, taskclass);
-        
-        new Thread(new Runnable(){
-            public void run()
+        Map<String, Task> scheduledTasks = new TreeMap<>();
+        for (ScheduledTask scheduledTask : tasks.values())
+        {
+            if (scheduledTask.task != null)
             {
-                try
-                {
-                        sleeper.sleepQuietly(delayInSeconds * 1000L);
-                        scheduler.scheduleJob(job, timer.getTrigger());
-                }
-                catch (SchedulerException e)
-                {
-                    logger.warn("problem occurred while scheduling a job with name " + name, e);
-                }
-                catch (ParseException e)
-                {
-                    logger.warn("problem occurred while parsing a job with name " + name, e);
-                }
+                scheduledTasks.put(scheduledTask.name, scheduledTask.task);
             }
-        }).start();
+        }
+        return scheduledTasks;
     }
-    
-    public void runTaskNow(Class<? extends Task> taskclass) throws Exception
+
+    /**
+     * @return time in millis the task is due next, or -1 if no such task is scheduled
+     */
+    public long getNextFireTime(String name)
     {
-        jobFactory.guice.getInstance(taskclass).execute(null);
+        ScheduledTask scheduledTask = tasks.get(name);
+        return scheduledTask == null ? -1 : scheduledTask.nominalFireTime + scheduledTask.offsetMillis;
     }
 
-    public void deleteTask(String name) throws SchedulerException, ParseException
+    public synchronized void deleteTask(String name)
     {
-        scheduler.deleteJob(name, Scheduler.DEFAULT_GROUP);
+        ScheduledTask task = tasks.remove(name);
+        if (task != null)
+        {
+            task.cancel();
+        }
     }
 
-    public final Scheduler getScheduler()
+    public synchronized void shutdown()
     {
-        return scheduler;
+        for (ScheduledTask task : tasks.values())
+        {
+            task.cancel();
+        }
+        tasks.clear();
+
+        if (executor != null)
+        {
+            // Running tasks are left to finish, pending ones are dropped
+            executor.shutdown();
+        }
     }
 
-    public void shutdown()
+    public synchronized void start()
     {
-        try
+        if (executor != null)
         {
-            scheduler.shutdown();
+            return;
         }
-        catch (SchedulerException e)
+
+        executor = new ScheduledThreadPoolExecutor(config.getSchedulerThreadCount(),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("RaigadScheduler-%d").build());
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor.setRemoveOnCancelPolicy(true);
+
+        for (ScheduledTask task : tasks.values())
         {
-            throw new RuntimeException(e);
+            task.schedule();
         }
     }
 
-    public void start()
+    private final class ScheduledTask implements Runnable
     {
-        try
+        private final String name;
+        private final Class<? extends Task> taskclass;
+        private final TaskTimer timer;
+        private final long offsetMillis;
+        private volatile long nominalFireTime;
+        private volatile boolean cancelled;
+        private volatile Task task;
+        private ScheduledFuture<?> future;
+
+        private ScheduledTask(String name, Class<? extends Task> taskclass, TaskTimer timer, long offsetMillis)
+        {
+            this.name = name;
+            this.taskclass = taskclass;
+            this.timer = timer;
+            this.offsetMillis = offsetMillis;
+        }
+
+        @Override
+        public void run()
+        {
+            if (cancelled)
+            {
+                return;
+            }
+
+            try
+            {
+                if (task == null)
+                {
+                    task = injector.getInstance(taskclass);
+                }
+
+                if (!task.tryExecute(nominalFireTime + offsetMillis))
+                {
+                    logger.info("Skipping scheduled run of {}, previous run is still in progress", name);
+                }
+            }
+            catch (Throwable e)
+            {
+                logger.error("Failed to run scheduler task " + name, e);
+            }
+
+            try
+            {
+                // Fire times are computed without the offset so timers keep their alignment
+                long next = timer.getNextFireTime(nominalFireTime, System.currentTimeMillis() - offsetMillis);
+                if (next < 0)
+                {
+                    tasks.remove(name, this);
+                    return;
+                }
+
+                int skipped = countFireTimesBetween(nominalFireTime, next);
+                if (skipped > 0 && task != null)
+                {
+                    logger.info("Skipping {} scheduled runs of {}, previous run overran them", skipped, name);
+                    for (int i = 0; i < skipped; i++)
+                    {
+                        task.getStats().recordSkipped();
+                    }
+                }
+                nominalFireTime = next;
+                schedule();
+            }
+            catch (ParseException e)
+            {
+                logger.warn("problem occurred while parsing a job with name " + name, e);
+            }
+        }
+
+        /**
+         * @return number of fire times of the timer strictly between the two fire times
+         */
+        private int countFireTimesBetween(long fireTime, long nextFireTime) throws ParseException
+        {
+            long interval = timer.getInterval();
+            if (interval > 0)
+            {
+                return (int) Math.max(0, (nextFireTime - fireTime) / interval - 1);
+            }
+
+            int count = 0;
+            for (long skipped = timer.getNextFireTime(fireTime, fireTime);
+                 skipped >= 0 && skipped < nextFireTime;
+                 skipped = timer.getNextFireTime(skipped, skipped))
+            {
+                count++;
+            }
+            return count;
+        }
+
+        private void schedule()
         {
-            scheduler.start();
+            synchronized (RaigadScheduler.this)
+            {
+                if (cancelled || executor == null || executor.isShutdown())
+                {
+                    return;
+                }
+
+                long delayMillis = Math.max(0, nominalFireTime + offsetMillis - System.currentTimeMillis());
+                future = executor.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
+            }
         }
-        catch (SchedulerException ex)
+
+        private void cancel()
         {
-            throw new RuntimeException(ex);
+            cancelled = true;
+            if (future != null)
+            {
+                future.cancel(false);
+            }
         }
     }
 }
@@ -15,24 +15,23 @@
  */
 package com.netflix.raigad.scheduler;
 
-import org.quartz.Scheduler;
-import org.quartz.SimpleTrigger;
-import org.quartz.Trigger;
-
-import java.text.ParseException;
-import java.util.Date;
-
 /**
  * SimpleTimer allows jobs to run starting from specified time occurring at
  * regular frequency's. Frequency of the execution timestamp since epoch.
+ * <p>
+ * Repeating runs are aligned to multiples of the interval since epoch, so instances sharing a timer only differ by
+ * the phase offset {@link RaigadScheduler} adds per instance. A run that overruns its interval skips the missed slots
+ * instead of causing a burst of catch-up runs.
  */
 public class SimpleTimer implements TaskTimer
 {
-    private SimpleTrigger trigger;
+    private final long interval;
+    private final long startTime;
 
     public SimpleTimer(String name, long interval)
     {
-        this.trigger = new SimpleTrigger(name, SimpleTrigger.REPEAT_INDEFINITELY, interval);
+        this.interval = interval;
+        this.startTime = -1;
     }
 
     /**
@@ -40,7 +39,8 @@ public class SimpleTimer implements TaskTimer
      */
     public SimpleTimer(String name, String group, long startTime)
     {
-        this.trigger = new SimpleTrigger(name, group, new Date(startTime));
+        this.interval = 0;
+        this.startTime = startTime;
     }
 
     /**
@@ -48,12 +48,31 @@ public class SimpleTimer implements TaskTimer
      */
     public SimpleTimer(String name)
     {
-        this.trigger = new SimpleTrigger(name, Scheduler.DEFAULT_GROUP);
+        this.interval = 0;
+        this.startTime = -1;
+    }
+
+    public long getNextFireTime(long previousFireTime, long now)
+    {
+        if (interval <= 0)
+        {
+            return previousFireTime < 0 ? Math.max(startTime, now) : -1;
+        }
+
+        long next = previousFireTime < 0 ? now : previousFireTime + interval;
+        if (next < now)
+        {
+            next = now;
+        }
+
+        // Round up to the next slot
+        long remainder = Math.floorMod(next, interval);
+        return remainder == 0 ? next : next - remainder + interval;
     }
 
-    public Trigger getTrigger() throws ParseException
+    @Override
+    public long getInterval()
     {
-        trigger.setMisfireInstruction(SimpleTrigger.MISFIRE_INSTRUCTION_FIRE_NOW);
-        return trigger;
+        return interval;
     }
 }
@@ -17,26 +17,24 @@ package com.netflix.raigad.scheduler;
 
 import com.google.common.base.Throwables;
 import com.netflix.raigad.configuration.IConfiguration;
-import org.quartz.Job;
-import org.quartz.JobExecutionContext;
-import org.quartz.JobExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
 import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Task class that should be implemented by all cron tasks. Jobconf will contain
  * any instance specific data
  * 
- * NOTE: Constructor must not throw any exception. This will cause Quartz to set the job to failure
+ * NOTE: Constructor must not throw any exception. This will cause the scheduler to skip every run of the task
  */
-public abstract class Task implements Job, TaskMBean
+public abstract class Task implements TaskMBean
 {
-    public STATE status = STATE.DONE;
+    private volatile STATE status = STATE.DONE;
 
     public static enum STATE
     {
@@ -47,6 +45,8 @@ public abstract class Task implements Job, TaskMBean
     private static final Logger logger = LoggerFactory.getLogger(Task.class);
     private final AtomicInteger errors = new AtomicInteger();
     private final AtomicInteger executions = new AtomicInteger();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final TaskStats stats;
 
     protected Task(IConfiguration config)
     {
@@ -55,11 +55,13 @@ public abstract class Task implements Job, TaskMBean
 
     protected Task(IConfiguration config, MBeanServer mBeanServer) {
         this.config = config;
+        this.stats = new TaskStats(getClass().getSimpleName());
         // TODO: don't do mbean registration here
         String mbeanName = "com.netflix.raigad.scheduler:type=" + this.getClass().getName();
         try
         {
             mBeanServer.registerMBean(this, new ObjectName(mbeanName));
+            stats.register();
             initialize();
         }
         catch (Exception e)
@@ -80,33 +82,48 @@ public abstract class Task implements Job, TaskMBean
     public abstract void execute() throws Exception;
 
     /**
-     * Main method to execute a task
+     * Main method to execute a task. At most one execution of a task instance runs at any time.
+     *
+     * @return false if the task was skipped because a previous execution is still running
      */
-    public void execute(JobExecutionContext context) throws JobExecutionException
+    public boolean tryExecute()
     {
+        return tryExecute(-1);
+    }
+
+    /**
+     * @param dueTime time in millis the scheduler intended to run the task at, used to record scheduling lag
+     * @see #tryExecute()
+     */
+    public boolean tryExecute(long dueTime)
+    {
+        if (!running.compareAndSet(false, true))
+        {
+            stats.recordSkipped();
+            return false;
+        }
+
         executions.incrementAndGet();
+        long startTime = System.currentTimeMillis();
+        stats.recordStart(startTime, dueTime);
         try
         {
-            if (status == STATE.RUNNING)
-                return;
             status = STATE.RUNNING;
             execute();
-
+            status = STATE.DONE;
         }
-        catch (Exception e)
+        catch (Throwable e)
         {
             status = STATE.ERROR;
             logger.error("Couldnt execute the task because of " + e.getMessage(), e);
             errors.incrementAndGet();
         }
-        catch (Throwable e)
+        finally
         {
-            status = STATE.ERROR;
-            logger.error("Couldnt execute the task because of " + e.getMessage(), e);
-            errors.incrementAndGet();
+            stats.recordEnd(startTime, System.currentTimeMillis(), status == STATE.DONE);
+            running.set(false);
         }
-        if (status != STATE.ERROR)
-            status = STATE.DONE;
+        return true;
     }
 
     public STATE state()
@@ -124,6 +141,16 @@ public abstract class Task implements Job, TaskMBean
         return executions.get();
     }
 
+    public int getSkippedCount()
+    {
+        return stats.getSkippedCount();
+    }
+
+    public TaskStats getStats()
+    {
+        return stats;
+    }
+
     public abstract String getName();
 
 }
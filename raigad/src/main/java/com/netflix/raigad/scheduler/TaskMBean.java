@@ -23,5 +23,6 @@ public interface TaskMBean
 {
     public int getErrorCount();
     public int getExecutionCount();
+    public int getSkippedCount();
     public String getName();
 }
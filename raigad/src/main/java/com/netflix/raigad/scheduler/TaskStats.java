@@ -0,0 +1,154 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.scheduler;
+
+import com.netflix.servo.DefaultMonitorRegistry;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.BasicCounter;
+import com.netflix.servo.monitor.BasicTimer;
+import com.netflix.servo.monitor.MonitorConfig;
+import com.netflix.servo.monitor.Monitors;
+import com.netflix.servo.monitor.Timer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Execution statistics of a {@link Task}: run duration, scheduling lag (how late a run started compared to
+ * when it was due), runs skipped because the previous one was still in progress and the time of the last success.
+ * <p>
+ * Durations are also counted in fixed buckets so a task that is slow only some of the time stays visible
+ * next to the average reported by the duration timer.
+ */
+public class TaskStats {
+    static final long[] DURATION_BUCKET_MILLIS = {100, 1000, 10000, 60000, 600000, Long.MAX_VALUE};
+
+    private final String taskName;
+    private final Timer duration;
+    private final Timer lag;
+    private final BasicCounter[] durationBuckets = new BasicCounter[DURATION_BUCKET_MILLIS.length];
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicLong lastStartTime = new AtomicLong(-1);
+    private final AtomicLong lastSuccessTime = new AtomicLong(-1);
+    private final AtomicLong lastDurationMillis = new AtomicLong(-1);
+    private final AtomicLong lastLagMillis = new AtomicLong(-1);
+
+    TaskStats(String taskName) {
+        this.taskName = taskName;
+        this.duration = new BasicTimer(config("task_duration").build(), TimeUnit.MILLISECONDS);
+        this.lag = new BasicTimer(config("task_lag").build(), TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < DURATION_BUCKET_MILLIS.length; i++) {
+            durationBuckets[i] = new BasicCounter(config("task_duration_bucket").withTag("le_millis", bucketName(i)).build());
+        }
+    }
+
+    /**
+     * Publishes the statistics through Servo
+     */
+    void register() {
+        DefaultMonitorRegistry.getInstance().register(duration);
+        DefaultMonitorRegistry.getInstance().register(lag);
+        for (BasicCounter durationBucket : durationBuckets) {
+            DefaultMonitorRegistry.getInstance().register(durationBucket);
+        }
+        Monitors.registerObject("Task_" + taskName, this);
+    }
+
+    private MonitorConfig.Builder config(String name) {
+        return MonitorConfig.builder(name).withTag("task", taskName);
+    }
+
+    void recordStart(long startTime, long dueTime) {
+        lastStartTime.set(startTime);
+
+        if (dueTime >= 0) {
+            long lagMillis = Math.max(0, startTime - dueTime);
+            lastLagMillis.set(lagMillis);
+            lag.record(lagMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void recordEnd(long startTime, long endTime, boolean success) {
+        long durationMillis = endTime - startTime;
+        lastDurationMillis.set(durationMillis);
+        duration.record(durationMillis, TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < DURATION_BUCKET_MILLIS.length; i++) {
+            if (durationMillis <= DURATION_BUCKET_MILLIS[i]) {
+                durationBuckets[i].increment();
+                break;
+            }
+        }
+
+        if (success) {
+            lastSuccessTime.set(endTime);
+        }
+    }
+
+    void recordSkipped() {
+        skipped.incrementAndGet();
+    }
+
+    @Monitor(name = "task_skipped", type = DataSourceType.COUNTER)
+    public int getSkippedCount() {
+        return skipped.get();
+    }
+
+    /**
+     * @return seconds since the last successful run, or -1 if the task never succeeded
+     */
+    @Monitor(name = "task_seconds_since_last_success", type = DataSourceType.GAUGE)
+    public long getSecondsSinceLastSuccess() {
+        long lastSuccess = lastSuccessTime.get();
+        return lastSuccess < 0 ? -1 : TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - lastSuccess);
+    }
+
+    public long getLastStartTime() {
+        return lastStartTime.get();
+    }
+
+    public long getLastSuccessTime() {
+        return lastSuccessTime.get();
+    }
+
+    public long getLastDurationMillis() {
+        return lastDurationMillis.get();
+    }
+
+    public long getLastLagMillis() {
+        return lastLagMillis.get();
+    }
+
+    /**
+     * @return number of runs per duration bucket, keyed by the bucket's upper bound in millis
+     */
+    public Map<String, Long> getDurationHistogram() {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < DURATION_BUCKET_MILLIS.length; i++) {
+            histogram.put(bucketName(i), durationBuckets[i].getValue().longValue());
+        }
+        return histogram;
+    }
+
+    private static String bucketName(int bucket) {
+        return DURATION_BUCKET_MILLIS[bucket] == Long.MAX_VALUE ? "inf" : String.valueOf(DURATION_BUCKET_MILLIS[bucket]);
+    }
+}
@@ -15,8 +15,6 @@
  */
 package com.netflix.raigad.scheduler;
 
-import org.quartz.Trigger;
-
 import java.text.ParseException;
 
 /**
@@ -24,5 +22,18 @@ import java.text.ParseException;
  */
 public interface TaskTimer
 {
-    public Trigger getTrigger() throws ParseException;
+    /**
+     * @param previousFireTime time in millis the task was last due, or -1 if it has not run yet
+     * @param now current time in millis
+     * @return time in millis the task is due next, or -1 if it should not run again
+     */
+    public long getNextFireTime(long previousFireTime, long now) throws ParseException;
+
+    /**
+     * @return interval between runs in millis for timers firing at a fixed rate, 0 otherwise
+     */
+    public default long getInterval()
+    {
+        return 0;
+    }
 }
@@ -21,6 +21,7 @@ import com.google.inject.Singleton;
 import com.netflix.raigad.aws.SetVPCSecurityGroupID;
 import com.netflix.raigad.aws.UpdateSecuritySettings;
 import com.netflix.raigad.aws.UpdateTribeSecuritySettings;
+import com.netflix.raigad.backup.RepositoryThrottleController;
 import com.netflix.raigad.backup.RestoreBackupManager;
 import com.netflix.raigad.backup.SnapshotBackupManager;
 import com.netflix.raigad.configuration.IConfiguration;
@@ -57,6 +58,7 @@ public class RaigadServer {
     private final SnapshotBackupManager snapshotBackupManager;
     private final HttpModule httpModule;
     private final SetVPCSecurityGroupID setVPCSecurityGroupID;
+    private final CollectionIntervalController collectionIntervalController;
 
     @Inject
     public RaigadServer(IConfiguration config,
@@ -67,7 +69,8 @@ public class RaigadServer {
                         InstanceManager instanceManager,
                         ElasticsearchIndexManager esIndexManager,
                         SnapshotBackupManager snapshotBackupManager,
-                        SetVPCSecurityGroupID setVPCSecurityGroupID) {
+                        SetVPCSecurityGroupID setVPCSecurityGroupID,
+                        CollectionIntervalController collectionIntervalController) {
         this.config = config;
         this.scheduler = scheduler;
         this.httpModule = httpModule;
@@ -77,6 +80,7 @@ public class RaigadServer {
         this.esIndexManager = esIndexManager;
         this.snapshotBackupManager = snapshotBackupManager;
         this.setVPCSecurityGroupID = setVPCSecurityGroupID;
+        this.collectionIntervalController = collectionIntervalController;
     }
 
     public void initialize() throws Exception {
@@ -160,7 +164,7 @@ public class RaigadServer {
         /*
          *  Run the delayed task (after 10 seconds) to Monitor Elasticsearch Running Process
          */
-        scheduler.addTaskWithDelay(ElasticsearchProcessMonitor.JOB_NAME, ElasticsearchProcessMonitor.class, ElasticsearchProcessMonitor.getTimer(), ES_MONITORING_INITIAL_DELAY);
+        scheduler.addTaskWithDelay(ElasticsearchProcessMonitor.JOB_NAME, ElasticsearchProcessMonitor.class, ElasticsearchProcessMonitor.getTimer(config), ES_MONITORING_INITIAL_DELAY);
 
         /*
          *  Run Snapshot Backup task
@@ -171,32 +175,34 @@ public class RaigadServer {
                 scheduler.addTaskWithDelay(SnapshotBackupManager.JOBNAME, SnapshotBackupManager.class, SnapshotBackupManager.getTimer(config), ES_SNAPSHOT_INITIAL_DELAY);
                 // Run Index Management task only on Master Nodes
                 scheduler.addTaskWithDelay(ElasticsearchIndexManager.JOB_NAME, ElasticsearchIndexManager.class, ElasticsearchIndexManager.getTimer(config), config.getAutoCreateIndexInitialStartDelaySeconds());
-                scheduler.addTaskWithDelay(HealthMonitor.METRIC_NAME, HealthMonitor.class, HealthMonitor.getTimer("HealthMonitor"), ES_HEALTH_MONITOR_DELAY);
-            } else if (!config.reportMetricsFromMasterOnly()) {
-                scheduler.addTaskWithDelay(HealthMonitor.METRIC_NAME, HealthMonitor.class, HealthMonitor.getTimer("HealthMonitor"), ES_HEALTH_MONITOR_DELAY);
             }
         } else {
             scheduler.addTaskWithDelay(SnapshotBackupManager.JOBNAME, SnapshotBackupManager.class, SnapshotBackupManager.getTimer(config), ES_SNAPSHOT_INITIAL_DELAY);
             scheduler.addTaskWithDelay(ElasticsearchIndexManager.JOB_NAME, ElasticsearchIndexManager.class, ElasticsearchIndexManager.getTimer(config), config.getAutoCreateIndexInitialStartDelaySeconds());
-            scheduler.addTaskWithDelay(HealthMonitor.METRIC_NAME, HealthMonitor.class, HealthMonitor.getTimer("HealthMonitor"), ES_HEALTH_MONITOR_DELAY);
         }
 
+        // Every node needs cluster health to adapt its collection interval, only reporters publish it
+        scheduler.addTaskWithDelay(HealthMonitor.METRIC_NAME, HealthMonitor.class, HealthMonitor.getTimer("HealthMonitor"), ES_HEALTH_MONITOR_DELAY);
+
+        // Only acts on nodes running a snapshot or restore
+        scheduler.addTask(RepositoryThrottleController.JOB_NAME, RepositoryThrottleController.class, RepositoryThrottleController.getTimer(config));
+
         /*
          * Starting Monitoring Jobs
          */
-        scheduler.addTask(ThreadPoolStatsMonitor.METRIC_NAME, ThreadPoolStatsMonitor.class, ThreadPoolStatsMonitor.getTimer("ThreadPoolStatsMonitor"));
-        scheduler.addTask(TransportStatsMonitor.METRIC_NAME, TransportStatsMonitor.class, TransportStatsMonitor.getTimer("TransportStatsMonitor"));
-        scheduler.addTask(NodeIndicesStatsMonitor.METRIC_NAME, NodeIndicesStatsMonitor.class, NodeIndicesStatsMonitor.getTimer("NodeIndicesStatsMonitor"));
-        scheduler.addTask(FsStatsMonitor.METRIC_NAME, FsStatsMonitor.class, FsStatsMonitor.getTimer("FsStatsMonitor"));
+        scheduler.addTask(ThreadPoolStatsMonitor.METRIC_NAME, ThreadPoolStatsMonitor.class, collectionIntervalController.getTimer());
+        scheduler.addTask(TransportStatsMonitor.METRIC_NAME, TransportStatsMonitor.class, collectionIntervalController.getTimer());
+        scheduler.addTask(NodeIndicesStatsMonitor.METRIC_NAME, NodeIndicesStatsMonitor.class, collectionIntervalController.getTimer());
+        scheduler.addTask(FsStatsMonitor.METRIC_NAME, FsStatsMonitor.class, collectionIntervalController.getTimer());
 
         // TODO: 2X: Determine if this is necessary and if yes find an alternative
         //scheduler.addTask(NetworkStatsMonitor.METRIC_NAME, NetworkStatsMonitor.class, NetworkStatsMonitor.getTimer("NetworkStatsMonitor"));
 
-        scheduler.addTask(JvmStatsMonitor.METRIC_NAME, JvmStatsMonitor.class, JvmStatsMonitor.getTimer("JvmStatsMonitor"));
-        scheduler.addTask(OsStatsMonitor.METRIC_NAME, OsStatsMonitor.class, OsStatsMonitor.getTimer("OsStatsMonitor"));
-        scheduler.addTask(ProcessStatsMonitor.METRIC_NAME, ProcessStatsMonitor.class, ProcessStatsMonitor.getTimer("ProcessStatsMonitor"));
-        scheduler.addTask(HttpStatsMonitor.METRIC_NAME, HttpStatsMonitor.class, HttpStatsMonitor.getTimer("HttpStatsMonitor"));
-        scheduler.addTask(AllCircuitBreakerStatsMonitor.METRIC_NAME, AllCircuitBreakerStatsMonitor.class, AllCircuitBreakerStatsMonitor.getTimer("AllCircuitBreakerStatsMonitor"));
+        scheduler.addTask(JvmStatsMonitor.METRIC_NAME, JvmStatsMonitor.class, collectionIntervalController.getTimer());
+        scheduler.addTask(OsStatsMonitor.METRIC_NAME, OsStatsMonitor.class, collectionIntervalController.getTimer());
+        scheduler.addTask(ProcessStatsMonitor.METRIC_NAME, ProcessStatsMonitor.class, collectionIntervalController.getTimer());
+        scheduler.addTask(HttpStatsMonitor.METRIC_NAME, HttpStatsMonitor.class, collectionIntervalController.getTimer());
+        scheduler.addTask(AllCircuitBreakerStatsMonitor.METRIC_NAME, AllCircuitBreakerStatsMonitor.class, collectionIntervalController.getTimer());
         scheduler.addTask(SnapshotBackupMonitor.METRIC_NAME, SnapshotBackupMonitor.class, SnapshotBackupMonitor.getTimer("SnapshotBackupMonitor"));
         scheduler.addTaskWithDelay(NodeHealthMonitor.METRIC_NAME, NodeHealthMonitor.class, NodeHealthMonitor.getTimer("NodeHealthMonitor"), ES_NODE_HEALTH_MONITOR_DELAY);
     }
@@ -0,0 +1,221 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.utils;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.scheduler.NamedThreadPoolExecutor;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.Monitors;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared HTTP client for REST calls against the local Elasticsearch node.
+ * <p>
+ * Unlike the SystemUtils helpers, connections are pooled and kept alive between calls, every call can
+ * override the default read timeout, and calls can be made asynchronously. Pool usage and call counts
+ * are published as Servo metrics.
+ */
+@Singleton
+public class ElasticsearchHttpClient {
+    private static final Logger logger = LoggerFactory.getLogger(ElasticsearchHttpClient.class);
+    public static final String METRIC_NAME = "Elasticsearch_HttpClient";
+
+    private final IConfiguration config;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final ExecutorService asyncExecutor;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @Inject
+    public ElasticsearchHttpClient(IConfiguration config) {
+        this.config = config;
+
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(config.getHttpClientMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(config.getHttpClientMaxConnections());
+
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .build();
+
+        asyncExecutor = new NamedThreadPoolExecutor(config.getHttpClientAsyncThreads(), METRIC_NAME);
+
+        Monitors.registerObject(new Elasticsearch_HttpClientReporter());
+    }
+
+    public String get(String url) throws ElasticsearchHttpException {
+        return get(url, config.getHttpClientSocketTimeoutMillis());
+    }
+
+    public String get(String url, int timeoutMillis) throws ElasticsearchHttpException {
+        return execute(new HttpGet(url), null, timeoutMillis);
+    }
+
+    /**
+     * Hands the response body to the given reader as a stream, instead of buffering it into a string first
+     */
+    public <T> T get(String url, int timeoutMillis, ResponseReader<T> responseReader) throws ElasticsearchHttpException {
+        return execute(new HttpGet(url), null, timeoutMillis, responseReader);
+    }
+
+    public String put(String url, String jsonBody) throws ElasticsearchHttpException {
+        return put(url, jsonBody, config.getHttpClientSocketTimeoutMillis());
+    }
+
+    public String put(String url, String jsonBody, int timeoutMillis) throws ElasticsearchHttpException {
+        return execute(new HttpPut(url), jsonBody, timeoutMillis);
+    }
+
+    public String post(String url, String jsonBody) throws ElasticsearchHttpException {
+        return post(url, jsonBody, config.getHttpClientSocketTimeoutMillis());
+    }
+
+    public String post(String url, String jsonBody, int timeoutMillis) throws ElasticsearchHttpException {
+        return execute(new HttpPost(url), jsonBody, timeoutMillis);
+    }
+
+    public CompletableFuture<String> getAsync(String url, int timeoutMillis) {
+        return async(() -> get(url, timeoutMillis));
+    }
+
+    public CompletableFuture<String> putAsync(String url, String jsonBody, int timeoutMillis) {
+        return async(() -> put(url, jsonBody, timeoutMillis));
+    }
+
+    public CompletableFuture<String> postAsync(String url, String jsonBody, int timeoutMillis) {
+        return async(() -> post(url, jsonBody, timeoutMillis));
+    }
+
+    public interface ResponseReader<T> {
+        T read(InputStream content) throws IOException;
+    }
+
+    private interface HttpCall {
+        String call() throws ElasticsearchHttpException;
+    }
+
+    private CompletableFuture<String> async(HttpCall httpCall) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return httpCall.call();
+            } catch (ElasticsearchHttpException e) {
+                throw new CompletionException(e);
+            }
+        }, asyncExecutor);
+    }
+
+    private String execute(HttpRequestBase request, String jsonBody, int timeoutMillis) throws ElasticsearchHttpException {
+        String result = execute(request, jsonBody, timeoutMillis, content -> IOUtils.toString(content, StandardCharsets.UTF_8.name()));
+        logger.debug("{} URL API: {} returns: {}", request.getMethod(), request.getURI(), result);
+        return result;
+    }
+
+    private <T> T execute(HttpRequestBase request, String jsonBody, int timeoutMillis, ResponseReader<T> responseReader) throws ElasticsearchHttpException {
+        String method = request.getMethod();
+        String url = request.getURI().toString();
+
+        request.setConfig(RequestConfig.custom()
+                .setConnectTimeout(config.getHttpClientConnectTimeoutMillis())
+                .setConnectionRequestTimeout(config.getHttpClientConnectTimeoutMillis())
+                .setSocketTimeout(timeoutMillis)
+                .build());
+        request.setHeader("Content-type", "application/json");
+
+        if (StringUtils.isNotEmpty(jsonBody) && request instanceof HttpPost) {
+            ((HttpPost) request).setEntity(new StringEntity(jsonBody, StandardCharsets.UTF_8));
+        } else if (jsonBody != null && request instanceof HttpPut) {
+            ((HttpPut) request).setEntity(new StringEntity(jsonBody, StandardCharsets.UTF_8));
+        }
+
+        requests.incrementAndGet();
+
+        // Consuming the entity, even on errors, hands the connection back to the pool
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            if (response == null || response.getEntity() == null) {
+                throw new ElasticsearchHttpException("Unable to execute " + method + " URL (" + url + "), exception message: < Null Response or Null HttpEntity >");
+            }
+
+            if (response.getStatusLine().getStatusCode() != 200) {
+                String result = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+                throw new ElasticsearchHttpException("Unable to execute " + method + " URL (" + url + "), exception message: (" + result + ")");
+            }
+
+            try (InputStream content = response.getEntity().getContent()) {
+                return responseReader.read(content);
+            }
+        } catch (ElasticsearchHttpException e) {
+            failures.incrementAndGet();
+            throw e;
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            throw new ElasticsearchHttpException("Caught an exception during execution of URL (" + url + "), exception message: (" + e + ")", e);
+        }
+    }
+
+    public class Elasticsearch_HttpClientReporter {
+        @Monitor(name = "http_client_leased_connections", type = DataSourceType.GAUGE)
+        public int getLeasedConnections() {
+            return connectionManager.getTotalStats().getLeased();
+        }
+
+        @Monitor(name = "http_client_available_connections", type = DataSourceType.GAUGE)
+        public int getAvailableConnections() {
+            return connectionManager.getTotalStats().getAvailable();
+        }
+
+        @Monitor(name = "http_client_pending_connections", type = DataSourceType.GAUGE)
+        public int getPendingConnections() {
+            return connectionManager.getTotalStats().getPending();
+        }
+
+        @Monitor(name = "http_client_requests", type = DataSourceType.COUNTER)
+        public long getRequests() {
+            return requests.get();
+        }
+
+        @Monitor(name = "http_client_failures", type = DataSourceType.COUNTER)
+        public long getFailures() {
+            return failures.get();
+        }
+    }
+}
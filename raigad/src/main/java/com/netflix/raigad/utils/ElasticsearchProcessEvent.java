@@ -0,0 +1,64 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.utils;
+
+/**
+ * State transition of the Elasticsearch process, as observed by {@link ElasticsearchProcessMonitor}
+ */
+public class ElasticsearchProcessEvent {
+    public enum Type {
+        STARTED, STOPPED
+    }
+
+    private final Type type;
+    private final long pid;
+    private final long processStartTimeMillis;
+    private final long eventTimeMillis;
+
+    ElasticsearchProcessEvent(Type type, long pid, long processStartTimeMillis, long eventTimeMillis) {
+        this.type = type;
+        this.pid = pid;
+        this.processStartTimeMillis = processStartTimeMillis;
+        this.eventTimeMillis = eventTimeMillis;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getPid() {
+        return pid;
+    }
+
+    /**
+     * @return time the process was started at according to the kernel, or -1 if unknown
+     */
+    public long getProcessStartTimeMillis() {
+        return processStartTimeMillis;
+    }
+
+    /**
+     * @return time the transition was detected at
+     */
+    public long getEventTimeMillis() {
+        return eventTimeMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ElasticsearchProcessEvent{" + type + ", pid=" + pid + ", processStartTimeMillis=" + processStartTimeMillis + "}";
+    }
+}
@@ -21,18 +21,32 @@ import com.netflix.raigad.configuration.IConfiguration;
 import com.netflix.raigad.scheduler.SimpleTimer;
 import com.netflix.raigad.scheduler.Task;
 import com.netflix.raigad.scheduler.TaskTimer;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.Monitors;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /*
  * This task checks if the Elasticsearch process is running.
+ *
+ * The process is located once, through the PID file if one is configured or by scanning the command lines under
+ * /proc otherwise. From then on only /proc/<pid>/stat of that process is read, and its start time guards against
+ * the PID being reused by another process. Nothing is forked, so the check is cheap enough to run every few seconds.
  */
 @Singleton
 public class ElasticsearchProcessMonitor extends Task {
@@ -40,12 +54,21 @@ public class ElasticsearchProcessMonitor extends Task {
 
     public static final String JOB_NAME = "ES_MONITOR_THREAD";
 
+    // Unit of the start time in /proc/<pid>/stat (USER_HZ), fixed at 100 on Linux
+    private static final long CLOCK_TICKS_PER_SECOND = 100;
+
     static final AtomicBoolean isElasticsearchRunningNow = new AtomicBoolean(false);
     static final AtomicBoolean wasElasticsearchStarted = new AtomicBoolean(false);
 
+    private final AtomicReference<ProcessInfo> process = new AtomicReference<>();
+    private final List<ElasticsearchProcessListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicInteger starts = new AtomicInteger();
+    private final AtomicInteger stops = new AtomicInteger();
+
     @Inject
     protected ElasticsearchProcessMonitor(IConfiguration config) {
         super(config);
+        Monitors.registerObject(new Elasticsearch_ProcessReporter());
     }
 
     @Override
@@ -58,48 +81,194 @@ public class ElasticsearchProcessMonitor extends Task {
         return JOB_NAME;
     }
 
-    Runtime getRuntime() {
-        return Runtime.getRuntime();
+    public void addListener(ElasticsearchProcessListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return PID of the running Elasticsearch process, or -1 if it is not running
+     */
+    public long getPid() {
+        ProcessInfo processInfo = process.get();
+        return processInfo == null ? -1 : processInfo.pid;
+    }
+
+    /**
+     * @return time the running Elasticsearch process was started at, or -1 if it is not running or unknown
+     */
+    public long getProcessStartTimeMillis() {
+        ProcessInfo processInfo = process.get();
+        return processInfo == null ? -1 : processInfo.startTimeMillis;
+    }
+
+    File getProcRoot() {
+        return new File("/proc");
     }
 
-    String getFirstLine(InputStream inputStream) throws IOException {
-        BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream));
-        return StringUtils.trim(bufferedReader.readLine());
+    long getOwnPid() {
+        // <pid>@<hostname>
+        return Long.parseLong(StringUtils.substringBefore(ManagementFactory.getRuntimeMXBean().getName(), "@"));
     }
 
-    void checkElasticsearchProcess(String elasticsearchProcessName) throws Exception {
-        Process pgrepProcess = null;
-        InputStream processInputStream = null;
+    void checkElasticsearchProcess(String elasticsearchProcessName) {
+        ProcessInfo previous = process.get();
+        ProcessInfo current = null;
 
         try {
-            // This returns PID for the Elasticsearch process
-            pgrepProcess = getRuntime().exec("pgrep -f " + elasticsearchProcessName);
-            processInputStream = pgrepProcess.getInputStream();
-            String line = getFirstLine(processInputStream);
-
-            if (StringUtils.isNotEmpty(line) && !isElasticsearchRunning()) {
-                isElasticsearchRunningNow.set(true);
-                if (!wasElasticsearchStarted.get()) {
-                    wasElasticsearchStarted.set(true);
-                }
-            } else if (StringUtils.isEmpty(line) && isElasticsearchRunning()) {
-                isElasticsearchRunningNow.set(false);
+            if (previous != null && isAlive(previous)) {
+                current = previous;
+            } else {
+                current = locateProcess(elasticsearchProcessName);
             }
         } catch (Exception e) {
             logger.warn("Exception checking if process is running", e);
-            isElasticsearchRunningNow.set(false);
-        } finally {
-            if (processInputStream != null) {
-                processInputStream.close();
+        }
+
+        process.set(current);
+
+        if (previous != null && (current == null || !previous.isSameProcess(current))) {
+            stops.incrementAndGet();
+            notifyListeners(new ElasticsearchProcessEvent(ElasticsearchProcessEvent.Type.STOPPED, previous.pid, previous.startTimeMillis, System.currentTimeMillis()));
+        }
+
+        if (current != null && (previous == null || !previous.isSameProcess(current))) {
+            starts.incrementAndGet();
+            notifyListeners(new ElasticsearchProcessEvent(ElasticsearchProcessEvent.Type.STARTED, current.pid, current.startTimeMillis, System.currentTimeMillis()));
+        }
+
+        isElasticsearchRunningNow.set(current != null);
+        if (current != null) {
+            wasElasticsearchStarted.set(true);
+        }
+    }
+
+    private void notifyListeners(ElasticsearchProcessEvent event) {
+        logger.info("Elasticsearch process {}: pid {}", event.getType(), event.getPid());
+
+        for (ElasticsearchProcessListener listener : listeners) {
+            try {
+                listener.onProcessEvent(event);
+            } catch (Exception e) {
+                logger.warn("Elasticsearch process listener failed on " + event, e);
             }
-            if (pgrepProcess != null) {
-                pgrepProcess.destroyForcibly();
+        }
+    }
+
+    private boolean isAlive(ProcessInfo processInfo) throws IOException {
+        ProcessInfo current = readProcessInfo(processInfo.pid);
+        return current != null && current.isSameProcess(processInfo);
+    }
+
+    private ProcessInfo locateProcess(String elasticsearchProcessName) throws IOException {
+        String pidFile = config.getElasticsearchPidFile();
+
+        if (StringUtils.isNotBlank(pidFile)) {
+            ProcessInfo processInfo = readPidFile(new File(pidFile), elasticsearchProcessName);
+            if (processInfo != null) {
+                return processInfo;
             }
         }
+
+        // Fallback, equivalent of pgrep -f
+        File[] processDirectories = getProcRoot().listFiles();
+        if (processDirectories == null) {
+            return null;
+        }
+
+        long ownPid = getOwnPid();
+
+        for (File processDirectory : processDirectories) {
+            String name = processDirectory.getName();
+            if (!StringUtils.isNumeric(name) || Long.parseLong(name) == ownPid) {
+                continue;
+            }
+
+            long pid = Long.parseLong(name);
+            if (isCommandLineMatching(pid, elasticsearchProcessName)) {
+                ProcessInfo processInfo = readProcessInfo(pid);
+                if (processInfo != null) {
+                    return processInfo;
+                }
+            }
+        }
+
+        return null;
     }
 
-    public static TaskTimer getTimer() {
-        return new SimpleTimer(JOB_NAME, 10L * 1000);
+    private ProcessInfo readPidFile(File pidFile, String elasticsearchProcessName) throws IOException {
+        String content = readFile(pidFile);
+        String pid = StringUtils.trim(content);
+
+        if (StringUtils.isEmpty(pid) || !StringUtils.isNumeric(pid)) {
+            return null;
+        }
+
+        // A stale PID file may point to a PID reused by another process
+        if (!isCommandLineMatching(Long.parseLong(pid), elasticsearchProcessName)) {
+            return null;
+        }
+
+        return readProcessInfo(Long.parseLong(pid));
+    }
+
+    private boolean isCommandLineMatching(long pid, String elasticsearchProcessName) throws IOException {
+        String commandLine = readFile(new File(getProcRoot(), pid + "/cmdline"));
+        return commandLine != null && commandLine.replace('\0', ' ').contains(elasticsearchProcessName);
+    }
+
+    /**
+     * @return process info read from /proc/<pid>/stat, or null if there is no such process or it is a zombie
+     */
+    ProcessInfo readProcessInfo(long pid) throws IOException {
+        String stat = readFile(new File(getProcRoot(), pid + "/stat"));
+        if (stat == null) {
+            return null;
+        }
+
+        // pid (comm) state ppid ... with starttime being the 22nd field, comm may contain spaces and parentheses
+        String[] fields = StringUtils.split(StringUtils.substringAfterLast(stat, ")"));
+        if (fields.length < 20) {
+            logger.warn("Unexpected content of /proc/{}/stat: {}", pid, stat);
+            return null;
+        }
+
+        String state = fields[0];
+        if ("Z".equals(state) || "X".equals(state) || "x".equals(state)) {
+            return null;
+        }
+
+        long startTicks = Long.parseLong(fields[19]);
+        return new ProcessInfo(pid, startTicks, getStartTimeMillis(startTicks));
+    }
+
+    private long getStartTimeMillis(long startTicks) throws IOException {
+        String stat = readFile(new File(getProcRoot(), "stat"));
+
+        if (stat != null) {
+            for (String line : StringUtils.split(stat, '\n')) {
+                if (line.startsWith("btime ")) {
+                    long bootTimeSeconds = Long.parseLong(StringUtils.trim(line.substring("btime ".length())));
+                    return bootTimeSeconds * 1000 + startTicks * 1000 / CLOCK_TICKS_PER_SECOND;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return content of the file, or null if it does not exist (e.g. the process is gone)
+     */
+    private static String readFile(File file) throws IOException {
+        try {
+            return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException | FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    public static TaskTimer getTimer(IConfiguration config) {
+        return new SimpleTimer(JOB_NAME, config.getElasticsearchProcessCheckIntervalMillis());
     }
 
     public static Boolean isElasticsearchRunning() {
@@ -109,4 +278,38 @@ public class ElasticsearchProcessMonitor extends Task {
     public static Boolean getWasElasticsearchStarted() {
         return wasElasticsearchStarted.get();
     }
+
+    public class Elasticsearch_ProcessReporter {
+        @Monitor(name = "es_process_starts", type = DataSourceType.COUNTER)
+        public int getStarts() {
+            return starts.get();
+        }
+
+        @Monitor(name = "es_process_stops", type = DataSourceType.COUNTER)
+        public int getStops() {
+            return stops.get();
+        }
+
+        @Monitor(name = "es_process_uptime_seconds", type = DataSourceType.GAUGE)
+        public long getUptimeSeconds() {
+            long startTimeMillis = getProcessStartTimeMillis();
+            return startTimeMillis < 0 ? -1 : (System.currentTimeMillis() - startTimeMillis) / 1000;
+        }
+    }
+
+    static final class ProcessInfo {
+        private final long pid;
+        private final long startTicks;
+        private final long startTimeMillis;
+
+        ProcessInfo(long pid, long startTicks, long startTimeMillis) {
+            this.pid = pid;
+            this.startTicks = startTicks;
+            this.startTimeMillis = startTimeMillis;
+        }
+
+        boolean isSameProcess(ProcessInfo other) {
+            return pid == other.pid && startTicks == other.startTicks;
+        }
+    }
 }
@@ -16,14 +16,27 @@
 
 package com.netflix.raigad.utils;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Singleton;
 import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.monitoring.NodeStatsMetricGroup;
+import com.netflix.servo.monitor.Monitors;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.Action;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionRequestBuilder;
+import org.elasticsearch.action.ActionResponse;
 import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsRequestBuilder;
 import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.client.FilterClient;
+import org.elasticsearch.client.transport.NoNodeAvailableException;
 import org.elasticsearch.client.transport.TransportClient;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.InetSocketTransportAddress;
+import org.elasticsearch.transport.ConnectTransportException;
+import org.elasticsearch.transport.ReceiveTimeoutTransportException;
 import org.elasticsearch.transport.client.PreBuiltTransportClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,16 +44,23 @@ import org.slf4j.LoggerFactory;
 import java.net.InetAddress;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Set;
+import java.util.concurrent.Executors;
 
 @Singleton
 public class ElasticsearchTransportClient {
     private static final Logger logger = LoggerFactory.getLogger(ElasticsearchTransportClient.class);
 
-    private static AtomicReference<ElasticsearchTransportClient> elasticsearchTransportClientAtomicReference = new AtomicReference<>(null);
+    private static final TransportClientHolder holder = new TransportClientHolder(ElasticsearchTransportClient::connect, new ThreadSleeper(),
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("TransportClientCloser-%d").build()));
+
+    static {
+        Monitors.registerObject(holder);
+    }
 
     private final TransportClient client;
-    private final NodesStatsRequestBuilder nodeStatsRequestBuilder;
+    private final Client failureTrackingClient;
+    private final String nodeName;
 
     /**
      * Hostname and port to talk to will be same server for now optionally we might want the IP to poll.
@@ -55,26 +75,41 @@ public class ElasticsearchTransportClient {
 
         client = new PreBuiltTransportClient(Settings.builder().put(transportClientSettings).build());
         client.addTransportAddress(new InetSocketTransportAddress(host, configuration.getTransportTcpPort()));
+        failureTrackingClient = new FailureTrackingClient(client);
 
-        nodeStatsRequestBuilder = client.admin().cluster().prepareNodesStats(configuration.getEsNodeName()).all();
+        nodeName = configuration.getEsNodeName();
     }
 
     /**
-     * Try to create if it is null
+     * Returns the shared client, rebuilding it first if it lost all its nodes or too many requests in a row failed.
+     * Waits up to {@link IConfiguration#getTransportClientMaxWaitMillis()} for a rebuilt client to connect.
      *
-     * @throws ElasticsearchTransportClientConnectionException
+     * @throws ElasticsearchTransportClientConnectionException if Elasticsearch is not running or no healthy client is available in time
      */
     public static ElasticsearchTransportClient instance(IConfiguration configuration) throws ElasticsearchTransportClientConnectionException {
-        if (elasticsearchTransportClientAtomicReference.get() == null) {
-            elasticsearchTransportClientAtomicReference.set(connect(configuration));
+        // If Elasticsearch is started then only start the monitoring
+        if (!ElasticsearchProcessMonitor.isElasticsearchRunning()) {
+            logger.error("Elasticsearch is not yet started");
+            throw new ElasticsearchTransportClientConnectionException("Elasticsearch is not yet started");
         }
 
-        return elasticsearchTransportClientAtomicReference.get();
+        return holder.get(configuration);
     }
 
-    public static NodesStatsResponse getNodesStatsResponse(IConfiguration config) {
+    /**
+     * Fetch node stats of the local node, limited to the given metric groups
+     */
+    public static NodesStatsResponse getNodesStatsResponse(IConfiguration config, Set<NodeStatsMetricGroup> metricGroups) {
+        ElasticsearchTransportClient transportClient;
+        try {
+            transportClient = instance(config);
+        } catch (ElasticsearchTransportClientConnectionException e) {
+            logger.error(e.getMessage());
+            return null;
+        }
+
         try {
-            return ElasticsearchTransportClient.instance(config).getNodeStatsRequestBuilder().execute().actionGet();
+            return transportClient.getNodeStatsRequestBuilder(metricGroups).execute().actionGet();
         } catch (Exception e) {
             logger.error(e.getMessage(), e);
         }
@@ -82,35 +117,78 @@ public class ElasticsearchTransportClient {
         return null;
     }
 
-    private static synchronized ElasticsearchTransportClient connect(final IConfiguration configuration) throws ElasticsearchTransportClientConnectionException {
-        ElasticsearchTransportClient transportClient;
+    private static ElasticsearchTransportClient connect(IConfiguration configuration) {
+        return new ElasticsearchTransportClient(InetAddress.getLoopbackAddress(), configuration);
+    }
 
-        // If Elasticsearch is started then only start the monitoring
-        if (!ElasticsearchProcessMonitor.isElasticsearchRunning()) {
-            logger.error("Elasticsearch is not yet started");
-            throw new ElasticsearchTransportClientConnectionException("Elasticsearch is not yet started");
+    private NodesStatsRequestBuilder getNodeStatsRequestBuilder(Set<NodeStatsMetricGroup> metricGroups) {
+        NodesStatsRequestBuilder nodesStatsRequestBuilder = failureTrackingClient.admin().cluster().prepareNodesStats(nodeName).clear();
+
+        for (NodeStatsMetricGroup metricGroup : metricGroups) {
+            metricGroup.enable(nodesStatsRequestBuilder);
         }
 
+        return nodesStatsRequestBuilder;
+    }
+
+    /**
+     * @return client whose requests count towards rebuilding it when they fail to reach Elasticsearch
+     */
+    public Client getTransportClient() {
+        return failureTrackingClient;
+    }
+
+    public int getConnectedNodeCount() {
+        return client.connectedNodes().size();
+    }
+
+    void close() {
         try {
-            transportClient = new BoundedExponentialRetryCallable<ElasticsearchTransportClient>() {
-                @Override
-                public ElasticsearchTransportClient retriableCall() throws Exception {
-                    return new ElasticsearchTransportClient(InetAddress.getLoopbackAddress(), configuration);
-                }
-            }.call();
+            client.close();
         } catch (Exception e) {
-            logger.error(e.getMessage(), e);
-            throw new ElasticsearchTransportClientConnectionException(e.getMessage());
+            logger.warn("Failed to close transport client", e);
         }
-
-        return transportClient;
     }
 
-    private NodesStatsRequestBuilder getNodeStatsRequestBuilder() {
-        return nodeStatsRequestBuilder;
+    /**
+     * @return true if the request did not make it to Elasticsearch and back, as opposed to Elasticsearch rejecting it
+     */
+    static boolean isConnectionFailure(Exception e) {
+        Throwable cause = ExceptionsHelper.unwrapCause(e);
+        return cause instanceof NoNodeAvailableException
+                || cause instanceof ConnectTransportException
+                || cause instanceof ReceiveTimeoutTransportException;
     }
 
-    public Client getTransportClient() {
-        return client;
+    /**
+     * Reports the outcome of every request to the holder, so callers do not have to
+     */
+    private static final class FailureTrackingClient extends FilterClient {
+        private FailureTrackingClient(Client in) {
+            super(in);
+        }
+
+        @Override
+        protected <Request extends ActionRequest, Response extends ActionResponse,
+                RequestBuilder extends ActionRequestBuilder<Request, Response, RequestBuilder>> void doExecute(
+                Action<Request, Response, RequestBuilder> action, Request request, ActionListener<Response> listener) {
+            in().execute(action, request, new ActionListener<Response>() {
+                @Override
+                public void onResponse(Response response) {
+                    holder.recordSuccess();
+                    listener.onResponse(response);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    if (isConnectionFailure(e)) {
+                        holder.recordFailure();
+                    } else {
+                        holder.recordSuccess();
+                    }
+                    listener.onFailure(e);
+                }
+            });
+        }
     }
 }
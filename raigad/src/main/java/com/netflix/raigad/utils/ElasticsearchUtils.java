@@ -17,6 +17,7 @@
 package com.netflix.raigad.utils;
 
 import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.identity.MembershipDelta;
 import com.netflix.raigad.identity.RaigadInstance;
 import org.apache.commons.lang.StringUtils;
 import org.elasticsearch.action.admin.cluster.snapshots.get.GetSnapshotsResponse;
@@ -46,6 +47,9 @@ public class ElasticsearchUtils {
     private static final String PUBLIC_IP = "public_ip";
     private static final String DC = "dc";
     private static final String UPDATE_TIME = "update_time";
+    private static final String VERSION = "version";
+    private static final String FULL = "full";
+    private static final String REMOVED = "removed";
     private static final String HTTP_TAG = "http://";
     private static final String URL_PORT_SEPARATOR = ":";
     private static final String ELASTICSEARCH_HTTP_PORT = "7104";
@@ -84,6 +88,23 @@ public class ElasticsearchUtils {
         return allInstances;
     }
 
+    /**
+     * Same layout as {@link #transformRaigadInstanceToJson(List)}, plus the delta version,
+     * whether the instance list is the full membership, and the IDs of removed instances.
+     */
+    @SuppressWarnings("unchecked")
+    public static JSONObject transformMembershipDeltaToJson(MembershipDelta delta) {
+        JSONObject deltaJson = transformRaigadInstanceToJson(delta.getInstances());
+        deltaJson.put(VERSION, delta.getVersion());
+        deltaJson.put(FULL, delta.isFull());
+
+        JSONArray removedIds = new JSONArray();
+        removedIds.addAll(delta.getRemovedIds());
+        deltaJson.put(REMOVED, removedIds);
+
+        return deltaJson;
+    }
+
     public static List<RaigadInstance> getRaigadInstancesFromJson(JSONObject instances) {
         List<RaigadInstance> raigadInstances = new ArrayList<>();
 
@@ -114,9 +135,9 @@ public class ElasticsearchUtils {
         return raigadInstances;
     }
 
-    public static boolean amIMasterNode(IConfiguration config, HttpModule httpModule) throws Exception {
+    public static boolean amIMasterNode(IConfiguration config, HttpModule httpModule, ElasticsearchHttpClient httpClient) throws Exception {
         String URL = httpModule.findMasterNodeURL();
-        String response = SystemUtils.runHttpGetCommand(URL);
+        String response = httpClient.get(URL);
 
         if (config.isDebugEnabled()) {
             logger.debug("Calling {} returned: {}", URL, response);
@@ -131,11 +152,18 @@ public class ElasticsearchUtils {
         }
 
         // Checking if the current node is a master node
-        if (response.equalsIgnoreCase(config.getHostIP()) || response.equalsIgnoreCase(config.getHostLocalIP())) {
-            return true;
+        return isLocalNodeIp(config, response);
+    }
+
+    /**
+     * @return true if the given IP is the public or local IP of this node
+     */
+    public static boolean isLocalNodeIp(IConfiguration config, String ip) {
+        if (StringUtils.isEmpty(ip)) {
+            return false;
         }
 
-        return false;
+        return ip.equalsIgnoreCase(config.getHostIP()) || ip.equalsIgnoreCase(config.getHostLocalIP());
     }
 
     public static List<String> getAvailableSnapshots(Client transportClient, String repositoryName) {
@@ -29,8 +29,12 @@ public class HttpModule {
     private static final String URL_PORT_SEPARATOR = ":";
     private static final String URL_PATH_SEPARATOR = "/";
     private static final String MASTER_NODE_SUFFIX = "/_cat/master?h=ip";
+    private static final String LOCAL_NODE_STATS_SUFFIX = "/_nodes/_local/stats/";
+    private static final String NODES_STATS_SUFFIX = "/_nodes/stats/";
     private static final String SNAPSHOT_BKP_KEYWORD = "/_snapshot/";
     private static final String SNAPSHOT_BKP_WAIT_FOR_COMPLETION_TAG = "?wait_for_completion=";
+    private static final String SNAPSHOT_STATUS_SUFFIX = "/_status";
+    private static final String INDICES_CHANGE_STATS_SUFFIX = "/_stats/docs,indexing";
 
     private final IConfiguration config;
 
@@ -50,6 +54,30 @@ public class HttpModule {
         return builder.toString();
     }
 
+    public String localNodeStatsURL(String commaSeparatedMetrics) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(HTTP_TAG);
+        builder.append(LOCAL_HOST);
+        builder.append(URL_PORT_SEPARATOR);
+        builder.append(config.getHttpPort());
+        builder.append(LOCAL_NODE_STATS_SUFFIX);
+        builder.append(commaSeparatedMetrics);
+
+        return builder.toString();
+    }
+
+    public String nodesStatsURL(String commaSeparatedMetrics) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(HTTP_TAG);
+        builder.append(LOCAL_HOST);
+        builder.append(URL_PORT_SEPARATOR);
+        builder.append(config.getHttpPort());
+        builder.append(NODES_STATS_SUFFIX);
+        builder.append(commaSeparatedMetrics);
+
+        return builder.toString();
+    }
+
     public String runSnapshotBackupURL(String repositoryName, String snapshotName) {
         StringBuilder builder = new StringBuilder();
         builder.append(HTTP_TAG);
@@ -65,5 +93,32 @@ public class HttpModule {
 
         return builder.toString();
     }
-}
 
+    public String snapshotStatusURL(String repositoryName, String snapshotName) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(HTTP_TAG);
+        builder.append(LOCAL_HOST);
+        builder.append(URL_PORT_SEPARATOR);
+        builder.append(config.getHttpPort());
+        builder.append(SNAPSHOT_BKP_KEYWORD);
+        builder.append(repositoryName);
+        builder.append(URL_PATH_SEPARATOR);
+        builder.append(snapshotName);
+        builder.append(SNAPSHOT_STATUS_SUFFIX);
+
+        return builder.toString();
+    }
+
+    public String indicesChangeStatsURL(String commaSeparatedIndices) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(HTTP_TAG);
+        builder.append(LOCAL_HOST);
+        builder.append(URL_PORT_SEPARATOR);
+        builder.append(config.getHttpPort());
+        builder.append(URL_PATH_SEPARATOR);
+        builder.append(commaSeparatedIndices);
+        builder.append(INDICES_CHANGE_STATS_SUFFIX);
+
+        return builder.toString();
+    }
+}
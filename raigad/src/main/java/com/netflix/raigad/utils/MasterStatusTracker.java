@@ -0,0 +1,160 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.utils;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.raigad.configuration.IConfiguration;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the IP of the elected master in memory so scheduled tasks can check whether this node is
+ * the master without a REST call of their own.
+ * <p>
+ * The value is refreshed in the background every {@link IConfiguration#getMasterStatusRefreshIntervalMillis()}.
+ * Callers only block on Elasticsearch when no value is known yet, or when background refreshes have been
+ * failing for more than {@link #MAX_AGE_INTERVALS} intervals, e.g. during a master election.
+ */
+@Singleton
+public class MasterStatusTracker {
+    private static final Logger logger = LoggerFactory.getLogger(MasterStatusTracker.class);
+
+    static final int MAX_AGE_INTERVALS = 3;
+
+    private final IConfiguration config;
+    private final HttpModule httpModule;
+    private final ElasticsearchHttpClient httpClient;
+
+    private final AtomicReference<MasterStatus> masterStatus = new AtomicReference<>();
+    private final AtomicBoolean refresherStarted = new AtomicBoolean();
+
+    @Inject
+    public MasterStatusTracker(IConfiguration config, HttpModule httpModule, ElasticsearchHttpClient httpClient) {
+        this.config = config;
+        this.httpModule = httpModule;
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * @return true if this node is the currently elected master
+     */
+    public boolean isMaster() throws Exception {
+        return getMasterStatus().master;
+    }
+
+    /**
+     * @return IP of the currently elected master, as reported by _cat/master
+     */
+    public String getMasterIp() throws Exception {
+        return getMasterStatus().masterIp;
+    }
+
+    /**
+     * Cluster-level metrics are the same on every node. With {@link IConfiguration#reportMetricsFromMasterOnly()}
+     * the elected master is the single node publishing them, which also keeps other nodes from sending
+     * cluster-wide requests to the master every interval.
+     *
+     * @return true if this node should collect and publish cluster-level metrics
+     */
+    public boolean isClusterMetricsReporter() throws Exception {
+        return !config.reportMetricsFromMasterOnly() || isMaster();
+    }
+
+    /**
+     * Forgets the known master so the next caller looks it up again.
+     */
+    public void invalidate() {
+        masterStatus.set(null);
+    }
+
+    private MasterStatus getMasterStatus() throws Exception {
+        startRefresher();
+
+        MasterStatus status = masterStatus.get();
+        long maxAgeMillis = (long) MAX_AGE_INTERVALS * config.getMasterStatusRefreshIntervalMillis();
+
+        if (status == null || System.currentTimeMillis() - status.refreshedAt > maxAgeMillis) {
+            status = refresh();
+        }
+
+        return status;
+    }
+
+    synchronized MasterStatus refresh() throws Exception {
+        String url = httpModule.findMasterNodeURL();
+        String masterIp = StringUtils.trim(httpClient.get(url));
+
+        if (config.isDebugEnabled()) {
+            logger.debug("Calling {} returned: {}", url, masterIp);
+        }
+
+        if (StringUtils.isEmpty(masterIp)) {
+            logger.error("Response from " + url + " is empty");
+        }
+
+        MasterStatus status = new MasterStatus(masterIp, ElasticsearchUtils.isLocalNodeIp(config, masterIp), System.currentTimeMillis());
+        MasterStatus previous = masterStatus.getAndSet(status);
+
+        if (previous == null || !StringUtils.equals(previous.masterIp, masterIp)) {
+            logger.info("Elected master is {}, this node is {}the master", masterIp, status.master ? "" : "not ");
+        }
+
+        return status;
+    }
+
+    private void startRefresher() {
+        if (!refresherStarted.compareAndSet(false, true)) {
+            return;
+        }
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("MasterStatusTracker-%d").build());
+        int intervalMillis = config.getMasterStatusRefreshIntervalMillis();
+
+        executor.scheduleWithFixedDelay(() -> {
+            if (!ElasticsearchProcessMonitor.isElasticsearchRunning()) {
+                return;
+            }
+
+            try {
+                refresh();
+            } catch (Exception e) {
+                logger.warn("Failed to refresh elected master: {}", e.getMessage());
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static final class MasterStatus {
+        private final String masterIp;
+        private final boolean master;
+        private final long refreshedAt;
+
+        private MasterStatus(String masterIp, boolean master, long refreshedAt) {
+            this.masterIp = masterIp;
+            this.master = master;
+            this.refreshedAt = refreshedAt;
+        }
+    }
+}
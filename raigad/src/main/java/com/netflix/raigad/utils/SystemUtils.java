@@ -92,6 +92,10 @@ public class SystemUtils {
         }
     }
 
+    /**
+     * @deprecated creates a new, unpooled client per call; use {@link ElasticsearchHttpClient} instead
+     */
+    @Deprecated
     public static String runHttpGetCommand(String url) throws Exception {
         DefaultHttpClient client = new DefaultHttpClient();
         InputStream isStream = null;
@@ -134,6 +138,10 @@ public class SystemUtils {
         }
     }
 
+    /**
+     * @deprecated creates a new, unpooled client per call; use {@link ElasticsearchHttpClient} instead
+     */
+    @Deprecated
     public static String runHttpPutCommand(String url, String jsonBody) throws IOException {
         String return_;
         DefaultHttpClient client = new DefaultHttpClient();
@@ -178,6 +186,10 @@ public class SystemUtils {
         }
     }
 
+    /**
+     * @deprecated creates a new, unpooled client per call; use {@link ElasticsearchHttpClient} instead
+     */
+    @Deprecated
     public static String runHttpPostCommand(String url, String jsonBody) throws IOException {
         String return_;
         DefaultHttpClient client = new DefaultHttpClient();
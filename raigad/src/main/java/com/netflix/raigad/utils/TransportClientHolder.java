@@ -0,0 +1,172 @@
+/**
+ * Copyright 2017 Netflix, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.raigad.utils;
+
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the shared {@link ElasticsearchTransportClient} healthy.
+ * <p>
+ * A client is healthy while it is connected to at least one node and fewer than
+ * {@link IConfiguration#getTransportClientMaxConsecutiveFailures()} requests in a row failed through it.
+ * An unhealthy client is closed and replaced. Rebuilds that end up without a connected node are retried with an
+ * exponential backoff of up to {@link IConfiguration#getTransportClientRebuildMaxBackoffSeconds()}, so a node that is
+ * down or restarting is not flooded with connection attempts. Callers wait up to
+ * {@link IConfiguration#getTransportClientMaxWaitMillis()} for a healthy client before failing.
+ * <p>
+ * Other threads may still be in the middle of a request through a replaced client, so it is only closed after
+ * {@link #CLOSE_GRACE_PERIOD_MILLIS}.
+ */
+class TransportClientHolder {
+    private static final Logger logger = LoggerFactory.getLogger(TransportClientHolder.class);
+
+    static final long MIN_BACKOFF_MILLIS = 1000;
+    static final long CLOSE_GRACE_PERIOD_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    interface ClientFactory {
+        ElasticsearchTransportClient create(IConfiguration config) throws Exception;
+    }
+
+    private final ClientFactory clientFactory;
+    private final Sleeper sleeper;
+    private final ScheduledExecutorService closeExecutor;
+    private final AtomicReference<ElasticsearchTransportClient> client = new AtomicReference<>();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicInteger rebuilds = new AtomicInteger();
+    private int failedAttempts;
+    private long nextAttemptTime;
+
+    TransportClientHolder(ClientFactory clientFactory, Sleeper sleeper, ScheduledExecutorService closeExecutor) {
+        this.clientFactory = clientFactory;
+        this.sleeper = sleeper;
+        this.closeExecutor = closeExecutor;
+    }
+
+    ElasticsearchTransportClient get(IConfiguration config) throws ElasticsearchTransportClientConnectionException {
+        long deadline = System.currentTimeMillis() + config.getTransportClientMaxWaitMillis();
+
+        while (true) {
+            ElasticsearchTransportClient current = client.get();
+
+            if (current == null || !isHealthy(current, config)) {
+                current = rebuild(config);
+            }
+
+            if (current != null && isHealthy(current, config)) {
+                return current;
+            }
+
+            long remainingMillis = deadline - System.currentTimeMillis();
+            if (remainingMillis <= 0) {
+                throw new ElasticsearchTransportClientConnectionException("Transport client is not connected to Elasticsearch" +
+                        (current == null ? "" : " (" + current.getConnectedNodeCount() + " connected nodes, " + consecutiveFailures.get() + " consecutive failures)"));
+            }
+
+            try {
+                sleeper.sleep(Math.min(POLL_INTERVAL_MILLIS, remainingMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ElasticsearchTransportClientConnectionException("Interrupted while waiting for the transport client", e);
+            }
+        }
+    }
+
+    void recordSuccess() {
+        consecutiveFailures.set(0);
+    }
+
+    void recordFailure() {
+        consecutiveFailures.incrementAndGet();
+    }
+
+    private boolean isHealthy(ElasticsearchTransportClient transportClient, IConfiguration config) {
+        return transportClient.getConnectedNodeCount() > 0 &&
+                consecutiveFailures.get() < Math.max(1, config.getTransportClientMaxConsecutiveFailures());
+    }
+
+    /**
+     * @return the current client, replaced by a new one unless it is healthy or the rebuild is backing off
+     */
+    private synchronized ElasticsearchTransportClient rebuild(IConfiguration config) {
+        ElasticsearchTransportClient current = client.get();
+
+        // Another caller might have rebuilt it while we were waiting
+        if (current != null && isHealthy(current, config)) {
+            return current;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now < nextAttemptTime) {
+            return current;
+        }
+
+        ElasticsearchTransportClient rebuilt = null;
+        try {
+            rebuilt = clientFactory.create(config);
+        } catch (Exception e) {
+            logger.warn("Failed to create transport client: {}", e.getMessage());
+        }
+
+        if (rebuilt != null) {
+            client.set(rebuilt);
+            consecutiveFailures.set(0);
+
+            if (current != null) {
+                rebuilds.incrementAndGet();
+                logger.info("Rebuilt transport client, {} nodes connected", rebuilt.getConnectedNodeCount());
+                closeExecutor.schedule(current::close, CLOSE_GRACE_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (rebuilt != null && rebuilt.getConnectedNodeCount() > 0) {
+            failedAttempts = 0;
+            nextAttemptTime = 0;
+        } else {
+            long maxBackoffMillis = Math.max(MIN_BACKOFF_MILLIS, TimeUnit.SECONDS.toMillis(config.getTransportClientRebuildMaxBackoffSeconds()));
+            long backoffMillis = Math.min(maxBackoffMillis, MIN_BACKOFF_MILLIS << Math.min(failedAttempts, 16));
+            failedAttempts++;
+            nextAttemptTime = now + backoffMillis;
+        }
+
+        return client.get();
+    }
+
+    @Monitor(name = "es_transport_client_connected_nodes", type = DataSourceType.GAUGE)
+    public int getConnectedNodeCount() {
+        ElasticsearchTransportClient current = client.get();
+        return current == null ? 0 : current.getConnectedNodeCount();
+    }
+
+    @Monitor(name = "es_transport_client_consecutive_failures", type = DataSourceType.GAUGE)
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    @Monitor(name = "es_transport_client_rebuilds", type = DataSourceType.COUNTER)
+    public int getRebuilds() {
+        return rebuilds.get();
+    }
+}
@@ -27,12 +27,24 @@ import org.yaml.snakeyaml.Yaml;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Resolves tribe IDs (t0, t1, ...) to source cluster names using the tribe settings in elasticsearch.yml.
+ * The YAML file is only parsed again when its modification time or size changes.
+ */
 @Singleton
 public class TribeUtils {
     private static final Logger logger = LoggerFactory.getLogger(TribeUtils.class);
+    private static final String TRIBE_PREFIX = "tribe.";
+    private static final String CLUSTER_NAME_SUFFIX = ".cluster.name";
+
     private final IConfiguration config;
+    private volatile TribeIndex tribeIndex;
 
     @Inject
     public TribeUtils(IConfiguration config) {
@@ -40,17 +52,78 @@ public class TribeUtils {
     }
 
     public String getTribeClusterNameFromId(String tribeId) throws FileNotFoundException {
+        String sourceClusterName = getTribeIndex().clusterNames.get(tribeId);
+        logger.debug("Source cluster associated with tribe ID {} is {}", tribeId, sourceClusterName);
+        return sourceClusterName;
+    }
+
+    private TribeIndex getTribeIndex() throws FileNotFoundException {
+        File yamlFile = new File(config.getYamlLocation());
+        long lastModified = yamlFile.lastModified();
+        long length = yamlFile.length();
+
+        TribeIndex index = tribeIndex;
+        if (index != null && index.matches(yamlFile, lastModified, length)) {
+            return index;
+        }
+
+        synchronized (this) {
+            index = tribeIndex;
+            if (index == null || !index.matches(yamlFile, lastModified, length)) {
+                index = new TribeIndex(yamlFile, lastModified, length, loadClusterNames(yamlFile));
+                tribeIndex = index;
+                logger.info("Loaded tribe source clusters from {}: {}", yamlFile, index.clusterNames);
+            }
+            return index;
+        }
+    }
+
+    private static Map<String, String> loadClusterNames(File yamlFile) throws FileNotFoundException {
         DumperOptions options = new DumperOptions();
         options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
 
         Yaml yaml = new Yaml(options);
-        File yamlFile = new File(config.getYamlLocation());
+        Map map;
+        try (InputStream inputStream = new FileInputStream(yamlFile)) {
+            map = (Map) yaml.load(inputStream);
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read " + yamlFile, e);
+        }
 
-        Map map = (Map) yaml.load(new FileInputStream(yamlFile));
-        String sourceClusterName = (String) map.get("tribe." + tribeId + ".cluster.name");
+        Map<String, String> clusterNames = new HashMap<>();
+        if (map == null) {
+            return clusterNames;
+        }
 
-        logger.info("Source cluster associated with tribe ID {} is {}", tribeId, sourceClusterName);
+        for (Object key : map.keySet()) {
+            String name = String.valueOf(key);
+            if (name.startsWith(TRIBE_PREFIX) && name.endsWith(CLUSTER_NAME_SUFFIX)
+                    && name.length() > TRIBE_PREFIX.length() + CLUSTER_NAME_SUFFIX.length()) {
+                String tribeId = name.substring(TRIBE_PREFIX.length(), name.length() - CLUSTER_NAME_SUFFIX.length());
+                clusterNames.put(tribeId, String.valueOf(map.get(key)));
+            }
+        }
 
-        return sourceClusterName;
+        return clusterNames;
+    }
+
+    private static final class TribeIndex {
+        private final File yamlFile;
+        private final long lastModified;
+        private final long length;
+        private final Map<String, String> clusterNames;
+
+        private TribeIndex(File yamlFile, long lastModified, long length, Map<String, String> clusterNames) {
+            this.yamlFile = yamlFile;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.clusterNames = Collections.unmodifiableMap(clusterNames);
+        }
+
+        private boolean matches(File file, long lastModified, long length) {
+            return yamlFile.equals(file) && this.lastModified == lastModified && this.length == length;
+        }
     }
 }
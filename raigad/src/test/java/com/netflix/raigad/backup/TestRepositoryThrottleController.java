@@ -0,0 +1,165 @@
+package com.netflix.raigad.backup;
+
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.monitoring.CollectionIntervalController;
+import com.netflix.raigad.monitoring.NodeStatsMetricGroup;
+import com.netflix.raigad.monitoring.NodeStatsSnapshotService;
+import com.netflix.raigad.monitoring.NodeStatsValues;
+import com.netflix.raigad.utils.ElasticsearchHttpClient;
+import com.netflix.raigad.utils.HttpModule;
+import org.elasticsearch.common.settings.Settings;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class TestRepositoryThrottleController {
+    private static final long NOON = new DateTime(2017, 7, 14, 12, 0, DateTimeZone.UTC).getMillis();
+    private static final long NIGHT = new DateTime(2017, 7, 14, 3, 0, DateTimeZone.UTC).getMillis();
+
+    private String nodesStatsResponse;
+    private NodeStatsSnapshotService nodeStatsSnapshotService;
+    private SnapshotStatusTracker snapshotStatusTracker;
+    private RepositoryThrottleController repositoryThrottleController;
+
+    @Before
+    public void setUp() throws Exception {
+        IConfiguration config = mock(IConfiguration.class);
+        when(config.isRepositoryThrottleAdaptive()).thenReturn(true);
+        when(config.getRepositoryThrottleMinMBPerSec()).thenReturn(5);
+        when(config.getRepositoryThrottleMaxMBPerSec()).thenReturn(40);
+        when(config.getRepositoryThrottleOffPeakMaxMBPerSec()).thenReturn(200);
+        when(config.getRepositoryThrottleOffPeakStartHour()).thenReturn(2);
+        when(config.getRepositoryThrottleOffPeakEndHour()).thenReturn(8);
+        when(config.getRepositoryThrottleMaxQueueSize()).thenReturn(50);
+        when(config.getRepositoryThrottleMaxQueryLatencyMillis()).thenReturn(100);
+        when(config.getRepositoryThrottleMaxIndexingLatencyMillis()).thenReturn(10);
+        when(config.getRepositoryThrottleMaxDiskKBytesPerSec()).thenReturn(153600);
+
+        HttpModule httpModule = mock(HttpModule.class);
+        when(httpModule.nodesStatsURL(anyString())).thenReturn("nodes_stats");
+
+        ElasticsearchHttpClient httpClient = mock(ElasticsearchHttpClient.class);
+        when(httpClient.get(eq("nodes_stats"), anyInt(), any())).thenAnswer(invocation ->
+                ((ElasticsearchHttpClient.ResponseReader<?>) invocation.getArgument(2))
+                        .read(new ByteArrayInputStream(nodesStatsResponse.getBytes(StandardCharsets.UTF_8))));
+
+        nodeStatsSnapshotService = new NodeStatsSnapshotService(config, mock(CollectionIntervalController.class), httpModule, httpClient);
+        snapshotStatusTracker = mock(SnapshotStatusTracker.class);
+
+        repositoryThrottleController = spy(new RepositoryThrottleController(config, snapshotStatusTracker, nodeStatsSnapshotService));
+        doNothing().when(repositoryThrottleController).updateRepositorySettings(anyString(), any(Settings.class));
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+                new ObjectName("com.netflix.raigad.scheduler:type=" + RepositoryThrottleController.class.getName()));
+    }
+
+    @Test
+    public void testQueuesHalveRateDownToMinimum() throws Exception {
+        Assert.assertEquals(40, repositoryThrottleController.updateRate(nodeStats(0, 0, 0), NOON));
+        Assert.assertEquals(20, repositoryThrottleController.updateRate(nodeStats(80, 0, 0), NOON));
+        Assert.assertEquals(10, repositoryThrottleController.updateRate(nodeStats(80, 0, 0), NOON));
+        Assert.assertEquals(5, repositoryThrottleController.updateRate(nodeStats(80, 0, 0), NOON));
+        Assert.assertEquals(5, repositoryThrottleController.updateRate(nodeStats(80, 0, 0), NOON));
+
+        // Recovers by a tenth of the maximum per interval
+        Assert.assertEquals(9, repositoryThrottleController.updateRate(nodeStats(0, 0, 0), NOON));
+    }
+
+    @Test
+    public void testQueryLatencyHalvesRate() throws Exception {
+        repositoryThrottleController.updateRate(nodeStats(0, 100, 1000), NOON);
+
+        // 20 seconds spent on 100 queries
+        Assert.assertEquals(20, repositoryThrottleController.updateRate(nodeStats(0, 200, 21000), NOON + 30000));
+        Assert.assertEquals(24, repositoryThrottleController.updateRate(nodeStats(0, 300, 22000), NOON + 60000));
+    }
+
+    @Test
+    public void testIndexingLatencyHalvesRate() throws Exception {
+        repositoryThrottleController.updateRate(nodeStats(0, 0, 0, 1000, 500, 0), NOON);
+
+        // 20 seconds spent on 1000 documents
+        Assert.assertEquals(20, repositoryThrottleController.updateRate(nodeStats(0, 0, 0, 2000, 20500, 0), NOON + 30000));
+        Assert.assertEquals(24, repositoryThrottleController.updateRate(nodeStats(0, 0, 0, 3000, 21500, 0), NOON + 60000));
+    }
+
+    @Test
+    public void testDiskThroughputHalvesRate() throws Exception {
+        repositoryThrottleController.updateRate(nodeStats(0, 0, 0, 1000, 500, 0), NOON);
+
+        // 100 MB/s read and written
+        Assert.assertEquals(40, repositoryThrottleController.updateRate(nodeStats(0, 0, 0, 1000, 500, 3072000), NOON + 30000));
+
+        // 200 MB/s read and written
+        Assert.assertEquals(20, repositoryThrottleController.updateRate(nodeStats(0, 0, 0, 1000, 500, 9216000), NOON + 60000));
+    }
+
+    @Test
+    public void testOffPeakHoursAllowHigherRate() throws Exception {
+        Assert.assertEquals(200, repositoryThrottleController.getRateMBPerSec(NIGHT));
+        Assert.assertEquals(40, repositoryThrottleController.getRateMBPerSec(NOON));
+
+        Assert.assertTrue(RepositoryThrottleController.isOffPeak(23, 22, 4));
+        Assert.assertTrue(RepositoryThrottleController.isOffPeak(3, 22, 4));
+        Assert.assertFalse(RepositoryThrottleController.isOffPeak(12, 22, 4));
+        Assert.assertFalse(RepositoryThrottleController.isOffPeak(3, 0, 0));
+    }
+
+    @Test
+    public void testRunningSnapshotRepositoryIsThrottledOnce() throws Exception {
+        nodesStatsResponse = nodesStatsResponse(0, 0, 0);
+
+        repositoryThrottleController.execute();
+        verify(repositoryThrottleController, never()).updateRepositorySettings(anyString(), any(Settings.class));
+
+        when(snapshotStatusTracker.getRunningJob()).thenReturn(new SnapshotJob("20170714", "snap", NOON));
+        repositoryThrottleController.execute();
+        repositoryThrottleController.execute();
+
+        verify(repositoryThrottleController, times(1)).updateRepositorySettings(eq("20170714"), any(Settings.class));
+    }
+
+    private Map<String, NodeStatsValues> nodeStats(int searchQueue, long queryTotal, long queryTimeMillis) throws Exception {
+        return nodeStats(searchQueue, queryTotal, queryTimeMillis, 1000, 500, 0);
+    }
+
+    private Map<String, NodeStatsValues> nodeStats(int searchQueue, long queryTotal, long queryTimeMillis,
+                                                   long indexTotal, long indexTimeMillis, long diskKilobytes) throws Exception {
+        nodesStatsResponse = nodesStatsResponse(searchQueue, queryTotal, queryTimeMillis, indexTotal, indexTimeMillis, diskKilobytes);
+        return nodeStatsSnapshotService.fetchClusterNodeStats(
+                EnumSet.of(NodeStatsMetricGroup.THREAD_POOL, NodeStatsMetricGroup.FS, NodeStatsMetricGroup.INDICES));
+    }
+
+    private static String nodesStatsResponse(int searchQueue, long queryTotal, long queryTimeMillis) {
+        return nodesStatsResponse(searchQueue, queryTotal, queryTimeMillis, 1000, 500, 0);
+    }
+
+    private static String nodesStatsResponse(int searchQueue, long queryTotal, long queryTimeMillis,
+                                             long indexTotal, long indexTimeMillis, long diskKilobytes) {
+        return "{\"_nodes\":{\"total\":2},\"cluster_name\":\"es_test\",\"nodes\":{" +
+                "\"node1\":{\"name\":\"i-1\",\"thread_pool\":{\"search\":{\"threads\":7,\"queue\":0}}}," +
+                "\"node2\":{\"name\":\"i-2\",\"thread_pool\":{\"search\":{\"threads\":7,\"queue\":" + searchQueue + "}}," +
+                "\"fs\":{\"io_stats\":{\"total\":{\"read_kilobytes\":" + diskKilobytes / 2 + ",\"write_kilobytes\":" + (diskKilobytes - diskKilobytes / 2) + "}}}," +
+                "\"indices\":{\"search\":{\"query_total\":" + queryTotal + ",\"query_time_in_millis\":" + queryTimeMillis + "}," +
+                "\"indexing\":{\"index_total\":" + indexTotal + ",\"index_time_in_millis\":" + indexTimeMillis + "}}}}}";
+    }
+}
@@ -0,0 +1,129 @@
+package com.netflix.raigad.backup;
+
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.utils.ElasticsearchHttpClient;
+import com.netflix.raigad.utils.ElasticsearchHttpException;
+import com.netflix.raigad.utils.HttpModule;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class TestSnapshotCoordinator {
+    private static final long HOUR = 3600 * 1000L;
+    private static final long NOW = 1500000000000L;
+
+    private static final String GROUPS = "[{\"name\": \"logs\", \"indices\": \"nf_errors_log*\", \"interval\": \"P1D\"}," +
+            "{\"name\": \"Critical\", \"indices\": \"accounts,billing\", \"interval\": \"PT1H\", \"priority\": 1}]";
+
+    private ElasticsearchHttpClient httpClient;
+    private SnapshotCoordinator snapshotCoordinator;
+
+    @Before
+    public void setUp() throws Exception {
+        IConfiguration config = mock(IConfiguration.class);
+        when(config.getSnapshotGroups()).thenReturn(GROUPS);
+
+        HttpModule httpModule = mock(HttpModule.class);
+        when(httpModule.indicesChangeStatsURL(anyString())).thenAnswer(invocation -> "stats/" + invocation.getArgument(0));
+
+        httpClient = mock(ElasticsearchHttpClient.class);
+        when(httpClient.get("stats/accounts,billing")).thenReturn(stats("accounts", 10));
+        when(httpClient.get("stats/nf_errors_log*")).thenReturn(stats("nf_errors_log20170714", 1000));
+
+        snapshotCoordinator = new SnapshotCoordinator(config, httpModule, httpClient);
+    }
+
+    @Test
+    public void testDueGroupsAreQueuedByPriority() throws Exception {
+        Assert.assertTrue(snapshotCoordinator.isEnabled());
+
+        SnapshotGroup critical = snapshotCoordinator.nextGroup(NOW);
+        Assert.assertEquals("critical", critical.getName());
+        snapshotCoordinator.recordStarted(critical, new SnapshotJob("repo", "critical_201707140240", NOW));
+
+        SnapshotGroup logs = snapshotCoordinator.nextGroup(NOW + 1000);
+        Assert.assertEquals("logs", logs.getName());
+        snapshotCoordinator.recordStarted(logs, new SnapshotJob("repo", "logs_201707140240", NOW + 1000));
+
+        Assert.assertNull(snapshotCoordinator.nextGroup(NOW + 2000));
+        Assert.assertEquals("critical", snapshotCoordinator.nextGroup(NOW + HOUR).getName());
+    }
+
+    @Test
+    public void testUnchangedGroupIsSkippedAfterSuccessfulSnapshot() throws Exception {
+        SnapshotGroup critical = snapshotCoordinator.nextGroup(NOW);
+        finish(critical, NOW, SnapshotJob.STATE_SUCCESS);
+        Assert.assertEquals("logs", snapshotCoordinator.nextGroup(NOW).getName());
+
+        // Critical indices did not change
+        Assert.assertNull(snapshotCoordinator.nextGroup(NOW + HOUR));
+
+        when(httpClient.get("stats/accounts,billing")).thenReturn(stats("accounts", 11));
+        Assert.assertEquals("critical", snapshotCoordinator.nextGroup(NOW + 2 * HOUR).getName());
+    }
+
+    @Test
+    public void testFailedSnapshotIsRetried() throws Exception {
+        SnapshotGroup critical = snapshotCoordinator.nextGroup(NOW);
+        finish(critical, NOW, "FAILED");
+
+        Assert.assertEquals("logs", snapshotCoordinator.nextGroup(NOW).getName());
+        Assert.assertNull(snapshotCoordinator.nextGroup(NOW + SnapshotCoordinator.RETRY_DELAY_MILLIS));
+
+        // Retried once the delay passed since the snapshot finished, not a whole interval later
+        Assert.assertEquals("critical", snapshotCoordinator.nextGroup(NOW + 1000 + SnapshotCoordinator.RETRY_DELAY_MILLIS).getName());
+    }
+
+    @Test
+    public void testGroupIsRetriedWhenSnapshotCannotBeStarted() throws Exception {
+        finish(snapshotCoordinator.nextGroup(NOW), NOW, SnapshotJob.STATE_SUCCESS);
+
+        SnapshotGroup logs = snapshotCoordinator.nextGroup(NOW);
+        Assert.assertEquals("logs", logs.getName());
+        snapshotCoordinator.recordStartFailed(logs, NOW);
+
+        Assert.assertNull(snapshotCoordinator.nextGroup(NOW + 1000));
+
+        // A daily group does not wait a day for the next attempt
+        logs = snapshotCoordinator.nextGroup(NOW + SnapshotCoordinator.RETRY_DELAY_MILLIS);
+        Assert.assertEquals("logs", logs.getName());
+        snapshotCoordinator.recordStarted(logs, new SnapshotJob("repo", "logs_201707140255", NOW + SnapshotCoordinator.RETRY_DELAY_MILLIS));
+
+        Assert.assertNull(snapshotCoordinator.nextGroup(NOW + 2 * SnapshotCoordinator.RETRY_DELAY_MILLIS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMonthIntervalIsRejected() {
+        new SnapshotGroup("monthly", "nf_errors_log*", "P1M", null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroIntervalIsRejected() {
+        new SnapshotGroup("always", "nf_errors_log*", "PT0M", null);
+    }
+
+    @Test
+    public void testGroupIsSnapshottedWhenChangesCannotBeChecked() throws Exception {
+        SnapshotGroup critical = snapshotCoordinator.nextGroup(NOW);
+        finish(critical, NOW, SnapshotJob.STATE_SUCCESS);
+
+        when(httpClient.get("stats/accounts,billing")).thenThrow(new ElasticsearchHttpException("unavailable"));
+        Assert.assertEquals("critical", snapshotCoordinator.nextGroup(NOW + HOUR).getName());
+    }
+
+    private void finish(SnapshotGroup group, long submitTime, String state) {
+        SnapshotJob job = new SnapshotJob("repo", group.getName() + "_" + submitTime, submitTime);
+        snapshotCoordinator.recordStarted(group, job);
+        job.update(new SnapshotJob.Progress(state, 2, 2, 0, 100, 100, 1000));
+        job.finish(submitTime + 1000);
+    }
+
+    private static String stats(String indexName, long docs) {
+        return "{\"_shards\":{\"total\":2,\"successful\":2,\"failed\":0},\"indices\":{\"" + indexName + "\":{" +
+                "\"primaries\":{\"docs\":{\"count\":" + docs + ",\"deleted\":0}," +
+                "\"indexing\":{\"index_total\":" + docs + ",\"delete_total\":0}}}}}";
+    }
+}
@@ -0,0 +1,96 @@
+package com.netflix.raigad.backup;
+
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.utils.ElasticsearchHttpClient;
+import com.netflix.raigad.utils.ElasticsearchHttpException;
+import com.netflix.raigad.utils.HttpModule;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class TestSnapshotStatusTracker {
+    private static final String STATUS_URL = "http://127.0.0.1:7104/_snapshot/s3-repo/snap1/_status";
+
+    private ElasticsearchHttpClient httpClient;
+    private SnapshotStatusTracker snapshotStatusTracker;
+
+    @Before
+    public void setUp() {
+        IConfiguration config = mock(IConfiguration.class);
+        when(config.getSnapshotStatusPollIntervalSeconds()).thenReturn(3600);
+        when(config.getSnapshotStatusMaxPollFailures()).thenReturn(2);
+
+        HttpModule httpModule = mock(HttpModule.class);
+        when(httpModule.snapshotStatusURL("s3-repo", "snap1")).thenReturn(STATUS_URL);
+
+        httpClient = mock(ElasticsearchHttpClient.class);
+        snapshotStatusTracker = new SnapshotStatusTracker(config, httpModule, httpClient);
+    }
+
+    @Test
+    public void testProgressAndEta() throws Exception {
+        when(httpClient.get(STATUS_URL)).thenReturn(status("STARTED", 10, 4, 0, 2000, 10000, 4000));
+
+        SnapshotJob job = snapshotStatusTracker.track("s3-repo", "snap1");
+        snapshotStatusTracker.poll(job);
+
+        SnapshotJob.Progress progress = job.getProgress();
+        Assert.assertEquals(4, progress.getShardsDone());
+        Assert.assertEquals(10, progress.getShardsTotal());
+        Assert.assertEquals(500, progress.getBytesPerSecond());
+        Assert.assertEquals(16, progress.getEtaSeconds());
+        Assert.assertFalse(job.isFinished());
+        Assert.assertSame(job, snapshotStatusTracker.getRunningJob());
+        Assert.assertSame(job, snapshotStatusTracker.getJob("s3-repo/snap1"));
+    }
+
+    @Test
+    public void testSuccessCompletesJob() throws Exception {
+        when(httpClient.get(STATUS_URL)).thenReturn(status("SUCCESS", 10, 10, 0, 10000, 10000, 5000));
+
+        SnapshotJob job = snapshotStatusTracker.track("s3-repo", "snap1");
+        snapshotStatusTracker.poll(job);
+
+        Assert.assertTrue(job.getCompletion().isDone());
+        Assert.assertTrue(job.isSuccessful());
+        Assert.assertEquals(0, job.getProgress().getEtaSeconds());
+        Assert.assertNull(snapshotStatusTracker.getRunningJob());
+    }
+
+    @Test
+    public void testFailedShardsFailJob() throws Exception {
+        when(httpClient.get(STATUS_URL)).thenReturn(status("SUCCESS", 10, 9, 1, 9000, 9000, 5000));
+
+        SnapshotJob job = snapshotStatusTracker.track("s3-repo", "snap1");
+        snapshotStatusTracker.poll(job);
+
+        Assert.assertTrue(job.isFinished());
+        Assert.assertFalse(job.isSuccessful());
+    }
+
+    @Test
+    public void testRepeatedPollFailuresFailJob() throws Exception {
+        when(httpClient.get(anyString())).thenThrow(new ElasticsearchHttpException("unavailable"));
+
+        SnapshotJob job = snapshotStatusTracker.track("s3-repo", "snap1");
+        snapshotStatusTracker.poll(job);
+        Assert.assertFalse(job.isFinished());
+
+        snapshotStatusTracker.poll(job);
+        Assert.assertTrue(job.isFinished());
+        Assert.assertFalse(job.isSuccessful());
+        Assert.assertEquals(SnapshotJob.STATE_UNKNOWN, job.getProgress().getState());
+    }
+
+    private static String status(String state, int total, int done, int failed, long processedBytes, long totalBytes, long timeMillis) {
+        return "{\"snapshots\":[{\"snapshot\":\"snap1\",\"repository\":\"s3-repo\",\"state\":\"" + state + "\"," +
+                "\"shards_stats\":{\"initializing\":0,\"started\":" + (total - done - failed) + ",\"finalizing\":0," +
+                "\"done\":" + done + ",\"failed\":" + failed + ",\"total\":" + total + "}," +
+                "\"stats\":{\"number_of_files\":20,\"processed_files\":8,\"total_size_in_bytes\":" + totalBytes + "," +
+                "\"processed_size_in_bytes\":" + processedBytes + ",\"start_time_in_millis\":1500000000000," +
+                "\"time_in_millis\":" + timeMillis + "},\"indices\":{}}]}";
+    }
+}
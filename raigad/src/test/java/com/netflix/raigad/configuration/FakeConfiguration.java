@@ -505,4 +505,219 @@ public class FakeConfiguration implements IConfiguration {
     public String getMacIdForInstance() {
         return null;
     }
+
+    @Override
+    public int getMembershipCacheTtlSeconds() {
+        return 0;
+    }
+
+    @Override
+    public int getMembershipCacheMaxStaleSeconds() {
+        return 300;
+    }
+
+    @Override
+    public int getHttpClientConnectTimeoutMillis() {
+        return 1000;
+    }
+
+    @Override
+    public int getHttpClientSocketTimeoutMillis() {
+        return 1000;
+    }
+
+    @Override
+    public int getHttpClientMaxConnections() {
+        return 20;
+    }
+
+    @Override
+    public int getHttpClientAsyncThreads() {
+        return 4;
+    }
+
+    @Override
+    public int getMasterStatusRefreshIntervalMillis() {
+        return 5000;
+    }
+
+    @Override
+    public int getIndexRetentionDeleteBatchSize() {
+        return 20;
+    }
+
+    @Override
+    public int getIndexRetentionDeleteConcurrency() {
+        return 2;
+    }
+
+    @Override
+    public int getIndexWarmPhaseStartHour() {
+        return 1;
+    }
+
+    @Override
+    public int getIndexWarmPhaseEndHour() {
+        return 6;
+    }
+
+    @Override
+    public int getIndexWarmPhaseForceMergeTimeoutMinutes() {
+        return 60;
+    }
+
+    @Override
+    public int getIndexReopenTtlMinutes() {
+        return 60;
+    }
+
+    @Override
+    public int getIndexReopenMaxIndices() {
+        return 30;
+    }
+
+    @Override
+    public int getSchedulerThreadCount() {
+        return 8;
+    }
+
+    @Override
+    public int getSchedulerMaxStartJitterMillis() {
+        return 0;
+    }
+
+    @Override
+    public boolean isMonitorIntervalAdaptive() {
+        return true;
+    }
+
+    @Override
+    public int getMonitorMinIntervalSeconds() {
+        return 10;
+    }
+
+    @Override
+    public int getMonitorMaxIntervalSeconds() {
+        return 300;
+    }
+
+    @Override
+    public int getMonitorStressHeapUsedPercent() {
+        return 85;
+    }
+
+    @Override
+    public int getMonitorStressSearchQueueSize() {
+        return 500;
+    }
+
+    @Override
+    public int getMonitorStressBreakerUsedPercent() {
+        return 90;
+    }
+
+    @Override
+    public String getElasticsearchPidFile() {
+        return "";
+    }
+
+    @Override
+    public int getElasticsearchProcessCheckIntervalMillis() {
+        return 2000;
+    }
+
+    @Override
+    public int getTransportClientMaxWaitMillis() {
+        return 0;
+    }
+
+    @Override
+    public int getTransportClientMaxConsecutiveFailures() {
+        return 3;
+    }
+
+    @Override
+    public int getTransportClientRebuildMaxBackoffSeconds() {
+        return 60;
+    }
+
+    @Override
+    public String getNodeStatsBackend() {
+        return "http";
+    }
+
+    @Override
+    public int getSnapshotStatusPollIntervalSeconds() {
+        return 30;
+    }
+
+    @Override
+    public int getSnapshotStatusMaxPollFailures() {
+        return 10;
+    }
+
+    @Override
+    public String getSnapshotGroups() {
+        return null;
+    }
+
+    @Override
+    public int getSnapshotCoordinatorIntervalSeconds() {
+        return 60;
+    }
+
+    @Override
+    public boolean isRepositoryThrottleAdaptive() {
+        return false;
+    }
+
+    @Override
+    public int getRepositoryThrottleIntervalSeconds() {
+        return 30;
+    }
+
+    @Override
+    public int getRepositoryThrottleMinMBPerSec() {
+        return 5;
+    }
+
+    @Override
+    public int getRepositoryThrottleMaxMBPerSec() {
+        return 40;
+    }
+
+    @Override
+    public int getRepositoryThrottleOffPeakMaxMBPerSec() {
+        return 40;
+    }
+
+    @Override
+    public int getRepositoryThrottleOffPeakStartHour() {
+        return 2;
+    }
+
+    @Override
+    public int getRepositoryThrottleOffPeakEndHour() {
+        return 8;
+    }
+
+    @Override
+    public int getRepositoryThrottleMaxQueueSize() {
+        return 50;
+    }
+
+    @Override
+    public int getRepositoryThrottleMaxQueryLatencyMillis() {
+        return 100;
+    }
+
+    @Override
+    public int getRepositoryThrottleMaxIndexingLatencyMillis() {
+        return 10;
+    }
+
+    @Override
+    public int getRepositoryThrottleMaxDiskKBytesPerSec() {
+        return 153600;
+    }
 }
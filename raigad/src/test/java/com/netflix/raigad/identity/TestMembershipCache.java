@@ -0,0 +1,176 @@
+package com.netflix.raigad.identity;
+
+import com.netflix.raigad.configuration.IConfiguration;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.mockito.Mockito.*;
+
+public class TestMembershipCache {
+    private static final String CLUSTER = "es_test";
+
+    private IRaigadInstanceFactory instanceFactory;
+    private IConfiguration config;
+    private List<Runnable> pendingRefreshes;
+    private long now;
+    private MembershipCache membershipCache;
+
+    @Before
+    public void setUp() {
+        instanceFactory = mock(IRaigadInstanceFactory.class);
+        config = mock(IConfiguration.class);
+        when(config.getMembershipCacheTtlSeconds()).thenReturn(10);
+        when(config.getMembershipCacheMaxStaleSeconds()).thenReturn(60);
+
+        pendingRefreshes = new ArrayList<>();
+        Executor executor = pendingRefreshes::add;
+        now = 1000000L;
+
+        membershipCache = new MembershipCache(instanceFactory, config, executor) {
+            @Override
+            long currentTimeMillis() {
+                return now;
+            }
+        };
+    }
+
+    @Test
+    public void testFreshEntryIsServedFromMemory() {
+        when(instanceFactory.getAllIds(CLUSTER)).thenReturn(instances("i-1"));
+
+        membershipCache.getInstances(CLUSTER);
+        now += 5000;
+        List<RaigadInstance> instances = membershipCache.getInstances(CLUSTER);
+
+        Assert.assertEquals(1, instances.size());
+        Assert.assertTrue(pendingRefreshes.isEmpty());
+        verify(instanceFactory, times(1)).getAllIds(CLUSTER);
+    }
+
+    @Test
+    public void testExpiredEntryIsServedWhileRefreshing() {
+        when(instanceFactory.getAllIds(CLUSTER)).thenReturn(instances("i-1"), instances("i-1", "i-2"));
+
+        membershipCache.getInstances(CLUSTER);
+        long version = membershipCache.getVersion();
+        now += 15000;
+
+        Assert.assertEquals(1, membershipCache.getInstances(CLUSTER).size());
+        Assert.assertEquals(1, membershipCache.getInstances(CLUSTER).size());
+        Assert.assertEquals("Only one refresh is scheduled per cluster", 1, pendingRefreshes.size());
+
+        pendingRefreshes.remove(0).run();
+
+        Assert.assertEquals(2, membershipCache.getInstances(CLUSTER).size());
+        Assert.assertTrue(membershipCache.getVersion() > version);
+        verify(instanceFactory, times(2)).getAllIds(CLUSTER);
+    }
+
+    @Test
+    public void testVersionIsStableWhenMembershipIsUnchanged() {
+        when(instanceFactory.getAllIds(CLUSTER)).thenReturn(instances("i-1"));
+
+        membershipCache.getInstances(CLUSTER);
+        long version = membershipCache.getVersion();
+        now += 15000;
+        membershipCache.getInstances(CLUSTER);
+        pendingRefreshes.remove(0).run();
+
+        Assert.assertEquals(version, membershipCache.getVersion());
+    }
+
+    @Test
+    public void testTooStaleEntryIsReloadedSynchronously() {
+        when(instanceFactory.getAllIds(CLUSTER)).thenReturn(instances("i-1"), instances("i-1", "i-2"));
+
+        membershipCache.getInstances(CLUSTER);
+        now += 120000;
+
+        Assert.assertEquals(2, membershipCache.getInstances(CLUSTER).size());
+        Assert.assertTrue(pendingRefreshes.isEmpty());
+    }
+
+    @Test
+    public void testStaleEntryIsServedWhenRegistryFails() {
+        when(instanceFactory.getAllIds(CLUSTER)).thenReturn(instances("i-1")).thenThrow(new RuntimeException("boom"));
+
+        membershipCache.getInstances(CLUSTER);
+        now += 120000;
+
+        Assert.assertEquals(1, membershipCache.getInstances(CLUSTER).size());
+    }
+
+    @Test
+    public void testZeroTtlDisablesCaching() {
+        when(config.getMembershipCacheTtlSeconds()).thenReturn(0);
+        when(instanceFactory.getAllIds(CLUSTER)).thenReturn(instances("i-1"));
+
+        membershipCache.getInstances(CLUSTER);
+        membershipCache.getInstances(CLUSTER);
+
+        verify(instanceFactory, times(2)).getAllIds(CLUSTER);
+    }
+
+    @Test
+    public void testInvalidateForcesReload() {
+        when(instanceFactory.getAllIds(CLUSTER)).thenReturn(instances("i-1"));
+
+        membershipCache.getInstances(CLUSTER);
+        membershipCache.invalidate(CLUSTER);
+        membershipCache.getInstances(CLUSTER);
+
+        verify(instanceFactory, times(2)).getAllIds(CLUSTER);
+    }
+
+    @Test
+    public void testDeltaContainsOnlyChanges() {
+        when(instanceFactory.getAllIds(CLUSTER)).thenReturn(instances("i-1", "i-2"), instances("i-2", "i-3"));
+
+        MembershipDelta first = membershipCache.getDelta(Collections.singletonList(CLUSTER), 0);
+        Assert.assertTrue(first.isFull());
+        Assert.assertEquals(2, first.getInstances().size());
+
+        MembershipDelta unchanged = membershipCache.getDelta(Collections.singletonList(CLUSTER), membershipCache.getVersion());
+        Assert.assertFalse(unchanged.isFull());
+        Assert.assertTrue(unchanged.getInstances().isEmpty());
+        Assert.assertTrue(unchanged.getRemovedIds().isEmpty());
+
+        long version = membershipCache.getVersion();
+        membershipCache.invalidate(CLUSTER);
+        MembershipDelta delta = membershipCache.getDelta(Collections.singletonList(CLUSTER), version);
+
+        Assert.assertFalse(delta.isFull());
+        Assert.assertEquals(1, delta.getInstances().size());
+        Assert.assertEquals("i-3", delta.getInstances().get(0).getInstanceId());
+        Assert.assertEquals(Collections.singletonList("us-east-1.i-1"), delta.getRemovedIds());
+    }
+
+    @Test
+    public void testDeltaFromUnknownVersionIsFull() {
+        when(instanceFactory.getAllIds(CLUSTER)).thenReturn(instances("i-1"));
+
+        membershipCache.getInstances(CLUSTER);
+        MembershipDelta delta = membershipCache.getDelta(Collections.singletonList(CLUSTER), membershipCache.getVersion() + 1000);
+
+        Assert.assertTrue(delta.isFull());
+        Assert.assertEquals(1, delta.getInstances().size());
+    }
+
+    private static List<RaigadInstance> instances(String... instanceIds) {
+        List<RaigadInstance> instances = new ArrayList<>();
+        for (String instanceId : instanceIds) {
+            RaigadInstance instance = new RaigadInstance();
+            instance.setId("us-east-1." + instanceId);
+            instance.setInstanceId(instanceId);
+            instance.setHostIP("127.0.0.1");
+            instances.add(instance);
+        }
+        return Collections.unmodifiableList(instances);
+    }
+}
@@ -2,20 +2,34 @@ package com.netflix.raigad.indexmanagement;
 
 import com.netflix.raigad.configuration.IConfiguration;
 import com.netflix.raigad.indexmanagement.exception.UnsupportedAutoIndexException;
-import org.elasticsearch.action.admin.indices.stats.IndexStats;
-import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
-import org.elasticsearch.action.admin.indices.stats.ShardStats;
+import com.netflix.raigad.utils.MasterStatusTracker;
+import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionFuture;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.admin.cluster.state.ClusterStateResponse;
+import org.elasticsearch.action.admin.indices.delete.DeleteIndexResponse;
+import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeResponse;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.settings.Settings;
 import org.joda.time.DateTime;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import javax.management.ObjectName;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 public class TestElasticsearchIndexManager {
@@ -36,7 +50,7 @@ public class TestElasticsearchIndexManager {
         elasticsearchIndexManager = spy(new ElasticsearchIndexManager(config, null));
         doReturn(elasticsearchClient).when(elasticsearchIndexManager).getTransportClient();
 
-        doNothing().when(elasticsearchIndexManager).deleteIndices(eq(elasticsearchClient), anyString(), anyInt());
+        doNothing().when(elasticsearchIndexManager).deleteIndices(eq(elasticsearchClient), anyList(), anyInt());
     }
 
     @Test
@@ -44,18 +58,13 @@ public class TestElasticsearchIndexManager {
         String serializedIndexMetadata = "[{\"retentionType\": \"yearly\", \"retentionPeriod\": 20}]";
         when(config.getIndexMetadata()).thenReturn(serializedIndexMetadata);
 
-        Map<String, IndexStats> indexStats = new HashMap<>();
-        indexStats.put("nf_errors_log2018", new IndexStats("nf_errors_log2018", new ShardStats[]{}));
-
-        IndicesStatsResponse indicesStatsResponse = mock(IndicesStatsResponse.class);
-        when(indicesStatsResponse.getIndices()).thenReturn(indexStats);
-
-        doReturn(indicesStatsResponse).when(elasticsearchIndexManager).getIndicesStatsResponse(elasticsearchClient);
+        IndexCatalog indexCatalog = catalog("nf_errors_log2018");
+        doReturn(indexCatalog).when(elasticsearchIndexManager).getIndexCatalog(elasticsearchClient);
 
         elasticsearchIndexManager.runIndexManagement();
 
-        verify(elasticsearchIndexManager, times(0)).checkIndexRetention(any(Client.class), anySet(), any(IndexMetadata.class), any(DateTime.class));
-        verify(elasticsearchIndexManager, times(0)).preCreateIndex(any(Client.class), any(IndexMetadata.class), any(DateTime.class));
+        verify(elasticsearchIndexManager, times(0)).checkIndexRetention(any(Client.class), any(NavigableMap.class), any(IndexMetadata.class), any(DateTime.class));
+        verify(elasticsearchIndexManager, times(0)).preCreateIndex(any(Client.class), any(IndexCatalog.class), any(IndexMetadata.class), any(DateTime.class));
     }
 
     @Test
@@ -63,18 +72,13 @@ public class TestElasticsearchIndexManager {
         String serializedIndexMetadata = "[{\"retentionType\": \"yearly\", \"indexName\": \"nf_errors_log\"}]";
         when(config.getIndexMetadata()).thenReturn(serializedIndexMetadata);
 
-        Map<String, IndexStats> indexStats = new HashMap<>();
-        indexStats.put("nf_errors_log2018", new IndexStats("nf_errors_log2018", new ShardStats[]{}));
-
-        IndicesStatsResponse indicesStatsResponse = mock(IndicesStatsResponse.class);
-        when(indicesStatsResponse.getIndices()).thenReturn(indexStats);
-
-        doReturn(indicesStatsResponse).when(elasticsearchIndexManager).getIndicesStatsResponse(elasticsearchClient);
+        IndexCatalog indexCatalog = catalog("nf_errors_log2018");
+        doReturn(indexCatalog).when(elasticsearchIndexManager).getIndexCatalog(elasticsearchClient);
 
         elasticsearchIndexManager.runIndexManagement();
 
-        verify(elasticsearchIndexManager, times(0)).checkIndexRetention(any(Client.class), anySet(), any(IndexMetadata.class), any(DateTime.class));
-        verify(elasticsearchIndexManager, times(0)).preCreateIndex(any(Client.class), any(IndexMetadata.class), any(DateTime.class));
+        verify(elasticsearchIndexManager, times(0)).checkIndexRetention(any(Client.class), any(NavigableMap.class), any(IndexMetadata.class), any(DateTime.class));
+        verify(elasticsearchIndexManager, times(0)).preCreateIndex(any(Client.class), any(IndexCatalog.class), any(IndexMetadata.class), any(DateTime.class));
     }
 
     @Test
@@ -82,28 +86,36 @@ public class TestElasticsearchIndexManager {
         String serializedIndexMetadata = "[{\"retentionType\": \"yearly\", \"retentionPeriod\": 3, \"indexName\": \"nf_errors_log\"}]";
         when(config.getIndexMetadata()).thenReturn(serializedIndexMetadata);
 
-        Map<String, IndexStats> indexStats = new HashMap<>();
-        indexStats.put("nf_errors_log2018", new IndexStats("nf_errors_log2018", new ShardStats[]{}));
-        indexStats.put("nf_errors_log2017", new IndexStats("nf_errors_log2017", new ShardStats[]{}));
-        indexStats.put("nf_errors_log2016", new IndexStats("nf_errors_log2016", new ShardStats[]{}));
-        indexStats.put("nf_errors_log2015", new IndexStats("nf_errors_log2015", new ShardStats[]{}));
-        indexStats.put("nf_errors_log2014", new IndexStats("nf_errors_log2014", new ShardStats[]{}));
-        indexStats.put("nf_errors_log2013", new IndexStats("nf_errors_log2013", new ShardStats[]{}));
-        indexStats.put("nf_errors_log2012", new IndexStats("nf_errors_log2012", new ShardStats[]{}));
+        IndexCatalog indexCatalog = catalog("nf_errors_log2018", "nf_errors_log2017", "nf_errors_log2016", "nf_errors_log2015", "nf_errors_log2014", "nf_errors_log2013", "nf_errors_log2012");
+        doReturn(indexCatalog).when(elasticsearchIndexManager).getIndexCatalog(elasticsearchClient);
 
-        IndicesStatsResponse indicesStatsResponse = mock(IndicesStatsResponse.class);
-        when(indicesStatsResponse.getIndices()).thenReturn(indexStats);
+        elasticsearchIndexManager.runIndexManagement();
 
-        doReturn(indicesStatsResponse).when(elasticsearchIndexManager).getIndicesStatsResponse(elasticsearchClient);
+        verify(elasticsearchIndexManager, times(1)).checkIndexRetention(any(Client.class), any(NavigableMap.class), any(IndexMetadata.class), any(DateTime.class));
 
-        elasticsearchIndexManager.runIndexManagement();
+        verify(elasticsearchIndexManager, times(1)).deleteIndices(
+                any(Client.class), eq(Arrays.asList("nf_errors_log2012", "nf_errors_log2013")), eq(AUTO_CREATE_INDEX_TIMEOUT));
 
-        verify(elasticsearchIndexManager, times(1)).checkIndexRetention(any(Client.class), anySet(), any(IndexMetadata.class), any(DateTime.class));
+        verify(elasticsearchIndexManager, times(0)).preCreateIndex(any(Client.class), any(IndexCatalog.class), any(IndexMetadata.class), any(DateTime.class));
+    }
+
+    @Test
+    public void testRunIndexManagement_FailedRetentionDoesNotStopOtherPhases() throws Exception {
+        String serializedIndexMetadata = "[{\"retentionType\": \"daily\", \"retentionPeriod\": 5, \"closeAfter\": 2, \"preCreate\": true, \"indexName\": \"nf_errors_log\"}]";
+        List<IndexMetadata> indexMetadataList = IndexUtils.parseIndexMetadata(serializedIndexMetadata);
+
+        IndexCatalog indexCatalog = catalog("nf_errors_log20171204", "nf_errors_log20171207", "nf_errors_log20171211");
+        doReturn(indexCatalog).when(elasticsearchIndexManager).getIndexCatalog(elasticsearchClient);
+        doThrow(new RuntimeException("Failed to delete [nf_errors_log20171204]"))
+                .when(elasticsearchIndexManager).deleteIndices(eq(elasticsearchClient), anyList(), anyInt());
+        doNothing().when(elasticsearchIndexManager).createIndex(eq(elasticsearchClient), anyString());
+        doNothing().when(elasticsearchIndexManager).closeIndices(eq(elasticsearchClient), anyList());
+        when(config.getIndexRetentionDeleteBatchSize()).thenReturn(20);
 
-        verify(elasticsearchIndexManager, times(1)).deleteIndices(any(Client.class), eq("nf_errors_log2012"), eq(AUTO_CREATE_INDEX_TIMEOUT));
-        verify(elasticsearchIndexManager, times(1)).deleteIndices(any(Client.class), eq("nf_errors_log2013"), eq(AUTO_CREATE_INDEX_TIMEOUT));
+        elasticsearchIndexManager.runIndexManagement(elasticsearchClient, indexMetadataList, new DateTime("2017-12-11T13:30Z"));
 
-        verify(elasticsearchIndexManager, times(0)).preCreateIndex(any(Client.class), any(IndexMetadata.class), any(DateTime.class));
+        verify(elasticsearchIndexManager).createIndex(elasticsearchClient, "nf_errors_log20171212");
+        verify(elasticsearchIndexManager).closeIndices(elasticsearchClient, Collections.singletonList("nf_errors_log20171207"));
     }
 
     @Test
@@ -115,9 +127,11 @@ public class TestElasticsearchIndexManager {
         Set<String> indices = new HashSet<>(
                 Arrays.asList("nf_errors_log2017062210", "nf_errors_log2017062211", "nf_errors_log2017062212", "nf_errors_log2017062213", "nf_errors_log2017062214"));
 
-        elasticsearchIndexManager.checkIndexRetention(elasticsearchClient, indices, indexMetadata, new DateTime("2017-06-22T13:30Z"));
+        NavigableMap<String, DateTime> indexDates = new IndexNameMatcher(indexMetadataList).match(indices).get(indexMetadata);
+        elasticsearchIndexManager.checkIndexRetention(elasticsearchClient, indexDates, indexMetadata, new DateTime("2017-06-22T13:30Z"));
 
-        verify(elasticsearchIndexManager, times(1)).deleteIndices(any(Client.class), eq("nf_errors_log2017062210"), eq(AUTO_CREATE_INDEX_TIMEOUT));
+        verify(elasticsearchIndexManager, times(1)).deleteIndices(
+                any(Client.class), eq(Collections.singletonList("nf_errors_log2017062210")), eq(AUTO_CREATE_INDEX_TIMEOUT));
     }
 
     @Test
@@ -126,21 +140,456 @@ public class TestElasticsearchIndexManager {
                 "{\"preCreate\": false, \"retentionType\": \"yearly\", \"retentionPeriod\": 3, \"indexName\": \"nf_errors_log201712\"}]";
         List<IndexMetadata> indexMetadataList = IndexUtils.parseIndexMetadata(serializedIndexMetadata);
 
-        Map<String, IndexStats> indexStats = new HashMap<>();
-        indexStats.put("nf_errors_log2017121110", new IndexStats("nf_errors_log2017121110", new ShardStats[]{}));
-        indexStats.put("nf_errors_log2017121111", new IndexStats("nf_errors_log2017121111", new ShardStats[]{}));
-        indexStats.put("nf_errors_log2017121112", new IndexStats("nf_errors_log2017121112", new ShardStats[]{}));
-        indexStats.put("nf_errors_log2017121113", new IndexStats("nf_errors_log2017121113", new ShardStats[]{}));
-        indexStats.put("nf_errors_log2017121114", new IndexStats("nf_errors_log2017121114", new ShardStats[]{}));
+        IndexCatalog indexCatalog = catalog("nf_errors_log2017121110", "nf_errors_log2017121111", "nf_errors_log2017121112", "nf_errors_log2017121113", "nf_errors_log2017121114");
+        doReturn(indexCatalog).when(elasticsearchIndexManager).getIndexCatalog(elasticsearchClient);
+
+        elasticsearchIndexManager.runIndexManagement(elasticsearchClient, indexMetadataList, new DateTime("2017-12-11T13:30Z"));
+
+        verify(elasticsearchIndexManager, times(2)).checkIndexRetention(any(Client.class), any(NavigableMap.class), any(IndexMetadata.class), any(DateTime.class));
+    }
+
+    @Test
+    public void testDeleteIndices_Batched() throws Exception {
+        when(config.getIndexRetentionDeleteBatchSize()).thenReturn(2);
+        when(config.getIndexRetentionDeleteConcurrency()).thenReturn(2);
+        doCallRealMethod().when(elasticsearchIndexManager).deleteIndices(eq(elasticsearchClient), anyList(), anyInt());
+
+        DeleteIndexResponse deleteIndexResponse = mock(DeleteIndexResponse.class);
+        when(deleteIndexResponse.isAcknowledged()).thenReturn(true);
+
+        ActionFuture<DeleteIndexResponse> future = mock(ActionFuture.class);
+        when(future.actionGet(anyLong())).thenReturn(deleteIndexResponse);
+        doReturn(future).when(elasticsearchIndexManager).deleteIndicesAsync(eq(elasticsearchClient), anyList());
+
+        elasticsearchIndexManager.deleteIndices(elasticsearchClient,
+                Arrays.asList("nf_errors_log2010", "nf_errors_log2011", "nf_errors_log2012", "nf_errors_log2013", "nf_errors_log2014"),
+                AUTO_CREATE_INDEX_TIMEOUT);
+
+        verify(elasticsearchIndexManager).deleteIndicesAsync(elasticsearchClient, Arrays.asList("nf_errors_log2010", "nf_errors_log2011"));
+        verify(elasticsearchIndexManager).deleteIndicesAsync(elasticsearchClient, Arrays.asList("nf_errors_log2012", "nf_errors_log2013"));
+        verify(elasticsearchIndexManager).deleteIndicesAsync(elasticsearchClient, Collections.singletonList("nf_errors_log2014"));
+        verify(future, times(3)).actionGet((long) AUTO_CREATE_INDEX_TIMEOUT);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testDeleteIndices_FailedBatchIsReported() throws Exception {
+        when(config.getIndexRetentionDeleteBatchSize()).thenReturn(1);
+        when(config.getIndexRetentionDeleteConcurrency()).thenReturn(1);
+        doCallRealMethod().when(elasticsearchIndexManager).deleteIndices(eq(elasticsearchClient), anyList(), anyInt());
+
+        DeleteIndexResponse deleteIndexResponse = mock(DeleteIndexResponse.class);
+        when(deleteIndexResponse.isAcknowledged()).thenReturn(true);
+
+        ActionFuture<DeleteIndexResponse> future = mock(ActionFuture.class);
+        when(future.actionGet(anyLong())).thenThrow(new RuntimeException("timed out")).thenReturn(deleteIndexResponse);
+        doReturn(future).when(elasticsearchIndexManager).deleteIndicesAsync(eq(elasticsearchClient), anyList());
+
+        try {
+            elasticsearchIndexManager.deleteIndices(elasticsearchClient, Arrays.asList("nf_errors_log2010", "nf_errors_log2011"), AUTO_CREATE_INDEX_TIMEOUT);
+        } finally {
+            verify(elasticsearchIndexManager, times(2)).deleteIndicesAsync(eq(elasticsearchClient), anyList());
+        }
+    }
+
+    @Test
+    public void testPreCreateIndex() throws Exception {
+        String serializedIndexMetadata = "[{\"preCreate\": true, \"retentionType\": \"daily\", \"retentionPeriod\": 5, \"indexName\": \"nf_errors_log\"}]";
+        IndexMetadata indexMetadata = IndexUtils.parseIndexMetadata(serializedIndexMetadata).get(0);
+        doNothing().when(elasticsearchIndexManager).createIndex(eq(elasticsearchClient), anyString());
+
+        elasticsearchIndexManager.preCreateIndex(elasticsearchClient, catalog("nf_errors_log20171210", "nf_errors_log20171211"), indexMetadata, new DateTime("2017-12-11T13:30Z"));
+        verify(elasticsearchIndexManager, times(1)).createIndex(elasticsearchClient, "nf_errors_log20171212");
+
+        elasticsearchIndexManager.preCreateIndex(elasticsearchClient, catalog("nf_errors_log20171211", "nf_errors_log20171212"), indexMetadata, new DateTime("2017-12-11T13:30Z"));
+        verify(elasticsearchIndexManager, times(1)).createIndex(eq(elasticsearchClient), anyString());
+    }
 
-        IndicesStatsResponse indicesStatsResponse = mock(IndicesStatsResponse.class);
-        when(indicesStatsResponse.getIndices()).thenReturn(indexStats);
+    @Test
+    public void testRunIndexManagement_Rollover() throws Exception {
+        String serializedIndexMetadata = "[{\"indexName\": \"nf_errors_log\", \"rolloverAlias\": \"nf_errors_log_write\", " +
+                "\"retentionPeriod\": \"P2D\", \"rolloverMaxDocs\": 1000}]";
+        List<IndexMetadata> indexMetadataList = IndexUtils.parseIndexMetadata(serializedIndexMetadata);
 
-        doReturn(indicesStatsResponse).when(elasticsearchIndexManager).getIndicesStatsResponse(elasticsearchClient);
+        Map<String, DateTime> creationDates = new HashMap<>();
+        creationDates.put("nf_errors_log-000001", new DateTime("2017-12-01T00:00Z"));
+        creationDates.put("nf_errors_log-000002", new DateTime("2017-12-05T00:00Z"));
+        creationDates.put("nf_errors_log-000003", new DateTime("2017-12-08T00:00Z"));
+        creationDates.put("nf_errors_log20171210", new DateTime("2017-12-10T00:00Z"));
+        doReturn(new IndexCatalog(creationDates)).when(elasticsearchIndexManager).getIndexCatalog(elasticsearchClient);
+        doNothing().when(elasticsearchIndexManager).rolloverIndex(eq(elasticsearchClient), any(NavigableMap.class), any(IndexMetadata.class));
 
         elasticsearchIndexManager.runIndexManagement(elasticsearchClient, indexMetadataList, new DateTime("2017-12-11T13:30Z"));
 
-        verify(elasticsearchIndexManager, times(2)).checkIndexRetention(any(Client.class), anySet(), any(IndexMetadata.class), any(DateTime.class));
+        // The write index is never a retention candidate, even if it is past the retention date
+        verify(elasticsearchIndexManager, times(1)).deleteIndices(
+                any(Client.class), eq(Arrays.asList("nf_errors_log-000001", "nf_errors_log-000002")), eq(AUTO_CREATE_INDEX_TIMEOUT));
+        verify(elasticsearchIndexManager, times(1)).rolloverIndex(eq(elasticsearchClient), any(NavigableMap.class), eq(indexMetadataList.get(0)));
+        verify(elasticsearchIndexManager, times(0)).preCreateIndex(any(Client.class), any(IndexCatalog.class), any(IndexMetadata.class), any(DateTime.class));
+    }
+
+    @Test
+    public void testRunIndexManagement_RolloverShrunkIndexKeepsOriginalSchedule() throws Exception {
+        String serializedIndexMetadata = "[{\"indexName\": \"nf_errors_log\", \"rolloverAlias\": \"nf_errors_log_write\", " +
+                "\"retentionPeriod\": \"P5D\", \"rolloverMaxDocs\": 1000, \"warmAfter\": \"P1D\", \"warmShrinkShards\": 1}]";
+        List<IndexMetadata> indexMetadataList = IndexUtils.parseIndexMetadata(serializedIndexMetadata);
+
+        // 000001 was shrunk on 12/09, 000002 was shrunk by a Raigad version which did not record the origin yet
+        MetaData metaData = MetaData.builder()
+                .put(indexMetaData("nf_errors_log-000001-shrunk", "2017-12-09T00:00Z", Settings.builder()
+                        .put(IndexMetaData.INDEX_SHRINK_SOURCE_NAME_KEY, "nf_errors_log-000001")
+                        .put(IndexCatalog.ORIGIN_CREATION_DATE_SETTING, new DateTime("2017-12-01T00:00Z").getMillis())), false)
+                .put(indexMetaData("nf_errors_log-000002", "2017-12-05T00:00Z", Settings.builder()), false)
+                .put(indexMetaData("nf_errors_log-000002-shrunk", "2017-12-10T00:00Z", Settings.builder()
+                        .put(IndexMetaData.INDEX_SHRINK_SOURCE_NAME_KEY, "nf_errors_log-000002")), false)
+                .put(indexMetaData("nf_errors_log-000003", "2017-12-08T00:00Z", Settings.builder()), false)
+                .build();
+        ClusterStateResponse clusterStateResponse = mock(ClusterStateResponse.class);
+        when(clusterStateResponse.getState()).thenReturn(ClusterState.builder(new ClusterName("es_test")).metaData(metaData).build());
+
+        IndexCatalog indexCatalog = IndexCatalog.fromClusterState(clusterStateResponse);
+        doReturn(indexCatalog).when(elasticsearchIndexManager).getIndexCatalog(elasticsearchClient);
+        doNothing().when(elasticsearchIndexManager).rolloverIndex(eq(elasticsearchClient), any(NavigableMap.class), any(IndexMetadata.class));
+        doReturn(false).when(elasticsearchIndexManager).warmIndex(eq(elasticsearchClient), eq(indexCatalog), any(IndexMetadata.class), anyString());
+
+        assertEquals(new DateTime("2017-12-01T00:00Z").getMillis(), indexCatalog.getCreationDate("nf_errors_log-000001-shrunk").getMillis());
+        assertEquals(new DateTime("2017-12-05T00:00Z").getMillis(), indexCatalog.getCreationDate("nf_errors_log-000002-shrunk").getMillis());
+
+        elasticsearchIndexManager.runIndexManagement(elasticsearchClient, indexMetadataList, new DateTime("2017-12-07T13:30Z"));
+
+        // Expired five days after the source index was created, not five days after the shrink
+        verify(elasticsearchIndexManager, times(1)).deleteIndices(
+                any(Client.class), eq(Collections.singletonList("nf_errors_log-000001-shrunk")), eq(AUTO_CREATE_INDEX_TIMEOUT));
+    }
+
+    private static IndexMetaData indexMetaData(String indexName, String creationDate, Settings.Builder settings) {
+        return IndexMetaData.builder(indexName)
+                .settings(settings.put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT))
+                .creationDate(new DateTime(creationDate).getMillis())
+                .numberOfShards(1)
+                .numberOfReplicas(0)
+                .build();
+    }
+
+    @Test
+    public void testRunIndexManagement_WarmPhase() throws Exception {
+        String serializedIndexMetadata = "[{\"retentionType\": \"daily\", \"retentionPeriod\": 5, \"warmAfter\": 2, \"indexName\": \"nf_errors_log\"}]";
+        List<IndexMetadata> indexMetadataList = IndexUtils.parseIndexMetadata(serializedIndexMetadata);
+
+        IndexCatalog indexCatalog = catalog("nf_errors_log20171205", "nf_errors_log20171206", "nf_errors_log20171207", "nf_errors_log20171208",
+                "nf_errors_log20171209", "nf_errors_log20171210", "nf_errors_log20171211");
+        doReturn(indexCatalog).when(elasticsearchIndexManager).getIndexCatalog(elasticsearchClient);
+        doReturn(true).when(elasticsearchIndexManager).warmIndex(eq(elasticsearchClient), eq(indexCatalog), any(IndexMetadata.class), anyString());
+        doReturn(false).when(elasticsearchIndexManager).warmIndex(elasticsearchClient, indexCatalog, indexMetadataList.get(0), "nf_errors_log20171207");
+        doNothing().when(elasticsearchIndexManager).queueForceMerges(eq(elasticsearchClient), anyMap(), anyLong());
+
+        DateTime dateTime = new DateTime("2017-12-11T13:30Z");
+        elasticsearchIndexManager.runIndexManagement(elasticsearchClient, indexMetadataList, dateTime);
+
+        // Expired indices are left to retention, recent ones are not warmed yet
+        verify(elasticsearchIndexManager).warmIndex(elasticsearchClient, indexCatalog, indexMetadataList.get(0), "nf_errors_log20171206");
+        verify(elasticsearchIndexManager).warmIndex(elasticsearchClient, indexCatalog, indexMetadataList.get(0), "nf_errors_log20171207");
+        verify(elasticsearchIndexManager).warmIndex(elasticsearchClient, indexCatalog, indexMetadataList.get(0), "nf_errors_log20171208");
+        verify(elasticsearchIndexManager, times(3)).warmIndex(eq(elasticsearchClient), eq(indexCatalog), any(IndexMetadata.class), anyString());
+
+        // Every index ready to be force-merged is queued, not just one per run
+        Map<String, Integer> expectedForceMerges = new LinkedHashMap<>();
+        expectedForceMerges.put("nf_errors_log20171206", 1);
+        expectedForceMerges.put("nf_errors_log20171208", 1);
+        verify(elasticsearchIndexManager).queueForceMerges(elasticsearchClient, expectedForceMerges, dateTime.getMillis());
+    }
+
+    @Test
+    public void testQueueForceMerges_OnePerNode() throws Exception {
+        when(config.getIndexWarmPhaseForceMergeTimeoutMinutes()).thenReturn(60);
+
+        Map<String, Set<String>> shardNodes = new HashMap<>();
+        shardNodes.put("index1", new HashSet<>(Arrays.asList("node1", "node2")));
+        shardNodes.put("index2", new HashSet<>(Arrays.asList("node2", "node3")));
+        shardNodes.put("index3", new HashSet<>(Arrays.asList("node3", "node4")));
+        shardNodes.put("index4", new HashSet<>(Arrays.asList("node1", "node4")));
+        doReturn(shardNodes).when(elasticsearchIndexManager).getShardNodes(eq(elasticsearchClient), anyCollection());
+
+        Map<String, ActionListener<ForceMergeResponse>> listeners = new HashMap<>();
+        doAnswer(invocation -> listeners.put(invocation.getArgument(1), invocation.getArgument(3)))
+                .when(elasticsearchIndexManager).forceMerge(eq(elasticsearchClient), anyString(), anyInt(), any());
+
+        Map<String, Integer> forceMergeMaxSegments = new LinkedHashMap<>();
+        for (String indexName : Arrays.asList("index1", "index2", "index3", "index4")) {
+            forceMergeMaxSegments.put(indexName, 1);
+        }
+
+        // Indices on disjoint nodes are merged in parallel, without waiting for the merges to complete
+        elasticsearchIndexManager.queueForceMerges(elasticsearchClient, forceMergeMaxSegments, 0L);
+        assertEquals(new HashSet<>(Arrays.asList("index1", "index3")), listeners.keySet());
+        assertTrue(elasticsearchIndexManager.isForceMergeInFlight("index1"));
+
+        // Running again does not issue merges on busy nodes
+        elasticsearchIndexManager.queueForceMerges(elasticsearchClient, forceMergeMaxSegments, 0L);
+        verify(elasticsearchIndexManager, times(2)).forceMerge(eq(elasticsearchClient), anyString(), anyInt(), any());
+
+        // Freeing node1 and node2 starts index2 once node3 is free as well
+        ForceMergeResponse forceMergeResponse = mock(ForceMergeResponse.class);
+        listeners.get("index1").onResponse(forceMergeResponse);
+        assertFalse(elasticsearchIndexManager.isForceMergeInFlight("index1"));
+        assertFalse(listeners.containsKey("index2"));
+        listeners.get("index3").onFailure(new IOException("test"));
+        assertTrue(listeners.containsKey("index2"));
+        assertTrue(listeners.containsKey("index4"));
+
+        // Only successfully merged indices are done
+        IndexMetadata indexMetadata = IndexUtils.parseIndexMetadata(
+                "[{\"retentionType\": \"daily\", \"retentionPeriod\": 5, \"warmAfter\": 2, \"indexName\": \"index\"}]").get(0);
+        IndexCatalog indexCatalog = catalog("index1", "index2", "index3", "index4");
+        assertFalse(elasticsearchIndexManager.warmIndex(elasticsearchClient, indexCatalog, indexMetadata, "index1"));
+        assertFalse(elasticsearchIndexManager.warmIndex(elasticsearchClient, indexCatalog, indexMetadata, "index2"));
+        assertTrue(elasticsearchIndexManager.warmIndex(elasticsearchClient, indexCatalog, indexMetadata, "index3"));
+    }
+
+    @Test
+    public void testRunWarmPhase_OutsideOfWindow() throws Exception {
+        when(config.getIndexWarmPhaseStartHour()).thenReturn(1);
+        when(config.getIndexWarmPhaseEndHour()).thenReturn(6);
+
+        String serializedIndexMetadata = "[{\"retentionType\": \"daily\", \"retentionPeriod\": 5, \"warmAfter\": 2, \"indexName\": \"nf_errors_log\"}]";
+        List<IndexMetadata> indexMetadataList = IndexUtils.parseIndexMetadata(serializedIndexMetadata);
+
+        doReturn(catalog("nf_errors_log20171206", "nf_errors_log20171211")).when(elasticsearchIndexManager).getIndexCatalog(elasticsearchClient);
+
+        elasticsearchIndexManager.runIndexManagement(elasticsearchClient, indexMetadataList, new DateTime("2017-12-11T13:30Z"));
+
+        verify(elasticsearchIndexManager, times(0)).warmIndex(any(Client.class), any(IndexCatalog.class), any(IndexMetadata.class), anyString());
+    }
+
+    @Test
+    public void testIsWarmPhaseWindow() {
+        when(config.getIndexWarmPhaseStartHour()).thenReturn(22);
+        when(config.getIndexWarmPhaseEndHour()).thenReturn(4);
+
+        assertTrue(elasticsearchIndexManager.isWarmPhaseWindow(new DateTime("2017-12-11T23:30Z")));
+        assertTrue(elasticsearchIndexManager.isWarmPhaseWindow(new DateTime("2017-12-11T03:59Z")));
+        assertFalse(elasticsearchIndexManager.isWarmPhaseWindow(new DateTime("2017-12-11T04:00Z")));
+        assertFalse(elasticsearchIndexManager.isWarmPhaseWindow(new DateTime("2017-12-11T13:30Z")));
+    }
+
+    @Test
+    public void testWarmIndex_Shrink() throws Exception {
+        String serializedIndexMetadata = "[{\"retentionType\": \"daily\", \"retentionPeriod\": 5, \"warmAfter\": 2, \"warmShrinkShards\": 1, \"indexName\": \"nf_errors_log\"}]";
+        IndexMetadata indexMetadata = IndexUtils.parseIndexMetadata(serializedIndexMetadata).get(0);
+        String indexName = "nf_errors_log20171206";
+        String shrunkIndexName = "nf_errors_log20171206-shrunk";
+
+        doNothing().when(elasticsearchIndexManager).blockWrites(eq(elasticsearchClient), anyString(), anyString());
+        doNothing().when(elasticsearchIndexManager).shrinkIndex(eq(elasticsearchClient), anyString(), anyString(), anyInt(), any(DateTime.class));
+        doReturn("node1").when(elasticsearchIndexManager).findShrinkNode(elasticsearchClient, indexName, false);
+        doReturn("node1").when(elasticsearchIndexManager).findShrinkNode(elasticsearchClient, indexName, true);
+        doReturn(true).when(elasticsearchIndexManager).isIndexGreen(elasticsearchClient, shrunkIndexName);
+
+        Map<String, DateTime> creationDates = new HashMap<>();
+        creationDates.put(indexName, new DateTime(0L));
+        Map<String, Integer> numberOfShards = Collections.singletonMap(indexName, 5);
+
+        // Writes are blocked and shards are moved to a single node first
+        IndexCatalog indexCatalog = new IndexCatalog(creationDates, Collections.emptySet(), numberOfShards);
+        assertFalse(elasticsearchIndexManager.warmIndex(elasticsearchClient, indexCatalog, indexMetadata, indexName));
+        verify(elasticsearchIndexManager).blockWrites(elasticsearchClient, indexName, "node1");
+
+        // Then the index is shrunk
+        indexCatalog = new IndexCatalog(creationDates, Collections.singleton(indexName), numberOfShards);
+        assertFalse(elasticsearchIndexManager.warmIndex(elasticsearchClient, indexCatalog, indexMetadata, indexName));
+        verify(elasticsearchIndexManager).shrinkIndex(elasticsearchClient, indexName, shrunkIndexName, 1, new DateTime(0L));
+
+        // And deleted once the shrunk index is green
+        creationDates.put(shrunkIndexName, new DateTime(0L));
+        indexCatalog = new IndexCatalog(creationDates, new HashSet<>(Arrays.asList(indexName, shrunkIndexName)), numberOfShards);
+        assertFalse(elasticsearchIndexManager.warmIndex(elasticsearchClient, indexCatalog, indexMetadata, indexName));
+        verify(elasticsearchIndexManager).deleteIndices(elasticsearchClient, Collections.singletonList(indexName), AUTO_CREATE_INDEX_TIMEOUT);
+
+        // Only the shrunk index is force-merged
+        assertTrue(elasticsearchIndexManager.warmIndex(elasticsearchClient, indexCatalog, indexMetadata, shrunkIndexName));
+        assertFalse(elasticsearchIndexManager.warmIndex(elasticsearchClient, indexCatalog, indexMetadata, indexName));
+    }
+
+    @Test
+    public void testWarmIndex_ShrinkFactorMismatch() throws Exception {
+        String serializedIndexMetadata = "[{\"retentionType\": \"daily\", \"retentionPeriod\": 5, \"warmAfter\": 2, \"warmShrinkShards\": 2, \"indexName\": \"nf_errors_log\"}]";
+        IndexMetadata indexMetadata = IndexUtils.parseIndexMetadata(serializedIndexMetadata).get(0);
+        String indexName = "nf_errors_log20171206";
+
+        doNothing().when(elasticsearchIndexManager).unpinIndex(eq(elasticsearchClient), anyString());
+
+        // Pinned to a node by an earlier run, before warmShrinkShards changed
+        Set<String> indexNames = Collections.singleton(indexName);
+        IndexCatalog indexCatalog = new IndexCatalog(Collections.singletonMap(indexName, new DateTime(0L)), indexNames,
+                Collections.singletonMap(indexName, 5), Collections.emptySet(), Collections.emptyMap(), indexNames);
+
+        assertTrue(elasticsearchIndexManager.warmIndex(elasticsearchClient, indexCatalog, indexMetadata, indexName));
+        verify(elasticsearchIndexManager).unpinIndex(elasticsearchClient, indexName);
+        verify(elasticsearchIndexManager, times(0)).shrinkIndex(any(Client.class), anyString(), anyString(), anyInt(), any(DateTime.class));
+        verify(elasticsearchIndexManager, times(0)).blockWrites(any(Client.class), anyString(), any());
+    }
+
+    @Test
+    public void testWarmIndex_RefusedShrinkIsAbandoned() throws Exception {
+        String serializedIndexMetadata = "[{\"retentionType\": \"daily\", \"retentionPeriod\": 5, \"warmAfter\": 2, \"warmShrinkShards\": 1, \"indexName\": \"nf_errors_log\"}]";
+        IndexMetadata indexMetadata = IndexUtils.parseIndexMetadata(serializedIndexMetadata).get(0);
+        String indexName = "nf_errors_log20171206";
+
+        doReturn("node1").when(elasticsearchIndexManager).findShrinkNode(elasticsearchClient, indexName, true);
+        doThrow(new IllegalStateException("index.shrink.source.uuid")).when(elasticsearchIndexManager)
+                .shrinkIndex(eq(elasticsearchClient), anyString(), anyString(), anyInt(), any(DateTime.class));
+        doNothing().when(elasticsearchIndexManager).unpinIndex(eq(elasticsearchClient), anyString());
+
+        Set<String> indexNames = Collections.singleton(indexName);
+        IndexCatalog indexCatalog = new IndexCatalog(Collections.singletonMap(indexName, new DateTime(0L)), indexNames,
+                Collections.singletonMap(indexName, 5), Collections.emptySet(), Collections.emptyMap(), indexNames);
+
+        assertTrue(elasticsearchIndexManager.warmIndex(elasticsearchClient, indexCatalog, indexMetadata, indexName));
+        verify(elasticsearchIndexManager).unpinIndex(elasticsearchClient, indexName);
+
+        // Not attempted again
+        elasticsearchIndexManager.warmIndex(elasticsearchClient, indexCatalog, indexMetadata, indexName);
+        verify(elasticsearchIndexManager, times(1)).shrinkIndex(any(Client.class), anyString(), anyString(), anyInt(), any(DateTime.class));
+    }
+
+    @Test
+    public void testRunIndexManagement_ClosePhase() throws Exception {
+        String serializedIndexMetadata = "[{\"retentionType\": \"daily\", \"retentionPeriod\": 30, \"closeAfter\": 7, \"indexName\": \"nf_errors_log\"}]";
+        List<IndexMetadata> indexMetadataList = IndexUtils.parseIndexMetadata(serializedIndexMetadata);
+
+        Map<String, DateTime> creationDates = new HashMap<>();
+        for (String indexName : Arrays.asList("nf_errors_log20171201", "nf_errors_log20171202", "nf_errors_log20171203", "nf_errors_log20171211")) {
+            creationDates.put(indexName, new DateTime(0L));
+        }
+        IndexCatalog indexCatalog = new IndexCatalog(creationDates, Collections.emptySet(), Collections.emptyMap(),
+                Collections.singleton("nf_errors_log20171201"));
+
+        doReturn(indexCatalog).when(elasticsearchIndexManager).getIndexCatalog(elasticsearchClient);
+        doNothing().when(elasticsearchIndexManager).closeIndices(eq(elasticsearchClient), anyList());
+        when(config.getIndexRetentionDeleteBatchSize()).thenReturn(20);
+
+        elasticsearchIndexManager.runIndexManagement(elasticsearchClient, indexMetadataList, new DateTime("2017-12-11T13:30Z"));
+
+        verify(elasticsearchIndexManager, times(1)).closeIndices(elasticsearchClient, Arrays.asList("nf_errors_log20171202", "nf_errors_log20171203"));
+    }
+
+    @Test
+    public void testReopenIndices() throws Exception {
+        MasterStatusTracker masterStatusTracker = mock(MasterStatusTracker.class);
+        when(masterStatusTracker.isMaster()).thenReturn(true);
+        when(config.getIndexReopenMaxIndices()).thenReturn(10);
+        when(config.getIndexRetentionDeleteBatchSize()).thenReturn(20);
+
+        cleanUp();
+        elasticsearchIndexManager = spy(new ElasticsearchIndexManager(config, masterStatusTracker));
+        doReturn(elasticsearchClient).when(elasticsearchIndexManager).getTransportClient();
+        doNothing().when(elasticsearchIndexManager).openIndices(eq(elasticsearchClient), anyList());
+        doNothing().when(elasticsearchIndexManager).updateReopenedIndex(eq(elasticsearchClient), anyString(), any(ReopenedIndex.class));
+
+        Map<String, DateTime> creationDates = new HashMap<>();
+        for (String indexName : Arrays.asList("nf_errors_log20171201", "nf_errors_log20171202", "nf_errors_log20171203", "nf_errors_log20171211")) {
+            creationDates.put(indexName, new DateTime(0L));
+        }
+        Set<String> closedIndices = new HashSet<>(Arrays.asList("nf_errors_log20171201", "nf_errors_log20171202", "nf_errors_log20171203"));
+        IndexCatalog closedCatalog = new IndexCatalog(creationDates, Collections.emptySet(), Collections.emptyMap(), closedIndices);
+        doReturn(closedCatalog).when(elasticsearchIndexManager).getIndexCatalog(elasticsearchClient);
+
+        long now = System.currentTimeMillis();
+        List<String> reopened = elasticsearchIndexManager.reopenIndices(
+                Collections.emptyList(), "nf_errors_log20171202", "nf_errors_log20171211", 60);
+
+        assertEquals(Arrays.asList("nf_errors_log20171202", "nf_errors_log20171203"), reopened);
+        verify(elasticsearchIndexManager).openIndices(elasticsearchClient, reopened);
+
+        // The TTL is stored in the index settings
+        Map<String, ReopenedIndex> reopenedIndices = new HashMap<>();
+        for (String indexName : reopened) {
+            ArgumentCaptor<ReopenedIndex> reopenedIndex = ArgumentCaptor.forClass(ReopenedIndex.class);
+            verify(elasticsearchIndexManager).updateReopenedIndex(eq(elasticsearchClient), eq(indexName), reopenedIndex.capture());
+            assertTrue(reopenedIndex.getValue().getExpiresAt() >= now + TimeUnit.MINUTES.toMillis(60));
+            assertEquals(reopenedIndex.getValue(), ReopenedIndex.fromSettings(reopenedIndex.getValue().toSettings()));
+            reopenedIndices.put(indexName, reopenedIndex.getValue());
+        }
+
+        // A new master, or a restarted Raigad, finds the TTL in the cluster state
+        cleanUp();
+        elasticsearchIndexManager = spy(new ElasticsearchIndexManager(config, masterStatusTracker));
+        doNothing().when(elasticsearchIndexManager).closeIndices(eq(elasticsearchClient), anyList());
+        doNothing().when(elasticsearchIndexManager).updateReopenedIndex(eq(elasticsearchClient), anyString(), any(ReopenedIndex.class));
+
+        IndexCatalog openCatalog = new IndexCatalog(creationDates, Collections.emptySet(), Collections.emptyMap(),
+                Collections.singleton("nf_errors_log20171201"), reopenedIndices);
+        NavigableMap<String, DateTime> coldIndexDates = new TreeMap<>(creationDates);
+        coldIndexDates.remove("nf_errors_log20171211");
+
+        Map<IndexMetadata, NavigableMap<String, DateTime>> coldIndices = new HashMap<>();
+        coldIndices.put(IndexUtils.parseIndexMetadata("[{\"retentionPeriod\": 30, \"closeAfter\": 7, \"indexName\": \"nf_errors_log\"}]").get(0), coldIndexDates);
+
+        // Reopened indices are not closed again while their TTL lasts
+        elasticsearchIndexManager.runClosePhase(elasticsearchClient, openCatalog, coldIndices, now);
+        verify(elasticsearchIndexManager, times(0)).closeIndices(eq(elasticsearchClient), anyList());
+
+        // Once the TTL is over, searched indices are kept open for another TTL and the others are closed again
+        long later = now + TimeUnit.MINUTES.toMillis(61);
+        doReturn(Collections.singletonMap("nf_errors_log20171202", 5L)).when(elasticsearchIndexManager).getQueryTotals(eq(elasticsearchClient), anyCollection());
+        elasticsearchIndexManager.runClosePhase(elasticsearchClient, openCatalog, coldIndices, later);
+        verify(elasticsearchIndexManager).updateReopenedIndex(elasticsearchClient, "nf_errors_log20171202",
+                reopenedIndices.get("nf_errors_log20171202").extend(5, later));
+        verify(elasticsearchIndexManager, times(1)).closeIndices(elasticsearchClient, Collections.singletonList("nf_errors_log20171203"));
+    }
+
+    @Test
+    public void testRaigadSettingsWithoutPlugin() throws Exception {
+        Client client = mock(Client.class, RETURNS_DEEP_STUBS);
+        IllegalArgumentException unknownSetting = new IllegalArgumentException(
+                "unknown setting [index.raigad.origin_creation_date] please check that any required plugins are installed");
+        when(client.admin().indices().prepareShrinkIndex("nf_errors_log-000001", "nf_errors_log-000001-shrunk")
+                .setSettings(any(Settings.class)).execute().actionGet(anyLong()))
+                .thenThrow(unknownSetting)
+                .thenReturn(null);
+
+        // The index is shrunk without its origin creation date
+        elasticsearchIndexManager.shrinkIndex(client, "nf_errors_log-000001", "nf_errors_log-000001-shrunk", 1, new DateTime(0L));
+
+        ArgumentCaptor<Settings> settings = ArgumentCaptor.forClass(Settings.class);
+        verify(client.admin().indices().prepareShrinkIndex("nf_errors_log-000001", "nf_errors_log-000001-shrunk"), times(2))
+                .setSettings(settings.capture());
+        assertEquals("0", settings.getAllValues().get(0).get(IndexCatalog.ORIGIN_CREATION_DATE_SETTING));
+        assertEquals(null, settings.getAllValues().get(1).get(IndexCatalog.ORIGIN_CREATION_DATE_SETTING));
+
+        // Reopened index state is kept in memory instead, without trying the settings again
+        ReopenedIndex reopenedIndex = new ReopenedIndex(1000L, 1000L, 0L);
+        elasticsearchIndexManager.updateReopenedIndex(client, "nf_errors_log-000001", reopenedIndex);
+        verify(client.admin().indices(), times(0)).prepareUpdateSettings(anyString());
+        assertEquals(reopenedIndex, elasticsearchIndexManager.getReopenedIndex(catalog("nf_errors_log-000001"), "nf_errors_log-000001"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReopenIndices_TooMany() throws Exception {
+        MasterStatusTracker masterStatusTracker = mock(MasterStatusTracker.class);
+        when(masterStatusTracker.isMaster()).thenReturn(true);
+        when(config.getIndexReopenMaxIndices()).thenReturn(1);
+
+        cleanUp();
+        elasticsearchIndexManager = spy(new ElasticsearchIndexManager(config, masterStatusTracker));
+        doReturn(elasticsearchClient).when(elasticsearchIndexManager).getTransportClient();
+
+        Set<String> closedIndices = new HashSet<>(Arrays.asList("nf_errors_log20171201", "nf_errors_log20171202"));
+        Map<String, DateTime> creationDates = new HashMap<>();
+        for (String indexName : closedIndices) {
+            creationDates.put(indexName, new DateTime(0L));
+        }
+        doReturn(new IndexCatalog(creationDates, Collections.emptySet(), Collections.emptyMap(), closedIndices))
+                .when(elasticsearchIndexManager).getIndexCatalog(elasticsearchClient);
+
+        elasticsearchIndexManager.reopenIndices(Collections.emptyList(), "nf_errors_log20171201", "nf_errors_log20171231", 60);
+    }
+
+    private static IndexCatalog catalog(String... indexNames) {
+        Map<String, DateTime> creationDates = new HashMap<>();
+        for (String indexName : indexNames) {
+            creationDates.put(indexName, new DateTime(0L));
+        }
+        return new IndexCatalog(creationDates);
     }
 
     @After
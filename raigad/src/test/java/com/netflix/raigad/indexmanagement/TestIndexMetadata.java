@@ -2,6 +2,7 @@ package com.netflix.raigad.indexmanagement;
 
 import org.codehaus.jackson.JsonParseException;
 import org.codehaus.jackson.map.JsonMappingException;
+import org.joda.time.DateTime;
 import org.joda.time.Period;
 import org.junit.Test;
 
@@ -167,4 +168,70 @@ public class TestIndexMetadata {
         assertEquals(indexMetadata.getRetentionPeriod().toString(), "P20D");
         assertTrue(indexMetadata.isActionable());
     }
+
+    @Test
+    public void testRollover() throws IOException {
+        List<IndexMetadata> indexMetadataList = IndexUtils.parseIndexMetadata(
+                "[{\"indexName\": \"nf_errors_log\", \"rolloverAlias\": \"nf_errors_log_write\", \"retentionType\": \"daily\", " +
+                "\"retentionPeriod\": 7, \"rolloverMaxAge\": \"1d\", \"rolloverMaxDocs\": 1000000, \"rolloverMaxSize\": \"30gb\"}]");
+
+        IndexMetadata indexMetadata = indexMetadataList.get(0);
+
+        assertTrue(indexMetadata.isRollover());
+        assertTrue(indexMetadata.isActionable());
+        assertEquals("nf_errors_log_write", indexMetadata.getRolloverAlias());
+        assertEquals("nf_errors_log-000001", indexMetadata.getRolloverBootstrapIndexName());
+        assertEquals(86400000L, indexMetadata.getRolloverMaxAge().millis());
+        assertEquals(Long.valueOf(1000000L), indexMetadata.getRolloverMaxDocs());
+        assertEquals(30L * 1024 * 1024 * 1024, indexMetadata.getRolloverMaxSize().getBytes());
+
+        assertTrue(indexMetadata.getIndexNameFilter().filter("nf_errors_log-000001"));
+        assertTrue(indexMetadata.getIndexNameFilter().filter("nf_errors_log-000042"));
+        assertFalse(indexMetadata.getIndexNameFilter().filter("nf_errors_log20131212"));
+        assertFalse(indexMetadata.getIndexNameFilter().filter("nf_errors_log-1"));
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void testRolloverWithoutIndexName() throws IOException {
+        IndexUtils.parseIndexMetadata(
+                "[{\"indexNamePattern\": \"'nf_errors_log'YYYY\", \"rolloverAlias\": \"nf_errors_log_write\", \"rolloverMaxDocs\": 1000}]");
+    }
+
+    @Test
+    public void testWarmPhase() throws IOException {
+        List<IndexMetadata> indexMetadataList = IndexUtils.parseIndexMetadata(
+                "[{\"indexName\": \"nf_errors_log\", \"retentionType\": \"daily\", \"retentionPeriod\": 20, \"warmAfter\": 2, \"warmShrinkShards\": 1}," +
+                "{\"indexName\": \"nf_errors_log\", \"retentionType\": \"daily\", \"retentionPeriod\": 20}]");
+
+        IndexMetadata indexMetadata = indexMetadataList.get(0);
+
+        assertTrue(indexMetadata.isWarmPhaseEnabled());
+        assertEquals("P2D", indexMetadata.getWarmAfter().toString());
+        assertEquals(1, indexMetadata.getWarmMaxSegments());
+        assertEquals(Integer.valueOf(1), indexMetadata.getWarmShrinkShards());
+        assertEquals(new DateTime("2017-12-09T00:00Z").getMillis(), indexMetadata.getPastWarmCutoffDate(new DateTime("2017-12-11T13:30Z")).getMillis());
+
+        assertFalse(indexMetadataList.get(1).isWarmPhaseEnabled());
+
+        assertTrue(IndexMetadata.isShrunkIndex("nf_errors_log20171211-shrunk"));
+        assertFalse(IndexMetadata.isShrunkIndex("nf_errors_log20171211"));
+        assertEquals("nf_errors_log20171211", IndexMetadata.getSourceIndexName("nf_errors_log20171211-shrunk"));
+        assertEquals("nf_errors_log20171211", IndexMetadata.getSourceIndexName("nf_errors_log20171211"));
+    }
+
+    @Test
+    public void testWarmShrinkShardsMustBeAFactor() throws IOException {
+        IndexMetadata indexMetadata = IndexUtils.parseIndexMetadata(
+                "[{\"indexName\": \"nf_errors_log\", \"retentionType\": \"daily\", \"retentionPeriod\": 20, \"warmAfter\": 2, \"warmShrinkShards\": 2}]").get(0);
+
+        assertTrue(indexMetadata.canShrink(6));
+        assertFalse(indexMetadata.canShrink(5));
+        assertFalse(indexMetadata.canShrink(2));
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void testWarmShrinkShardsMustBePositive() throws IOException {
+        IndexUtils.parseIndexMetadata(
+                "[{\"indexName\": \"nf_errors_log\", \"retentionType\": \"daily\", \"retentionPeriod\": 20, \"warmAfter\": 2, \"warmShrinkShards\": 0}]");
+    }
 }
@@ -0,0 +1,80 @@
+package com.netflix.raigad.indexmanagement;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestIndexNameMatcher {
+    private static final List<String> INDEX_NAMES = Arrays.asList(
+            "abcd2018", "abcd201802", "abcd20180229", "abcd20160229", "abcd2018021323", "abcd2018021324",
+            "abcd20182", "abcd201813", "abcdx2018", "foo2018", "foo_bar20180301", "2018", "abcd");
+
+    @Test
+    public void testMatchesLikeIndexNameFilter() throws Exception {
+        List<IndexMetadata> indexMetadataList = IndexUtils.parseIndexMetadata(
+                "[{\"retentionType\": \"yearly\", \"retentionPeriod\": 1, \"indexName\": \"abcd\"}," +
+                "{\"retentionType\": \"monthly\", \"retentionPeriod\": 1, \"indexName\": \"abcd\"}," +
+                "{\"retentionType\": \"daily\", \"retentionPeriod\": 1, \"indexName\": \"abcd\"}," +
+                "{\"retentionType\": \"hourly\", \"retentionPeriod\": 1, \"indexName\": \"abcd\"}," +
+                "{\"retentionType\": \"daily\", \"retentionPeriod\": 1, \"indexName\": \"foo_bar\"}," +
+                "{\"retentionType\": \"yearly\", \"retentionPeriod\": 1, \"indexNamePattern\": \"YYYY\"}," +
+                "{\"retentionPeriod\": 1, \"indexNamePattern\": \"'foo_'YYYY'_'MM\"}]");
+
+        Map<IndexMetadata, NavigableMap<String, DateTime>> matches = new IndexNameMatcher(indexMetadataList).match(INDEX_NAMES);
+
+        assertEquals(indexMetadataList.size(), matches.size());
+
+        for (IndexMetadata indexMetadata : indexMetadataList) {
+            NavigableMap<String, DateTime> indexDates = matches.get(indexMetadata);
+
+            for (String indexName : INDEX_NAMES) {
+                boolean expected = indexMetadata.getIndexNameFilter().filter(indexName);
+                assertEquals(indexMetadata + " / " + indexName, expected, indexDates.containsKey(indexName));
+
+                if (expected) {
+                    assertEquals(indexMetadata.getDateForIndexName(indexName).getMillis(), indexDates.get(indexName).getMillis());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testOverlappingPrefixes() throws Exception {
+        List<IndexMetadata> indexMetadataList = IndexUtils.parseIndexMetadata(
+                "[{\"retentionType\": \"hourly\", \"retentionPeriod\": 2, \"indexName\": \"nf_errors_log\"}," +
+                "{\"retentionType\": \"yearly\", \"retentionPeriod\": 3, \"indexName\": \"nf_errors_log201712\"}]");
+
+        Map<IndexMetadata, NavigableMap<String, DateTime>> matches =
+                new IndexNameMatcher(indexMetadataList).match(Arrays.asList("nf_errors_log2017121110", "nf_errors_log2017"));
+
+        NavigableMap<String, DateTime> hourly = matches.get(indexMetadataList.get(0));
+        NavigableMap<String, DateTime> yearly = matches.get(indexMetadataList.get(1));
+
+        assertEquals(1, hourly.size());
+        assertEquals(new DateTime("2017-12-11T10:00Z").getMillis(), hourly.get("nf_errors_log2017121110").getMillis());
+        assertTrue(yearly.containsKey("nf_errors_log2017121110"));
+        assertEquals(1, yearly.size());
+    }
+
+    @Test
+    public void testShrunkIndicesMatchTheirSourcePattern() throws Exception {
+        List<IndexMetadata> indexMetadataList = IndexUtils.parseIndexMetadata(
+                "[{\"retentionType\": \"daily\", \"retentionPeriod\": 1, \"indexName\": \"abcd\"}," +
+                "{\"retentionPeriod\": 1, \"indexNamePattern\": \"'foo_'YYYY'_'MM\"}]");
+
+        Map<IndexMetadata, NavigableMap<String, DateTime>> matches =
+                new IndexNameMatcher(indexMetadataList).match(Arrays.asList("abcd20180301-shrunk", "foo_2018_03-shrunk", "abcd-shrunk"));
+
+        assertEquals(new DateTime("2018-03-01T00:00Z").getMillis(), matches.get(indexMetadataList.get(0)).get("abcd20180301-shrunk").getMillis());
+        assertEquals(1, matches.get(indexMetadataList.get(0)).size());
+        assertEquals(new DateTime("2018-03-01T00:00Z").getMillis(), matches.get(indexMetadataList.get(1)).get("foo_2018_03-shrunk").getMillis());
+        assertEquals(1, matches.get(indexMetadataList.get(1)).size());
+    }
+}
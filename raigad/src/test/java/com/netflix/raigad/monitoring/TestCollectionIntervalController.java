@@ -0,0 +1,127 @@
+package com.netflix.raigad.monitoring;
+
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.scheduler.TaskTimer;
+import org.elasticsearch.cluster.health.ClusterHealthStatus;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.Mockito.*;
+
+public class TestCollectionIntervalController {
+    private IConfiguration config;
+    private CollectionIntervalController controller;
+
+    @Before
+    public void setUp() {
+        config = mock(IConfiguration.class);
+        when(config.isMonitorIntervalAdaptive()).thenReturn(true);
+        when(config.getMonitorMinIntervalSeconds()).thenReturn(10);
+        when(config.getMonitorMaxIntervalSeconds()).thenReturn(300);
+        when(config.getMonitorStressHeapUsedPercent()).thenReturn(85);
+        when(config.getMonitorStressSearchQueueSize()).thenReturn(500);
+        when(config.getMonitorStressBreakerUsedPercent()).thenReturn(90);
+        controller = new CollectionIntervalController(config);
+    }
+
+    @Test
+    public void testUnhealthyClusterTightensInterval() throws Exception {
+        controller.setClusterHealthStatus(ClusterHealthStatus.YELLOW);
+        controller.update(searchQueue(10));
+        Assert.assertEquals(10000, controller.getIntervalMillis());
+        Assert.assertEquals(10, controller.getIntervalSeconds());
+
+        controller.setClusterHealthStatus(ClusterHealthStatus.GREEN);
+        controller.update(searchQueue(10));
+        Assert.assertEquals(60000, controller.getIntervalMillis());
+    }
+
+    @Test
+    public void testFailedFetchKeepsInterval() throws Exception {
+        controller.update(searchQueue(500));
+        Assert.assertEquals(120000, controller.getIntervalMillis());
+
+        controller.update(null);
+        Assert.assertEquals(120000, controller.getIntervalMillis());
+
+        controller.setClusterHealthStatus(ClusterHealthStatus.RED);
+        controller.update(null);
+        Assert.assertEquals(120000, controller.getIntervalMillis());
+    }
+
+    @Test
+    public void testPressureBacksOffWithinBounds() throws Exception {
+        controller.update(searchQueue(500));
+        Assert.assertEquals(120000, controller.getIntervalMillis());
+        controller.update(searchQueue(600));
+        Assert.assertEquals(240000, controller.getIntervalMillis());
+        controller.update(searchQueue(700));
+        Assert.assertEquals(300000, controller.getIntervalMillis());
+
+        controller.update(searchQueue(0));
+        Assert.assertEquals(150000, controller.getIntervalMillis());
+        controller.update(searchQueue(0));
+        Assert.assertEquals(75000, controller.getIntervalMillis());
+        controller.update(searchQueue(0));
+        Assert.assertEquals(60000, controller.getIntervalMillis());
+    }
+
+    @Test
+    public void testPressureWinsOverUnhealthyCluster() throws Exception {
+        controller.setClusterHealthStatus(ClusterHealthStatus.RED);
+        controller.update(searchQueue(1000));
+        Assert.assertEquals(120000, controller.getIntervalMillis());
+    }
+
+    @Test
+    public void testHeapPressure() throws Exception {
+        Assert.assertNull(controller.getPressure(values("{\"jvm\": {\"mem\": {\"heap_used_percent\": 84}}}")));
+        Assert.assertEquals("heap used 85%", controller.getPressure(values("{\"jvm\": {\"mem\": {\"heap_used_percent\": 85}}}")));
+    }
+
+    @Test
+    public void testBreakerPressure() throws Exception {
+        Assert.assertNull(controller.getPressure(breaker(50, 100, 3)));
+        Assert.assertEquals("request breaker tripped", controller.getPressure(breaker(50, 100, 4)));
+        Assert.assertNull(controller.getPressure(breaker(50, 100, 4)));
+        Assert.assertEquals("request breaker near its limit", controller.getPressure(breaker(95, 100, 4)));
+    }
+
+    @Test
+    public void testStaticIntervalWhenNotAdaptive() throws Exception {
+        when(config.isMonitorIntervalAdaptive()).thenReturn(false);
+        controller.setClusterHealthStatus(ClusterHealthStatus.RED);
+        controller.update(searchQueue(1000));
+        Assert.assertEquals(NodeStatsSnapshotService.COLLECTION_INTERVAL_MILLIS, controller.getIntervalMillis());
+    }
+
+    @Test
+    public void testTimerFollowsInterval() throws Exception {
+        TaskTimer timer = controller.getTimer();
+        Assert.assertEquals(300000, timer.getInterval());
+        Assert.assertEquals(120000, timer.getNextFireTime(-1, 61000));
+        Assert.assertEquals(180000, timer.getNextFireTime(120000, 121000));
+
+        controller.setClusterHealthStatus(ClusterHealthStatus.RED);
+        controller.update(searchQueue(0));
+        Assert.assertEquals(130000, timer.getNextFireTime(120000, 121000));
+    }
+
+    private static NodeStatsValues searchQueue(int queue) throws IOException {
+        return values("{\"thread_pool\": {\"search\": {\"threads\": 13, \"queue\": " + queue + ", \"active\": 13}}}");
+    }
+
+    private static NodeStatsValues breaker(long estimated, long limit, long trippedCount) throws IOException {
+        return values("{\"breakers\": {\"request\": {\"limit_size_in_bytes\": " + limit + ", \"limit_size\": \"" + limit + "b\", " +
+                "\"estimated_size_in_bytes\": " + estimated + ", \"overhead\": 1.0, \"tripped\": " + trippedCount + "}}}");
+    }
+
+    private static NodeStatsValues values(String json) throws IOException {
+        return new NodeStatsJsonReader().readNode(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
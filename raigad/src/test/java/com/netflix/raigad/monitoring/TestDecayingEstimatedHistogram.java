@@ -0,0 +1,72 @@
+package com.netflix.raigad.monitoring;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestDecayingEstimatedHistogram {
+    private static final long WINDOW_MILLIS = 60 * 1000;
+
+    @Test
+    public void testEmptyHistogram() {
+        DecayingEstimatedHistogram histogram = new DecayingEstimatedHistogram(WINDOW_MILLIS, 0);
+
+        Assert.assertArrayEquals(new long[]{0, 0}, histogram.percentiles(new double[]{0.5, 0.99}));
+        Assert.assertEquals(0, histogram.count(), 0);
+    }
+
+    @Test
+    public void testPercentilesFromSingleInstance() {
+        DecayingEstimatedHistogram histogram = new DecayingEstimatedHistogram(WINDOW_MILLIS, 0);
+
+        for (int i = 1; i <= 100; i++) {
+            histogram.add(i, 0);
+        }
+
+        long[] percentiles = histogram.percentiles(new double[]{0.5, 0.95, 0.99, 0.999});
+
+        Assert.assertEquals(100, histogram.count(), 0);
+        Assert.assertEquals(50, percentiles[0]);
+
+        // Values 87..103 share a bucket
+        Assert.assertEquals(103, percentiles[1]);
+        Assert.assertEquals(103, percentiles[2]);
+        Assert.assertEquals(103, percentiles[3]);
+        Assert.assertEquals(percentiles[0], histogram.percentile(0.5));
+    }
+
+    @Test
+    public void testOldValuesDecay() {
+        DecayingEstimatedHistogram histogram = new DecayingEstimatedHistogram(WINDOW_MILLIS, 0);
+
+        for (int i = 0; i < 10; i++) {
+            histogram.add(1000, 0);
+        }
+
+        // Ten windows later the old values weigh 1/1024 each
+        histogram.add(10, 10 * WINDOW_MILLIS);
+
+        Assert.assertEquals(10, histogram.percentile(0.5));
+        Assert.assertEquals(1 + 10.0 / 1024, histogram.count(), 0.0001);
+    }
+
+    @Test
+    public void testOverflowIsCapped() {
+        DecayingEstimatedHistogram histogram = new DecayingEstimatedHistogram(WINDOW_MILLIS, 0);
+        long[] offsets = histogram.getBucketOffsets();
+
+        histogram.add(Long.MAX_VALUE, 0);
+
+        Assert.assertEquals(offsets[offsets.length - 1], histogram.percentile(0.99));
+    }
+
+    @Test
+    public void testSnapshotAndReset() {
+        DecayingEstimatedHistogram histogram = new DecayingEstimatedHistogram(WINDOW_MILLIS, 0);
+        histogram.add(5, 0);
+
+        long[] buckets = histogram.getBuckets(true);
+
+        Assert.assertEquals(DecayingEstimatedHistogram.WEIGHT, buckets[4]);
+        Assert.assertEquals(0, histogram.count(), 0);
+    }
+}
@@ -0,0 +1,66 @@
+package com.netflix.raigad.monitoring;
+
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.identity.InstanceManager;
+import com.netflix.raigad.utils.MasterStatusTracker;
+import org.elasticsearch.cluster.health.ClusterHealthStatus;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.Mockito.*;
+
+public class TestHealthMonitor {
+    private MasterStatusTracker masterStatusTracker;
+    private CollectionIntervalController collectionIntervalController;
+    private HealthMonitor healthMonitor;
+
+    @Before
+    public void setUp() throws Exception {
+        IConfiguration config = mock(IConfiguration.class);
+        when(config.reportMetricsFromMasterOnly()).thenReturn(true);
+        when(config.isMonitorIntervalAdaptive()).thenReturn(true);
+        when(config.getMonitorMinIntervalSeconds()).thenReturn(10);
+        when(config.getMonitorMaxIntervalSeconds()).thenReturn(300);
+        when(config.getMonitorStressHeapUsedPercent()).thenReturn(85);
+        when(config.getMonitorStressSearchQueueSize()).thenReturn(500);
+        when(config.getMonitorStressBreakerUsedPercent()).thenReturn(90);
+
+        masterStatusTracker = mock(MasterStatusTracker.class);
+        collectionIntervalController = new CollectionIntervalController(config);
+
+        healthMonitor = spy(new HealthMonitor(config, mock(InstanceManager.class), masterStatusTracker, collectionIntervalController));
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+                new ObjectName("com.netflix.raigad.scheduler:type=" + HealthMonitor.class.getName()));
+    }
+
+    @Test
+    public void testNonReporterTightensIntervalOnYellowCluster() throws Exception {
+        when(masterStatusTracker.isClusterMetricsReporter()).thenReturn(false);
+        doReturn(ClusterHealthStatus.YELLOW).when(healthMonitor).getLocalClusterHealthStatus();
+
+        healthMonitor.checkHealth();
+        collectionIntervalController.update(searchQueue(10));
+        Assert.assertEquals(10000, collectionIntervalController.getIntervalMillis());
+
+        doReturn(ClusterHealthStatus.GREEN).when(healthMonitor).getLocalClusterHealthStatus();
+        healthMonitor.checkHealth();
+        collectionIntervalController.update(searchQueue(10));
+        Assert.assertEquals(60000, collectionIntervalController.getIntervalMillis());
+    }
+
+    private static NodeStatsValues searchQueue(int queue) throws Exception {
+        String json = "{\"thread_pool\": {\"search\": {\"threads\": 13, \"queue\": " + queue + ", \"active\": 13}}}";
+        return new NodeStatsJsonReader().readNode(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,76 @@
+package com.netflix.raigad.monitoring;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+public class TestNodeStatsJsonReader {
+    private static final NodeStatsField QUERY_TOTAL = NodeStatsField.of("indices.search.query_total");
+    private static final NodeStatsField HEAP_USED_PERCENT = NodeStatsField.of("jvm.mem.heap_used_percent");
+    private static final NodeStatsField YOUNG_USED = NodeStatsField.of("jvm.mem.pools.young.used_in_bytes");
+    private static final NodeStatsField LOAD_AVERAGE = NodeStatsField.of("os.cpu.load_average.1m");
+    private static final NodeStatsField SEARCH_QUEUE = NodeStatsField.of("thread_pool.search.queue");
+
+    private final NodeStatsJsonReader reader = new NodeStatsJsonReader();
+
+    @Test
+    public void testRegisteredFieldsAreExtracted() throws Exception {
+        NodeStatsValues values = reader.readNode(json("{\"name\": \"i-1\", \"roles\": [\"data\"], \"attributes\": {\"zone\": \"us-east-1a\"}," +
+                "\"indices\": {\"docs\": {\"count\": 10}, \"search\": {\"open_contexts\": 0, \"query_total\": 123456789012}}," +
+                "\"os\": {\"cpu\": {\"percent\": 12, \"load_average\": {\"1m\": 1.25, \"5m\": 0.5}}}," +
+                "\"jvm\": {\"mem\": {\"heap_used_percent\": 42, \"pools\": {\"young\": {\"used_in_bytes\": 1024}, \"old\": {\"used_in_bytes\": 2048}}}}," +
+                "\"fs\": {\"data\": [{\"path\": \"/mnt\", \"total_in_bytes\": 1}]}}"));
+
+        Assert.assertEquals(123456789012L, values.getLong(QUERY_TOTAL));
+        Assert.assertEquals(42, values.getLong(HEAP_USED_PERCENT));
+        Assert.assertEquals(1024, values.getLong(YOUNG_USED));
+        Assert.assertEquals(1.25, values.getDouble(LOAD_AVERAGE), 0.0);
+        Assert.assertEquals(1, values.getLong(LOAD_AVERAGE));
+        Assert.assertTrue(values.has(QUERY_TOTAL));
+    }
+
+    @Test
+    public void testMissingFieldsReadAsZero() throws Exception {
+        NodeStatsValues values = reader.readNode(json("{\"thread_pool\": {\"search\": {\"queue\": \"not a number\"}}}"));
+
+        Assert.assertFalse(values.has(SEARCH_QUEUE));
+        Assert.assertEquals(0, values.getLong(SEARCH_QUEUE));
+        Assert.assertFalse(values.has(QUERY_TOTAL));
+    }
+
+    @Test
+    public void testFirstNodeOfResponseIsRead() throws Exception {
+        NodeStatsValues values = reader.readResponse(json("{\"_nodes\": {\"total\": 1}, \"cluster_name\": \"es_test\"," +
+                "\"nodes\": {\"x1\": {\"thread_pool\": {\"search\": {\"queue\": 7}}}, \"x2\": {\"thread_pool\": {\"search\": {\"queue\": 8}}}}}"));
+
+        Assert.assertEquals(7, values.getLong(SEARCH_QUEUE));
+    }
+
+    @Test
+    public void testResponseWithoutNodes() throws Exception {
+        Assert.assertNull(reader.readResponse(json("{\"_nodes\": {\"total\": 0}, \"cluster_name\": \"es_test\", \"nodes\": {}}")));
+    }
+
+    @Test
+    public void testFieldsRegisteredLaterAreExtracted() throws Exception {
+        reader.readNode(json("{}"));
+        NodeStatsField rejected = NodeStatsField.of("thread_pool.bulk.rejected");
+
+        NodeStatsValues values = reader.readNode(json("{\"thread_pool\": {\"bulk\": {\"rejected\": 3}}}"));
+
+        Assert.assertEquals(3, values.getLong(rejected));
+    }
+
+    @Test(expected = IOException.class)
+    public void testMalformedJson() throws Exception {
+        reader.readNode(json("[1, 2]"));
+    }
+
+    private static InputStream json(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
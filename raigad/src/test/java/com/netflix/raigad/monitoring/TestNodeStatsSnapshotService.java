@@ -0,0 +1,126 @@
+package com.netflix.raigad.monitoring;
+
+import com.netflix.raigad.configuration.IConfiguration;
+import com.netflix.raigad.utils.ElasticsearchHttpClient;
+import com.netflix.raigad.utils.HttpModule;
+import org.elasticsearch.cluster.health.ClusterHealthStatus;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class TestNodeStatsSnapshotService {
+    private static final NodeStatsField HEAP_USED = NodeStatsField.of("jvm.mem.heap_used_in_bytes");
+    private static final NodeStatsField SEARCH_QUERY_TOTAL = NodeStatsField.of("indices.search.query_total");
+
+    private IConfiguration config;
+    private HttpModule httpModule;
+    private ElasticsearchHttpClient httpClient;
+    private CollectionIntervalController collectionIntervalController;
+    private NodeStatsSnapshotService nodeStatsSnapshotService;
+
+    @Before
+    public void setUp() {
+        config = mock(IConfiguration.class);
+        when(config.isMonitorIntervalAdaptive()).thenReturn(true);
+        when(config.getMonitorMinIntervalSeconds()).thenReturn(10);
+        when(config.getMonitorMaxIntervalSeconds()).thenReturn(300);
+        collectionIntervalController = new CollectionIntervalController(config);
+        httpModule = mock(HttpModule.class);
+        httpClient = mock(ElasticsearchHttpClient.class);
+        nodeStatsSnapshotService = spy(new NodeStatsSnapshotService(config, collectionIntervalController, httpModule, httpClient));
+    }
+
+    @Test
+    public void testSnapshotIsSharedWithinInterval() {
+        NodeStatsValues values = new NodeStatsValues(0);
+        doReturn(values).when(nodeStatsSnapshotService).fetchNodeStats(any());
+
+        nodeStatsSnapshotService.registerMetricGroup(NodeStatsMetricGroup.JVM);
+        nodeStatsSnapshotService.registerMetricGroup(NodeStatsMetricGroup.OS);
+
+        NodeStatsSnapshot first = nodeStatsSnapshotService.getSnapshot(NodeStatsMetricGroup.JVM);
+        NodeStatsSnapshot second = nodeStatsSnapshotService.getSnapshot(NodeStatsMetricGroup.OS);
+
+        Assert.assertSame(first, second);
+        Assert.assertSame(values, first.getValues());
+        Assert.assertTrue(first.getFetchTimeInMillis() > 0);
+        verify(nodeStatsSnapshotService, times(1)).fetchNodeStats(
+                eq(EnumSet.of(NodeStatsMetricGroup.JVM, NodeStatsMetricGroup.OS)));
+    }
+
+    @Test
+    public void testLateRegisteredMetricGroupTriggersFetch() {
+        doReturn(new NodeStatsValues(0)).when(nodeStatsSnapshotService).fetchNodeStats(any());
+
+        NodeStatsSnapshot first = nodeStatsSnapshotService.getSnapshot(NodeStatsMetricGroup.JVM);
+        NodeStatsSnapshot second = nodeStatsSnapshotService.getSnapshot(NodeStatsMetricGroup.INDICES);
+
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(EnumSet.of(NodeStatsMetricGroup.JVM), first.getMetricGroups());
+        Assert.assertEquals(EnumSet.of(NodeStatsMetricGroup.JVM, NodeStatsMetricGroup.INDICES), second.getMetricGroups());
+        Assert.assertSame(second, nodeStatsSnapshotService.getSnapshot(NodeStatsMetricGroup.JVM));
+    }
+
+    @Test
+    public void testFailedFetchIsCachedForInterval() {
+        doReturn(null).when(nodeStatsSnapshotService).fetchNodeStats(any());
+
+        Assert.assertNull(nodeStatsSnapshotService.getSnapshot(NodeStatsMetricGroup.HTTP).getValues());
+        Assert.assertNull(nodeStatsSnapshotService.getSnapshot(NodeStatsMetricGroup.HTTP).getValues());
+        verify(nodeStatsSnapshotService, times(1)).fetchNodeStats(any());
+    }
+
+    @Test
+    public void testSnapshotAge() {
+        NodeStatsSnapshot snapshot = new NodeStatsSnapshot(null, EnumSet.noneOf(NodeStatsMetricGroup.class), 1000);
+
+        long maxAgeMillis = NodeStatsSnapshotService.getSnapshotMaxAgeMillis(NodeStatsSnapshotService.COLLECTION_INTERVAL_MILLIS);
+
+        Assert.assertEquals(55000, maxAgeMillis);
+        Assert.assertFalse(snapshot.isOlderThan(maxAgeMillis, 1000));
+        Assert.assertTrue(snapshot.isOlderThan(maxAgeMillis, 1000 + NodeStatsSnapshotService.COLLECTION_INTERVAL_MILLIS));
+        Assert.assertEquals(5000, NodeStatsSnapshotService.getSnapshotMaxAgeMillis(10000));
+    }
+
+    @Test
+    public void testFetchedSnapshotUpdatesCollectionInterval() {
+        doReturn(new NodeStatsValues(0)).when(nodeStatsSnapshotService).fetchNodeStats(any());
+        collectionIntervalController.setClusterHealthStatus(ClusterHealthStatus.RED);
+
+        nodeStatsSnapshotService.getSnapshot(NodeStatsMetricGroup.JVM);
+
+        Assert.assertEquals(10000, collectionIntervalController.getIntervalMillis());
+    }
+
+    @Test
+    public void testHttpBackendStreamsResponse() throws Exception {
+        String url = "http://127.0.0.1:7104/_nodes/_local/stats/indices,jvm";
+        String response = "{\"_nodes\": {\"total\": 1, \"successful\": 1, \"failed\": 0}, \"cluster_name\": \"es_test\", " +
+                "\"nodes\": {\"x1\": {\"name\": \"i-1\", \"roles\": [\"master\", \"data\"], " +
+                "\"indices\": {\"search\": {\"query_total\": 42, \"query_time_in_millis\": 7}}, " +
+                "\"jvm\": {\"mem\": {\"heap_used_in_bytes\": 1073741824, \"pools\": {}}}}}}";
+
+        when(config.getNodeStatsBackend()).thenReturn("http");
+        when(httpModule.localNodeStatsURL("indices,jvm")).thenReturn(url);
+        when(httpClient.get(eq(url), anyInt(), any())).thenAnswer(invocation -> {
+            ElasticsearchHttpClient.ResponseReader<?> reader = invocation.getArgument(2);
+            return reader.read(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)));
+        });
+
+        NodeStatsValues values = nodeStatsSnapshotService.fetchNodeStats(EnumSet.of(NodeStatsMetricGroup.JVM, NodeStatsMetricGroup.INDICES));
+
+        Assert.assertEquals(42, values.getLong(SEARCH_QUERY_TOTAL));
+        Assert.assertEquals(1073741824, values.getLong(HEAP_USED));
+        verify(httpClient, never()).get(anyString());
+    }
+}
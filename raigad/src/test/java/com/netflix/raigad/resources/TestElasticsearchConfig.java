@@ -9,6 +9,7 @@ import com.netflix.raigad.utils.TribeUtils;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 import java.util.Collections;
 import java.util.List;
@@ -47,9 +48,9 @@ public class TestElasticsearchConfig {
         RaigadServer raigadServer = mock(RaigadServer.class);
         when(raigadServer.getInstanceManager()).thenReturn(instanceManager);
 
-        ElasticsearchConfig elasticsearchConfig = new ElasticsearchConfig(raigadServer, tribeUtils, new CustomConfigSource(), config);
+        ElasticsearchConfig elasticsearchConfig = new ElasticsearchConfig(raigadServer, tribeUtils, new CustomConfigSource(), config, new NodesResponseCache());
 
-        Response response = elasticsearchConfig.getNodes();
+        Response response = elasticsearchConfig.getNodes(null);
         assertEquals(200, response.getStatus());
 
         verify(raigadServer, times(1)).getInstanceManager();
@@ -64,9 +65,9 @@ public class TestElasticsearchConfig {
         RaigadServer raigadServer = mock(RaigadServer.class);
         when(raigadServer.getInstanceManager()).thenReturn(instanceManager);
 
-        ElasticsearchConfig elasticsearchConfig = new ElasticsearchConfig(raigadServer, tribeUtils, new CustomConfigSource(), config);
+        ElasticsearchConfig elasticsearchConfig = new ElasticsearchConfig(raigadServer, tribeUtils, new CustomConfigSource(), config, new NodesResponseCache());
 
-        Response response = elasticsearchConfig.getNodes();
+        Response response = elasticsearchConfig.getNodes(null);
         assertEquals(200, response.getStatus());
 
         verify(raigadServer, times(1)).getInstanceManager();
@@ -81,9 +82,9 @@ public class TestElasticsearchConfig {
         RaigadServer raigadServer = mock(RaigadServer.class);
         when(raigadServer.getInstanceManager()).thenReturn(instanceManager);
 
-        ElasticsearchConfig elasticsearchConfig = new ElasticsearchConfig(raigadServer, tribeUtils, new CustomConfigSource(), config);
+        ElasticsearchConfig elasticsearchConfig = new ElasticsearchConfig(raigadServer, tribeUtils, new CustomConfigSource(), config, new NodesResponseCache());
 
-        Response response = elasticsearchConfig.getNodes();
+        Response response = elasticsearchConfig.getNodes(null);
         assertEquals(500, response.getStatus());
 
         verify(raigadServer, times(1)).getInstanceManager();
@@ -98,12 +99,43 @@ public class TestElasticsearchConfig {
         RaigadServer raigadServer = mock(RaigadServer.class);
         when(raigadServer.getInstanceManager()).thenReturn(instanceManager);
 
-        ElasticsearchConfig elasticsearchConfig = new ElasticsearchConfig(raigadServer, tribeUtils, new CustomConfigSource(), config);
+        ElasticsearchConfig elasticsearchConfig = new ElasticsearchConfig(raigadServer, tribeUtils, new CustomConfigSource(), config, new NodesResponseCache());
 
-        Response response = elasticsearchConfig.getNodes();
+        Response response = elasticsearchConfig.getNodes(null);
         assertEquals(500, response.getStatus());
 
         verify(raigadServer, times(1)).getInstanceManager();
         verify(instanceManager, times(1)).getAllInstances();
     }
+
+    @Test
+    public void getNodes_notModified() {
+        RaigadInstance raigadInstance = new RaigadInstance();
+        raigadInstance.setApp("fake-app1");
+
+        InstanceManager instanceManager = mock(InstanceManager.class);
+        when(instanceManager.getAllInstances()).thenReturn(Collections.singletonList(raigadInstance));
+        when(instanceManager.getMembershipVersion()).thenReturn(1L);
+
+        RaigadServer raigadServer = mock(RaigadServer.class);
+        when(raigadServer.getInstanceManager()).thenReturn(instanceManager);
+
+        NodesResponseCache nodesResponseCache = new NodesResponseCache();
+        ElasticsearchConfig elasticsearchConfig = new ElasticsearchConfig(raigadServer, tribeUtils, new CustomConfigSource(), config, nodesResponseCache);
+
+        Response response = elasticsearchConfig.getNodes(null);
+        assertEquals(200, response.getStatus());
+        String eTag = response.getMetadata().getFirst(HttpHeaders.ETAG).toString();
+
+        response = elasticsearchConfig.getNodes(eTag);
+        assertEquals(304, response.getStatus());
+
+        RaigadInstance raigadInstance2 = new RaigadInstance();
+        raigadInstance2.setApp("fake-app2");
+        when(instanceManager.getAllInstances()).thenReturn(asList(raigadInstance, raigadInstance2));
+        when(instanceManager.getMembershipVersion()).thenReturn(2L);
+
+        response = elasticsearchConfig.getNodes(eTag);
+        assertEquals(200, response.getStatus());
+    }
 }
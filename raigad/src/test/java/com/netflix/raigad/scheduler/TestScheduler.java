@@ -10,10 +10,14 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import javax.management.MBeanServerFactory;
+import java.util.Calendar;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
 
 public class TestScheduler {
     private static CountDownLatch latch;
@@ -26,9 +30,111 @@ public class TestScheduler {
         scheduler.start();
         scheduler.addTask("test", TestTask.class, new SimpleTimer("testtask", 10));
         // verify the task has run or fail in 1s
-        latch.await(1000, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(1000, TimeUnit.MILLISECONDS));
         scheduler.shutdown();
     }
+
+    @Test
+    public void testOverrunFireTimesAreSkipped() throws Exception {
+        latch = new CountDownLatch(2);
+        Injector inject = Guice.createInjector(new UnitTestModule());
+        RaigadScheduler scheduler = inject.getInstance(RaigadScheduler.class);
+        scheduler.start();
+        scheduler.addTask("overrun", OverrunningTask.class, new SimpleTimer("overrun", 20));
+
+        // The first run overruns at least four 20ms slots, which are dropped rather than run back to back
+        assertTrue(latch.await(2000, TimeUnit.MILLISECONDS));
+        scheduler.shutdown();
+
+        Task task = scheduler.getTasks().get("overrun");
+        assertTrue(task.getSkippedCount() >= 4);
+        assertTrue(task.getExecutionCount() >= 2);
+    }
+
+    @Test
+    public void testTaskRunsOneAtATime() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingTask task = new BlockingTask(started, release);
+
+        Thread thread = new Thread(task::tryExecute);
+        thread.start();
+        assertTrue(started.await(1000, TimeUnit.MILLISECONDS));
+
+        assertFalse(task.tryExecute());
+        assertEquals(Task.STATE.RUNNING, task.state());
+
+        release.countDown();
+        thread.join(1000);
+        assertEquals(Task.STATE.DONE, task.state());
+        assertEquals(1, task.getExecutionCount());
+        assertEquals(1, task.getSkippedCount());
+        assertTrue(task.getStats().getLastSuccessTime() > 0);
+    }
+
+    @Test
+    public void testTaskStats() throws Exception {
+        BlockingTask task = new BlockingTask(new CountDownLatch(1), new CountDownLatch(0));
+
+        assertTrue(task.tryExecute(System.currentTimeMillis() - 500));
+
+        TaskStats stats = task.getStats();
+        assertTrue(stats.getLastLagMillis() >= 500);
+        assertTrue(stats.getLastDurationMillis() >= 0);
+        assertEquals(0, stats.getSecondsSinceLastSuccess());
+        assertEquals(Long.valueOf(1), stats.getDurationHistogram().get("100"));
+        assertEquals(Long.valueOf(0), stats.getDurationHistogram().get("inf"));
+    }
+
+    @Test
+    public void testSimpleTimer() throws Exception {
+        SimpleTimer repeating = new SimpleTimer("repeating", 1000);
+        assertEquals(1000, repeating.getInterval());
+        assertEquals(5000, repeating.getNextFireTime(-1, 5000));
+        assertEquals(6000, repeating.getNextFireTime(-1, 5300));
+        assertEquals(6000, repeating.getNextFireTime(5000, 5100));
+        // An overrun skips the missed runs and stays aligned
+        assertEquals(9000, repeating.getNextFireTime(5000, 8500));
+
+        SimpleTimer once = new SimpleTimer("once");
+        assertEquals(5000, once.getNextFireTime(-1, 5000));
+        assertEquals(-1, once.getNextFireTime(5000, 5000));
+
+        SimpleTimer onceAt = new SimpleTimer("onceAt", "group", 7000);
+        assertEquals(7000, onceAt.getNextFireTime(-1, 5000));
+        assertEquals(-1, onceAt.getNextFireTime(7000, 7000));
+    }
+
+    @Test
+    public void testPhaseOffsetIsStableAndSpread() throws Exception {
+        assertEquals(RaigadScheduler.getPhaseOffset("i-0a1b2c3d", 60000), RaigadScheduler.getPhaseOffset("i-0a1b2c3d", 60000));
+        assertEquals(0, RaigadScheduler.getPhaseOffset(null, 60000));
+        assertEquals(0, RaigadScheduler.getPhaseOffset("i-0a1b2c3d", 0));
+
+        int[] buckets = new int[6];
+        for (int i = 0; i < 300; i++) {
+            long offset = RaigadScheduler.getPhaseOffset(String.format("i-%08x", 0x1f3a0000 + i), 60000);
+            assertTrue(offset >= 0 && offset < 60000);
+            buckets[(int) (offset / 10000)]++;
+        }
+
+        for (int bucket : buckets) {
+            assertTrue(bucket > 20 && bucket < 80);
+        }
+    }
+
+    @Test
+    public void testCronTimer() throws Exception {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2018, Calendar.MARCH, 1, 10, 7, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        long now = calendar.getTimeInMillis();
+
+        CronTimer hourly = new CronTimer(5, 0, "test");
+        long next = hourly.getNextFireTime(-1, now);
+        assertEquals(now + TimeUnit.MINUTES.toMillis(58), next);
+        assertEquals(next + TimeUnit.HOURS.toMillis(1), hourly.getNextFireTime(next, next));
+    }
 /*
     @Test
     public void testSingleInstanceSchedule() throws Exception {
@@ -63,6 +169,53 @@ public class TestScheduler {
 
     }
 
+    @Ignore
+    public static class OverrunningTask extends Task {
+        private boolean overrun;
+
+        @Inject
+        public OverrunningTask(IConfiguration config) {
+            super(config, MBeanServerFactory.newMBeanServer());
+        }
+
+        @Override
+        public void execute() throws Exception {
+            if (!overrun) {
+                overrun = true;
+                Thread.sleep(110);
+            }
+            latch.countDown();
+        }
+
+        @Override
+        public String getName() {
+            return "overrun";
+        }
+    }
+
+    @Ignore
+    public static class BlockingTask extends Task {
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+
+        public BlockingTask(CountDownLatch started, CountDownLatch release) {
+            super(mock(IConfiguration.class), MBeanServerFactory.newMBeanServer());
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public void execute() throws Exception {
+            started.countDown();
+            release.await();
+        }
+
+        @Override
+        public String getName() {
+            return "blocking";
+        }
+    }
+
     @Ignore
     @Singleton
     public static class SingleTestTask extends Task {
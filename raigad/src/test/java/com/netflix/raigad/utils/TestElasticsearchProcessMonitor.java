@@ -5,36 +5,48 @@ import com.netflix.raigad.configuration.IConfiguration;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import javax.management.ObjectName;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 public class TestElasticsearchProcessMonitor {
     private static String ELASTICSEARCH_PROCESS_NAME = FakeConfiguration.ES_PROCESS_NAME;
+    private static final long BOOT_TIME_SECONDS = 1500000000;
 
-    private Process pgrepProcess;
-    private InputStream processInputStream;
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File procRoot;
+    private IConfiguration config;
+    private List<ElasticsearchProcessEvent> events;
 
     private ElasticsearchProcessMonitor elasticsearchProcessMonitor;
 
     @Before
     public void setUp() throws IOException {
-        processInputStream = mock(InputStream.class);
+        procRoot = temporaryFolder.newFolder("proc");
+        write(new File(procRoot, "stat"), "cpu  1 2 3 4\nbtime " + BOOT_TIME_SECONDS + "\nprocesses 100\n");
 
-        pgrepProcess = mock(Process.class);
-        when(pgrepProcess.getInputStream()).thenReturn(processInputStream);
+        config = mock(IConfiguration.class);
+        when(config.getElasticsearchPidFile()).thenReturn("");
 
-        Runtime runtime = mock(Runtime.class);
-        when(runtime.exec(anyString())).thenReturn(pgrepProcess);
+        elasticsearchProcessMonitor = spy(new ElasticsearchProcessMonitor(config));
+        doReturn(procRoot).when(elasticsearchProcessMonitor).getProcRoot();
+        doReturn(1L).when(elasticsearchProcessMonitor).getOwnPid();
 
-        elasticsearchProcessMonitor = spy(new ElasticsearchProcessMonitor(mock(IConfiguration.class)));
-        doReturn(runtime).when(elasticsearchProcessMonitor).getRuntime();
+        events = new ArrayList<>();
+        elasticsearchProcessMonitor.addListener(events::add);
     }
 
     @After
@@ -47,57 +59,146 @@ public class TestElasticsearchProcessMonitor {
     }
 
     @Test
-    public void testNullInputStream() throws Exception {
-        doReturn(null).when(elasticsearchProcessMonitor).getFirstLine(processInputStream);
+    public void testNoProcess() throws Exception {
+        addProcess(200, "java -jar raigad.jar", "S", 100);
 
         elasticsearchProcessMonitor.checkElasticsearchProcess(ELASTICSEARCH_PROCESS_NAME);
 
-        verify(processInputStream, times(1)).close();
-        verify(pgrepProcess, times(1)).destroyForcibly();
-
         Assert.assertFalse(ElasticsearchProcessMonitor.isElasticsearchRunning());
         Assert.assertFalse(ElasticsearchProcessMonitor.getWasElasticsearchStarted());
+        Assert.assertEquals(-1, elasticsearchProcessMonitor.getPid());
+        Assert.assertTrue(events.isEmpty());
     }
 
     @Test
-    public void testEmptyInputStream() throws Exception {
-        doReturn("").when(elasticsearchProcessMonitor).getFirstLine(processInputStream);
+    public void testProcessFoundByCommandLine() throws Exception {
+        addProcess(200, "java -jar raigad.jar", "S", 100);
+        addProcess(300, "java -Xmx30g " + ELASTICSEARCH_PROCESS_NAME, "S", 250);
 
         elasticsearchProcessMonitor.checkElasticsearchProcess(ELASTICSEARCH_PROCESS_NAME);
 
-        verify(processInputStream, times(1)).close();
-        verify(pgrepProcess, times(1)).destroyForcibly();
+        Assert.assertTrue(ElasticsearchProcessMonitor.isElasticsearchRunning());
+        Assert.assertTrue(ElasticsearchProcessMonitor.getWasElasticsearchStarted());
+        Assert.assertEquals(300, elasticsearchProcessMonitor.getPid());
+        Assert.assertEquals(BOOT_TIME_SECONDS * 1000 + 2500, elasticsearchProcessMonitor.getProcessStartTimeMillis());
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals(ElasticsearchProcessEvent.Type.STARTED, events.get(0).getType());
+        Assert.assertEquals(300, events.get(0).getPid());
+    }
+
+    @Test
+    public void testOwnProcessIsIgnored() throws Exception {
+        addProcess(1, "java -Des.process=" + ELASTICSEARCH_PROCESS_NAME, "S", 100);
+
+        elasticsearchProcessMonitor.checkElasticsearchProcess(ELASTICSEARCH_PROCESS_NAME);
 
         Assert.assertFalse(ElasticsearchProcessMonitor.isElasticsearchRunning());
-        Assert.assertFalse(ElasticsearchProcessMonitor.getWasElasticsearchStarted());
     }
 
     @Test
-    public void testValidInputStream() throws Exception {
-        doReturn("1234").when(elasticsearchProcessMonitor).getFirstLine(processInputStream);
+    public void testProcessFoundByPidFile() throws Exception {
+        addProcess(300, "java " + ELASTICSEARCH_PROCESS_NAME, "S", 250);
+        addProcess(400, "java " + ELASTICSEARCH_PROCESS_NAME, "S", 350);
+        File pidFile = temporaryFolder.newFile("elasticsearch.pid");
+        write(pidFile, "400\n");
+        when(config.getElasticsearchPidFile()).thenReturn(pidFile.getAbsolutePath());
 
         elasticsearchProcessMonitor.checkElasticsearchProcess(ELASTICSEARCH_PROCESS_NAME);
 
-        verify(processInputStream, times(1)).close();
-        verify(pgrepProcess, times(1)).destroyForcibly();
+        Assert.assertEquals(400, elasticsearchProcessMonitor.getPid());
+    }
 
-        Assert.assertTrue(ElasticsearchProcessMonitor.isElasticsearchRunning());
-        Assert.assertTrue(ElasticsearchProcessMonitor.getWasElasticsearchStarted());
+    @Test
+    public void testStalePidFileFallsBackToScan() throws Exception {
+        addProcess(300, "java " + ELASTICSEARCH_PROCESS_NAME, "S", 250);
+        addProcess(400, "/usr/sbin/sshd", "S", 350);
+        File pidFile = temporaryFolder.newFile("elasticsearch.pid");
+        write(pidFile, "400");
+        when(config.getElasticsearchPidFile()).thenReturn(pidFile.getAbsolutePath());
+
+        elasticsearchProcessMonitor.checkElasticsearchProcess(ELASTICSEARCH_PROCESS_NAME);
+
+        Assert.assertEquals(300, elasticsearchProcessMonitor.getPid());
     }
 
     @Test
-    public void testElasticsearchWasStarted() throws Exception {
-        doReturn("").when(elasticsearchProcessMonitor).getFirstLine(processInputStream);
+    public void testKnownProcessIsCheckedByPid() throws Exception {
+        addProcess(300, "java " + ELASTICSEARCH_PROCESS_NAME, "S", 250);
+        elasticsearchProcessMonitor.checkElasticsearchProcess(ELASTICSEARCH_PROCESS_NAME);
 
-        ElasticsearchProcessMonitor.isElasticsearchRunningNow.set(true);
-        ElasticsearchProcessMonitor.wasElasticsearchStarted.set(true);
+        // Only /proc/300/stat is read from now on, the command line does not matter anymore
+        write(new File(procRoot, "300/cmdline"), "");
+        elasticsearchProcessMonitor.checkElasticsearchProcess(ELASTICSEARCH_PROCESS_NAME);
+
+        Assert.assertTrue(ElasticsearchProcessMonitor.isElasticsearchRunning());
+        Assert.assertEquals(1, events.size());
+    }
 
+    @Test
+    public void testElasticsearchStopped() throws Exception {
+        addProcess(300, "java " + ELASTICSEARCH_PROCESS_NAME, "S", 250);
         elasticsearchProcessMonitor.checkElasticsearchProcess(ELASTICSEARCH_PROCESS_NAME);
 
-        verify(processInputStream, times(1)).close();
-        verify(pgrepProcess, times(1)).destroyForcibly();
+        removeProcess(300);
+        elasticsearchProcessMonitor.checkElasticsearchProcess(ELASTICSEARCH_PROCESS_NAME);
 
         Assert.assertFalse(ElasticsearchProcessMonitor.isElasticsearchRunning());
         Assert.assertTrue(ElasticsearchProcessMonitor.getWasElasticsearchStarted());
+        Assert.assertEquals(2, events.size());
+        Assert.assertEquals(ElasticsearchProcessEvent.Type.STOPPED, events.get(1).getType());
+    }
+
+    @Test
+    public void testZombieIsNotRunning() throws Exception {
+        addProcess(300, "java " + ELASTICSEARCH_PROCESS_NAME, "S", 250);
+        elasticsearchProcessMonitor.checkElasticsearchProcess(ELASTICSEARCH_PROCESS_NAME);
+
+        write(new File(procRoot, "300/stat"), stat(300, "Z", 250));
+        elasticsearchProcessMonitor.checkElasticsearchProcess(ELASTICSEARCH_PROCESS_NAME);
+
+        Assert.assertFalse(ElasticsearchProcessMonitor.isElasticsearchRunning());
+    }
+
+    @Test
+    public void testReusedPidIsDetectedAsRestart() throws Exception {
+        addProcess(300, "java " + ELASTICSEARCH_PROCESS_NAME, "S", 250);
+        elasticsearchProcessMonitor.checkElasticsearchProcess(ELASTICSEARCH_PROCESS_NAME);
+
+        write(new File(procRoot, "300/stat"), stat(300, "S", 900));
+        elasticsearchProcessMonitor.checkElasticsearchProcess(ELASTICSEARCH_PROCESS_NAME);
+
+        Assert.assertTrue(ElasticsearchProcessMonitor.isElasticsearchRunning());
+        Assert.assertEquals(3, events.size());
+        Assert.assertEquals(ElasticsearchProcessEvent.Type.STOPPED, events.get(1).getType());
+        Assert.assertEquals(ElasticsearchProcessEvent.Type.STARTED, events.get(2).getType());
+        Assert.assertEquals(BOOT_TIME_SECONDS * 1000 + 9000, events.get(2).getProcessStartTimeMillis());
+    }
+
+    private void addProcess(long pid, String commandLine, String state, long startTicks) throws IOException {
+        File processDirectory = new File(procRoot, String.valueOf(pid));
+        Assert.assertTrue(processDirectory.mkdir());
+        write(new File(processDirectory, "cmdline"), commandLine.replace(' ', '\0') + "\0");
+        write(new File(processDirectory, "stat"), stat(pid, state, startTicks));
+    }
+
+    private void removeProcess(long pid) throws IOException {
+        File processDirectory = new File(procRoot, String.valueOf(pid));
+        for (File file : processDirectory.listFiles()) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(processDirectory.toPath());
+    }
+
+    private static String stat(long pid, String state, long startTicks) {
+        // Fields 4 to 21 are irrelevant, starttime is field 22
+        StringBuilder stat = new StringBuilder(pid + " (java (es)) " + state);
+        for (int field = 4; field <= 21; field++) {
+            stat.append(" 0");
+        }
+        return stat.append(" ").append(startTicks).append(" 123456 789\n").toString();
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
     }
 }
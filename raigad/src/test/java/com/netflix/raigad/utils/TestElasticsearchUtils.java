@@ -3,8 +3,6 @@ package com.netflix.raigad.utils;
 import com.netflix.raigad.configuration.IConfiguration;
 import com.netflix.raigad.identity.RaigadInstance;
 import mockit.Expectations;
-import mockit.Mock;
-import mockit.MockUp;
 import mockit.Mocked;
 import org.json.simple.JSONObject;
 import org.junit.Assert;
@@ -17,6 +15,8 @@ public class TestElasticsearchUtils { @org.mockito.Mock
 
     @Mocked IConfiguration config;
 
+    @Mocked ElasticsearchHttpClient httpClient;
+
     @Test
     public void TestInstanceToJson() {
         System.out.println("Starting a test...");
@@ -46,14 +46,14 @@ public class TestElasticsearchUtils { @org.mockito.Mock
             }
         };
 
-        new MockUp<SystemUtils>() {
-            @Mock
-            String runHttpGetCommand(String url) {
-                return expectedIp;
+        new Expectations() {
+            {
+                httpClient.get(anyString);
+                result = expectedIp;
             }
         };
 
-        Assert.assertTrue(ElasticsearchUtils.amIMasterNode(config, new HttpModule(config)));
+        Assert.assertTrue(ElasticsearchUtils.amIMasterNode(config, new HttpModule(config), httpClient));
     }
 
     @Test
@@ -71,14 +71,14 @@ public class TestElasticsearchUtils { @org.mockito.Mock
             }
         };
 
-        new MockUp<SystemUtils>() {
-            @Mock
-            String runHttpGetCommand(String url) {
-                return expectedIp + " \n ";
+        new Expectations() {
+            {
+                httpClient.get(anyString);
+                result = expectedIp + " \n ";
             }
         };
 
-        Assert.assertTrue(ElasticsearchUtils.amIMasterNode(config, new HttpModule(config)));
+        Assert.assertTrue(ElasticsearchUtils.amIMasterNode(config, new HttpModule(config), httpClient));
     }
 
     @Test
@@ -98,14 +98,14 @@ public class TestElasticsearchUtils { @org.mockito.Mock
             }
         };
 
-        new MockUp<SystemUtils>() {
-            @Mock
-            String runHttpGetCommand(String url) {
-                return expectedLocalIp;
+        new Expectations() {
+            {
+                httpClient.get(anyString);
+                result = expectedLocalIp;
             }
         };
 
-        Assert.assertTrue(ElasticsearchUtils.amIMasterNode(config, new HttpModule(config)));
+        Assert.assertTrue(ElasticsearchUtils.amIMasterNode(config, new HttpModule(config), httpClient));
     }
 
     @Test
@@ -125,14 +125,14 @@ public class TestElasticsearchUtils { @org.mockito.Mock
             }
         };
 
-        new MockUp<SystemUtils>() {
-            @Mock
-            String runHttpGetCommand(String url) {
-                return returnedIp;
+        new Expectations() {
+            {
+                httpClient.get(anyString);
+                result = returnedIp;
             }
         };
 
-        Assert.assertFalse(ElasticsearchUtils.amIMasterNode(config, new HttpModule(config)));
+        Assert.assertFalse(ElasticsearchUtils.amIMasterNode(config, new HttpModule(config), httpClient));
     }
 
     @Test
@@ -147,14 +147,14 @@ public class TestElasticsearchUtils { @org.mockito.Mock
             }
         };
 
-        new MockUp<SystemUtils>() {
-            @Mock
-            String runHttpGetCommand(String url) {
-                return null;
+        new Expectations() {
+            {
+                httpClient.get(anyString);
+                result = null;
             }
         };
 
-        Assert.assertFalse(ElasticsearchUtils.amIMasterNode(config, new HttpModule(config)));
+        Assert.assertFalse(ElasticsearchUtils.amIMasterNode(config, new HttpModule(config), httpClient));
     }
 
     @Test
@@ -169,14 +169,14 @@ public class TestElasticsearchUtils { @org.mockito.Mock
             }
         };
 
-        new MockUp<SystemUtils>() {
-            @Mock
-            String runHttpGetCommand(String url) {
-                return "";
+        new Expectations() {
+            {
+                httpClient.get(anyString);
+                result = "";
             }
         };
 
-        Assert.assertFalse(ElasticsearchUtils.amIMasterNode(config, new HttpModule(config)));
+        Assert.assertFalse(ElasticsearchUtils.amIMasterNode(config, new HttpModule(config), httpClient));
     }
 
     public static List<RaigadInstance> getRaigadInstances() {
@@ -0,0 +1,85 @@
+package com.netflix.raigad.utils;
+
+import com.netflix.raigad.configuration.IConfiguration;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class TestMasterStatusTracker {
+    private static final String MASTER_URL = "http://127.0.0.1:7104/_cat/master?h=ip";
+
+    private IConfiguration config;
+    private ElasticsearchHttpClient httpClient;
+    private MasterStatusTracker masterStatusTracker;
+
+    @Before
+    public void setUp() {
+        config = mock(IConfiguration.class);
+        when(config.getMasterStatusRefreshIntervalMillis()).thenReturn(60000);
+        when(config.getHostIP()).thenReturn("54.0.0.1");
+        when(config.getHostLocalIP()).thenReturn("100.0.0.1");
+
+        HttpModule httpModule = mock(HttpModule.class);
+        when(httpModule.findMasterNodeURL()).thenReturn(MASTER_URL);
+
+        httpClient = mock(ElasticsearchHttpClient.class);
+        masterStatusTracker = new MasterStatusTracker(config, httpModule, httpClient);
+    }
+
+    @Test
+    public void testMasterIsLookedUpOnce() throws Exception {
+        when(httpClient.get(anyString())).thenReturn("100.0.0.1 \n");
+
+        Assert.assertTrue(masterStatusTracker.isMaster());
+        Assert.assertTrue(masterStatusTracker.isMaster());
+        Assert.assertEquals("100.0.0.1", masterStatusTracker.getMasterIp());
+
+        verify(httpClient, times(1)).get(MASTER_URL);
+    }
+
+    @Test
+    public void testOtherNodeIsMaster() throws Exception {
+        when(httpClient.get(anyString())).thenReturn("100.0.0.2");
+
+        Assert.assertFalse(masterStatusTracker.isMaster());
+    }
+
+    @Test
+    public void testInvalidateLooksUpMasterAgain() throws Exception {
+        when(httpClient.get(anyString())).thenReturn("100.0.0.2", "100.0.0.1");
+
+        Assert.assertFalse(masterStatusTracker.isMaster());
+        masterStatusTracker.invalidate();
+        Assert.assertTrue(masterStatusTracker.isMaster());
+
+        verify(httpClient, times(2)).get(MASTER_URL);
+    }
+
+    @Test
+    public void testOnlyMasterReportsClusterMetrics() throws Exception {
+        when(config.reportMetricsFromMasterOnly()).thenReturn(true);
+        when(httpClient.get(anyString())).thenReturn("100.0.0.2", "100.0.0.1");
+
+        Assert.assertFalse(masterStatusTracker.isClusterMetricsReporter());
+        masterStatusTracker.invalidate();
+        Assert.assertTrue(masterStatusTracker.isClusterMetricsReporter());
+    }
+
+    @Test
+    public void testEveryNodeReportsClusterMetricsWhenConfigured() throws Exception {
+        when(config.reportMetricsFromMasterOnly()).thenReturn(false);
+        when(httpClient.get(anyString())).thenReturn("100.0.0.2");
+
+        Assert.assertTrue(masterStatusTracker.isClusterMetricsReporter());
+    }
+
+    @Test(expected = ElasticsearchHttpException.class)
+    public void testFailedLookupWithoutKnownMasterIsPropagated() throws Exception {
+        when(httpClient.get(anyString())).thenThrow(new ElasticsearchHttpException("no master"));
+
+        masterStatusTracker.isMaster();
+    }
+}
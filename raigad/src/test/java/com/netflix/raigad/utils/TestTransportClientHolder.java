@@ -0,0 +1,132 @@
+package com.netflix.raigad.utils;
+
+import com.netflix.raigad.configuration.IConfiguration;
+import org.elasticsearch.client.transport.NoNodeAvailableException;
+import org.elasticsearch.index.IndexNotFoundException;
+import org.elasticsearch.transport.RemoteTransportException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class TestTransportClientHolder {
+    private IConfiguration config;
+    private TransportClientHolder.ClientFactory clientFactory;
+    private ScheduledExecutorService closeExecutor;
+    private TransportClientHolder holder;
+
+    @Before
+    public void setUp() {
+        config = mock(IConfiguration.class);
+        when(config.getTransportClientMaxWaitMillis()).thenReturn(0);
+        when(config.getTransportClientMaxConsecutiveFailures()).thenReturn(3);
+        when(config.getTransportClientRebuildMaxBackoffSeconds()).thenReturn(60);
+
+        clientFactory = mock(TransportClientHolder.ClientFactory.class);
+        closeExecutor = mock(ScheduledExecutorService.class);
+        holder = new TransportClientHolder(clientFactory, new FakeSleeper(), closeExecutor);
+    }
+
+    @Test
+    public void testHealthyClientIsReused() throws Exception {
+        ElasticsearchTransportClient client = client(1);
+        when(clientFactory.create(any())).thenReturn(client);
+
+        Assert.assertSame(client, holder.get(config));
+        Assert.assertSame(client, holder.get(config));
+
+        verify(clientFactory, times(1)).create(config);
+        Assert.assertEquals(0, holder.getRebuilds());
+    }
+
+    @Test
+    public void testClientWithoutNodesIsRebuilt() throws Exception {
+        ElasticsearchTransportClient first = client(1);
+        ElasticsearchTransportClient second = client(1);
+        when(clientFactory.create(any())).thenReturn(first, second);
+
+        Assert.assertSame(first, holder.get(config));
+        when(first.getConnectedNodeCount()).thenReturn(0);
+        Assert.assertSame(second, holder.get(config));
+        Assert.assertEquals(1, holder.getRebuilds());
+
+        // Requests in flight on the old client get a grace period before it is closed
+        verify(first, never()).close();
+        verifyClosedAfterGracePeriod(first);
+    }
+
+    @Test
+    public void testConsecutiveFailuresTriggerRebuild() throws Exception {
+        ElasticsearchTransportClient first = client(1);
+        ElasticsearchTransportClient second = client(1);
+        when(clientFactory.create(any())).thenReturn(first, second);
+
+        Assert.assertSame(first, holder.get(config));
+
+        holder.recordFailure();
+        holder.recordFailure();
+        holder.recordSuccess();
+        holder.recordFailure();
+        holder.recordFailure();
+        Assert.assertSame(first, holder.get(config));
+
+        holder.recordFailure();
+        Assert.assertEquals(3, holder.getConsecutiveFailures());
+        Assert.assertSame(second, holder.get(config));
+        Assert.assertEquals(0, holder.getConsecutiveFailures());
+        verifyClosedAfterGracePeriod(first);
+    }
+
+    @Test
+    public void testOnlyConnectionFailuresCount() {
+        Assert.assertTrue(ElasticsearchTransportClient.isConnectionFailure(new NoNodeAvailableException("no node")));
+        Assert.assertTrue(ElasticsearchTransportClient.isConnectionFailure(
+                new RemoteTransportException("remote", new NoNodeAvailableException("no node"))));
+        Assert.assertFalse(ElasticsearchTransportClient.isConnectionFailure(new IndexNotFoundException("nf_errors_log")));
+    }
+
+    @Test
+    public void testFailedRebuildBacksOff() throws Exception {
+        when(clientFactory.create(any())).thenReturn(client(0));
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                holder.get(config);
+                Assert.fail("Expected the unconnected client to be rejected");
+            } catch (ElasticsearchTransportClientConnectionException e) {
+                // expected
+            }
+        }
+
+        verify(clientFactory, times(1)).create(config);
+        Assert.assertEquals(0, holder.getConnectedNodeCount());
+    }
+
+    @Test(expected = ElasticsearchTransportClientConnectionException.class)
+    public void testFactoryFailureIsReported() throws Exception {
+        when(clientFactory.create(any())).thenThrow(new IllegalStateException("no transport"));
+
+        holder.get(config);
+    }
+
+    private void verifyClosedAfterGracePeriod(ElasticsearchTransportClient client) {
+        ArgumentCaptor<Runnable> close = ArgumentCaptor.forClass(Runnable.class);
+        verify(closeExecutor).schedule(close.capture(), eq(TransportClientHolder.CLOSE_GRACE_PERIOD_MILLIS), eq(TimeUnit.MILLISECONDS));
+
+        close.getValue().run();
+        verify(client).close();
+    }
+
+    private static ElasticsearchTransportClient client(int connectedNodes) {
+        ElasticsearchTransportClient client = mock(ElasticsearchTransportClient.class);
+        when(client.getConnectedNodeCount()).thenReturn(connectedNodes);
+        return client;
+    }
+}